@@ -0,0 +1,75 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://openjdk.java.net/projects/code-tools/jmh/
+ */
+
+package Benchmarks;
+
+import System.Bus;
+import System.RandomAccessMemory;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single byte accesses through the bus, sweeping the whole 16-bit
+ * address space, under different device maps:
+ * <ul>
+ * <li>single : One memory answering every address</li>
+ * <li>split : Two memories, one for each half of the address space</li>
+ * <li>paged : A separate memory for each 256-byte page</li>
+ * </ul>
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class BusBenchmark {
+
+  @Param( { "single", "split", "paged" } )
+  public String map;
+
+  private Bus bus;
+  private int address;
+
+  @Setup
+  public void setup() {
+    bus = new Bus();
+
+    int pageSize;
+    if( map.equals( "single" ) ) {
+      pageSize = 0x10000;
+    }
+    else if( map.equals( "split" ) ) {
+      pageSize = 0x8000;
+    }
+    else {
+      pageSize = 0x100;
+    }
+
+    RandomAccessMemory memory = null;
+    for( long addr = 0; addr <= 0xFFFF; addr++ ) {
+      if( addr % pageSize == 0 ) {
+        memory = new RandomAccessMemory( 0x10000 );
+      }
+      bus.connectDevice( memory, addr );
+    }
+  }
+
+  @Benchmark
+  public int readByte() {
+    address = ( address + 1 ) & 0xFFFF;
+    return bus.readByte( address );
+  }
+
+  @Benchmark
+  public void writeByte() {
+    address = ( address + 1 ) & 0xFFFF;
+    bus.writeByte( address, address );
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://openjdk.java.net/projects/code-tools/jmh/
+ *   http://www.6502.org/tutorials/6502opcodes.html
+ */
+
+package Benchmarks;
+
+import System.CPUState;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CPU6502.step() for one class of opcodes at a time. Each class is a
+ * short pattern of instructions repeated into a straight-line block, and the
+ * CPU is put back to the start of the block after every pass, so no other
+ * instructions are measured.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class CPUBenchmark {
+
+  private static final int REPEATS = 16;
+  private static final int BLOCK = 4 * REPEATS;
+
+  //Four instructions of each class
+  private static final int[] LOAD = {
+    0xA9, 0x12,       //LDA #$12
+    0xA5, 0x10,       //LDA $10
+    0xAD, 0x00, 0x03, //LDA $0300
+    0xBD, 0x00, 0x03  //LDA $0300,X
+  };
+  private static final int[] STORE = {
+    0x85, 0x10,       //STA $10
+    0x8D, 0x00, 0x03, //STA $0300
+    0x9D, 0x00, 0x03, //STA $0300,X
+    0x95, 0x20        //STA $20,X
+  };
+  private static final int[] ALU = {
+    0x69, 0x01, //ADC #$01
+    0x29, 0xFF, //AND #$FF
+    0x49, 0x55, //EOR #$55
+    0xC9, 0x10  //CMP #$10
+  };
+  private static final int[] RMW = {
+    0xE6, 0x10,       //INC $10
+    0x06, 0x11,       //ASL $11
+    0xEE, 0x00, 0x03, //INC $0300
+    0xE8              //INX
+  };
+  private static final int[] BRANCH = {
+    0x90, 0x00, //BCC *+2, taken
+    0xD0, 0x00, //BNE *+2, taken
+    0xB0, 0x00, //BCS *+2, not taken
+    0xF0, 0x00  //BEQ *+2, not taken
+  };
+  private static final int[] STACK = {
+    0x48, //PHA
+    0x08, //PHP
+    0x28, //PLP
+    0x68  //PLA
+  };
+
+  @Param( { "load", "store", "alu", "rmw", "branch", "stack" } )
+  public String opcodes;
+
+  private Machine machine;
+  private CPUState start;
+
+  @Setup
+  public void setup() {
+    int[] pattern;
+    if( opcodes.equals( "load" ) ) {
+      pattern = LOAD;
+    }
+    else if( opcodes.equals( "store" ) ) {
+      pattern = STORE;
+    }
+    else if( opcodes.equals( "alu" ) ) {
+      pattern = ALU;
+    }
+    else if( opcodes.equals( "rmw" ) ) {
+      pattern = RMW;
+    }
+    else if( opcodes.equals( "branch" ) ) {
+      pattern = BRANCH;
+    }
+    else {
+      pattern = STACK;
+    }
+
+    int[] program = new int[pattern.length * REPEATS];
+    for( int i = 0; i < REPEATS; i++ ) {
+      System.arraycopy( pattern, 0, program, i * pattern.length,
+                        pattern.length );
+    }
+
+    machine = new Machine( program );
+    start = new CPUState();
+    machine.cpu.saveState( start );
+  }
+
+  @Benchmark
+  @OperationsPerInvocation( BLOCK )
+  public long step() {
+    machine.cpu.restoreState( start );
+    for( int i = 0; i < BLOCK; i++ ) {
+      machine.cpu.step();
+    }
+    return machine.cpu.getCycles();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://openjdk.java.net/projects/code-tools/jmh/
+ */
+
+package Benchmarks;
+
+import System.Bus;
+import System.MemoryManagementUnit;
+import System.RandomAccessMemory;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single byte accesses sweeping the lower 32KB of the logical
+ * address space, for the cost of the MMU over the bus:
+ * <ul>
+ * <li>physical : The physical bus on its own</li>
+ * <li>disabled : Through an MMU with translation disabled</li>
+ * <li>translated : Through an MMU translating every page elsewhere, with
+ * every translation in the TLB</li>
+ * <li>thrashing : As translated, but with a one-entry TLB and a stride of a
+ * page and a byte, so every access reads its entry from the table</li>
+ * </ul>
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class MMUBenchmark {
+
+  private static final int SWEEP = 0x8000;
+  private static final int REGISTERS = 0xFF00;
+  private static final int TABLE = 0x20000;
+
+  @Param( { "physical", "disabled", "translated", "thrashing" } )
+  public String mode;
+
+  private Bus bus;
+  private int stride;
+  private int address;
+
+  @Setup
+  public void setup() {
+    stride = mode.equals( "thrashing" ) ?
+             MemoryManagementUnit.PAGE_SIZE + 1 : 1;
+    Bus physical = new Bus();
+    physical.connectDevice( new RandomAccessMemory( 0x30000 ), 0x00000,
+                            0x2FFFF );
+    if( mode.equals( "physical" ) ) {
+      bus = physical;
+      return;
+    }
+
+    MemoryManagementUnit mmu = new MemoryManagementUnit(
+      physical, REGISTERS, mode.equals( "thrashing" ) ? 1 : 16 );
+    bus = mmu;
+    if( mode.equals( "disabled" ) ) {
+      return;
+    }
+
+    //logical page p at physical page 0x10 + p, in the second 64KB
+    for( int page = 0; page < 16; page++ ) {
+      int entry = ( 0x10 + page ) << MemoryManagementUnit.PAGE_BITS |
+                  MemoryManagementUnit.PTE_VALID |
+                  MemoryManagementUnit.PTE_WRITE;
+      for( int i = 0; i < 4; i++ ) {
+        physical.writeByte( TABLE + page * 4 + i, entry >>> ( i * 8 ) );
+      }
+    }
+    for( int i = 0; i < 4; i++ ) {
+      mmu.writeByte( REGISTERS + MemoryManagementUnit.KERNEL_TABLE + i,
+                     TABLE >>> ( i * 8 ) );
+    }
+    mmu.writeByte( REGISTERS + MemoryManagementUnit.CONTROL,
+                   MemoryManagementUnit.CONTROL_ENABLE );
+  }
+
+  @Benchmark
+  public int readByte() {
+    address = ( address + stride ) & ( SWEEP - 1 );
+    return bus.readByte( address );
+  }
+
+  @Benchmark
+  public void writeByte() {
+    address = ( address + stride ) & ( SWEEP - 1 );
+    bus.writeByte( address, address );
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Benchmarks;
+
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+/**
+ * A bare machine for the benchmarks: 64KB of RAM across the whole 16-bit
+ * address space, with a guest program at 0x0200 and the reset vector
+ * pointing to it.
+ */
+class Machine {
+
+  static final int ORIGIN = 0x0200;
+  private static final int RESET_VECTOR = 0xFFFC;
+
+  final RandomAccessMemory memory;
+  final Bus bus;
+  final CPU6502 cpu;
+
+  /**
+   * Builds the machine and resets the CPU into the program.
+   * @param program The program bytes
+   */
+  Machine( int[] program ) {
+    memory = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    for( long address = 0; address <= 0xFFFF; address++ ) {
+      bus.connectDevice( memory, address );
+    }
+
+    for( int i = 0; i < program.length; i++ ) {
+      memory.writeByte( ORIGIN + i, program[i] );
+    }
+    memory.writeByte( RESET_VECTOR, ORIGIN & 0xFF );
+    memory.writeByte( RESET_VECTOR + 1, ORIGIN >> 8 );
+
+    cpu = new CPU6502( bus );
+    cpu.reset();
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://openjdk.java.net/projects/code-tools/jmh/
+ */
+
+package Benchmarks;
+
+import System.RandomAccessMemory;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single byte accesses straight to RandomAccessMemory, without the
+ * bus, both sequentially and with a stride that defeats the cache lines.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class MemoryBenchmark {
+
+  private static final int SIZE = 0x10000;
+
+  @Param( { "1", "4099" } )
+  public int stride;
+
+  private RandomAccessMemory memory;
+  private int address;
+
+  @Setup
+  public void setup() {
+    memory = new RandomAccessMemory( SIZE );
+  }
+
+  @Benchmark
+  public int readByte() {
+    address = ( address + stride ) & ( SIZE - 1 );
+    return memory.readByte( address );
+  }
+
+  @Benchmark
+  public void writeByte() {
+    address = ( address + stride ) & ( SIZE - 1 );
+    memory.writeByte( address, address );
+  }
+}
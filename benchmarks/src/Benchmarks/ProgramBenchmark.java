@@ -0,0 +1,111 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://openjdk.java.net/projects/code-tools/jmh/
+ */
+
+package Benchmarks;
+
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs whole guest programs and reports the emulated clock rate, in
+ * millions of guest cycles per second. Every workload loops forever, so any
+ * number of cycles can be run:
+ * <ul>
+ * <li>copy : Copies a 256-byte page with LDA/STA abs,X</li>
+ * <li>sum : Adds up a page into a 16-bit total in zero page</li>
+ * <li>delay : Nested DEX/DEY countdown loops</li>
+ * </ul>
+ * <p>Each invocation runs the same stretch of the program, a fixed number of
+ * guest cycles, whatever a step executes. Superinstructions leave the cycle
+ * count unchanged, so the scores with and without them compare the same
+ * guest work.</p>
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ProgramBenchmark {
+
+  private static final int CYCLES = 40000;
+
+  private static final int[] COPY = {
+    0xA2, 0x00,       //      LDX #$00
+    0xBD, 0x00, 0x04, //loop  LDA $0400,X
+    0x9D, 0x00, 0x05, //      STA $0500,X
+    0xE8,             //      INX
+    0xD0, 0xF7,       //      BNE loop
+    0xB8,             //      CLV
+    0x50, 0xF2        //      BVC start
+  };
+  private static final int[] SUM = {
+    0xA2, 0x00,       //      LDX #$00
+    0xA9, 0x00,       //      LDA #$00
+    0x85, 0x10,       //      STA $10
+    0x85, 0x11,       //      STA $11
+    0x18,             //loop  CLC
+    0xA5, 0x10,       //      LDA $10
+    0x7D, 0x00, 0x04, //      ADC $0400,X
+    0x85, 0x10,       //      STA $10
+    0x90, 0x02,       //      BCC next
+    0xE6, 0x11,       //      INC $11
+    0xE8,             //next  INX
+    0xD0, 0xF1,       //      BNE loop
+    0xB8,             //      CLV
+    0x50, 0xE6        //      BVC start
+  };
+  private static final int[] DELAY = {
+    0xA0, 0x00, //      LDY #$00
+    0xA2, 0x00, //outer LDX #$00
+    0xCA,       //inner DEX
+    0xD0, 0xFD, //      BNE inner
+    0x88,       //      DEY
+    0xD0, 0xF8, //      BNE outer
+    0xB8,       //      CLV
+    0x50, 0xF3  //      BVC start
+  };
+
+  @Param( { "copy", "sum", "delay" } )
+  public String workload;
+
+  @Param( { "true", "false" } )
+  public boolean fusion;
+
+  private Machine machine;
+
+  @Setup
+  public void setup() {
+    if( workload.equals( "copy" ) ) {
+      machine = new Machine( COPY );
+    }
+    else if( workload.equals( "sum" ) ) {
+      machine = new Machine( SUM );
+    }
+    else {
+      machine = new Machine( DELAY );
+    }
+    machine.cpu.setFusionEnabled( fusion );
+
+    for( int i = 0; i < 0x100; i++ ) {
+      machine.memory.writeByte( 0x0400 + i, i * 7 );
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation( CYCLES )
+  public long run() {
+    //stops within an instruction of the end, a few cycles in 40000
+    long end = machine.cpu.getCycles() + CYCLES;
+    while( machine.cpu.getCycles() < end ) {
+      machine.cpu.step();
+    }
+    return machine.cpu.getCycles();
+  }
+}
@@ -0,0 +1,415 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://archive.6502.org/datasheets/mos_6551_acia.pdf
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A serial port in the manner of a 6551 ACIA, whose receiver and
+ * transmitter are host channels: pipes, files or sockets. Each direction
+ * has a FIFO, and a SerialHub moves data between the FIFOs and the
+ * channels, so the CPU never waits on host I/O.</p>
+ * <p>It occupies four addresses from its base:</p>
+ * <ul>
+ * <li>0 : Writes queue a byte for transmission. Reads take the next byte
+ * received.</li>
+ * <li>1 : Reads give the STATUS_ bits, and clear STATUS_IRQ. Writes reset
+ * the command register.</li>
+ * <li>2 : Command, see the COMMAND_ bits</li>
+ * <li>3 : Control. Kept for the guest, as the host sets the line speed.</li>
+ * </ul>
+ * <p>STATUS_TDRE is set while the transmit FIFO, or the link, has room, and
+ * bytes written without it are lost. Nothing is read from the input while
+ * the receive FIFO is full, so received bytes are never lost.</p>
+ * <p>An IRQ is raised when bytes are received, unless COMMAND_RX_IRQ_OFF is
+ * set, and when the transmit FIFO empties, if COMMAND_TX_IRQ is set. On a
+ * link, the transmit IRQ is raised instead when the link has room after a
+ * byte is sent, or once room comes back. Both need COMMAND_DTR.</p>
+ * <p>A port without channels can instead be joined to a port of another
+ * machine by a SerialLink.</p>
+ */
+public class ACIA implements BusDevice {
+
+  //Register offsets
+  public static final int DATA = 0;
+  public static final int STATUS = 1;
+  public static final int COMMAND = 2;
+  public static final int CONTROL = 3;
+  public static final int REGISTERS = 4;
+
+  //Status bits
+  public static final int STATUS_RDRF = 0x08;
+  public static final int STATUS_TDRE = 0x10;
+  public static final int STATUS_IRQ = 0x80;
+
+  //Command bits
+  public static final int COMMAND_DTR = 0x01;
+  public static final int COMMAND_RX_IRQ_OFF = 0x02;
+  public static final int COMMAND_TX_IRQ = 0x04;
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+  private final SerialHub hub;
+  private final ReadableByteChannel in;
+  private final WritableByteChannel out;
+  private SerialLink.Endpoint link;
+
+  private volatile int command;
+  private int control;
+  private int received;
+  private volatile boolean interrupted;
+
+  //Receive FIFO, filled by the hub at tail and emptied by the CPU at head
+  private final byte[] rx;
+  private final ByteBuffer rxView;
+  private final AtomicLong rxHead;
+  private final AtomicLong rxTail;
+  private volatile boolean rxStalled;
+  private boolean eof;
+
+  //Transmit FIFO, filled by the CPU at tail and emptied by the hub at head
+  private final byte[] tx;
+  private final ByteBuffer txView;
+  private final AtomicLong txHead;
+  private final AtomicLong txTail;
+
+  private final int mask;
+
+  //Hub state
+  private final AtomicBoolean queued;
+  private boolean polled;
+  private volatile boolean closed;
+
+  /**
+   * Constructs the port. Either channel may be left out.
+   * @param cpu The CPU to interrupt
+   * @param bus The bus to connect to
+   * @param base The first bus address of the registers
+   * @param hub The hub moving the data, or null without channels
+   * @param in The channel received bytes come from, or null
+   * @param out The channel transmitted bytes go to, or null
+   * @param fifo The size of each FIFO in bytes, rounded up to a power of two
+   * @throws IllegalArgumentException If fifo is less than 1 or more than 1GB
+   */
+  public ACIA( CPU6502 cpu, Bus bus, long base, SerialHub hub,
+               ReadableByteChannel in, WritableByteChannel out, int fifo )
+    throws IllegalArgumentException {
+    if( fifo < 1 || fifo > 1 << 30 ) {
+      throw new IllegalArgumentException( "Bad FIFO size: " + fifo );
+    }
+
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+    this.hub = hub;
+    this.in = in;
+    this.out = out;
+
+    fifo = Integer.highestOneBit( fifo - 1 ) << 1;
+    if( fifo == 0 ) {
+      fifo = 1;
+    }
+    mask = fifo - 1;
+    rx = new byte[fifo];
+    tx = new byte[fifo];
+    rxView = ByteBuffer.wrap( rx );
+    txView = ByteBuffer.wrap( tx );
+    rxHead = new AtomicLong();
+    rxTail = new AtomicLong();
+    txHead = new AtomicLong();
+    txTail = new AtomicLong();
+    queued = new AtomicBoolean();
+  }
+
+  /**
+   * Connects the registers to the bus at the base address and starts
+   * receiving.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + REGISTERS - 1 );
+    queue();
+  }
+
+  /**
+   * Stops moving data. Bytes still in the FIFOs are discarded; the
+   * channels are left open.
+   */
+  public void close() {
+    closed = true;
+    queue();
+  }
+
+  @Override
+  public int readByte( long address ) {
+    switch( (int)( address - base ) ) {
+      case DATA:
+        long head = rxHead.get();
+        if( head != rxTail.get() ) {
+          received = rx[(int)( head & mask )] & 0xFF;
+          rxHead.set( head + 1 ); //ordered before the stall check
+          if( rxStalled ) {
+            rxStalled = false;
+            queue();
+          }
+        }
+        return received;
+      case STATUS:
+        boolean room = link != null ? link.isReady()
+                                    : txTail.get() - txHead.get() <= mask;
+        int status = ( rxHead.get() != rxTail.get() ? STATUS_RDRF : 0 ) |
+                     ( room ? STATUS_TDRE : 0 ) |
+                     ( interrupted ? STATUS_IRQ : 0 );
+        interrupted = false;
+        return status;
+      case COMMAND:
+        return command;
+      default:
+        return control;
+    }
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    value &= 0xFF;
+    switch( (int)( address - base ) ) {
+      case DATA:
+        if( link != null ) {
+          if( link.send( value ) && link.isReady() ) {
+            linkReady(); //otherwise the link says when room comes back
+          }
+          break;
+        }
+        long tail = txTail.get();
+        long head = txHead.get();
+        if( tail - head <= mask ) {
+          tx[(int)( tail & mask )] = (byte)value;
+          txTail.lazySet( tail + 1 );
+          queue();
+        }
+        break;
+      case STATUS:
+        command &= 0xE0; //programmed reset
+        break;
+      case COMMAND:
+        command = value;
+        if( ( value & ( COMMAND_DTR | COMMAND_TX_IRQ ) ) ==
+            ( COMMAND_DTR | COMMAND_TX_IRQ ) &&
+            ( link != null ? link.isReady()
+                           : txTail.get() == txHead.get() ) ) {
+          interrupt();
+        }
+        break;
+      default:
+        control = value;
+        break;
+    }
+  }
+
+  /**
+   * Writes what the transmit FIFO holds to the output, as far as it will
+   * take it. Hub thread only.
+   * @throws IOException If the output could not be written to
+   */
+  void transmit() throws IOException {
+    long head = txHead.get();
+    long tail = txTail.get();
+    if( out == null || head == tail ) {
+      return;
+    }
+
+    int start = (int)( head & mask );
+    int length = (int)Math.min( tail - head, tx.length - start );
+    txView.limit( start + length ).position( start );
+    int written = out.write( txView );
+    txHead.lazySet( head + written );
+
+    if( head + written == tail && ( command & COMMAND_TX_IRQ ) != 0 ) {
+      interrupt();
+    }
+  }
+
+  /**
+   * Reads what fits in the receive FIFO from the input. Hub thread only.
+   * @throws IOException If the input could not be read from
+   */
+  void receive() throws IOException {
+    if( in == null || eof ) {
+      return;
+    }
+
+    long head = rxHead.get();
+    long tail = rxTail.get();
+    int free = (int)( rx.length - ( tail - head ) );
+    if( free == 0 ) {
+      rxStalled = true;
+      if( rxHead.get() != head ) { //made room meanwhile
+        rxStalled = false;
+        queue();
+      }
+      return;
+    }
+
+    int start = (int)( tail & mask );
+    int length = Math.min( free, rx.length - start );
+    rxView.limit( start + length ).position( start );
+    int read = in.read( rxView );
+    if( read < 0 ) {
+      eof = true;
+    }
+    else if( read > 0 ) {
+      rxTail.lazySet( tail + read );
+      if( ( command & COMMAND_RX_IRQ_OFF ) == 0 ) {
+        interrupt();
+      }
+    }
+  }
+
+  /**
+   * Puts a byte that came over a link in the receive FIFO. Thread of the
+   * CPU only.
+   * @param value The byte
+   * @return False if the FIFO was full and the byte was lost
+   */
+  boolean deliver( int value ) {
+    long tail = rxTail.get();
+    if( tail - rxHead.get() > mask ) {
+      return false;
+    }
+    rx[(int)( tail & mask )] = (byte)value;
+    rxTail.lazySet( tail + 1 );
+    if( ( command & COMMAND_RX_IRQ_OFF ) == 0 ) {
+      interrupt();
+    }
+    return true;
+  }
+
+  /**
+   * Tells the port that its link has room for a byte, interrupting if
+   * COMMAND_TX_IRQ is set. Thread of the CPU only.
+   */
+  void linkReady() {
+    if( ( command & COMMAND_TX_IRQ ) != 0 ) {
+      interrupt();
+    }
+  }
+
+  /**
+   * Joins the port to a link.
+   * @param link The end of the link on the side of this port
+   */
+  void setLink( SerialLink.Endpoint link ) {
+    this.link = link;
+  }
+
+  /**
+   * The link the port is joined to
+   * @return The end of the link on the side of this port, or null
+   */
+  SerialLink.Endpoint getLink() {
+    return link;
+  }
+
+  /**
+   * Whether the hub should wait for the input. Hub thread only.
+   * @return True if there is room for more input
+   */
+  boolean wantsRead() {
+    return in != null && !eof && !rxStalled;
+  }
+
+  /**
+   * Whether the hub should wait for the output. Hub thread only.
+   * @return True if bytes are waiting to be transmitted
+   */
+  boolean wantsWrite() {
+    return out != null && txHead.get() != txTail.get();
+  }
+
+  /**
+   * Stops all I/O after a host error. Hub thread only.
+   */
+  void fail() {
+    closed = true;
+  }
+
+  /**
+   * The input channel
+   * @return The channel, or null
+   */
+  ReadableByteChannel getInput() {
+    return in;
+  }
+
+  /**
+   * The output channel
+   * @return The channel, or null
+   */
+  WritableByteChannel getOutput() {
+    return out;
+  }
+
+  /**
+   * Whether the port was closed or failed
+   * @return True once no more data is moved
+   */
+  boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Whether the hub polls the port on every pass. Hub thread only.
+   * @return True if polled
+   */
+  boolean isPolled() {
+    return polled;
+  }
+
+  /**
+   * Records whether the hub polls the port. Hub thread only.
+   * @param polled True if polled
+   */
+  void setPolled( boolean polled ) {
+    this.polled = polled;
+  }
+
+  /**
+   * Lets the port be queued again once the hub has taken it.
+   */
+  void dequeued() {
+    queued.set( false );
+  }
+
+  /**
+   * Queues the port with the hub, unless it already is.
+   */
+  private void queue() {
+    if( hub != null && queued.compareAndSet( false, true ) ) {
+      hub.service( this );
+    }
+  }
+
+  /**
+   * Flags an interrupt and interrupts the CPU, if the terminal is ready.
+   */
+  private void interrupt() {
+    if( ( command & COMMAND_DTR ) != 0 ) {
+      interrupted = true;
+      cpu.requestIRQ();
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.RandomAccessMemory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Memory larger than the address space of the CPU, seen through a window
+ * of pages. The store is divided into banks the size of a page, and each
+ * page of the window shows whichever bank was last selected for it.</p>
+ * <p>Every page has two bank registers, from the register base:</p>
+ * <ul>
+ * <li>2 * page : Bank, low byte. Writing it switches the page to the bank
+ * whose high byte was last written to the next register.</li>
+ * <li>2 * page + 1 : Bank, high byte. Only needed past 256 banks.</li>
+ * </ul>
+ * <p>Bank numbers wrap around the number of banks. A switch only replaces
+ * the offset of the page in a table, so it costs the same whatever the size
+ * of the page, and nothing is copied.</p>
+ */
+public class BankedMemory implements BusDevice {
+
+  private final Bus bus;
+  private final long window;
+  private final long registers;
+  private final int pages;
+  private final int banks;
+
+  //Page size as a shift and mask, for splitting window offsets
+  private final int shift;
+  private final int mask;
+
+  //Every bank, one after the other
+  private final byte[] store;
+
+  //For each page of the window, the offset of its bank in the store
+  private final int[] offsets;
+  private final int[] selected;
+  private final int[] high;
+
+  /**
+   * Constructs the memory. Every page starts on bank 0.
+   * @param bus The bus to connect to
+   * @param window The first bus address of the window
+   * @param pages The number of pages in the window
+   * @param pageSize The number of bytes in a page, a power of two
+   * @param banks The number of banks in the store
+   * @param registers The first bus address of the bank registers
+   * @throws IllegalArgumentException If pages or banks is less than 1, the
+   * page size is not a power of two, or the store would exceed 2GB
+   */
+  public BankedMemory( Bus bus, long window, int pages, int pageSize,
+                       int banks, long registers )
+    throws IllegalArgumentException {
+    if( pages < 1 || banks < 1 ) {
+      throw new IllegalArgumentException( "Must have at least 1 page and " +
+                                          "bank" );
+    }
+    if( pageSize < 1 || Integer.bitCount( pageSize ) != 1 ) {
+      throw new IllegalArgumentException( "Bad page size: " + pageSize );
+    }
+    if( (long)banks * pageSize > RandomAccessMemory.MAX_MEMORY ) {
+      throw new IllegalArgumentException( "Store too large: " + banks +
+                                          " banks of " + pageSize );
+    }
+
+    this.bus = bus;
+    this.window = window;
+    this.registers = registers;
+    this.pages = pages;
+    this.banks = banks;
+    shift = Integer.numberOfTrailingZeros( pageSize );
+    mask = pageSize - 1;
+    store = new byte[banks * pageSize];
+    offsets = new int[pages];
+    selected = new int[pages];
+    high = new int[pages];
+  }
+
+  /**
+   * Connects the window and the bank registers to the bus.
+   */
+  public void connect() {
+    bus.connectDevice( this, window, window + ( (long)pages << shift ) - 1 );
+    bus.connectDevice( this, registers, registers + pages * 2 - 1 );
+  }
+
+  /**
+   * Switches a page of the window to a bank.
+   * @param page The page of the window
+   * @param bank The bank, wrapped around the number of banks
+   * @throws IllegalArgumentException If the page is not in the window
+   */
+  public void select( int page, int bank ) throws IllegalArgumentException {
+    if( page < 0 || page >= pages ) {
+      throw new IllegalArgumentException( "No page " + page + " in window" );
+    }
+    bank = Integer.remainderUnsigned( bank, banks );
+    selected[page] = bank;
+    offsets[page] = bank << shift;
+  }
+
+  /**
+   * The bank a page of the window shows
+   * @param page The page of the window
+   * @return The bank
+   * @throws IllegalArgumentException If the page is not in the window
+   */
+  public int getBank( int page ) throws IllegalArgumentException {
+    if( page < 0 || page >= pages ) {
+      throw new IllegalArgumentException( "No page " + page + " in window" );
+    }
+    return selected[page];
+  }
+
+  /**
+   * The number of bytes in the store, all banks together
+   * @return The size of the store
+   */
+  public int getSize() {
+    return store.length;
+  }
+
+  /**
+   * Writes as much of the file to the store as possible, from bank 0
+   * @param file The file to read
+   * @throws IOException if the file could not be read from or does not exist
+   */
+  public void load( File file ) throws IOException {
+    FileInputStream fis = new FileInputStream( file );
+    try {
+      int offset = 0;
+      int read;
+      while( offset < store.length &&
+             ( read = fis.read( store, offset, store.length - offset ) ) > 0 ) {
+        offset += read;
+      }
+    }
+    finally {
+      fis.close();
+    }
+  }
+
+  /**
+   * Dumps the whole store to the file, bank after bank
+   * @param file The file to overwrite
+   * @throws IOException if the file could not be written to
+   */
+  public void dump( File file ) throws IOException {
+    FileOutputStream fos = new FileOutputStream( file );
+    try {
+      fos.write( store );
+    }
+    finally {
+      fos.close();
+    }
+  }
+
+  @Override
+  public int peekByte( long address ) {
+    long offset = address - window;
+    if( offset >= 0 && offset < (long)pages << shift ) {
+      int at = (int)offset;
+      return store[offsets[at >> shift] + ( at & mask )] & 0xFF;
+    }
+    return -1;
+  }
+
+  @Override
+  public int readByte( long address ) {
+    long offset = address - window;
+    if( offset >= 0 && offset < (long)pages << shift ) {
+      int at = (int)offset;
+      return store[offsets[at >> shift] + ( at & mask )] & 0xFF;
+    }
+
+    int register = (int)( address - registers );
+    return ( register & 1 ) == 0 ? selected[register >> 1] & 0xFF
+                                 : high[register >> 1];
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    long offset = address - window;
+    if( offset >= 0 && offset < (long)pages << shift ) {
+      int at = (int)offset;
+      store[offsets[at >> shift] + ( at & mask )] = (byte)value;
+      return;
+    }
+
+    int register = (int)( address - registers );
+    int page = register >> 1;
+    if( ( register & 1 ) == 0 ) {
+      select( page, high[page] << 8 | ( value & 0xFF ) );
+    }
+    else {
+      high[page] = value & 0xFF;
+    }
+  }
+
+  @Override
+  public void readBytes( long address, byte[] destination, int offset,
+                         int length ) {
+    if( !inWindow( address, length ) ) {
+      BusDevice.super.readBytes( address, destination, offset, length );
+      return;
+    }
+
+    int at = (int)( address - window );
+    while( length > 0 ) {
+      int run = Math.min( length, mask + 1 - ( at & mask ) );
+      System.arraycopy( store, offsets[at >> shift] + ( at & mask ),
+                        destination, offset, run );
+      at += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) {
+    if( !inWindow( address, length ) ) {
+      BusDevice.super.writeBytes( address, source, offset, length );
+      return;
+    }
+
+    int at = (int)( address - window );
+    while( length > 0 ) {
+      int run = Math.min( length, mask + 1 - ( at & mask ) );
+      System.arraycopy( source, offset,
+                        store, offsets[at >> shift] + ( at & mask ), run );
+      at += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void readBytes( long address, ByteBuffer destination, int length ) {
+    if( !inWindow( address, length ) ) {
+      BusDevice.super.readBytes( address, destination, length );
+      return;
+    }
+
+    int at = (int)( address - window );
+    while( length > 0 ) {
+      int run = Math.min( length, mask + 1 - ( at & mask ) );
+      destination.put( store, offsets[at >> shift] + ( at & mask ), run );
+      at += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void writeBytes( long address, ByteBuffer source, int length ) {
+    if( !inWindow( address, length ) ) {
+      BusDevice.super.writeBytes( address, source, length );
+      return;
+    }
+
+    int at = (int)( address - window );
+    while( length > 0 ) {
+      int run = Math.min( length, mask + 1 - ( at & mask ) );
+      source.get( store, offsets[at >> shift] + ( at & mask ), run );
+      at += run;
+      length -= run;
+    }
+  }
+
+  /**
+   * Whether a range of addresses lies entirely in the window
+   * @param address The first address
+   * @param length The number of bytes
+   * @return True if every byte is in the window
+   */
+  private boolean inWindow( long address, int length ) {
+    long offset = address - window;
+    return offset >= 0 && offset + length <= (long)pages << shift;
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.CycleEvent;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A block storage device backed by a disk image file on the host. The
+ * image is memory-mapped, so the host page cache serves as the sector cache:
+ * sector transfers are single copies between the mapping and guest memory,
+ * and written sectors reach the disk when a background thread flushes them,
+ * periodically or on request.</p>
+ * <p>Registers, from the base address:</p>
+ * <ul>
+ * <li>0-2 : Sector number, low byte first</li>
+ * <li>3 : Sector count for READ and WRITE</li>
+ * <li>4-5 : Guest memory address for READ and WRITE, low byte first</li>
+ * <li>6 : Control, see the CONTROL_ bits</li>
+ * <li>7 : Writes start a command. Reads give the STATUS_ bits, and clear
+ * STATUS_DONE.</li>
+ * </ul>
+ * <p>A sector buffer of SECTOR_SIZE bytes is mapped from BUFFER, for guests
+ * that would rather move sectors through LOAD and STORE.</p>
+ * <p>Commands complete after a configurable number of cycles per sector, and
+ * may raise an IRQ when they do. FLUSH completes once the image is on
+ * disk, on the flusher thread, so the status is only ever changed
+ * atomically.</p>
+ */
+public class BlockDevice implements BusDevice {
+
+  public static final int SECTOR_SIZE = 512;
+
+  //Register offsets
+  public static final int SECTOR = 0;
+  public static final int COUNT = 3;
+  public static final int ADDRESS = 4;
+  public static final int CONTROL = 6;
+  public static final int COMMAND = 7;
+  public static final int BUFFER = 0x200;
+  public static final int WINDOW = BUFFER + SECTOR_SIZE;
+
+  //Commands
+  public static final int READ = 1;
+  public static final int WRITE = 2;
+  public static final int LOAD = 3;
+  public static final int STORE = 4;
+  public static final int FLUSH = 5;
+
+  //Control bits
+  public static final int CONTROL_IRQ = 0x01;
+
+  //Status bits
+  public static final int STATUS_ERROR = 0x01;
+  public static final int STATUS_DONE = 0x40;
+  public static final int STATUS_BUSY = 0x80;
+
+  //How often written sectors are flushed without being asked
+  private static final long FLUSH_NANOS = 1000000000L;
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+  private final int cyclesPerSector;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer image;
+  private final int sectors;
+
+  //Registers. The status is also set by the flusher when a FLUSH ends.
+  private final int[] registers;
+  private final byte[] buffer;
+  private final AtomicInteger status;
+
+  //Runs the pending command when its time comes
+  private final CycleEvent completion;
+  private int command;
+
+  //Background flushing
+  private final Thread flusher;
+  private volatile boolean dirty;
+  private volatile boolean flushRequested;
+  private volatile boolean running;
+
+  /**
+   * Opens a disk image. Its length is rounded down to whole sectors.
+   * @param cpu The CPU whose cycles time the commands
+   * @param bus The bus guest memory is reached through
+   * @param base The first bus address of the device
+   * @param image The image file
+   * @param cyclesPerSector The cycles each sector takes to transfer
+   * @throws IOException If the image could not be opened or mapped
+   */
+  public BlockDevice( CPU6502 cpu, Bus bus, long base, File image,
+                      int cyclesPerSector ) throws IOException {
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+    this.cyclesPerSector = cyclesPerSector;
+
+    file = new RandomAccessFile( image, "rw" );
+    long length = Math.min( file.length(), Integer.MAX_VALUE );
+    sectors = (int)( length / SECTOR_SIZE );
+    this.image = file.getChannel().map( FileChannel.MapMode.READ_WRITE, 0,
+                                        (long)sectors * SECTOR_SIZE );
+
+    registers = new int[COMMAND + 1];
+    buffer = new byte[SECTOR_SIZE];
+    status = new AtomicInteger();
+
+    completion = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        execute();
+      }
+    };
+
+    flusher = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        flushLoop();
+      }
+    }, "6502 block device flusher" );
+    flusher.setDaemon( true );
+    running = true;
+    flusher.start();
+  }
+
+  /**
+   * Connects the registers and sector buffer to the bus at the base address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + WINDOW - 1 );
+  }
+
+  /**
+   * The size of the image
+   * @return The number of sectors
+   */
+  public int getSectors() {
+    return sectors;
+  }
+
+  @Override
+  public int readByte( long address ) {
+    int offset = (int)( address - base );
+    if( offset >= BUFFER ) {
+      return buffer[offset - BUFFER] & 0xFF;
+    }
+    if( offset == COMMAND ) {
+      //a FLUSH may end between reading and clearing
+      int value;
+      do {
+        value = status.get();
+      } while( !status.compareAndSet( value, value & ~STATUS_DONE ) );
+      return value;
+    }
+    return offset < COMMAND ? registers[offset] : 0;
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    int offset = (int)( address - base );
+    if( offset >= BUFFER ) {
+      buffer[offset - BUFFER] = (byte)value;
+    }
+    else if( offset == COMMAND ) {
+      start( value & 0xFF );
+    }
+    else if( offset < COMMAND ) {
+      registers[offset] = value & 0xFF;
+    }
+  }
+
+  @Override
+  public void readBytes( long address, byte[] destination, int offset,
+                         int length ) {
+    int start = (int)( address - base );
+    if( start >= BUFFER ) {
+      System.arraycopy( buffer, start - BUFFER, destination, offset, length );
+    }
+    else {
+      BusDevice.super.readBytes( address, destination, offset, length );
+    }
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) {
+    int start = (int)( address - base );
+    if( start >= BUFFER ) {
+      System.arraycopy( source, offset, buffer, start - BUFFER, length );
+    }
+    else {
+      BusDevice.super.writeBytes( address, source, offset, length );
+    }
+  }
+
+  /**
+   * Stops the flusher, writes everything out and closes the image.
+   * @throws IOException If the image could not be closed
+   */
+  public void close() throws IOException {
+    running = false;
+    LockSupport.unpark( flusher );
+    try {
+      flusher.join();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    image.force();
+    file.close();
+  }
+
+  /**
+   * Starts a command, unless one is still running.
+   * @param value The command
+   */
+  private void start( int value ) {
+    if( ( status.get() & STATUS_BUSY ) != 0 ) {
+      return;
+    }
+    command = value;
+    status.set( STATUS_BUSY );
+
+    if( command == FLUSH ) {
+      flushRequested = true;
+      LockSupport.unpark( flusher );
+    }
+    else {
+      int count = command == READ || command == WRITE ? registers[COUNT] : 1;
+      cpu.getScheduler().schedule( completion, cpu.getCycles() +
+                                   (long)count * cyclesPerSector );
+    }
+  }
+
+  /**
+   * Carries out the pending transfer and signals its completion.
+   */
+  private void execute() {
+    long sector = registers[SECTOR] | ( registers[SECTOR + 1] << 8 ) |
+                  ( (long)registers[SECTOR + 2] << 16 );
+    int count = command == READ || command == WRITE ? registers[COUNT] : 1;
+    int address = registers[ADDRESS] | ( registers[ADDRESS + 1] << 8 );
+    int length = count * SECTOR_SIZE;
+
+    if( sector + count > sectors || address + length > 0x10000 ) {
+      finish( STATUS_DONE | STATUS_ERROR );
+      return;
+    }
+
+    //a view of the sectors, so the data moves in one copy
+    ByteBuffer view = image.duplicate();
+    view.position( (int)sector * SECTOR_SIZE );
+    view.limit( view.position() + length );
+
+    switch( command ) {
+      case READ:
+        bus.write( address, view, length );
+        break;
+      case WRITE:
+        bus.read( address, view, length );
+        dirty = true;
+        break;
+      case LOAD:
+        view.get( buffer );
+        break;
+      case STORE:
+        view.put( buffer );
+        dirty = true;
+        break;
+      default:
+        finish( STATUS_DONE | STATUS_ERROR );
+        return;
+    }
+    finish( STATUS_DONE );
+  }
+
+  /**
+   * Ends a command.
+   * @param result The new status
+   */
+  private void finish( int result ) {
+    status.set( result );
+    if( ( registers[CONTROL] & CONTROL_IRQ ) != 0 ) {
+      cpu.requestIRQ();
+    }
+  }
+
+  /**
+   * Writes dirty sectors out on request, and every so often.
+   */
+  private void flushLoop() {
+    while( running ) {
+      LockSupport.parkNanos( FLUSH_NANOS );
+      boolean requested = flushRequested;
+      if( dirty || requested ) {
+        dirty = false;
+        image.force();
+      }
+      if( requested ) {
+        flushRequested = false;
+        finish( STATUS_DONE );
+      }
+    }
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+
+import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A console output device. Guest writes are appended to a ring buffer and
+ * a background thread drains the ring to a host stream in batches, so the
+ * CPU never waits on host I/O.</p>
+ * <p>It occupies eight addresses from its base:</p>
+ * <ul>
+ * <li>0 : Writes append a byte to the output</li>
+ * <li>1 : Reads give the STATUS_ bits</li>
+ * <li>2-3 : Buffer address, low byte first</li>
+ * <li>4-5 : Buffer length, low byte first</li>
+ * <li>6 : Writing DOORBELL_RING appends the whole buffer at once</li>
+ * </ul>
+ * <p>The CPU never blocks: output that does not fit in the ring is dropped
+ * and counted. Guests that must not lose output wait for STATUS_FULL to
+ * clear.</p>
+ * <p>Only the CPU thread may write to the device.</p>
+ */
+public class Console implements BusDevice {
+
+  //Register offsets
+  public static final int DATA = 0;
+  public static final int STATUS = 1;
+  public static final int BUFFER = 2;
+  public static final int LENGTH = 4;
+  public static final int DOORBELL = 6;
+  public static final int REGISTERS = 8;
+
+  //Doorbell and status bits
+  public static final int DOORBELL_RING = 0x01;
+  public static final int STATUS_EMPTY = 0x40;
+  public static final int STATUS_FULL = 0x80;
+
+  //How long the writer sleeps when there is nothing to write
+  private static final long IDLE_NANOS = 1000000L;
+
+  private final Bus bus;
+  private final long base;
+  private final OutputStream out;
+  private final Thread thread;
+  private final int[] registers;
+
+  //The ring, written by the CPU at tail and drained by the writer at head
+  private final byte[] ring;
+  private final int mask;
+  private long tail;
+  private final AtomicLong published;
+  private final AtomicLong head;
+
+  private long dropped;
+  private volatile boolean running;
+
+  /**
+   * Constructs the console.
+   * @param bus The bus guest buffers are read through
+   * @param base The first bus address of the registers
+   * @param out The stream the output is written to
+   * @param capacity The size of the ring in bytes, rounded up to a power of
+   * two
+   * @throws IllegalArgumentException If capacity is less than 1 or more than
+   * 1GB
+   */
+  public Console( Bus bus, long base, OutputStream out, int capacity )
+    throws IllegalArgumentException {
+    if( capacity < 1 || capacity > 1 << 30 ) {
+      throw new IllegalArgumentException( "Bad console capacity: " +
+                                          capacity );
+    }
+
+    this.bus = bus;
+    this.base = base;
+    this.out = out;
+    registers = new int[REGISTERS];
+
+    capacity = Integer.highestOneBit( capacity - 1 ) << 1;
+    if( capacity == 0 ) {
+      capacity = 1;
+    }
+    ring = new byte[capacity];
+    mask = capacity - 1;
+    published = new AtomicLong();
+    head = new AtomicLong();
+
+    thread = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        drainLoop();
+      }
+    }, "6502 console writer" );
+    thread.setDaemon( true );
+  }
+
+  /**
+   * Connects the registers to the bus at the base address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + REGISTERS - 1 );
+  }
+
+  /**
+   * Starts writing on the background thread.
+   */
+  public void start() {
+    running = true;
+    thread.start();
+  }
+
+  /**
+   * Stops the background thread and writes out everything still in the
+   * ring.
+   * @throws IOException If the stream could not be written to
+   */
+  public void close() throws IOException {
+    running = false;
+    LockSupport.unpark( thread );
+    try {
+      thread.join();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    drain();
+  }
+
+  /**
+   * The number of bytes lost because the ring was full
+   * @return The number of dropped bytes
+   */
+  public long getDropped() {
+    return dropped;
+  }
+
+  @Override
+  public int readByte( long address ) {
+    int register = (int)( address - base );
+    if( register == STATUS ) {
+      long used = tail - head.get();
+      return ( used == 0 ? STATUS_EMPTY : 0 ) |
+             ( used == ring.length ? STATUS_FULL : 0 );
+    }
+    return registers[register];
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    int register = (int)( address - base );
+    if( register == DATA ) {
+      if( tail - head.get() < ring.length ) {
+        ring[(int)( tail & mask )] = (byte)value;
+        tail++;
+        published.lazySet( tail );
+      }
+      else {
+        dropped++;
+      }
+    }
+    else if( register == DOORBELL ) {
+      if( ( value & DOORBELL_RING ) != 0 ) {
+        ring();
+      }
+    }
+    else if( register != STATUS ) {
+      registers[register] = value & 0xFF;
+    }
+  }
+
+  /**
+   * Appends the guest buffer to the ring, reading it straight into place.
+   */
+  private void ring() {
+    int address = registers[BUFFER] | ( registers[BUFFER + 1] << 8 );
+    int length = registers[LENGTH] | ( registers[LENGTH + 1] << 8 );
+
+    int free = (int)( ring.length - ( tail - head.get() ) );
+    if( length > free ) {
+      dropped += length - free;
+      length = free;
+    }
+
+    while( length > 0 ) {
+
+      //neither the ring nor the 16-bit address space may be overrun
+      int start = (int)( tail & mask );
+      int chunk = Math.min( length, Math.min( ring.length - start,
+                                              0x10000 - address ) );
+      bus.read( address, ring, start, chunk );
+      tail += chunk;
+      address = ( address + chunk ) & 0xFFFF;
+      length -= chunk;
+    }
+    published.lazySet( tail );
+  }
+
+  /**
+   * Keeps draining until closed, sleeping briefly whenever the ring is
+   * empty.
+   */
+  private void drainLoop() {
+    try {
+      while( running ) {
+        if( drain() == 0 ) {
+          LockSupport.parkNanos( IDLE_NANOS );
+        }
+      }
+    }
+    catch( IOException e ) {
+      running = false;
+      System.err.println( "6502 - Console writer stopped: " + e.getMessage() );
+    }
+  }
+
+  /**
+   * Writes everything published since the last pass to the stream.
+   * @return The number of bytes written
+   * @throws IOException If the stream could not be written to
+   */
+  private int drain() throws IOException {
+    long from = head.get();
+    long to = published.get();
+    if( from == to ) {
+      return 0;
+    }
+
+    int start = (int)( from & mask );
+    int first = (int)Math.min( to - from, ring.length - start );
+    out.write( ring, start, first );
+    if( first < to - from ) { //wrapped around
+      out.write( ring, 0, (int)( to - from - first ) );
+    }
+    out.flush();
+
+    head.lazySet( to );
+    return (int)( to - from );
+  }
+}
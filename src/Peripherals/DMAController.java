@@ -0,0 +1,214 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.CycleEvent;
+
+/**
+ * <p>A DMA controller that copies blocks of the 16-bit address space. The
+ * copy is done in bus block transfers; only its timing is emulated,
+ * through the scheduler of the CPU.</p>
+ * <p>It occupies eight addresses from its base:</p>
+ * <ul>
+ * <li>0-1 : Source address, low byte first</li>
+ * <li>2-3 : Destination address, low byte first</li>
+ * <li>4-5 : Length in bytes, low byte first</li>
+ * <li>6 : Mode, see the MODE_ bits</li>
+ * <li>7 : Writing CONTROL_START starts a transfer. Reads give the STATUS_
+ * bits, and clear STATUS_DONE.</li>
+ * </ul>
+ * <p>The addresses, length and mode are latched when a transfer starts, so
+ * writing them while STATUS_BUSY is set prepares the next transfer without
+ * disturbing the current one.</p>
+ * <p>The cycles a transfer takes are always stolen from the CPU. In burst
+ * mode the CPU is held off the bus for the whole transfer: the copy happens
+ * before the next instruction. Otherwise the controller and the CPU take
+ * turns on the bus, SLICE bytes at a time, so the transfer takes twice as
+ * long and the CPU runs at half speed until it is done.</p>
+ */
+public class DMAController implements BusDevice {
+
+  //Register offsets
+  public static final int SOURCE = 0;
+  public static final int DESTINATION = 2;
+  public static final int LENGTH = 4;
+  public static final int MODE = 6;
+  public static final int CONTROL = 7;
+  public static final int REGISTERS = 8;
+
+  //Mode bits
+  public static final int MODE_IRQ = 0x01;
+  public static final int MODE_BURST = 0x02;
+
+  //Control and status bits
+  public static final int CONTROL_START = 0x01;
+  public static final int STATUS_DONE = 0x40;
+  public static final int STATUS_BUSY = 0x80;
+
+  //Bytes moved in each turn on the bus when not in burst mode
+  public static final int SLICE = 64;
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+  private final int cyclesPerByte;
+  private final byte[] buffer;
+
+  //Registers
+  private final int[] registers;
+  private int status;
+
+  //The transfer in progress, as latched from the registers
+  private int source;
+  private int destination;
+  private int length;
+  private int mode;
+  private int moved;
+
+  //Moves the next part of the transfer when its turn comes
+  private final CycleEvent transfer;
+
+  /**
+   * Constructs the controller.
+   * @param cpu The CPU whose cycles time the transfers
+   * @param bus The bus to copy over
+   * @param base The first bus address of the registers
+   * @param cyclesPerByte The cycles each byte takes to move
+   * @throws IllegalArgumentException If cyclesPerByte is negative
+   */
+  public DMAController( CPU6502 cpu, Bus bus, long base, int cyclesPerByte )
+    throws IllegalArgumentException {
+    if( cyclesPerByte < 0 ) {
+      throw new IllegalArgumentException( "Negative cycles per byte" );
+    }
+
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+    this.cyclesPerByte = cyclesPerByte;
+    buffer = new byte[0x10000];
+    registers = new int[REGISTERS];
+
+    transfer = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        slice();
+      }
+    };
+  }
+
+  /**
+   * Connects the registers to the bus at the base address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + REGISTERS - 1 );
+  }
+
+  @Override
+  public int readByte( long address ) {
+    int register = (int)( address - base );
+    if( register == CONTROL ) {
+      int value = status;
+      status &= ~STATUS_DONE;
+      return value;
+    }
+    return registers[register];
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    int register = (int)( address - base );
+    registers[register] = value & 0xFF;
+    if( register == CONTROL && ( value & CONTROL_START ) != 0 &&
+        ( status & STATUS_BUSY ) == 0 ) {
+      start();
+    }
+  }
+
+  /**
+   * Whether a transfer is in progress
+   * @return True until the copy has landed
+   */
+  public boolean isBusy() {
+    return ( status & STATUS_BUSY ) != 0;
+  }
+
+  /**
+   * Latches the registers and starts the transfer they describe.
+   */
+  private void start() {
+    status = STATUS_BUSY;
+    source = word( SOURCE );
+    destination = word( DESTINATION );
+    length = word( LENGTH );
+    mode = registers[MODE];
+    moved = 0;
+
+    long now = cpu.getCycles();
+    if( ( mode & MODE_BURST ) != 0 ) {
+      cpu.getScheduler().schedule( transfer, now ); //before the next opcode
+    }
+    else {
+      cpu.getScheduler().schedule( transfer,
+                                   now + (long)SLICE * cyclesPerByte );
+    }
+  }
+
+  /**
+   * Moves the next part of the block, the whole of it in burst mode, and
+   * steals its cycles. Once the CPU has had as many cycles again the next
+   * part follows, until the end of the transfer is signalled.
+   */
+  private void slice() {
+    int count = ( mode & MODE_BURST ) != 0 ? length - moved
+                                            : Math.min( SLICE, length - moved );
+    copy( count );
+    moved += count;
+    cpu.stealCycles( (long)count * cyclesPerByte );
+
+    if( moved < length ) {
+      cpu.getScheduler().schedule( transfer, cpu.getCycles() +
+                                   (long)count * cyclesPerByte );
+      return;
+    }
+
+    status = STATUS_DONE;
+    if( ( mode & MODE_IRQ ) != 0 ) {
+      cpu.requestIRQ();
+    }
+  }
+
+  /**
+   * Copies the next bytes of the block, wrapping around the 16-bit address
+   * space.
+   * @param count The number of bytes
+   */
+  private void copy( int count ) {
+    int done = 0;
+    while( done < count ) {
+      int from = ( source + moved + done ) & 0xFFFF;
+      int to = ( destination + moved + done ) & 0xFFFF;
+      int run = Math.min( count - done,
+                          Math.min( 0x10000 - from, 0x10000 - to ) );
+      bus.read( from, buffer, 0, run );
+      bus.write( to, buffer, 0, run );
+      done += run;
+    }
+  }
+
+  /**
+   * Reads a little-endian register pair.
+   * @param register The offset of the low byte
+   * @return The 16-bit value
+   */
+  private int word( int register ) {
+    return registers[register] | ( registers[register + 1] << 8 );
+  }
+}
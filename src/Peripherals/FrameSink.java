@@ -0,0 +1,27 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+/**
+ * Receives the frames rendered by a display, on the rendering thread of the
+ * display. The pixels are only valid during the call; sinks that keep them
+ * must copy them.
+ */
+public interface FrameSink {
+
+  /**
+   * Presents a frame.
+   * @param pixels The frame as ARGB values, row by row
+   * @param width The width in pixels
+   * @param height The height in pixels
+   * @param dirty The rows changed since the previous frame, as a bitmap of
+   * 64 rows per long
+   * @param number The number of the frame, counted from 0
+   */
+  void frame( int[] pixels, int width, int height, long[] dirty,
+              long number );
+}
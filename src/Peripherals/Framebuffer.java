@@ -0,0 +1,386 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.CycleEvent;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A memory-mapped framebuffer of 8-bit palette indices, one byte per
+ * pixel, row by row from the base address. Rows written by the guest are
+ * marked dirty; at every vertical blank the dirty rows are copied into a
+ * snapshot that a rendering thread converts to ARGB and hands to a
+ * FrameSink. Frames with no changes cost nothing beyond the blank
+ * itself.</p>
+ * <p>The registers follow the pixels:</p>
+ * <ul>
+ * <li>0 : Control, see the CONTROL_ bits</li>
+ * <li>1 : Reads give the STATUS_ bits, and clear STATUS_VBLANK</li>
+ * <li>2 : Low byte of the frame counter</li>
+ * </ul>
+ * <p>If the renderer is still busy with the previous snapshot at a blank,
+ * the changes are kept for the next blank, so the CPU never waits on
+ * rendering.</p>
+ */
+public class Framebuffer implements BusDevice {
+
+  //Register offsets, from the end of the pixels
+  public static final int CONTROL = 0;
+  public static final int STATUS = 1;
+  public static final int FRAME = 2;
+  public static final int REGISTERS = 4;
+
+  //Control bits
+  public static final int CONTROL_NMI = 0x01;
+
+  //Status bits
+  public static final int STATUS_VBLANK = 0x80;
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+  private final int width;
+  private final int height;
+  private final int size;
+  private final long cyclesPerFrame;
+  private final FrameSink sink;
+
+  //Guest side, owned by the CPU thread
+  private final byte[] pixels;
+  private final long[] dirty;
+  private final int[] palette;
+  private boolean paletteChanged;
+  private int control;
+  private int status;
+  private long frames;
+  private final CycleEvent blank;
+
+  //The snapshot, owned by the renderer while pending
+  private final byte[] snapshot;
+  private final long[] snapshotDirty;
+  private final int[] snapshotPalette;
+  private volatile boolean pending;
+
+  //Renderer side
+  private final Thread renderer;
+  private final int[] image;
+  private long rendered;
+  private volatile boolean running;
+
+  /**
+   * Constructs the framebuffer with a palette of 3 bits of red and green
+   * and 2 bits of blue.
+   * @param cpu The CPU whose cycles time the frames
+   * @param bus The bus to connect to
+   * @param base The bus address of the first pixel
+   * @param width The width in pixels
+   * @param height The height in pixels
+   * @param cyclesPerFrame The cycles between vertical blanks
+   * @param sink Where rendered frames go
+   * @throws IllegalArgumentException If a dimension or cyclesPerFrame is
+   * less than 1
+   */
+  public Framebuffer( CPU6502 cpu, Bus bus, long base, int width, int height,
+                      long cyclesPerFrame, FrameSink sink )
+    throws IllegalArgumentException {
+    if( width < 1 || height < 1 || cyclesPerFrame < 1 ) {
+      throw new IllegalArgumentException( "Bad framebuffer geometry" );
+    }
+
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+    this.width = width;
+    this.height = height;
+    this.cyclesPerFrame = cyclesPerFrame;
+    this.sink = sink;
+    size = width * height;
+
+    pixels = new byte[size];
+    dirty = new long[( height + 63 ) / 64];
+    palette = new int[256];
+    for( int i = 0; i < palette.length; i++ ) {
+      int r = ( i >> 5 ) * 255 / 7;
+      int g = ( ( i >> 2 ) & 7 ) * 255 / 7;
+      int b = ( i & 3 ) * 255 / 3;
+      palette[i] = 0xFF000000 | ( r << 16 ) | ( g << 8 ) | b;
+    }
+    paletteChanged = true;
+
+    snapshot = new byte[size];
+    snapshotDirty = new long[dirty.length];
+    snapshotPalette = new int[palette.length];
+    image = new int[size];
+
+    blank = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        verticalBlank( cycle );
+      }
+    };
+
+    renderer = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        renderLoop();
+      }
+    }, "6502 framebuffer renderer" );
+    renderer.setDaemon( true );
+  }
+
+  /**
+   * Connects the pixels and registers to the bus at the base address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + size + REGISTERS - 1 );
+  }
+
+  /**
+   * Starts the rendering thread and schedules the first vertical blank.
+   * The first frame is rendered in full.
+   */
+  public void start() {
+    markAll();
+    running = true;
+    renderer.start();
+    cpu.getScheduler().schedule( blank, cpu.getCycles() + cyclesPerFrame );
+  }
+
+  /**
+   * Stops the blanks and the rendering thread, then presents whatever the
+   * guest drew since the last frame. Must be called from the CPU thread, or
+   * while the CPU is stopped.
+   */
+  public void close() {
+    cpu.getScheduler().cancel( blank );
+    running = false;
+    LockSupport.unpark( renderer );
+    try {
+      renderer.join();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+
+    if( isDirty() ) {
+      takeSnapshot();
+      render();
+    }
+  }
+
+  /**
+   * Replaces the palette, marking the whole frame dirty. Must be called
+   * from the CPU thread, or while the CPU is stopped.
+   * @param argb The 256 colours, as ARGB values
+   * @throws IllegalArgumentException If there are not 256 colours
+   */
+  public void setPalette( int[] argb ) throws IllegalArgumentException {
+    if( argb.length != palette.length ) {
+      throw new IllegalArgumentException( "The palette needs 256 colours" );
+    }
+    System.arraycopy( argb, 0, palette, 0, palette.length );
+    paletteChanged = true;
+    markAll();
+  }
+
+  /**
+   * The width of the frame
+   * @return The width in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The height of the frame
+   * @return The height in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * The number of vertical blanks so far
+   * @return The frame counter
+   */
+  public long getFrames() {
+    return frames;
+  }
+
+  @Override
+  public int readByte( long address ) {
+    int offset = (int)( address - base );
+    if( offset < size ) {
+      return pixels[offset] & 0xFF;
+    }
+
+    switch( offset - size ) {
+      case CONTROL:
+        return control;
+      case STATUS:
+        int value = status;
+        status &= ~STATUS_VBLANK;
+        return value;
+      case FRAME:
+        return (int)( frames & 0xFF );
+      default:
+        return 0;
+    }
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    int offset = (int)( address - base );
+    if( offset < size ) {
+      pixels[offset] = (byte)value;
+      int row = offset / width;
+      dirty[row >> 6] |= 1L << row;
+    }
+    else if( offset - size == CONTROL ) {
+      control = value & 0xFF;
+    }
+  }
+
+  @Override
+  public void readBytes( long address, byte[] destination, int offset,
+                         int length ) {
+    int start = (int)( address - base );
+    if( start + length <= size ) {
+      System.arraycopy( pixels, start, destination, offset, length );
+    }
+    else {
+      BusDevice.super.readBytes( address, destination, offset, length );
+    }
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) {
+    int start = (int)( address - base );
+    if( start + length <= size ) {
+      System.arraycopy( source, offset, pixels, start, length );
+      if( length > 0 ) {
+        mark( start / width, ( start + length - 1 ) / width );
+      }
+    }
+    else {
+      BusDevice.super.writeBytes( address, source, offset, length );
+    }
+  }
+
+  /**
+   * Hands the changed rows to the renderer if it is free, then signals the
+   * blank and schedules the next one.
+   * @param cycle The cycle the blank was due
+   */
+  private void verticalBlank( long cycle ) {
+    if( !pending && isDirty() ) {
+      takeSnapshot();
+      pending = true;
+      LockSupport.unpark( renderer );
+    }
+
+    frames++;
+    status |= STATUS_VBLANK;
+    if( ( control & CONTROL_NMI ) != 0 ) {
+      cpu.requestNMI();
+    }
+    cpu.getScheduler().schedule( blank, cycle + cyclesPerFrame );
+  }
+
+  /**
+   * Copies the dirty rows, and the palette if it changed, into the snapshot.
+   */
+  private void takeSnapshot() {
+    for( int word = 0; word < dirty.length; word++ ) {
+      long bits = dirty[word];
+      while( bits != 0 ) {
+        int row = ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+        System.arraycopy( pixels, row * width, snapshot, row * width, width );
+        bits &= bits - 1;
+      }
+    }
+    System.arraycopy( dirty, 0, snapshotDirty, 0, dirty.length );
+    Arrays.fill( dirty, 0 );
+    if( paletteChanged ) {
+      System.arraycopy( palette, 0, snapshotPalette, 0, palette.length );
+      paletteChanged = false;
+    }
+  }
+
+  /**
+   * Converts each snapshot handed over and presents it, until closed.
+   */
+  private void renderLoop() {
+    while( true ) {
+      if( pending ) {
+        render();
+        pending = false;
+      }
+      else if( running ) {
+        LockSupport.park( this );
+      }
+      else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Converts the dirty rows of the snapshot to ARGB and presents the frame.
+   */
+  private void render() {
+    for( int word = 0; word < snapshotDirty.length; word++ ) {
+      long bits = snapshotDirty[word];
+      while( bits != 0 ) {
+        int row = ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+        int end = ( row + 1 ) * width;
+        for( int i = row * width; i < end; i++ ) {
+          image[i] = snapshotPalette[snapshot[i] & 0xFF];
+        }
+        bits &= bits - 1;
+      }
+    }
+    sink.frame( image, width, height, snapshotDirty, rendered++ );
+  }
+
+  /**
+   * Marks a range of rows dirty.
+   * @param first The first row
+   * @param last The last row
+   */
+  private void mark( int first, int last ) {
+    for( int row = first; row <= last; row++ ) {
+      dirty[row >> 6] |= 1L << row;
+    }
+  }
+
+  /**
+   * Marks every row dirty.
+   */
+  private void markAll() {
+    mark( 0, height - 1 );
+  }
+
+  /**
+   * Whether any row changed since the last snapshot
+   * @return True if a row is dirty
+   */
+  private boolean isDirty() {
+    for( long bits : dirty ) {
+      if( bits != 0 ) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
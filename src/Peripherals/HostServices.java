@@ -0,0 +1,470 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.CPU6502;
+import System.HostCallHandler;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * <p>The host services a guest OS reaches through the host call trap. Each
+ * service moves a whole buffer with array copies in one call, instead of a
+ * byte at a time through device registers.</p>
+ * <p>The parameter block holds three little-endian words, used as follows:
+ * </p>
+ * <ul>
+ * <li>MEMCPY : destination, source, length</li>
+ * <li>MEMSET : destination, value, length</li>
+ * <li>WRITE : handle, buffer, length. The length is replaced by the number
+ * of bytes written.</li>
+ * <li>READ : handle, buffer, length. The length is replaced by the number
+ * of bytes read, 0 at the end of the file. The console input never blocks:
+ * it gives what has been typed so far, failing with E_AGAIN if nothing
+ * has.</li>
+ * <li>OPEN : path, mode. The path is NUL-terminated and relative to the
+ * root directory. The handle is returned in A.</li>
+ * <li>CLOSE : handle</li>
+ * </ul>
+ * <p>On success the carry is cleared, otherwise it is set and A holds one of
+ * the E_ codes. Handles 0, 1 and 2 are the console input, output and error
+ * streams. Services complete instantly in guest time.</p>
+ * <p>Buffers are moved through the bus in blocks, so each device they lie in
+ * is handed its part with a single array copy, and watchpoints and monitors
+ * on the bus see the accesses. A buffer that runs past 0xFFFF fails with
+ * E_FAULT.</p>
+ * <p>The console input is read ahead by a background thread, started on
+ * the first read from it.</p>
+ */
+public class HostServices implements HostCallHandler {
+
+  //Services
+  public static final int MEMCPY = 0;
+  public static final int MEMSET = 1;
+  public static final int WRITE = 2;
+  public static final int READ = 3;
+  public static final int OPEN = 4;
+  public static final int CLOSE = 5;
+
+  //Open modes
+  public static final int MODE_READ = 0;
+  public static final int MODE_WRITE = 1;
+  public static final int MODE_APPEND = 2;
+
+  //Error codes
+  public static final int E_BADF = 1;
+  public static final int E_IO = 2;
+  public static final int E_NOENT = 3;
+  public static final int E_NOSYS = 4;
+  public static final int E_FAULT = 5;
+  public static final int E_MFILE = 6;
+  public static final int E_AGAIN = 7;
+
+  //Console handles
+  public static final int STDIN = 0;
+  public static final int STDOUT = 1;
+  public static final int STDERR = 2;
+
+  private static final int MAX_FILES = 16;
+  private static final int MAX_PATH = 256;
+  private static final int MAX_INPUT = 4096;
+  private static final int ADDRESSES = 0x10000;
+
+  private final Bus bus;
+  private final File root;
+  private final InputStream in;
+  private final PrintStream out;
+  private final PrintStream err;
+
+  //Open files by handle, console handles unused
+  private final RandomAccessFile[] files;
+
+  //Staging area for copies between memory and streams
+  private final byte[] buffer;
+
+  //Console input read ahead, and whether the stream has ended, both guarded
+  //by the array. The reader thread is started on the first read.
+  private final byte[] input;
+  private int available;
+  private boolean ended;
+  private Thread reader;
+
+  /**
+   * Constructs the services over the console of the host.
+   * @param bus The bus guest buffers are moved through
+   * @param root The directory guest paths are relative to
+   * @throws IOException If the root directory cannot be resolved
+   */
+  public HostServices( Bus bus, File root ) throws IOException {
+    this( bus, root, System.in, System.out, System.err );
+  }
+
+  /**
+   * Constructs the services.
+   * @param bus The bus guest buffers are moved through
+   * @param root The directory guest paths are relative to
+   * @param in The stream read through STDIN
+   * @param out The stream written through STDOUT
+   * @param err The stream written through STDERR
+   * @throws IOException If the root directory cannot be resolved
+   */
+  public HostServices( Bus bus, File root, InputStream in, PrintStream out,
+                       PrintStream err ) throws IOException {
+    this.bus = bus;
+    this.root = root.getCanonicalFile();
+    this.in = in;
+    this.out = out;
+    this.err = err;
+    files = new RandomAccessFile[MAX_FILES];
+    buffer = new byte[ADDRESSES];
+    input = new byte[MAX_INPUT];
+  }
+
+  @Override
+  public int hostCall( CPU6502 cpu, int service, int block ) {
+    int result;
+    try {
+      switch( service ) {
+        case MEMCPY:
+          result = memcpy( block );
+          break;
+        case MEMSET:
+          result = memset( block );
+          break;
+        case WRITE:
+          result = write( block );
+          break;
+        case READ:
+          result = read( block );
+          break;
+        case OPEN:
+          result = open( block );
+          break;
+        case CLOSE:
+          result = close( block );
+          break;
+        default:
+          result = -E_NOSYS;
+          break;
+      }
+    }
+    catch( IllegalArgumentException e ) {
+      result = -E_FAULT; //buffer outside of the bus
+    }
+    catch( IOException e ) {
+      result = -E_IO;
+    }
+
+    int status = cpu.getStatusRegister() & ~CPU6502.F_CARRY;
+    if( result < 0 ) {
+      status |= CPU6502.F_CARRY;
+      result = -result;
+    }
+    cpu.setStatusRegister( status );
+    cpu.setAccumulator( result );
+    return 0;
+  }
+
+  /**
+   * Closes every open file.
+   */
+  public void closeAll() {
+    for( int handle = STDERR + 1; handle < MAX_FILES; handle++ ) {
+      if( files[handle] != null ) {
+        try {
+          files[handle].close();
+        }
+        catch( IOException e ) {
+          //nothing more can be done for the guest
+        }
+        files[handle] = null;
+      }
+    }
+  }
+
+  /**
+   * Copies a range of memory. The ranges may overlap.
+   * @param block The address of the parameter block
+   * @return 0
+   */
+  private int memcpy( int block ) {
+    int destination = word( block );
+    int source = word( block + 2 );
+    int length = word( block + 4 );
+    if( !fits( destination, length ) || !fits( source, length ) ) {
+      return -E_FAULT;
+    }
+    bus.read( source, buffer, 0, length );
+    bus.write( destination, buffer, 0, length );
+    return 0;
+  }
+
+  /**
+   * Fills a range of memory.
+   * @param block The address of the parameter block
+   * @return 0
+   */
+  private int memset( int block ) {
+    int destination = word( block );
+    int length = word( block + 4 );
+    if( !fits( destination, length ) ) {
+      return -E_FAULT;
+    }
+    Arrays.fill( buffer, 0, length, (byte)word( block + 2 ) );
+    bus.write( destination, buffer, 0, length );
+    return 0;
+  }
+
+  /**
+   * Writes a buffer to a file or the console.
+   * @param block The address of the parameter block
+   * @return 0, or an error code
+   * @throws IOException If the file could not be written to
+   */
+  private int write( int block ) throws IOException {
+    int handle = word( block );
+    int address = word( block + 2 );
+    int length = word( block + 4 );
+    if( !fits( address, length ) ) {
+      return -E_FAULT;
+    }
+    bus.read( address, buffer, 0, length );
+
+    if( handle == STDOUT || handle == STDERR ) {
+      PrintStream stream = handle == STDOUT ? out : err;
+      stream.write( buffer, 0, length );
+      stream.flush();
+    }
+    else if( isOpen( handle ) ) {
+      files[handle].write( buffer, 0, length );
+    }
+    else {
+      return -E_BADF;
+    }
+
+    setWord( block + 4, length );
+    return 0;
+  }
+
+  /**
+   * Reads from a file or the console into a buffer.
+   * @param block The address of the parameter block
+   * @return 0, or an error code
+   * @throws IOException If the file could not be read from
+   */
+  private int read( int block ) throws IOException {
+    int handle = word( block );
+    int address = word( block + 2 );
+    int length = word( block + 4 );
+    if( !fits( address, length ) ) {
+      return -E_FAULT;
+    }
+
+    int count;
+    if( handle == STDIN ) {
+      count = takeInput( length );
+      if( count < 0 ) {
+        return -E_AGAIN;
+      }
+    }
+    else if( isOpen( handle ) ) {
+      count = files[handle].read( buffer, 0, length );
+    }
+    else {
+      return -E_BADF;
+    }
+
+    count = Math.max( count, 0 ); //end of file
+    bus.write( address, buffer, 0, count );
+    setWord( block + 4, count );
+    return 0;
+  }
+
+  /**
+   * Opens a file below the root directory.
+   * @param block The address of the parameter block
+   * @return The handle, or an error code
+   * @throws IOException If the file could not be opened
+   */
+  private int open( int block ) throws IOException {
+    int handle = STDERR + 1;
+    while( handle < MAX_FILES && files[handle] != null ) {
+      handle++;
+    }
+    if( handle == MAX_FILES ) {
+      return -E_MFILE;
+    }
+
+    //the path must lead below the root, which may itself be /
+    File file = new File( root, string( word( block ) ) ).getCanonicalFile();
+    if( file.equals( root ) || !file.toPath().startsWith( root.toPath() ) ) {
+      return -E_NOENT;
+    }
+
+    int mode = word( block + 2 );
+    if( mode == MODE_READ ) {
+      if( !file.isFile() ) {
+        return -E_NOENT;
+      }
+      files[handle] = new RandomAccessFile( file, "r" );
+    }
+    else {
+      files[handle] = new RandomAccessFile( file, "rw" );
+      if( mode == MODE_APPEND ) {
+        files[handle].seek( files[handle].length() );
+      }
+      else {
+        files[handle].setLength( 0 );
+      }
+    }
+    return handle;
+  }
+
+  /**
+   * Closes a file.
+   * @param block The address of the parameter block
+   * @return 0, or an error code
+   * @throws IOException If the file could not be closed
+   */
+  private int close( int block ) throws IOException {
+    int handle = word( block );
+    if( !isOpen( handle ) ) {
+      return -E_BADF;
+    }
+    files[handle].close();
+    files[handle] = null;
+    return 0;
+  }
+
+  /**
+   * Takes as much console input as has been read ahead, without waiting.
+   * @param length The most bytes to take
+   * @return The number of bytes put in the staging area, 0 at the end of
+   * the input, or -1 if none has arrived yet
+   */
+  private int takeInput( int length ) {
+    synchronized( input ) {
+      if( reader == null ) {
+        reader = new Thread( new Runnable() {
+          @Override
+          public void run() {
+            readAhead();
+          }
+        }, "6502 host services input" );
+        reader.setDaemon( true );
+        reader.start();
+      }
+
+      if( available == 0 ) {
+        return ended ? 0 : -1;
+      }
+      int count = Math.min( length, available );
+      System.arraycopy( input, 0, buffer, 0, count );
+      System.arraycopy( input, count, input, 0, available - count );
+      available -= count;
+      input.notifyAll();
+      return count;
+    }
+  }
+
+  /**
+   * Reads the console input into the read-ahead buffer until the stream
+   * ends, waiting while the buffer is full. Runs on the reader thread.
+   */
+  private void readAhead() {
+    byte[] chunk = new byte[MAX_INPUT];
+    try {
+      while( true ) {
+        int free;
+        synchronized( input ) {
+          while( available == input.length ) {
+            input.wait();
+          }
+          free = input.length - available;
+        }
+
+        int read = in.read( chunk, 0, free );
+        synchronized( input ) {
+          if( read < 0 ) {
+            ended = true;
+            return;
+          }
+          System.arraycopy( chunk, 0, input, available, read );
+          available += read;
+        }
+      }
+    }
+    catch( IOException e ) {
+      System.err.println( "6502 - Host services input failed: " +
+                          e.getMessage() );
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized( input ) {
+      ended = true;
+    }
+  }
+
+  /**
+   * Whether a buffer lies within the 16-bit address space
+   * @param address The first address
+   * @param length The number of bytes
+   * @return True if the buffer does not run past 0xFFFF
+   */
+  private boolean fits( int address, int length ) {
+    return address + length <= ADDRESSES;
+  }
+
+  /**
+   * Whether a handle refers to an open file
+   * @param handle The handle
+   * @return True if it can be read from or written to as a file
+   */
+  private boolean isOpen( int handle ) {
+    return handle > STDERR && handle < MAX_FILES && files[handle] != null;
+  }
+
+  /**
+   * Reads a NUL-terminated string from memory.
+   * @param address The address of the first character
+   * @return The string
+   */
+  private String string( int address ) {
+    StringBuilder sb = new StringBuilder();
+    for( int i = 0; i < MAX_PATH; i++ ) {
+      int c = bus.readByte( ( address + i ) & 0xFFFF );
+      if( c == 0 ) {
+        break;
+      }
+      sb.append( (char)c );
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Reads a little-endian word from memory.
+   * @param address The address of the low byte
+   * @return The 16-bit word
+   */
+  private int word( int address ) {
+    return bus.readByte( address & 0xFFFF ) |
+           ( bus.readByte( ( address + 1 ) & 0xFFFF ) << 8 );
+  }
+
+  /**
+   * Writes a little-endian word to memory.
+   * @param address The address of the low byte
+   * @param value The 16-bit word
+   */
+  private void setWord( int address, int value ) {
+    bus.writeByte( address & 0xFFFF, value & 0xFF );
+    bus.writeByte( ( address + 1 ) & 0xFFFF, ( value >> 8 ) & 0xFF );
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://archive.6502.org/datasheets/mos_6522_preliminary_nov_1977.pdf
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.CycleEvent;
+
+/**
+ * <p>The two interval timers of a 6522 VIA, at the register offsets of the
+ * VIA. The ports and shift register are left out; their registers read as
+ * 0 and ignore writes.</p>
+ * <ul>
+ * <li>4-5 : Timer 1 counter. Writing the high byte loads the latch into
+ * the counter and starts it; reading the low byte clears IFR_T1.</li>
+ * <li>6-7 : Timer 1 latch. Writing the high byte clears IFR_T1.</li>
+ * <li>8-9 : Timer 2 counter. Writing the high byte loads the low latch
+ * into the counter and starts it; reading the low byte clears IFR_T2.</li>
+ * <li>11 : Auxiliary control; ACR_FREE_RUN makes timer 1 reload itself</li>
+ * <li>13 : Interrupt flags. Writing 1s clears those flags; bit 7 reads as
+ * set while an enabled flag is.</li>
+ * <li>14 : Interrupt enable. Writing with bit 7 set enables the other bits
+ * written as 1, otherwise it disables them.</li>
+ * </ul>
+ * <p>Counters are not ticked. A count is worked out from the cycle counter
+ * of the CPU when it is read, and the only work between underflows is a
+ * single scheduler event at each one. A counter loaded with N underflows
+ * N + 1 cycles later; timer 1 then reloads from the latch when free-running,
+ * while a one-shot counter keeps counting down from 0xFFFF without
+ * interrupting again.</p>
+ */
+public class IntervalTimer implements BusDevice {
+
+  //Register offsets
+  public static final int T1C_L = 4;
+  public static final int T1C_H = 5;
+  public static final int T1L_L = 6;
+  public static final int T1L_H = 7;
+  public static final int T2C_L = 8;
+  public static final int T2C_H = 9;
+  public static final int ACR = 11;
+  public static final int IFR = 13;
+  public static final int IER = 14;
+  public static final int REGISTERS = 16;
+
+  //Auxiliary control bits
+  public static final int ACR_FREE_RUN = 0x40;
+
+  //Interrupt flag and enable bits
+  public static final int IFR_T2 = 0x20;
+  public static final int IFR_T1 = 0x40;
+  public static final int IFR_IRQ = 0x80;
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+
+  //Timer 1: latch, and the value and cycle of the last load
+  private int latch1;
+  private int load1;
+  private long start1;
+
+  //Timer 2: low latch, and the value and cycle of the last load
+  private int latch2;
+  private int load2;
+  private long start2;
+
+  private int acr;
+  private int ifr;
+  private int ier;
+
+  private final CycleEvent underflow1;
+  private final CycleEvent underflow2;
+
+  /**
+   * Constructs the timers. Both count down from 0xFFFF, without
+   * interrupting, until loaded.
+   * @param cpu The CPU whose cycles the timers count and which they
+   * interrupt
+   * @param bus The bus to connect to
+   * @param base The first bus address of the registers
+   */
+  public IntervalTimer( CPU6502 cpu, Bus bus, long base ) {
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+    latch1 = 0xFFFF;
+    load1 = 0xFFFF;
+    load2 = 0xFFFF;
+
+    underflow1 = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        if( ( acr & ACR_FREE_RUN ) != 0 ) {
+          load1 = latch1;
+          start1 = cycle;
+          cpu.getScheduler().schedule( this, cycle + load1 + 1 );
+        }
+        raise( IFR_T1 );
+      }
+    };
+
+    underflow2 = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        raise( IFR_T2 );
+      }
+    };
+  }
+
+  /**
+   * Connects the registers to the bus at the base address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + REGISTERS - 1 );
+  }
+
+  @Override
+  public int readByte( long address ) {
+    switch( (int)( address - base ) ) {
+      case T1C_L:
+        ifr &= ~IFR_T1;
+        return counter1() & 0xFF;
+      case T1C_H:
+        return counter1() >> 8;
+      case T1L_L:
+        return latch1 & 0xFF;
+      case T1L_H:
+        return latch1 >> 8;
+      case T2C_L:
+        ifr &= ~IFR_T2;
+        return counter2() & 0xFF;
+      case T2C_H:
+        return counter2() >> 8;
+      case ACR:
+        return acr;
+      case IFR:
+        return ( ifr & ier ) != 0 ? ifr | IFR_IRQ : ifr;
+      case IER:
+        return ier | 0x80;
+      default:
+        return 0;
+    }
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    value &= 0xFF;
+    long now = cpu.getCycles();
+
+    switch( (int)( address - base ) ) {
+      case T1C_L:
+      case T1L_L:
+        latch1 = ( latch1 & 0xFF00 ) | value;
+        break;
+      case T1C_H:
+        latch1 = ( latch1 & 0x00FF ) | ( value << 8 );
+        load1 = latch1;
+        start1 = now;
+        ifr &= ~IFR_T1;
+        cpu.getScheduler().schedule( underflow1, now + load1 + 1 );
+        break;
+      case T1L_H:
+        latch1 = ( latch1 & 0x00FF ) | ( value << 8 );
+        ifr &= ~IFR_T1;
+        break;
+      case T2C_L:
+        latch2 = value;
+        break;
+      case T2C_H:
+        load2 = latch2 | ( value << 8 );
+        start2 = now;
+        ifr &= ~IFR_T2;
+        cpu.getScheduler().schedule( underflow2, now + load2 + 1 );
+        break;
+      case ACR:
+        acr = value;
+        break;
+      case IFR:
+        ifr &= ~value;
+        break;
+      case IER:
+        if( ( value & 0x80 ) != 0 ) {
+          ier |= value & 0x7F;
+          if( ( ifr & ier ) != 0 ) {
+            cpu.requestIRQ();
+          }
+        }
+        else {
+          ier &= ~value;
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Works out the count of timer 1.
+   * @return The 16-bit count
+   */
+  private int counter1() {
+    long elapsed = cpu.getCycles() - start1;
+    if( ( acr & ACR_FREE_RUN ) != 0 ) {
+      elapsed %= load1 + 1; //the reload may not have been handled yet
+    }
+    return (int)( load1 - elapsed ) & 0xFFFF;
+  }
+
+  /**
+   * Works out the count of timer 2.
+   * @return The 16-bit count
+   */
+  private int counter2() {
+    return (int)( load2 - ( cpu.getCycles() - start2 ) ) & 0xFFFF;
+  }
+
+  /**
+   * Sets an interrupt flag, interrupting the CPU if it is enabled.
+   * @param flag The IFR_ bit
+   */
+  private void raise( int flag ) {
+    ifr |= flag;
+    if( ( ier & flag ) != 0 ) {
+      cpu.requestIRQ();
+    }
+  }
+}
@@ -1,6 +1,223 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
 package Peripherals;
 
+import System.Bus;
 import System.BusDevice;
+import System.CPU6502;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * <p>A keyboard. Key codes from the host go into a ring buffer that the
+ * guest reads through the data register, and an IRQ is raised whenever a
+ * key is waiting, so nothing has to poll.</p>
+ * <p>It occupies four addresses from its base:</p>
+ * <ul>
+ * <li>0 : Reads take the next key code, or 0 when there is none</li>
+ * <li>1 : Reads give the STATUS_ bits</li>
+ * <li>2 : Control, see the CONTROL_ bits</li>
+ * </ul>
+ * <p>Keys come from a single host thread and are read by the CPU thread.
+ * press() drops a key when the ring is full, for interactive input, while
+ * inject() waits for room so scripted input arrives complete and in
+ * order.</p>
+ */
 public class Keyboard implements BusDevice {
+
+  //Register offsets
+  public static final int DATA = 0;
+  public static final int STATUS = 1;
+  public static final int CONTROL = 2;
+  public static final int REGISTERS = 4;
+
+  //Control bits
+  public static final int CONTROL_IRQ = 0x01;
+
+  //Status bits
+  public static final int STATUS_OVERRUN = 0x40;
+  public static final int STATUS_READY = 0x80;
+
+  //How long inject() sleeps while the ring is full
+  private static final long FULL_NANOS = 100000L;
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+  private volatile int control;
+
+  //The ring, filled by the host at tail and emptied by the guest at head
+  private final byte[] ring;
+  private final int mask;
+  private long tail;
+  private final AtomicLong published;
+  private long head;
+  private final AtomicLong consumed;
+
+  private volatile boolean overrun;
+
+  /**
+   * Constructs the keyboard.
+   * @param cpu The CPU to interrupt
+   * @param bus The bus to connect to
+   * @param base The first bus address of the registers
+   * @param capacity The number of keys buffered, rounded up to a power of
+   * two
+   * @throws IllegalArgumentException If capacity is less than 1 or more than
+   * 1G
+   */
+  public Keyboard( CPU6502 cpu, Bus bus, long base, int capacity )
+    throws IllegalArgumentException {
+    if( capacity < 1 || capacity > 1 << 30 ) {
+      throw new IllegalArgumentException( "Bad keyboard capacity: " +
+                                          capacity );
+    }
+
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+
+    capacity = Integer.highestOneBit( capacity - 1 ) << 1;
+    if( capacity == 0 ) {
+      capacity = 1;
+    }
+    ring = new byte[capacity];
+    mask = capacity - 1;
+    published = new AtomicLong();
+    consumed = new AtomicLong();
+  }
+
+  /**
+   * Connects the registers to the bus at the base address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + REGISTERS - 1 );
+  }
+
+  /**
+   * Queues a key without waiting. Must only be called from the input
+   * thread.
+   * @param code The key code
+   * @return False if the ring was full and the key was dropped
+   */
+  public boolean press( int code ) {
+    if( tail - consumed.get() == ring.length ) {
+      overrun = true;
+      return false;
+    }
+    ring[(int)( tail & mask )] = (byte)code;
+    tail++;
+    published.lazySet( tail );
+    signal();
+    return true;
+  }
+
+  /**
+   * Queues keys, waiting for the guest to make room whenever the ring is
+   * full. Must only be called from the input thread, and not from the CPU
+   * thread, which would never make room.
+   * @param codes The key codes
+   * @param offset The index of the first key
+   * @param length The number of keys
+   * @throws InterruptedException If the thread was interrupted while
+   * waiting; the keys before it were queued
+   */
+  public void inject( byte[] codes, int offset, int length )
+    throws InterruptedException {
+    int end = offset + length;
+    while( offset < end ) {
+      int free = (int)( ring.length - ( tail - consumed.get() ) );
+      if( free == 0 ) {
+        LockSupport.parkNanos( FULL_NANOS );
+        if( Thread.interrupted() ) {
+          throw new InterruptedException();
+        }
+        continue;
+      }
+
+      //as much as fits, in up to two copies around the end of the ring
+      int count = Math.min( free, end - offset );
+      int start = (int)( tail & mask );
+      int first = Math.min( count, ring.length - start );
+      System.arraycopy( codes, offset, ring, start, first );
+      System.arraycopy( codes, offset + first, ring, 0, count - first );
+      tail += count;
+      offset += count;
+      published.lazySet( tail );
+      signal();
+    }
+  }
+
+  /**
+   * Queues the characters of a string as key codes, waiting for room as
+   * inject( byte[], int, int ) does.
+   * @param text The characters, each truncated to 8 bits
+   * @throws InterruptedException If the thread was interrupted while waiting
+   */
+  public void type( CharSequence text ) throws InterruptedException {
+    byte[] codes = new byte[text.length()];
+    for( int i = 0; i < codes.length; i++ ) {
+      codes[i] = (byte)text.charAt( i );
+    }
+    inject( codes, 0, codes.length );
+  }
+
+  /**
+   * The number of keys waiting to be read. Safe to call from any thread.
+   * @return The number of buffered keys
+   */
+  public int getPending() {
+    return (int)( published.get() - consumed.get() );
+  }
+
+  @Override
+  public int readByte( long address ) {
+    int register = (int)( address - base );
+    switch( register ) {
+      case DATA:
+        if( head == published.get() ) {
+          return 0;
+        }
+        int code = ring[(int)( head & mask )] & 0xFF;
+        head++;
+        consumed.lazySet( head );
+        if( head != published.get() ) {
+          signal(); //the line stays asserted while keys are waiting
+        }
+        return code;
+      case STATUS:
+        int status = ( head != published.get() ? STATUS_READY : 0 ) |
+                     ( overrun ? STATUS_OVERRUN : 0 );
+        overrun = false;
+        return status;
+      case CONTROL:
+        return control;
+      default:
+        return 0;
+    }
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    if( address - base == CONTROL ) {
+      control = value & 0xFF;
+      if( head != published.get() ) {
+        signal();
+      }
+    }
+  }
+
+  /**
+   * Interrupts the CPU, if enabled.
+   */
+  private void signal() {
+    if( ( control & CONTROL_IRQ ) != 0 ) {
+      cpu.requestIRQ();
+    }
+  }
 }
@@ -0,0 +1,223 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Peripherals;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>Moves the data of any number of serial ports to and from their host
+ * channels on a single thread. Selectable channels, such as pipes and
+ * sockets, are waited on through a selector; others, such as files, are
+ * serviced on every pass while they have work.</p>
+ * <p>Ports do not wake the hub for each byte. Work they queue is picked up
+ * within SELECT_MILLIS, so bytes written in the meantime go out in one
+ * batch.</p>
+ */
+public final class SerialHub {
+
+  //The longest a port waits for its queued work to be picked up
+  public static final long SELECT_MILLIS = 1;
+
+  private static SerialHub shared;
+
+  private final Selector selector;
+  private final Thread thread;
+  private volatile boolean running;
+
+  //Ports with work, queued from the CPU threads
+  private final ConcurrentLinkedQueue< ACIA > pending;
+
+  //Ports with unselectable channels that have work, hub thread only
+  private final List< ACIA > polled;
+
+  /**
+   * The hub shared by every port in the JVM, started on first use.
+   * @return The shared hub
+   * @throws IOException If the selector could not be opened
+   */
+  public static synchronized SerialHub getShared() throws IOException {
+    if( shared == null ) {
+      shared = new SerialHub();
+    }
+    return shared;
+  }
+
+  /**
+   * Constructs a hub and starts its thread.
+   * @throws IOException If the selector could not be opened
+   */
+  public SerialHub() throws IOException {
+    selector = Selector.open();
+    pending = new ConcurrentLinkedQueue< ACIA >();
+    polled = new ArrayList< ACIA >();
+
+    thread = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        loop();
+      }
+    }, "6502 serial hub" );
+    thread.setDaemon( true );
+    running = true;
+    thread.start();
+  }
+
+  /**
+   * Stops the thread and closes the selector. The channels of the ports
+   * are left open.
+   * @throws IOException If the selector could not be closed
+   */
+  public void close() throws IOException {
+    running = false;
+    selector.wakeup();
+    try {
+      thread.join();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    selector.close();
+  }
+
+  /**
+   * Queues a port to have its channels serviced on the next pass.
+   * @param port The port
+   */
+  void service( ACIA port ) {
+    pending.add( port );
+  }
+
+  /**
+   * Services ports until closed.
+   */
+  private void loop() {
+    while( running ) {
+      try {
+        selector.select( SELECT_MILLIS );
+      }
+      catch( IOException e ) {
+        System.err.println( "6502 - Serial hub stopped: " + e.getMessage() );
+        return;
+      }
+
+      Iterator< SelectionKey > keys = selector.selectedKeys().iterator();
+      while( keys.hasNext() ) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        if( key.isValid() ) {
+          pump( (ACIA)key.attachment() );
+        }
+      }
+
+      ACIA port;
+      while( ( port = pending.poll() ) != null ) {
+        port.dequeued();
+        pump( port );
+      }
+
+      //pumping may remove the port, so walk back from the end
+      for( int i = polled.size() - 1; i >= 0; i-- ) {
+        pump( polled.get( i ) );
+      }
+    }
+  }
+
+  /**
+   * Moves what data it can for a port, then waits for what it could not.
+   * @param port The port
+   */
+  private void pump( ACIA port ) {
+    boolean poll = false;
+    try {
+      if( !port.isClosed() ) {
+        port.transmit();
+        port.receive();
+
+        ReadableByteChannel in = port.getInput();
+        WritableByteChannel out = port.getOutput();
+        if( in != null ) {
+          poll = interest( in, port );
+        }
+        if( out != null && out != in ) {
+          poll |= interest( out, port );
+        }
+      }
+      else {
+        cancel( port.getInput() );
+        cancel( port.getOutput() );
+      }
+    }
+    catch( IOException e ) {
+      System.err.println( "6502 - Serial port failed: " + e.getMessage() );
+      port.fail();
+      cancel( port.getInput() );
+      cancel( port.getOutput() );
+    }
+
+    if( poll != port.isPolled() ) {
+      if( poll ) {
+        polled.add( port );
+      }
+      else {
+        polled.remove( port );
+      }
+      port.setPolled( poll );
+    }
+  }
+
+  /**
+   * Waits on a channel for what the port still needs from it.
+   * @param channel One of the channels of the port
+   * @param port The port
+   * @return True if the channel cannot be selected and must be polled
+   * @throws IOException If the channel could not be registered
+   */
+  private boolean interest( Channel channel, ACIA port ) throws IOException {
+    int ops = 0;
+    if( channel == port.getInput() && port.wantsRead() ) {
+      ops |= SelectionKey.OP_READ;
+    }
+    if( channel == port.getOutput() && port.wantsWrite() ) {
+      ops |= SelectionKey.OP_WRITE;
+    }
+
+    if( !( channel instanceof SelectableChannel ) ) {
+      return ops != 0;
+    }
+
+    SelectableChannel selectable = (SelectableChannel)channel;
+    SelectionKey key = selectable.keyFor( selector );
+    if( key == null ) {
+      if( ops != 0 ) {
+        selectable.configureBlocking( false );
+        selectable.register( selector, ops, port );
+      }
+    }
+    else if( key.isValid() ) {
+      key.interestOps( ops );
+    }
+    return false;
+  }
+
+  /**
+   * Stops waiting on a channel.
+   * @param channel The channel, or null
+   */
+  private void cancel( Channel channel ) {
+    if( channel instanceof SelectableChannel ) {
+      SelectionKey key = ( (SelectableChannel)channel ).keyFor( selector );
+      if( key != null ) {
+        key.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,399 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   Chandy, K. M. and Misra, J. "Distributed Simulation: A Case Study in
+ *   Design and Verification of Distributed Programs", 1979
+ */
+
+package Peripherals;
+
+import System.CPU6502;
+import System.CycleEvent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A serial cable between the ACIAs of two machines in the same JVM. Each
+ * byte transmitted is stamped with the cycle it will arrive at, the cycle
+ * it was sent plus the latency of the link, and travels through a lock-free
+ * queue to the other machine.</p>
+ * <p>Each machine runs on its own thread through the runUntil() method of
+ * its Machine, and may have any number of links, through different ports.
+ * Synchronization is conservative: a machine never runs further ahead of
+ * any machine it is linked to than the latency of that link, because up to
+ * that point nothing can arrive from the other side that it has not
+ * already been given. Its horizon is the least, over its links, of the
+ * cycle the peer has reached plus the latency. It only waits when it has
+ * caught up with that horizon, and the outcome is the same whatever the
+ * threads do: a byte arrives at the first instruction starting at or after
+ * its stamp.</p>
+ * <p>A link holds a fixed number of bytes in each direction. A byte stays
+ * in the link until the cycle it arrives at, so whether there is room
+ * depends only on the cycles of the sender; the port shows it as
+ * STATUS_TDRE, and a byte sent without room is refused and lost. When a
+ * byte fills the link, an event at the cycle the oldest byte arrives tells
+ * the port that room came back, for its transmit IRQ. Sending
+ * never waits: the queue a byte travels through starts with room for
+ * that many bytes, and if the peer lags behind and has not yet taken bytes
+ * that have arrived, the sender moves on to a queue twice the size, which
+ * the peer turns to once it has emptied the old one.</p>
+ * <p>A byte arriving while the receive FIFO is full is lost, as an
+ * overrun would lose it.</p>
+ */
+public class SerialLink {
+
+  private final Endpoint first;
+  private final Endpoint second;
+
+  /**
+   * A machine with links to others: its CPU, and the cycle it has reached.
+   */
+  public static final class Machine {
+
+    //How many times to spin before sleeping while waiting for the peers
+    private static final int SPINS = 1000;
+    private static final long WAIT_NANOS = 10000L;
+
+    private final CPU6502 cpu;
+    private Endpoint[] endpoints;
+
+    //The cycle this machine has reached, published for the peers
+    private final AtomicLong clock;
+
+    //The cycle this machine may run up to, thread of this machine only
+    private long horizon;
+
+    /**
+     * Constructs a machine without links.
+     * @param cpu The CPU of the machine
+     */
+    public Machine( CPU6502 cpu ) {
+      this.cpu = cpu;
+      endpoints = new Endpoint[0];
+      clock = new AtomicLong( cpu.getCycles() );
+    }
+
+    /**
+     * Runs the machine until its cycle counter reaches a target, waiting
+     * for the machines it is linked to whenever it gets too far ahead. The
+     * other machines must be run at the same time, from other threads.
+     * @param cycle The cycle to reach
+     */
+    public void runUntil( long cycle ) {
+      while( cpu.getCycles() < cycle ) {
+        if( cpu.getCycles() >= horizon ) {
+          awaitPeers();
+        }
+        for( Endpoint endpoint : endpoints ) {
+          endpoint.deliver();
+        }
+        cpu.step();
+        clock.lazySet( cpu.getCycles() );
+      }
+    }
+
+    /**
+     * The cycle the machine has reached. Safe to call from any thread.
+     * @return The last cycle published for the peers
+     */
+    public long getClock() {
+      return clock.get();
+    }
+
+    /**
+     * The CPU of the machine
+     * @return The CPU
+     */
+    public CPU6502 getCPU() {
+      return cpu;
+    }
+
+    /**
+     * Adds a link. Links must all be made before the machine runs.
+     * @param endpoint The end of the link on this machine
+     */
+    private void add( Endpoint endpoint ) {
+      endpoints = Arrays.copyOf( endpoints, endpoints.length + 1 );
+      endpoints[endpoints.length - 1] = endpoint;
+    }
+
+    /**
+     * Waits until every peer has gone far enough to let this machine run.
+     */
+    private void awaitPeers() {
+      int spins = 0;
+      while( true ) {
+        long limit = Long.MAX_VALUE;
+        for( Endpoint endpoint : endpoints ) {
+          limit = Math.min( limit, endpoint.peer.machine.clock.get() +
+                                   endpoint.latency );
+        }
+        horizon = limit;
+        if( cpu.getCycles() < horizon ) {
+          return;
+        }
+        pause( spins++ );
+      }
+    }
+
+    /**
+     * Waits a little for the other threads.
+     * @param spins How many times it has waited so far
+     */
+    private static void pause( int spins ) {
+      if( spins < SPINS ) {
+        Thread.yield();
+      }
+      else {
+        LockSupport.parkNanos( WAIT_NANOS );
+      }
+    }
+  }
+
+  /**
+   * A queue of bytes and their stamps, indexed by the count of bytes ever
+   * sent through the link. Once full it is followed by a larger one.
+   */
+  private static final class Queue {
+
+    private final long[] stamps;
+    private final byte[] bytes;
+    private final int mask;
+
+    //The index of the first byte written to this queue
+    private final long start;
+
+    //The index of the first byte written to the next queue, set before it
+    private long end;
+    private volatile Queue next;
+
+    /**
+     * Constructs an empty queue.
+     * @param size The number of bytes it holds, a power of two
+     * @param start The index of the first byte it will hold
+     */
+    Queue( int size, long start ) {
+      stamps = new long[size];
+      bytes = new byte[size];
+      mask = size - 1;
+      this.start = start;
+    }
+  }
+
+  /**
+   * One end of the link: a machine and its port.
+   */
+  public static final class Endpoint {
+
+    private final Machine machine;
+    private final ACIA port;
+    private final long latency;
+    private Endpoint peer;
+
+    //Bytes on their way here: the thread of the peer writes them to the
+    //queue it last moved to, at tail, and this machine reads them from the
+    //queue it has reached, at head
+    private Queue writing;
+    private Queue reading;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+
+    //Stamps of the bytes sent and still crossing, thread of this machine
+    private final long[] crossing;
+    private final int mask;
+    private long crossingHead;
+    private long crossingTail;
+
+    private long lost;
+    private long refused;
+
+    //Tells the port when a full link has room again
+    private final CycleEvent room;
+
+    /**
+     * Constructs an endpoint.
+     * @param machine The machine
+     * @param port The port of the machine
+     * @param latency The cycles a byte takes to cross the link
+     * @param capacity The number of bytes the link holds in each direction
+     */
+    private Endpoint( Machine machine, ACIA port, long latency,
+                      int capacity ) {
+      this.machine = machine;
+      this.port = port;
+      this.latency = latency;
+      writing = new Queue( capacity, 0 );
+      reading = writing;
+      head = new AtomicLong();
+      tail = new AtomicLong();
+      crossing = new long[capacity];
+      mask = capacity - 1;
+      room = new CycleEvent() {
+        @Override
+        public void fire( long cycle ) {
+          port.linkReady();
+        }
+      };
+    }
+
+    /**
+     * The number of bytes that arrived while the receive FIFO was full
+     * @return The number of lost bytes
+     */
+    public long getLost() {
+      return lost;
+    }
+
+    /**
+     * The number of bytes sent while the link was full
+     * @return The number of refused bytes
+     */
+    public long getRefused() {
+      return refused;
+    }
+
+    /**
+     * Whether a byte sent now would fit in the link. Thread of this
+     * machine only.
+     * @return True if fewer bytes are crossing than the link holds
+     */
+    boolean isReady() {
+      long now = machine.cpu.getCycles();
+      while( crossingHead != crossingTail &&
+             crossing[(int)( crossingHead & mask )] <= now ) {
+        crossingHead++;
+      }
+      return crossingTail - crossingHead <= mask;
+    }
+
+    /**
+     * Sends a byte to the peer, without waiting. Thread of this machine
+     * only.
+     * @param value The byte
+     * @return False if the link was full and the byte was refused
+     */
+    boolean send( int value ) {
+      if( !isReady() ) {
+        refused++;
+        return false;
+      }
+      long stamp = machine.cpu.getCycles() + latency;
+      crossing[(int)( crossingTail & mask )] = stamp;
+      crossingTail++;
+
+      Endpoint to = peer;
+      Queue queue = to.writing;
+      long at = to.tail.get();
+      if( at - Math.max( to.head.get(), queue.start ) > queue.mask ) {
+        Queue larger = new Queue( ( queue.mask + 1 ) * 2, at );
+        queue.end = at;
+        queue.next = larger; //publishes end
+        to.writing = larger;
+        queue = larger;
+      }
+      queue.stamps[(int)( at & queue.mask )] = stamp;
+      queue.bytes[(int)( at & queue.mask )] = (byte)value;
+      to.tail.lazySet( at + 1 );
+
+      if( crossingTail - crossingHead > mask ) {
+        machine.cpu.getScheduler().schedule(
+          room, crossing[(int)( crossingHead & mask )] );
+      }
+      return true;
+    }
+
+    /**
+     * Hands the port every byte due by now. Every byte due before the
+     * horizon was sent before the peer published the clock it was read
+     * from, so it is already in the queue.
+     */
+    private void deliver() {
+      long next = head.get();
+      long last = tail.get();
+      long now = machine.cpu.getCycles();
+      while( next < last ) {
+        Queue queue = reading;
+        if( queue.next != null && next == queue.end ) {
+          reading = queue.next;
+          continue;
+        }
+        int at = (int)( next & queue.mask );
+        if( queue.stamps[at] > now ) {
+          break;
+        }
+        if( !port.deliver( queue.bytes[at] & 0xFF ) ) {
+          lost++;
+        }
+        next++;
+      }
+      head.lazySet( next );
+    }
+  }
+
+  /**
+   * Connects the ports of two machines. Neither port may have channels of
+   * its own or another link.
+   * @param firstMachine The first machine
+   * @param firstPort The port of the first machine
+   * @param secondMachine The second machine
+   * @param secondPort The port of the second machine
+   * @param latency The cycles a byte takes to cross the link
+   * @param capacity The number of bytes the link holds in each direction,
+   * rounded up to a power of two
+   * @throws IllegalArgumentException If latency is less than 1, capacity
+   * less than 2 or more than 1G, both ends are the same machine, or a port
+   * has channels or is already linked
+   */
+  public SerialLink( Machine firstMachine, ACIA firstPort,
+                     Machine secondMachine, ACIA secondPort, long latency,
+                     int capacity )
+    throws IllegalArgumentException {
+    if( latency < 1 ) {
+      throw new IllegalArgumentException( "Bad link latency: " + latency );
+    }
+    if( capacity < 2 || capacity > 1 << 30 ) {
+      throw new IllegalArgumentException( "Bad link capacity: " + capacity );
+    }
+    if( firstMachine == secondMachine ) {
+      throw new IllegalArgumentException( "A machine cannot be linked to " +
+                                          "itself" );
+    }
+    if( firstPort.getInput() != null || firstPort.getOutput() != null ||
+        secondPort.getInput() != null || secondPort.getOutput() != null ) {
+      throw new IllegalArgumentException( "Linked ports cannot have " +
+                                          "channels" );
+    }
+    if( firstPort.getLink() != null || secondPort.getLink() != null ) {
+      throw new IllegalArgumentException( "Port already linked" );
+    }
+
+    capacity = Integer.highestOneBit( capacity - 1 ) << 1;
+    first = new Endpoint( firstMachine, firstPort, latency, capacity );
+    second = new Endpoint( secondMachine, secondPort, latency, capacity );
+    first.peer = second;
+    second.peer = first;
+    firstMachine.add( first );
+    secondMachine.add( second );
+    firstPort.setLink( first );
+    secondPort.setLink( second );
+  }
+
+  /**
+   * The end of the first machine
+   * @return The endpoint on the first machine
+   */
+  public Endpoint getFirst() {
+    return first;
+  }
+
+  /**
+   * The end of the second machine
+   * @return The endpoint on the second machine
+   */
+  public Endpoint getSecond() {
+    return second;
+  }
+}
@@ -0,0 +1,466 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: https://en.wikipedia.org/wiki/ANSI_escape_code
+ */
+
+package Peripherals;
+
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.CycleEvent;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A memory-mapped text display: a grid of character codes from the base
+ * address, followed by a grid of attributes of the same size. The low
+ * nibble of an attribute is the foreground colour and the high nibble the
+ * background, both in the order of the ANSI colours, bright ones from 8.</p>
+ * <p>Cells written by the guest are marked dirty. Every refresh the dirty
+ * cells are copied into a snapshot that a rendering thread draws, either
+ * into an image for a FrameSink, from a cache of glyphs already coloured
+ * for their attribute, or as escape sequences to a terminal stream, or
+ * both. Only the cells that changed are drawn or sent.</p>
+ * <p>Codes 0x20 to 0x7E and 0xA0 to 0xFF are shown as Latin-1 characters,
+ * anything else as a blank.</p>
+ */
+public class TextDisplay implements BusDevice {
+
+  //Glyph size in the image
+  public static final int CELL_WIDTH = 8;
+  public static final int CELL_HEIGHT = 16;
+
+  //The ANSI colours, as ARGB
+  private static final int[] COLOURS = {
+    0xFF000000, 0xFFAA0000, 0xFF00AA00, 0xFFAA5500,
+    0xFF0000AA, 0xFFAA00AA, 0xFF00AAAA, 0xFFAAAAAA,
+    0xFF555555, 0xFFFF5555, 0xFF55FF55, 0xFFFFFF55,
+    0xFF5555FF, 0xFFFF55FF, 0xFF55FFFF, 0xFFFFFFFF
+  };
+
+  private final CPU6502 cpu;
+  private final Bus bus;
+  private final long base;
+  private final int columns;
+  private final int rows;
+  private final int cells;
+  private final long cyclesPerRefresh;
+  private final FrameSink sink;
+  private final OutputStream terminal;
+
+  //Guest side, owned by the CPU thread
+  private final byte[] characters;
+  private final byte[] attributes;
+  private final long[] dirty;
+  private final CycleEvent refresh;
+
+  //The snapshot, owned by the renderer while pending
+  private final byte[] snapshotCharacters;
+  private final byte[] snapshotAttributes;
+  private final long[] snapshotDirty;
+  private volatile boolean pending;
+
+  //Renderer side
+  private final Thread renderer;
+  private final int[] image;
+  private final long[] imageDirty;
+  private final StringBuilder escapes;
+  private final byte[][] masks;
+  private final int[][] glyphs;
+  private Font font;
+  private long rendered;
+  private volatile boolean running;
+
+  /**
+   * Constructs the display. Either output may be left out.
+   * @param cpu The CPU whose cycles time the refreshes
+   * @param bus The bus to connect to
+   * @param base The bus address of the first character
+   * @param columns The number of characters per row
+   * @param rows The number of rows
+   * @param cyclesPerRefresh The cycles between refreshes
+   * @param sink Where rendered images go, or null
+   * @param terminal Where escape sequences go, or null
+   * @throws IllegalArgumentException If a dimension or cyclesPerRefresh is
+   * less than 1
+   */
+  public TextDisplay( CPU6502 cpu, Bus bus, long base, int columns, int rows,
+                      long cyclesPerRefresh, FrameSink sink,
+                      OutputStream terminal )
+    throws IllegalArgumentException {
+    if( columns < 1 || rows < 1 || cyclesPerRefresh < 1 ) {
+      throw new IllegalArgumentException( "Bad text display geometry" );
+    }
+
+    this.cpu = cpu;
+    this.bus = bus;
+    this.base = base;
+    this.columns = columns;
+    this.rows = rows;
+    this.cyclesPerRefresh = cyclesPerRefresh;
+    this.sink = sink;
+    this.terminal = terminal;
+    cells = columns * rows;
+
+    characters = new byte[cells];
+    attributes = new byte[cells];
+    Arrays.fill( attributes, (byte)0x07 ); //light grey on black
+    dirty = new long[( cells + 63 ) / 64];
+
+    snapshotCharacters = new byte[cells];
+    snapshotAttributes = new byte[cells];
+    snapshotDirty = new long[dirty.length];
+
+    image = sink != null ? new int[cells * CELL_WIDTH * CELL_HEIGHT] : null;
+    imageDirty = new long[( rows * CELL_HEIGHT + 63 ) / 64];
+    escapes = new StringBuilder();
+    masks = new byte[256][];
+    glyphs = new int[0x10000][];
+
+    refresh = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        refresh( cycle );
+      }
+    };
+
+    renderer = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        renderLoop();
+      }
+    }, "6502 text display renderer" );
+    renderer.setDaemon( true );
+  }
+
+  /**
+   * Connects the character and attribute grids to the bus at the base
+   * address.
+   */
+  public void connect() {
+    bus.connectDevice( this, base, base + 2 * cells - 1 );
+  }
+
+  /**
+   * Starts the rendering thread and schedules the first refresh, which
+   * draws the whole grid.
+   */
+  public void start() {
+    mark( 0, cells - 1 );
+    running = true;
+    renderer.start();
+    cpu.getScheduler().schedule( refresh, cpu.getCycles() + cyclesPerRefresh );
+  }
+
+  /**
+   * Stops the refreshes and the rendering thread, then draws whatever
+   * changed since the last refresh. Must be called from the CPU thread, or
+   * while the CPU is stopped.
+   */
+  public void close() {
+    cpu.getScheduler().cancel( refresh );
+    running = false;
+    LockSupport.unpark( renderer );
+    try {
+      renderer.join();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+
+    if( isDirty() ) {
+      takeSnapshot();
+      render();
+    }
+  }
+
+  /**
+   * The width of the image given to the sink
+   * @return The width in pixels
+   */
+  public int getImageWidth() {
+    return columns * CELL_WIDTH;
+  }
+
+  /**
+   * The height of the image given to the sink
+   * @return The height in pixels
+   */
+  public int getImageHeight() {
+    return rows * CELL_HEIGHT;
+  }
+
+  @Override
+  public int readByte( long address ) {
+    int offset = (int)( address - base );
+    return offset < cells ? characters[offset] & 0xFF
+                          : attributes[offset - cells] & 0xFF;
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    int offset = (int)( address - base );
+    int cell;
+    if( offset < cells ) {
+      cell = offset;
+      characters[cell] = (byte)value;
+    }
+    else {
+      cell = offset - cells;
+      attributes[cell] = (byte)value;
+    }
+    dirty[cell >> 6] |= 1L << cell;
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) {
+    int start = (int)( address - base );
+    if( start + length <= cells ) {
+      System.arraycopy( source, offset, characters, start, length );
+      mark( start, start + length - 1 );
+    }
+    else if( start >= cells ) {
+      System.arraycopy( source, offset, attributes, start - cells, length );
+      mark( start - cells, start - cells + length - 1 );
+    }
+    else {
+      BusDevice.super.writeBytes( address, source, offset, length );
+    }
+  }
+
+  /**
+   * Hands the changed cells to the renderer if it is free, and schedules
+   * the next refresh.
+   * @param cycle The cycle the refresh was due
+   */
+  private void refresh( long cycle ) {
+    if( !pending && isDirty() ) {
+      takeSnapshot();
+      pending = true;
+      LockSupport.unpark( renderer );
+    }
+    cpu.getScheduler().schedule( refresh, cycle + cyclesPerRefresh );
+  }
+
+  /**
+   * Copies the dirty cells into the snapshot.
+   */
+  private void takeSnapshot() {
+    for( int word = 0; word < dirty.length; word++ ) {
+      long bits = dirty[word];
+      while( bits != 0 ) {
+        int cell = ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+        snapshotCharacters[cell] = characters[cell];
+        snapshotAttributes[cell] = attributes[cell];
+        bits &= bits - 1;
+      }
+    }
+    System.arraycopy( dirty, 0, snapshotDirty, 0, dirty.length );
+    Arrays.fill( dirty, 0 );
+  }
+
+  /**
+   * Draws each snapshot handed over, until closed.
+   */
+  private void renderLoop() {
+    while( true ) {
+      if( pending ) {
+        render();
+        pending = false;
+      }
+      else if( running ) {
+        LockSupport.park( this );
+      }
+      else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Draws the dirty cells of the snapshot to the outputs.
+   */
+  private void render() {
+    if( sink != null ) {
+      Arrays.fill( imageDirty, 0 );
+    }
+    escapes.setLength( 0 );
+    int cursor = -1;
+    int attribute = -1;
+
+    for( int word = 0; word < snapshotDirty.length; word++ ) {
+      long bits = snapshotDirty[word];
+      while( bits != 0 ) {
+        int cell = ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+        int code = snapshotCharacters[cell] & 0xFF;
+        int attr = snapshotAttributes[cell] & 0xFF;
+        bits &= bits - 1;
+
+        if( sink != null ) {
+          draw( cell, code, attr );
+        }
+        if( terminal != null ) {
+          if( cell != cursor ) { //the cursor moves on by itself
+            escapes.append( "\033[" ).append( cell / columns + 1 )
+                   .append( ';' ).append( cell % columns + 1 ).append( 'H' );
+          }
+          if( attr != attribute ) {
+            appendColours( attr );
+            attribute = attr;
+          }
+          escapes.append( character( code ) );
+          cursor = cell % columns == columns - 1 ? -1 : cell + 1;
+        }
+      }
+    }
+
+    if( sink != null ) {
+      sink.frame( image, getImageWidth(), getImageHeight(), imageDirty,
+                  rendered );
+    }
+    if( terminal != null ) {
+      escapes.append( "\033[0m" );
+      try {
+        terminal.write( escapes.toString().getBytes( StandardCharsets.UTF_8 ) );
+        terminal.flush();
+      }
+      catch( IOException e ) {
+        System.err.println( "6502 - Text display output failed: " +
+                            e.getMessage() );
+      }
+    }
+    rendered++;
+  }
+
+  /**
+   * Copies the glyph of a cell into the image.
+   * @param cell The cell
+   * @param code The character code
+   * @param attr The attribute
+   */
+  private void draw( int cell, int code, int attr ) {
+    int[] glyph = glyph( code, attr );
+    int stride = columns * CELL_WIDTH;
+    int top = cell / columns * CELL_HEIGHT;
+    int pixel = top * stride + cell % columns * CELL_WIDTH;
+    for( int y = 0; y < CELL_HEIGHT; y++ ) {
+      System.arraycopy( glyph, y * CELL_WIDTH, image, pixel, CELL_WIDTH );
+      pixel += stride;
+    }
+    for( int row = top; row < top + CELL_HEIGHT; row++ ) {
+      imageDirty[row >> 6] |= 1L << row;
+    }
+  }
+
+  /**
+   * Finds the pixels of a character in the colours of an attribute,
+   * rasterizing them on first use.
+   * @param code The character code
+   * @param attr The attribute
+   * @return CELL_WIDTH by CELL_HEIGHT ARGB values
+   */
+  private int[] glyph( int code, int attr ) {
+    int key = ( attr << 8 ) | code;
+    int[] glyph = glyphs[key];
+    if( glyph == null ) {
+      byte[] mask = mask( code );
+      int foreground = COLOURS[attr & 0x0F];
+      int background = COLOURS[attr >> 4];
+      glyph = new int[mask.length];
+      for( int i = 0; i < mask.length; i++ ) {
+        glyph[i] = mask[i] != 0 ? foreground : background;
+      }
+      glyphs[key] = glyph;
+    }
+    return glyph;
+  }
+
+  /**
+   * Finds the shape of a character, rasterizing it on first use.
+   * @param code The character code
+   * @return CELL_WIDTH by CELL_HEIGHT values, non-zero where the character
+   * is drawn
+   */
+  private byte[] mask( int code ) {
+    byte[] mask = masks[code];
+    if( mask == null ) {
+      BufferedImage cell = new BufferedImage( CELL_WIDTH, CELL_HEIGHT,
+                                              BufferedImage.TYPE_BYTE_GRAY );
+      Graphics2D g = cell.createGraphics();
+      if( font == null ) {
+        font = new Font( Font.MONOSPACED, Font.PLAIN, CELL_HEIGHT * 3 / 4 );
+      }
+      g.setFont( font );
+      g.setColor( Color.WHITE );
+      g.drawString( String.valueOf( character( code ) ), 0,
+                    CELL_HEIGHT - g.getFontMetrics().getDescent() );
+      g.dispose();
+
+      mask = new byte[CELL_WIDTH * CELL_HEIGHT];
+      for( int y = 0; y < CELL_HEIGHT; y++ ) {
+        for( int x = 0; x < CELL_WIDTH; x++ ) {
+          if( cell.getRaster().getSample( x, y, 0 ) > 127 ) {
+            mask[y * CELL_WIDTH + x] = 1;
+          }
+        }
+      }
+      masks[code] = mask;
+    }
+    return mask;
+  }
+
+  /**
+   * Appends the escape sequence selecting the colours of an attribute.
+   * @param attr The attribute
+   */
+  private void appendColours( int attr ) {
+    int foreground = attr & 0x0F;
+    int background = attr >> 4;
+    escapes.append( "\033[" )
+           .append( foreground < 8 ? 30 + foreground : 82 + foreground )
+           .append( ';' )
+           .append( background < 8 ? 40 + background : 92 + background )
+           .append( 'm' );
+  }
+
+  /**
+   * Marks a range of cells dirty.
+   * @param first The first cell
+   * @param last The last cell
+   */
+  private void mark( int first, int last ) {
+    for( int cell = first; cell <= last; cell++ ) {
+      dirty[cell >> 6] |= 1L << cell;
+    }
+  }
+
+  /**
+   * Whether any cell changed since the last snapshot
+   * @return True if a cell is dirty
+   */
+  private boolean isDirty() {
+    for( long bits : dirty ) {
+      if( bits != 0 ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The character shown for a code
+   * @param code The character code
+   * @return The Latin-1 character, or a space if it is not printable
+   */
+  private static char character( int code ) {
+    return ( code >= 0x20 && code < 0x7F ) || code >= 0xA0 ? (char)code : ' ';
+  }
+}
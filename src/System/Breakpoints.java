@@ -0,0 +1,162 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+import java.util.Arrays;
+
+/**
+ * <p>The breakpoints and watchpoints of a bus, kept as bitmaps over the
+ * 64K address space with one bitmap per kind of access.</p>
+ * <p>Each bitmap is summarised by a second, 256-bit map with one bit per
+ * 256-byte page. Checking an address costs a single test of that summary
+ * whenever nothing is armed on its page, so unrelated code is not slowed
+ * down. Bus addresses above 0xFFFF are never watched.</p>
+ */
+public final class Breakpoints {
+
+  //Kinds of access
+  public static final int EXECUTE = 0;
+  public static final int READ = 1;
+  public static final int WRITE = 2;
+
+  private static final int KINDS = 3;
+  private static final int WORDS = 0x10000 / 64;
+  private static final int PAGE_WORDS = 256 / 64;
+
+  //One bit per address, and one bit per page, for each kind
+  private final long[] addresses;
+  private final long[] pages;
+
+  private DebugListener listener;
+
+  /**
+   * Constructs an empty set of breakpoints.
+   */
+  public Breakpoints() {
+    addresses = new long[KINDS * WORDS];
+    pages = new long[KINDS * PAGE_WORDS];
+  }
+
+  /**
+   * Sets who is told about hits.
+   * @param listener The debugger, or null to ignore hits
+   */
+  public void setListener( DebugListener listener ) {
+    this.listener = listener;
+  }
+
+  /**
+   * Who is told about hits
+   * @return The debugger, or null if hits are ignored
+   */
+  public DebugListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Arms an inclusive range of addresses.
+   * @param kind EXECUTE, READ or WRITE
+   * @param from The first address
+   * @param to The last address
+   * @throws IllegalArgumentException if the range is not within 0 to 0xFFFF
+   */
+  public void arm( int kind, int from, int to )
+    throws IllegalArgumentException {
+    checkRange( from, to );
+    for( int address = from; address <= to; address++ ) {
+      addresses[kind * WORDS + ( address >>> 6 )] |= 1L << address;
+      pages[kind * PAGE_WORDS + ( address >>> 14 )] |= 1L << ( address >>> 8 );
+    }
+  }
+
+  /**
+   * Disarms an inclusive range of addresses.
+   * @param kind EXECUTE, READ or WRITE
+   * @param from The first address
+   * @param to The last address
+   * @throws IllegalArgumentException if the range is not within 0 to 0xFFFF
+   */
+  public void disarm( int kind, int from, int to )
+    throws IllegalArgumentException {
+    checkRange( from, to );
+    for( int address = from; address <= to; address++ ) {
+      addresses[kind * WORDS + ( address >>> 6 )] &= ~( 1L << address );
+    }
+
+    //a page stays armed only while any address in it is
+    for( int page = from >>> 8; page <= to >>> 8; page++ ) {
+      boolean armed = false;
+      for( int i = 0; i < PAGE_WORDS; i++ ) {
+        armed |= addresses[kind * WORDS + page * PAGE_WORDS + i] != 0;
+      }
+      if( !armed ) {
+        pages[kind * PAGE_WORDS + ( page >>> 6 )] &= ~( 1L << page );
+      }
+    }
+  }
+
+  /**
+   * Disarms everything.
+   */
+  public void clear() {
+    Arrays.fill( addresses, 0 );
+    Arrays.fill( pages, 0 );
+  }
+
+  /**
+   * Whether an address is armed for a kind of access.
+   * @param kind EXECUTE, READ or WRITE
+   * @param address The bus address
+   * @return True if the address is armed
+   */
+  public boolean isArmed( int kind, long address ) {
+    if( ( address >>> 16 ) != 0 ) {
+      return false;
+    }
+
+    int a = (int)address;
+    if( ( pages[kind * PAGE_WORDS + ( a >>> 14 )] & ( 1L << ( a >>> 8 ) ) )
+        == 0 ) {
+      return false; //nothing armed on the page
+    }
+    return ( addresses[kind * WORDS + ( a >>> 6 )] & ( 1L << a ) ) != 0;
+  }
+
+  /**
+   * Reports a breakpoint to the listener.
+   * @param address The address of the opcode
+   * @return True if the listener wants the CPU suspended
+   */
+  boolean breakpointHit( int address ) {
+    return listener != null && listener.breakpointHit( address );
+  }
+
+  /**
+   * Reports a watchpoint to the listener.
+   * @param address The bus address
+   * @param value The byte that was read or written
+   * @param write True for a write, false for a read
+   */
+  void watchpointHit( long address, int value, boolean write ) {
+    if( listener != null ) {
+      listener.watchpointHit( address, value, write );
+    }
+  }
+
+  /**
+   * Validates a range of addresses.
+   * @param from The first address
+   * @param to The last address
+   */
+  private static void checkRange( int from, int to ) {
+    if( from < 0 || to > 0xFFFF || from > to ) {
+      throw new IllegalArgumentException(
+        "Bad breakpoint range [" + Integer.toHexString( from ) + ", " +
+        Integer.toHexString( to ) + "]" );
+    }
+  }
+}
@@ -6,7 +6,8 @@
 
 package System;
 
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * A 16-bit Data and 32-bit Address bus through which devices can communicate.
@@ -19,14 +20,32 @@ public class Bus {
   private static final long MIN_ADDRESS = 0x00000000L;
   private static final long MAX_ADDRESS = 0xFFFFFFFFL;
 
-  //The System.Bus maps addresses to devices
-  private HashMap< Long, BusDevice > respondents;
+  //The System.Bus maps addresses to devices through a two level table: the
+  //upper 16 bits select a page, the lower 16 bits a device within it. Pages
+  //are only allocated once a device is connected inside them.
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_MASK = ( 1 << PAGE_BITS ) - 1;
+  private final BusDevice[][] respondents;
+
+  //Answers every address no device is connected to
+  private final UnmappedDevice unmapped;
+
+  //The last byte seen on the data lines
+  private int dataBus;
+
+  //Breakpoints and watchpoints on the bus addresses
+  private final Breakpoints breakpoints;
+
+  //Optional monitor that completes accesses in place of the devices
+  private BusMonitor monitor;
 
   /**
    * Constructor for the bus.
    */
   public Bus() {
-    respondents = new HashMap< Long, BusDevice >();
+    respondents = new BusDevice[1 << ( 32 - PAGE_BITS )][];
+    unmapped = new UnmappedDevice( this );
+    breakpoints = new Breakpoints();
   }
 
   /**
@@ -41,84 +60,310 @@ public class Bus {
 
     //check for proper address
     if( inBounds( address ) ) {
-      respondents.put( address, device );
+      int page = (int)( address >>> PAGE_BITS );
+      if( respondents[page] == null ) {
+        respondents[page] = new BusDevice[1 << PAGE_BITS];
+        Arrays.fill( respondents[page], unmapped );
+      }
+      respondents[page][(int)address & PAGE_MASK] = device;
     }
     else {
-      throw new IllegalArgumentException(
-        "Address " + Long.toHexString( address ) + " exceeds the bounds [" +
-        Long.toHexString( MIN_ADDRESS ) + ", " +
-        Long.toHexString( MAX_ADDRESS ) + " ]" );
+      throw outOfBounds( address );
+    }
+  }
+
+  /**
+   * Connects the device to every address in an inclusive range.
+   * @param device the Device to connect
+   * @param from the first address that the device will respond to
+   * @param to the last address that the device will respond to
+   * @throws IllegalArgumentException if the range exceeds the addressing
+   * limits
+   */
+  public void connectDevice( BusDevice device, long from, long to )
+    throws IllegalArgumentException {
+    if( !inBounds( from ) || !inBounds( to ) ) {
+      throw outOfBounds( inBounds( from ) ? to : from );
+    }
+    if( from > to ) {
+      throw new IllegalArgumentException( "Empty address range" );
+    }
+    for( long address = from; address <= to; address++ ) {
+      connectDevice( device, address );
     }
   }
 
   /**
-   * Returns the byte mapped to the given address.
+   * Returns the byte mapped to the given address. Unmapped addresses are
+   * answered according to the policy of getUnmapped().
    * @param address The address at which the device is mapped
    * @return An integer containing the byte value
    * @throws InaddressableException If the address does not map to any known
-   * device
+   * device and unmapped accesses are trapped without a handler
    * @throws IllegalArgumentException If the address falls outside of the
    * valid address range
    */
-  public int readByte( long address ) throws IllegalArgumentException,
-                                             InaddressableException {
+  public int readByte( long address ) throws IllegalArgumentException {
     //check for proper address
     if( inBounds( address ) ) {
 
       //grab the respondent
-      BusDevice target = respondents.get( address );
-
-      //check it exists
-      if( target == null ) {
-        throw new InaddressableException( address );
-      }
+      BusDevice target = respondent( address );
 
       //return value from target
-      return target.readByte( address );
+      int value = monitor == null ? target.readByte( address )
+                                  : monitor.read( address, target );
+      dataBus = value;
+      if( breakpoints.isArmed( Breakpoints.READ, address ) ) {
+        breakpoints.watchpointHit( address, value, false );
+      }
+      return value;
     }
     else {
-      throw new IllegalArgumentException(
-        "Address " + Long.toHexString( address ) + " exceeds the bounds [" +
-        Long.toHexString( MIN_ADDRESS ) + ", " + Long.toHexString( MAX_ADDRESS )
-        + " ]" );
+      throw outOfBounds( address );
     }
   }
 
+  /**
+   * Reads a byte for the CPU to look ahead at, bypassing the monitor,
+   * watchpoints and data bus, and leaving the device as it was.
+   * @param address The address at which the device is mapped
+   * @return An integer containing the byte value, or -1 if the address is
+   * out of range or its device cannot be read without side effects
+   */
+  int peekByte( long address ) {
+    return inBounds( address ) ? respondent( address ).peekByte( address )
+                               : -1;
+  }
+
   /**
    * Writes the byte to the given address. The value will be truncated to its
-   * byte value
+   * byte value. Unmapped addresses are handled according to the policy of
+   * getUnmapped().
    * @param address The address at which the device is mapped
    * @param value And integer containing the byte value
    * @throws InaddressableException If the address does not map to any known
-   * device
+   * device and unmapped accesses are trapped without a handler
    * @throws IllegalArgumentException If the address falls outside of the
    * valid address range
    */
   public void writeByte( long address, int value )
-    throws IllegalArgumentException, InaddressableException {
+    throws IllegalArgumentException {
 
     //check for proper address
     if( inBounds( address ) ) {
 
       //grab the respondent
-      BusDevice target = respondents.get( address );
-
-      //check it exists
-      if( target == null ) {
-        throw new InaddressableException( address );
-      }
+      BusDevice target = respondent( address );
+      dataBus = value & 0xFF;
 
       //write value to target
-      target.writeByte( address, value );
+      if( monitor == null ) {
+        target.writeByte( address, value );
+      }
+      else {
+        monitor.write( address, value, target );
+      }
+      if( breakpoints.isArmed( Breakpoints.WRITE, address ) ) {
+        breakpoints.watchpointHit( address, value, true );
+      }
     }
     else {
-      throw new IllegalArgumentException(
-        "Address " + Long.toHexString( address ) + " exceeds the bounds [" +
-        Long.toHexString( MIN_ADDRESS ) + ", " + Long.toHexString( MAX_ADDRESS )
-        + " ]" );
+      throw outOfBounds( address );
+    }
+  }
+
+  /**
+   * Copies a range of bus addresses into an array. The range is split at
+   * device boundaries and each piece is handed to its device as one block.
+   * Pieces that are watched, or any piece while a monitor is attached, are
+   * read a byte at a time so that nothing is missed.
+   * @param address The first address
+   * @param destination The array to copy into
+   * @param offset The index in the array of the first byte
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range falls outside of the valid
+   * address range
+   */
+  public void read( long address, byte[] destination, int offset,
+                    int length ) throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      BusDevice target = respondent( address );
+      int run = run( address, length, target, Breakpoints.READ );
+      if( run < 0 ) { //byte by byte
+        run = -run;
+        for( int i = 0; i < run; i++ ) {
+          destination[offset + i] = (byte)readByte( address + i );
+        }
+      }
+      else {
+        target.readBytes( address, destination, offset, run );
+        dataBus = destination[offset + run - 1] & 0xFF;
+      }
+      address += run;
+      offset += run;
+      length -= run;
     }
   }
 
+  /**
+   * Copies an array into a range of bus addresses, split at device
+   * boundaries as for read().
+   * @param address The first address
+   * @param source The array to copy from
+   * @param offset The index in the array of the first byte
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range falls outside of the valid
+   * address range
+   */
+  public void write( long address, byte[] source, int offset, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      BusDevice target = respondent( address );
+      int run = run( address, length, target, Breakpoints.WRITE );
+      if( run < 0 ) {
+        run = -run;
+        for( int i = 0; i < run; i++ ) {
+          writeByte( address + i, source[offset + i] & 0xFF );
+        }
+      }
+      else {
+        target.writeBytes( address, source, offset, run );
+        dataBus = source[offset + run - 1] & 0xFF;
+      }
+      address += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  /**
+   * Copies a range of bus addresses into a buffer, at its position, split at
+   * device boundaries as for read().
+   * @param address The first address
+   * @param destination The buffer to copy into
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range falls outside of the valid
+   * address range
+   */
+  public void read( long address, ByteBuffer destination, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      BusDevice target = respondent( address );
+      int run = run( address, length, target, Breakpoints.READ );
+      if( run < 0 ) {
+        run = -run;
+        for( int i = 0; i < run; i++ ) {
+          destination.put( (byte)readByte( address + i ) );
+        }
+      }
+      else {
+        target.readBytes( address, destination, run );
+        dataBus = destination.get( destination.position() - 1 ) & 0xFF;
+      }
+      address += run;
+      length -= run;
+    }
+  }
+
+  /**
+   * Copies a buffer, from its position, into a range of bus addresses, split
+   * at device boundaries as for read().
+   * @param address The first address
+   * @param source The buffer to copy from
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range falls outside of the valid
+   * address range
+   */
+  public void write( long address, ByteBuffer source, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      BusDevice target = respondent( address );
+      int run = run( address, length, target, Breakpoints.WRITE );
+      if( run < 0 ) {
+        run = -run;
+        for( int i = 0; i < run; i++ ) {
+          writeByte( address + i, source.get() & 0xFF );
+        }
+      }
+      else {
+        target.writeBytes( address, source, run );
+        dataBus = source.get( source.position() - 1 ) & 0xFF;
+      }
+      address += run;
+      length -= run;
+    }
+  }
+
+  /**
+   * The device that answers every address nothing else is connected to.
+   * Configure its policy to choose how unmapped accesses behave.
+   * @return The unmapped device of this bus
+   */
+  public UnmappedDevice getUnmapped() {
+    return unmapped;
+  }
+
+  /**
+   * The last byte read or written through the bus
+   * @return An integer containing the byte value
+   */
+  int getDataBus() {
+    return dataBus;
+  }
+
+  /**
+   * Called by the CPU as it takes an interrupt or BRK, before anything is
+   * pushed, as the vector pull line of a 65C02 signals it. Nothing happens
+   * on a plain bus; an MMU switches to supervisor mode.
+   */
+  void interruptEntered() {
+  }
+
+  /**
+   * Called by the CPU once RTI has pulled the status and return address.
+   * Nothing happens on a plain bus; an MMU may go back to user mode.
+   */
+  void interruptReturned() {
+  }
+
+  /**
+   * Called by the CPU as it resets, before the reset vector is read. Nothing
+   * happens on a plain bus; an MMU returns to supervisor mode.
+   */
+  void resetEntered() {
+  }
+
+  /**
+   * Looks up the device mapped to an address already known to be in bounds.
+   * @param address The address
+   * @return The device, or the unmapped device if none is connected
+   */
+  private BusDevice respondent( long address ) {
+    BusDevice[] page = respondents[(int)( address >>> PAGE_BITS )];
+    return page == null ? unmapped : page[(int)address & PAGE_MASK];
+  }
+
+  /**
+   * The breakpoints and watchpoints of this bus, shared with any CPU on it
+   * @return The breakpoint set
+   */
+  public Breakpoints getBreakpoints() {
+    return breakpoints;
+  }
+
+  /**
+   * Hands every access to a monitor instead of the mapped devices.
+   * @param monitor The monitor, or null to access devices directly
+   */
+  public void setMonitor( BusMonitor monitor ) {
+    this.monitor = monitor;
+  }
+
   /**
    * Whether the address is a valid location for the bus
    * @param address The address to verify
@@ -127,4 +372,54 @@ public class Bus {
   public static boolean inBounds( long address ) {
     return ( MIN_ADDRESS <= address ) && ( address <= MAX_ADDRESS );
   }
+
+  /**
+   * Measures how many bytes from an address go to the same device.
+   * @param address The first address
+   * @param length The most bytes wanted
+   * @param target The device mapped to the first address
+   * @param kind The kind of watchpoint that forces byte access
+   * @return The length of the run, negated if it must be accessed a byte at
+   * a time
+   */
+  private int run( long address, int length, BusDevice target, int kind ) {
+    boolean single = monitor != null;
+    int run = 1;
+    single |= breakpoints.isArmed( kind, address );
+    while( run < length && respondent( address + run ) == target ) {
+      single |= breakpoints.isArmed( kind, address + run );
+      run++;
+    }
+    return single ? -run : run;
+  }
+
+  /**
+   * Validates a range of bus addresses.
+   * @param address The first address
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range falls outside of the valid
+   * address range
+   */
+  private static void checkRange( long address, int length )
+    throws IllegalArgumentException {
+    if( length < 0 ) {
+      throw new IllegalArgumentException( "Negative length: " + length );
+    }
+    if( length > 0 && !( inBounds( address ) &&
+                         inBounds( address + length - 1 ) ) ) {
+      throw outOfBounds( address );
+    }
+  }
+
+  /**
+   * Builds the exception for an address outside of the addressing limits.
+   * @param address The offending address
+   * @return The exception to throw
+   */
+  private static IllegalArgumentException outOfBounds( long address ) {
+    return new IllegalArgumentException(
+      "Address " + Long.toHexString( address ) + " exceeds the bounds [" +
+      Long.toHexString( MIN_ADDRESS ) + ", " + Long.toHexString( MAX_ADDRESS ) +
+      " ]" );
+  }
 }
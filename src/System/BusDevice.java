@@ -6,6 +6,8 @@
 
 package System;
 
+import java.nio.ByteBuffer;
+
 /**
  * An interface for devices that rely on a bus for communication.
  */
@@ -23,4 +25,72 @@ public interface BusDevice {
    * @param value And integer containing the byte value
    */
   public void writeByte( long address, int value );
+
+  /**
+   * Returns the byte mapped to the given address without any side effect a
+   * read may have, so that the CPU can look ahead at code. Memories should
+   * override this; other devices cannot be looked at.
+   * @param address The address at which the device is mapped
+   * @return An integer containing the byte value, or -1 if it cannot be
+   * read without side effects
+   */
+  public default int peekByte( long address ) {
+    return -1;
+  }
+
+  /**
+   * Copies a range of bytes into an array. Devices backed by an array should
+   * override this with a single copy.
+   * @param address The address of the first byte
+   * @param destination The array to copy into
+   * @param offset The index in the array of the first byte
+   * @param length The number of bytes
+   */
+  public default void readBytes( long address, byte[] destination, int offset,
+                                 int length ) {
+    for( int i = 0; i < length; i++ ) {
+      destination[offset + i] = (byte)readByte( address + i );
+    }
+  }
+
+  /**
+   * Copies an array into a range of bytes. Devices backed by an array should
+   * override this with a single copy.
+   * @param address The address of the first byte
+   * @param source The array to copy from
+   * @param offset The index in the array of the first byte
+   * @param length The number of bytes
+   */
+  public default void writeBytes( long address, byte[] source, int offset,
+                                  int length ) {
+    for( int i = 0; i < length; i++ ) {
+      writeByte( address + i, source[offset + i] & 0xFF );
+    }
+  }
+
+  /**
+   * Copies a range of bytes into a buffer, at its position.
+   * @param address The address of the first byte
+   * @param destination The buffer to copy into
+   * @param length The number of bytes
+   */
+  public default void readBytes( long address, ByteBuffer destination,
+                                 int length ) {
+    for( int i = 0; i < length; i++ ) {
+      destination.put( (byte)readByte( address + i ) );
+    }
+  }
+
+  /**
+   * Copies bytes from a buffer, at its position, into a range of bytes.
+   * @param address The address of the first byte
+   * @param source The buffer to copy from
+   * @param length The number of bytes
+   */
+  public default void writeBytes( long address, ByteBuffer source,
+                                  int length ) {
+    for( int i = 0; i < length; i++ ) {
+      writeByte( address + i, source.get() & 0xFF );
+    }
+  }
 }
@@ -0,0 +1,31 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for tools that stand between a bus and its devices. While a
+ * monitor is attached, the bus hands every access to it instead of the
+ * device, and the monitor decides whether and how to complete it.
+ */
+public interface BusMonitor {
+
+  /**
+   * Completes a read.
+   * @param address The bus address
+   * @param device The device mapped to the address
+   * @return An integer containing the byte value
+   */
+  public int read( long address, BusDevice device );
+
+  /**
+   * Completes a write.
+   * @param address The bus address
+   * @param value An integer containing the byte value
+   * @param device The device mapped to the address
+   */
+  public void write( long address, int value, BusDevice device );
+}
@@ -342,25 +342,8 @@ package System;
 
 public class CPU6502 {
 
-  //Debugging strings
-  private String opcodeName;
-  private int opcodeArgument;
-  private String opcodeFormat;
-
-  private static final String IMM_FMT   = "%s #$%02x\n";
-  private static final String ZPG_FMT   = "%s $%02x\n";
-  private static final String ZPG_X_FMT = "%s $%02x,X\n";
-  private static final String ZPG_Y_FMT = "%s $%02x,Y\n";
-  private static final String ABS_FMT   = "%s $%04x\n";
-  private static final String ABS_X_FMT = "%s $%04x,X\n";
-  private static final String ABS_Y_FMT = "%s $%04x,Y\n";
-  private static final String IND_FMT   = "%s ($%04x)\n";
-  private static final String IND_X_FMT = "%s ($%02x,X)\n";
-  private static final String IND_Y_FMT = "%s ($%02x),Y\n";
-  private static final String REL_FMT   = "%s %+d\n";
-  private static final String A_FMT     = "%s A\n";
-  private static final String IMP_FMT   = "%s\n";
-  private static final String INVALID_FMT = "%s 0x%02x\n";
+  //Raw operand of the current instruction, kept for the trace
+  private int operand;
 
   /* Interrupt Vector Pointers
    * These memory locations are reserved for the interrupt vectors, pointers
@@ -432,18 +415,105 @@ public class CPU6502 {
   private static final int NEG_BIT_8 = 0x00000080;
   private static final int NEG_BIT_16 = 0x00008000;
 
-  //R/W, NMI, IRQ and RESET Lines
-  boolean nmi;
-  boolean irq;
+  /* Cycle Table
+   * The base number of clock cycles taken by each opcode. Branches add one
+   * cycle when taken and another when the target lies on a different page.
+   * Reads through abs,X, abs,Y and (ind),Y add one when indexing crosses a
+   * page. Undefined opcodes are treated as two-cycle NOPs.
+   */
+  private static final int[] CYCLES = {
+  /* 0  1  2  3  4  5  6  7  8  9  A  B  C  D  E  F */
+     7, 6, 2, 2, 2, 3, 5, 2, 3, 2, 2, 2, 2, 4, 6, 2, /* 0 */
+     2, 5, 2, 2, 2, 4, 6, 2, 2, 4, 2, 2, 2, 4, 7, 2, /* 1 */
+     6, 6, 2, 2, 3, 3, 5, 2, 4, 2, 2, 2, 4, 4, 6, 2, /* 2 */
+     2, 5, 2, 2, 2, 4, 6, 2, 2, 4, 2, 2, 2, 4, 7, 2, /* 3 */
+     6, 6, 2, 2, 2, 3, 5, 2, 3, 2, 2, 2, 3, 4, 6, 2, /* 4 */
+     2, 5, 2, 2, 2, 4, 6, 2, 2, 4, 2, 2, 2, 4, 7, 2, /* 5 */
+     6, 6, 2, 2, 2, 3, 5, 2, 4, 2, 2, 2, 5, 4, 6, 2, /* 6 */
+     2, 5, 2, 2, 2, 4, 6, 2, 2, 4, 2, 2, 2, 4, 7, 2, /* 7 */
+     2, 6, 2, 2, 3, 3, 3, 2, 2, 2, 2, 2, 4, 4, 4, 2, /* 8 */
+     2, 6, 2, 2, 4, 4, 4, 2, 2, 5, 2, 2, 2, 5, 2, 2, /* 9 */
+     2, 6, 2, 2, 3, 3, 3, 2, 2, 2, 2, 2, 4, 4, 4, 2, /* A */
+     2, 5, 2, 2, 4, 4, 4, 2, 2, 4, 2, 2, 4, 4, 4, 2, /* B */
+     2, 6, 2, 2, 3, 3, 5, 2, 2, 2, 2, 2, 4, 4, 6, 2, /* C */
+     2, 5, 2, 2, 2, 4, 6, 2, 2, 4, 2, 2, 2, 4, 7, 2, /* D */
+     2, 6, 2, 2, 3, 3, 5, 2, 2, 2, 2, 2, 4, 4, 6, 2, /* E */
+     2, 5, 2, 2, 2, 4, 6, 2, 2, 4, 2, 2, 2, 4, 7, 2  /* F */
+  };
+  private static final int INTERRUPT_CYCLES = 7;
+
+  //Opcodes that take the extra cycle when indexing crosses a page: the reads
+  //of ORA, AND, EOR, ADC, LDA, CMP and SBC through abs,X, abs,Y and (ind),Y,
+  //LDY abs,X and LDX abs,Y. Stores and read-modify-writes always take it.
+  private static final boolean[] PAGE_PENALTY = new boolean[0x100];
+  static {
+    for( int op = 0x11; op <= 0xF1; op += 0x20 ) {
+      if( op != 0x91 ) { //STA (ind),Y
+        PAGE_PENALTY[op] = true;
+        PAGE_PENALTY[op + 0x08] = true;
+        PAGE_PENALTY[op + 0x0C] = true;
+      }
+    }
+    PAGE_PENALTY[0xBC] = true;
+    PAGE_PENALTY[0xBE] = true;
+  }
+
+  /* Superinstructions
+   * Common idioms are run to their end in a single step. Once the opcode
+   * that starts one has run, its case hands over to the handler of the
+   * idiom, which runs the instructions that follow it directly if they are
+   * there, without dispatching again:
+   *   DEX/DEY/INX/INY, BNE           counted loops      countLoop()
+   *   STA zpg,X, DEX, BNE            fill loops         fillLoop()
+   *   CLC, ADC # / ADC zpg           8-bit addition     addition()
+   *   LDA #/zpg/abs, STA zpg/abs     moves              move()
+   *   INC zpg/abs, BNE, INC zpg/abs  16-bit increments  increment()
+   */
+
+  //R/W, NMI, IRQ and RESET Lines, which devices may raise from any thread
+  volatile boolean nmi;
+  volatile boolean irq;
   boolean reset;
 
   //Working variables to minimize bus reads
   private int opcode;
   private int effectiveAddress;
 
+  //Clock cycles elapsed since power on
+  private long cycles;
+
+  //Optional instrumentation, null when disabled
+  private CallObserver callObserver;
+  private TraceBuffer trace;
+
   //CPU needs a System.Bus that can address to data
   private Bus bus;
 
+  //Device events due at future cycles
+  private final Scheduler scheduler;
+
+  //Services called through the 0x02 trap, null to treat it as a bad opcode
+  private HostCallHandler hostCalls;
+
+  //Whether idioms are run as superinstructions, and whether they are now,
+  //which they are not while tracing
+  private boolean fusion;
+  private boolean fusing;
+
+  //Host routines by entry address, with one bit per hooked address so that
+  //unhooked code only pays for a bit test. Allocated on the first hook.
+  private final long[] hooks;
+  private HostRoutine[] hostRoutines;
+  private int[] hostCycles;
+
+  //Breakpoints of the bus, and the one being resumed from, if any
+  private final Breakpoints breakpoints;
+  private int resumeAddress;
+  private static final int NO_ADDRESS = -1;
+
+  //Whether the last step stopped at a breakpoint instead of executing
+  private boolean suspended;
+
   /**
    * <p>
    * The constructor for the CPU, which requires a System.Bus on which to
@@ -456,6 +526,12 @@ public class CPU6502 {
    */
   public CPU6502( Bus bus ) {
     this.bus = bus;
+    breakpoints = bus.getBreakpoints();
+    scheduler = new Scheduler();
+    resumeAddress = NO_ADDRESS;
+    fusion = false;
+    fusing = false;
+    hooks = new long[0x10000 / 64];
     nmi = false;
     irq = false; //debugging, set back to true
     reset = false;
@@ -463,13 +539,13 @@ public class CPU6502 {
 
   /**
    * Resets program execution starting from where the reset vector points.
-   * @throws InaddressableException If the Reset Vector Address is not
-   * reachable from the bus
    */
-  public void reset() throws InaddressableException {
+  public void reset() {
+    bus.resetEntered();
+
     //set the program counter to the reset vector's value
     R_PC = readWordLE( V_RESET );
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+    resumeAddress = NO_ADDRESS;
   }
 
   /**
@@ -481,10 +557,19 @@ public class CPU6502 {
    * opcode.</li>
    * </ul>
    * <p>For interrupts, NMI's are handled before software IRQ's.</p>
-   * @throws InaddressableException If the CPU attempts to read from a bus
-   * address that is not mapped to any known device.
-   */
-  public void step() throws InaddressableException {
+   * <p>If a breakpoint on the next opcode suspends the CPU, the step returns
+   * without executing it, and isSuspended says so; the following step
+   * executes it.</p>
+   * @throws InaddressableException If the CPU accesses an unmapped address
+   * while the bus traps such accesses without a handler
+   */
+  public void step() {
+    suspended = false;
+
+    //Let devices act on the cycles that have passed
+    if( cycles >= scheduler.getDeadline() ) {
+      scheduler.runDue( cycles );
+    }
 
     //Test for NMI
     if( nmi ) {
@@ -496,849 +581,828 @@ public class CPU6502 {
       processIRQ( R_PC );
     }
 
-    System.out.println( "6502 - Start Step, PC @ 0x" +
-                        Integer.toHexString( R_PC ) );
+    //Stop at breakpoints, unless resuming from one
+    if( breakpoints.isArmed( Breakpoints.EXECUTE, R_PC ) ) {
+      if( R_PC == resumeAddress ) {
+        resumeAddress = NO_ADDRESS;
+      }
+      else if( breakpoints.breakpointHit( R_PC ) ) {
+        resumeAddress = R_PC;
+        suspended = true;
+        return;
+      }
+    }
+
+    //Run host code in place of hooked guest routines
+    if( isHooked( R_PC ) ) {
+      runHostRoutine();
+      return;
+    }
 
     //Fetch Opcode from bus. Address is in PC counter.
+    int instructionPC = R_PC;
     opcode = bus.readByte( R_PC );
+    cycles += CYCLES[opcode];
 
     //Decode and fetch operands. Calculates an effective address.
     switch( opcode ) {
       case 0x00: //BRK
-        opcodeName = "BRK";
-        opcodeFormat = IMP_FMT;
         BRK();
         break;
       case 0x01: //ORA (ind,X)
-        opcodeName = "ORA";
         handleIdxInd();
         ORA();
         break;
+      case 0x02: //Host call trap
+        HST();
+        break;
       case 0x05: //ORA zpg
-        opcodeName = "ORA";
         handleZpg();
         ORA();
         break;
       case 0x06: //ASL zpg
-        opcodeName = "ASL";
         handleZpg();
         ASL();
         break;
       case 0x08: //PHP
-        opcodeName = "PHP";
-        opcodeFormat = IMP_FMT;
         PHP();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x09: //ORA #
-        opcodeName = "ORA";
         handleImm();
         ORA();
         break;
       case 0x0A: //ASL A
-        opcodeName = "ASL";
-        opcodeFormat = A_FMT;
         ASL_A();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x0D: //ORA abs
-        opcodeName = "ORA";
         handleAbs();
         ORA();
         break;
       case 0x0E: //ASL abs
-        opcodeName = "ASL";
         handleAbs();
         ASL();
         break;
 
       case 0x10: //BPL rel
-        opcodeName = "BPL";
         handleRel();
         BPL();
         break;
       case 0x11: //ORA (ind),Y
-        opcodeName = "ORA";
         handleIndIdx();
         ORA();
         break;
       case 0x15: //ORA zpg,X
-        opcodeName = "ORA";
         handleZpgX();
         ORA();
         break;
       case 0x16: //ASL zpg,X
-        opcodeName = "ASL";
         handleZpgX();
         ASL();
         break;
       case 0x18: //CLC
-        opcodeName = "CLC";
-        opcodeFormat = IMP_FMT;
         CLC();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+        if( fusing ) {
+          addition();
+        }
         break;
       case 0x19: //ORA abs,Y
-        opcodeName = "ORA";
         handleAbsY();
         ORA();
         break;
       case 0x1D: //ORA abs,X
-        opcodeName = "ORA";
         handleAbsX();
         ORA();
         break;
       case 0x1E: //ASL abs,X
-        opcodeName = "ASL";
         handleAbsX();
         ASL();
         break;
 
       case 0x20: //JSR abs
-        opcodeName = "JSR";
         handleAbs();
         JSR();
         break;
       case 0x21: //AND (ind,x)
-        opcodeName = "AND";
         handleIdxInd();
         AND();
         break;
       case 0x24: //BIT zpg
-        opcodeName = "BIT";
         handleZpg();
         BIT();
         break;
       case 0x25: //AND zpg
-        opcodeName = "AND";
         handleZpg();
         AND();
         break;
       case 0x26: //ROL zpg
-        opcodeName = "ROL";
         handleZpg();
         ROL();
         break;
       case 0x28: //PLP
-        opcodeName = "PLP";
-        opcodeFormat = IMP_FMT;
         PLP();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x29: //AND #
-        opcodeName = "AND";
         handleImm();
         AND();
         break;
       case 0x2A: //ROL A
-        opcodeName = "ROL";
-        opcodeFormat = A_FMT;
         ROL_A();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x2C: //BIT abs
-        opcodeName = "BIT";
         handleAbs();
         BIT();
         break;
       case 0x2D: //AND abs
-        opcodeName = "AND";
         handleAbs();
         AND();
         break;
       case 0x2E: //ROL abs
-        opcodeName = "ROL";
         handleAbs();
         ROL();
         break;
 
       case 0x30: //BMI rel
-        opcodeName = "BMI";
         handleRel();
         BMI();
         break;
       case 0x31: //AND (ind),Y
-        opcodeName = "AND";
         handleIndIdx();
         AND();
         break;
       case 0x35: //AND zpg,X
-        opcodeName = "AND";
         handleZpgX();
         AND();
         break;
       case 0x36: //ROL zpg,X
-        opcodeName = "ROL";
         handleZpgX();
         ROL();
         break;
       case 0x38: //SEC
-        opcodeName = "SEC";
-        opcodeFormat = IMP_FMT;
         SEC();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x39: //AND abs,Y
-        opcodeName = "AND";
         handleAbsY();
         AND();
         break;
       case 0x3D: //AND abs,X
-        opcodeName = "AND";
         handleAbsX();
         AND();
         break;
       case 0x3E: //ROL abs,X
-        opcodeName = "ROL";
         handleAbsX();
         ROL();
         break;
 
       case 0x40: //RTI
-        opcodeName = "RTI";
-        opcodeFormat = IMP_FMT;
         RTI();
         break;
       case 0x41: //EOR (ind,x)
-        opcodeName = "EOR";
         handleIdxInd();
         EOR();
         break;
       case 0x45: //EOR zpg
-        opcodeName = "EOR";
         handleZpg();
         EOR();
         break;
       case 0x46: //LSR zpg
-        opcodeName = "LSR";
         handleZpg();
         LSR();
         break;
       case 0x48: //PHA
-        opcodeName = "PHA";
         PHA();
-        opcodeFormat = IMP_FMT;
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x49: //EOR #
-        opcodeName = "EOR";
         handleImm();
         EOR();
         break;
       case 0x4A: //LSR A
-        opcodeName = "LSR";
-        opcodeFormat = A_FMT;
         LSR_A();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x4C: //JMP abs
-        opcodeName = "JMP";
         handleAbs();
         JMP();
         break;
       case 0x4D: //EOR abs
-        opcodeName = "EOR";
         handleAbs();
         EOR();
         break;
       case 0x4E: //LSR abs
-        opcodeName = "LSR";
         handleAbs();
         LSR();
         break;
 
       case 0x50: //BVC rel
-        opcodeName = "BVC";
         handleRel();
         BVC();
         break;
       case 0x51: //EOR (ind),Y
-        opcodeName = "EOR";
         handleIndIdx();
         EOR();
         break;
       case 0x55: //EOR zpg,X
-        opcodeName = "EOR";
         handleZpgX();
         EOR();
         break;
       case 0x56: //LSR zpg,X
-        opcodeName = "LSR";
         handleZpgX();
         LSR();
         break;
       case 0x58: //CLI
-        opcodeName = "CLI";
-        opcodeFormat = IMP_FMT;
         CLI();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x59: //EOR abs,Y
-        opcodeName = "EOR";
         handleAbsY();
         EOR();
         break;
       case 0x5D: //EOR abs,X
-        opcodeName = "EOR";
         handleAbsX();
         EOR();
         break;
       case 0x5E: //LSR abs,X
-        opcodeName = "LSR";
         handleAbsX();
         LSR();
         break;
 
       case 0x60: //RTS
-        opcodeName = "RTS";
-        opcodeFormat = IMP_FMT;
         RTS();
         break;
       case 0x61: //ADC (ind,X)
-        opcodeName = "ADC";
         handleIdxInd();
         ADC();
         break;
       case 0x65: //ADC zpg
-        opcodeName = "ADC";
         handleZpg();
         ADC();
         break;
       case 0x66: //ROR zpg
-        opcodeName = "ROR";
         handleZpg();
         ROR();
         break;
       case 0x68: //PLA
-        opcodeName = "PLA";
-        opcodeFormat = IMP_FMT;
         PLA();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x69: //ADC #
-        opcodeName = "ADC";
         handleImm();
         ADC();
         break;
       case 0x6A: //ROR A
-        opcodeName = "ROR";
-        opcodeFormat = A_FMT;
         ROR_A();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x6C: //JMP (ind)
-        opcodeName = "JMP";
         handleInd();
         JMP();
         break;
       case 0x6D: //ADC abs
-        opcodeName = "ADC";
         handleAbs();
         ADC();
         break;
       case 0x6E: //ROR abs
-        opcodeName = "ROR";
         handleAbs();
         ROR();
         break;
 
       case 0x70: //BVS rel
-        opcodeName = "BVS";
         handleRel();
         BVS();
         break;
       case 0x71: //ADC (ind),Y
-        opcodeName = "ADC";
         handleIndIdx();
         ADC();
         break;
       case 0x75: //ADC zpg,X
-        opcodeName = "ADC";
         handleZpgX();
         ADC();
         break;
       case 0x76: //ROR zpg,X
-        opcodeName = "ROR";
         handleZpgX();
         ROR();
         break;
       case 0x78: //SEI
-        opcodeName = "SEI";
-        opcodeFormat = IMP_FMT;
         SEI();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x79: //ADC abs,Y
-        opcodeName = "ADC";
         handleAbsY();
         ADC();
         break;
       case 0x7D: //ADC abs,X
-        opcodeName = "ADC";
         handleAbsX();
         ADC();
         break;
       case 0x7E: //ROR abs,X
-        opcodeName = "ROR";
         handleAbsX();
         ROR();
         break;
 
       case 0x81: //STA (ind,X)
-        opcodeName = "STA";
         handleIdxInd();
         STA();
         break;
       case 0x84: //STY zpg
-        opcodeName = "STY";
         handleZpg();
         STY();
         break;
       case 0x85: //STA zpg
-        opcodeName = "STA";
         handleZpg();
         STA();
         break;
       case 0x86: //STX zpg
-        opcodeName = "STX";
         handleZpg();
         STX();
         break;
       case 0x88: //DEY
-        opcodeName = "DEY";
-        opcodeFormat = IMP_FMT;
         DEY();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+        if( fusing ) {
+          countLoop();
+        }
         break;
       case 0x8A: //TXA
-        opcodeName = "TXA";
-        opcodeFormat = IMP_FMT;
         TXA();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x8C: //STY abs
-        opcodeName = "STY";
         handleAbs();
         STY();
         break;
       case 0x8D: //STA abs
-        opcodeName = "STA";
         handleAbs();
         STA();
         break;
       case 0x8E: //STX abs
-        opcodeName = "STX";
         handleAbs();
         STX();
         break;
 
       case 0x90: //BCC rel
-        opcodeName = "BCC";
         handleRel();
         BCC();
         break;
       case 0x91: //STA (ind),Y
-        opcodeName = "STA";
         handleIndIdx();
         STA();
         break;
       case 0x94: //STY zpg,X
-        opcodeName = "STY";
         handleZpgX();
         STY();
         break;
       case 0x95: //STA zpg,X
-        opcodeName = "STA";
         handleZpgX();
         STA();
+        if( fusing ) {
+          fillLoop();
+        }
         break;
       case 0x96: //STX zpg,Y
-        opcodeName = "STX";
         handleZpgY();
         STX();
         break;
       case 0x98: //TYA
-        opcodeName = "TYA";
-        opcodeFormat = IMP_FMT;
         TYA();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x99: //STA abs,Y
-        opcodeName = "STA";
         handleAbsY();
         STA();
         break;
       case 0x9A: //TXS
-        opcodeName = "TXS";
-        opcodeFormat = IMP_FMT;
         TXS();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0x9D: //STA abs,X
-        opcodeName = "STA";
         handleAbsX();
         STA();
         break;
 
       case 0xA0: //LDY #
-        opcodeName = "LDY";
         handleImm();
         LDY();
         break;
       case 0xA1: //LDA (ind,X)
-        opcodeName = "LDA";
         handleIdxInd();
         LDA();
         break;
       case 0xA2: //LDX #
-        opcodeName = "LDX";
         handleImm();
         LDX();
         break;
       case 0xA4: //LDY zpg
-        opcodeName = "LDY";
         handleZpg();
         LDY();
         break;
       case 0xA5: //LDA zpg
-        opcodeName = "LDA";
         handleZpg();
         LDA();
+        if( fusing ) {
+          move();
+        }
         break;
       case 0xA6: //LDX zpg
-        opcodeName = "LDX";
         handleZpg();
         LDX();
         break;
       case 0xA8: //TAY
-        opcodeName = "TAY";
-        opcodeFormat = IMP_FMT;
         TAY();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xA9: //LDA #
-        opcodeName = "LDA";
         handleImm();
         LDA();
+        if( fusing ) {
+          move();
+        }
         break;
       case 0xAA: //TAX
-        opcodeName = "TAX";
-        opcodeFormat = IMP_FMT;
         TAX();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xAC: //LDY abs
-        opcodeName = "LDY";
         handleAbs();
         LDY();
         break;
       case 0xAD: //LDA abs
-        opcodeName = "LDA";
         handleAbs();
         LDA();
+        if( fusing ) {
+          move();
+        }
         break;
       case 0xAE: //LDX abs
-        opcodeName = "LDX";
         handleAbs();
         LDX();
         break;
 
       case 0xB0: //BCS rel
-        opcodeName = "BCS";
         handleRel();
         BCS();
         break;
       case 0xB1: //LDA (ind),Y
-        opcodeName = "LDA";
         handleIndIdx();
         LDA();
         break;
       case 0xB4: //LDY zpg,X
-        opcodeName = "LDY";
         handleZpgX();
         LDY();
         break;
       case 0xB5: //LDA zpg,Y
-        opcodeName = "LDA";
         handleZpgY();
         LDA();
         break;
       case 0xB6: //LDX zpg,Y
-        opcodeName = "LDX";
         handleZpgY();
         LDX();
         break;
       case 0xB8: //CLV
-        opcodeName = "CLV";
-        opcodeFormat = IMP_FMT;
         CLV();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xB9: //LDA abs,Y
-        opcodeName = "LDA";
         handleAbsY();
         LDA();
         break;
       case 0xBA: //TSX
-        opcodeName = "TSX";
-        opcodeFormat = IMP_FMT;
         TSX();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xBC: //LDY abs,X
-        opcodeName = "LDY";
         handleAbsX();
         LDY();
         break;
       case 0xBD: //LDA abs,X
-        opcodeName = "LDA";
         handleAbsX();
         LDA();
         break;
       case 0xBE: //LDX abs,Y
-        opcodeName = "LDX";
         handleAbsY();
         LDX();
         break;
 
       case 0xC0: //CPY #
-        opcodeName = "CPY";
         handleImm();
         CPY();
         break;
       case 0xC1: //CMP (ind,X)
-        opcodeName = "CMP";
         handleIdxInd();
         CMP();
         break;
       case 0xC4: //CPY zpg
-        opcodeName = "CPY";
         handleZpg();
         CPY();
         break;
       case 0xC5: //CMP zpg
-        opcodeName = "CMP";
         handleZpg();
         CMP();
         break;
       case 0xC6: //DEC zpg
-        opcodeName = "DEC";
         handleZpg();
         DEC();
         break;
       case 0xC8: //INY
-        opcodeName = "INY";
-        opcodeFormat = IMP_FMT;
         INY();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+        if( fusing ) {
+          countLoop();
+        }
         break;
       case 0xC9: //CMP #
-        opcodeName = "CMP";
         handleImm();
         CMP();
         break;
       case 0xCA: //DEX
-        opcodeName = "DEX";
-        opcodeFormat = IMP_FMT;
         DEX();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+        if( fusing ) {
+          countLoop();
+        }
         break;
       case 0xCC: //CPY abs
-        opcodeName = "CPY";
         handleAbs();
         CPY();
         break;
       case 0xCD: //CMP abs
-        opcodeName = "CMP";
         handleAbs();
         CMP();
         break;
       case 0xCE: //DEC abs
-        opcodeName = "DEC";
         handleAbs();
         DEC();
         break;
 
       case 0xD0: //BNE rel
-        opcodeName = "BNE";
         handleRel();
         BNE();
         break;
       case 0xD1: //CMP (ind),Y
-        opcodeName = "CMP";
         handleIndIdx();
         CMP();
         break;
       case 0xD5: //CMP zpg,X
-        opcodeName = "CMP";
         handleZpgX();
         CMP();
         break;
       case 0xD6: //DEC zpg,X
-        opcodeName = "DEC";
         handleZpgX();
         DEC();
         break;
       case 0xD8: //CLD
-        opcodeName = "CLD";
-        opcodeFormat = IMP_FMT;
         CLD();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xD9: //CMP abs,Y
-        opcodeName = "CMP";
         handleAbsY();
         CMP();
         break;
       case 0xDD: //CMP abs,X
-        opcodeName = "CMP";
         handleAbsX();
         CMP();
         break;
       case 0xDE: //DEC abs,X
-        opcodeName = "DEC";
         handleAbsX();
         DEC();
         break;
 
       case 0xE0: //CPX #
-        opcodeName = "CPX";
         handleImm();
         CPX();
         break;
       case 0xE1: //SBC (ind,X)
-        opcodeName = "SBC";
         handleIdxInd();
         SBC();
         break;
       case 0xE4: //CPX zpg
-        opcodeName = "CPX";
         handleZpg();
         CPX();
         break;
       case 0xE5: //SBC zpg
-        opcodeName = "SBC";
         handleZpg();
         SBC();
         break;
       case 0xE6: //INC zpg
-        opcodeName = "INC";
         handleZpg();
         INC();
+        if( fusing ) {
+          increment();
+        }
         break;
       case 0xE8: //INX
-        opcodeName = "INX";
-        opcodeFormat = IMP_FMT;
         INX();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+        if( fusing ) {
+          countLoop();
+        }
         break;
       case 0xE9: //SBC #
-        opcodeName = "SBC";
         handleImm();
         SBC();
         break;
       case 0xEA: //NOP
-        opcodeName = "NOP";
-        opcodeFormat = IMP_FMT;
         /*
          * Explicit NOP
          */
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xEC: //CPX abs
-        opcodeName = "CPX";
         handleAbs();
         CPX();
         break;
       case 0xED: //SBC abs
-        opcodeName = "SBC";
         handleAbs();
         SBC();
         break;
       case 0xEE: //INC abs
-        opcodeName = "INC";
         handleAbs();
         INC();
+        if( fusing ) {
+          increment();
+        }
         break;
 
       case 0xF0: //BEQ rel
-        opcodeName = "BEQ";
         handleRel();
         BEQ();
         break;
       case 0xF1: //SBC (ind),Y
-        opcodeName = "SBC";
         handleIndIdx();
         SBC();
         break;
       case 0xF5: //SBC zpg,X
-        opcodeName = "SBC";
         handleZpgX();
         SBC();
         break;
       case 0xF6: //INC zpg,X
-        opcodeName = "INC";
         handleZpgX();
         INC();
         break;
       case 0xF8: //SED
-        opcodeName = "SED";
-        opcodeFormat = IMP_FMT;
         SED();
         R_PC = increment16( R_PC );
-        System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
         break;
       case 0xF9: //SBC abs,Y
-        opcodeName = "SBC";
         handleAbsY();
         SBC();
         break;
       case 0xFD: //SBC abs,X
-        opcodeName = "SBC";
         handleAbsX();
         SBC();
         break;
       case 0xFE: //INC abs,X
-        opcodeName = "INC";
         handleAbsX();
         INC();
         break;
 
       default: //Invalid opcode trap
         handleBadOpcode();
-        opcodeName = "Unknown";
-        opcodeArgument = opcode;
-        opcodeFormat = INVALID_FMT;
         break;
     }
 
-    System.out.printf( "6502 - Disassembly: " + opcodeFormat, opcodeName,
-                       opcodeArgument );
+    if( trace != null ) {
+      trace.record( instructionPC, opcode, operand, R_A, R_X, R_Y, R_SP,
+                    R_S, cycles );
+    }
+  }
+
+  /**
+   * Looks at the opcode at the PC, if the instruction there may join a
+   * superinstruction: no interrupt or device event is due, the address is
+   * neither hooked nor armed for a breakpoint or a read watchpoint, and its
+   * device can be looked at without side effects. Nothing goes through the
+   * bus until fetch takes the opcode, so each instruction of an idiom runs
+   * exactly as a separate step would, and registers, flags, cycles and bus
+   * accesses are unchanged whether or not the idiom completes.
+   * @return The opcode, or -1 if the superinstruction must end here
+   */
+  private int nextOpcode() {
+    if( nmi || irq || cycles >= scheduler.getDeadline() ||
+        isHooked( R_PC ) ||
+        breakpoints.isArmed( Breakpoints.EXECUTE, R_PC ) ||
+        breakpoints.isArmed( Breakpoints.READ, R_PC ) ) {
+      return -1;
+    }
+    return bus.peekByte( R_PC );
+  }
+
+  /**
+   * Fetches the opcode of an instruction joining a superinstruction through
+   * the bus, as a separate step would, and charges its cycles.
+   * @param next The opcode looked at by nextOpcode
+   */
+  private void fetch( int next ) {
+    bus.readByte( R_PC );
+    opcode = next;
+    cycles += CYCLES[next];
+  }
+
+  /**
+   * Ends a counted loop: the BNE after DEX, DEY, INX or INY.
+   */
+  private void countLoop() {
+    if( nextOpcode() == 0xD0 ) { //BNE rel
+      fetch( 0xD0 );
+      handleRel();
+      BNE();
+    }
+  }
+
+  /**
+   * Ends a fill loop: the DEX and BNE after STA zpg,X.
+   */
+  private void fillLoop() {
+    if( nextOpcode() == 0xCA ) { //DEX
+      fetch( 0xCA );
+      DEX();
+      R_PC = increment16( R_PC );
+      countLoop();
+    }
+  }
+
+  /**
+   * Ends an 8-bit addition: the ADC # or ADC zpg after CLC.
+   */
+  private void addition() {
+    int next = nextOpcode();
+    if( next == 0x69 ) { //ADC #
+      fetch( next );
+      handleImm();
+      ADC();
+    }
+    else if( next == 0x65 ) { //ADC zpg
+      fetch( next );
+      handleZpg();
+      ADC();
+    }
+  }
+
+  /**
+   * Ends a move: the STA zpg or STA abs after LDA.
+   */
+  private void move() {
+    int next = nextOpcode();
+    if( next == 0x85 ) { //STA zpg
+      fetch( next );
+      handleZpg();
+      STA();
+    }
+    else if( next == 0x8D ) { //STA abs
+      fetch( next );
+      handleAbs();
+      STA();
+    }
+  }
+
+  /**
+   * Ends a 16-bit increment: the BNE after INC zpg or INC abs, then the INC
+   * of the high byte that BNE falls through to.
+   */
+  private void increment() {
+    if( nextOpcode() != 0xD0 ) { //BNE rel
+      return;
+    }
+    fetch( 0xD0 );
+    handleRel();
+    BNE();
+
+    int next = nextOpcode();
+    if( next == 0xE6 ) { //INC zpg
+      fetch( next );
+      handleZpg();
+      INC();
+    }
+    else if( next == 0xEE ) { //INC abs
+      fetch( next );
+      handleAbs();
+      INC();
+    }
+  }
+
+  /**
+   * Whether a host routine is hooked at an address.
+   * @param address The 16-bit address
+   * @return True if the address is hooked
+   */
+  private boolean isHooked( int address ) {
+    return ( hooks[address >>> 6] & ( 1L << address ) ) != 0;
+  }
+
+  /**
+   * Runs the host routine hooked at the PC, charges its cycles and returns
+   * to the caller as RTS would.
+   */
+  private void runHostRoutine() {
+    int address = R_PC;
+    hostRoutines[address].run( this, bus );
+    cycles += hostCycles[address];
+    RTS();
   }
 
   private void wip() {
@@ -1540,37 +1604,25 @@ public class CPU6502 {
   /**
    * Calculates the target address for the immediate operand (PC + 1), and
    * points the PC to the next opcode (PC + 2).
-   * @throws InaddressableException If PC + 1 is not reachable from the bus
    */
-  private void handleImm() throws  InaddressableException {
-
-    opcodeFormat = IMM_FMT;
+  private void handleImm() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
 
     //wastes a bus read...
-    opcodeArgument = bus.readByte( effectiveAddress );
-
-    System.out.println( "6502 - Imm @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
+    operand = bus.readByte( effectiveAddress );
 
     //set PC to address of next opcode
     R_PC += 2;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address using the value of the immediate operand
    * as an offset from the PC, and points the PC to the next opcode (PC + 2).
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleRel() throws InaddressableException {
-
-    opcodeFormat = REL_FMT;
+  private void handleRel() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1584,28 +1636,19 @@ public class CPU6502 {
 
     effectiveAddress = extendSign8( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //relative value is PC + offset
     effectiveAddress += R_PC;
     effectiveAddress &= MASK_16;
-
-    System.out.println( "6502 - Rel @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address using the little-endian value of the
    * immediate operand as the address 0xHHLL, and points the PC to the next
    * opcode (PC + 3)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleAbs() throws InaddressableException {
-
-    opcodeFormat = ABS_FMT;
+  private void handleAbs() {
 
     //absolute value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1613,27 +1656,18 @@ public class CPU6502 {
     //load the value, our absolute address
     effectiveAddress = readWordLE( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
-
-    System.out.println( "6502 - Abs @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
+    operand = effectiveAddress;
 
     //set PC to address of next opcode
     R_PC += 3;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address by using the value at the address pointed
    * to by the immediate operand, and points the PC to the next opcode (PC + 3)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleInd() throws InaddressableException {
-
-    opcodeFormat = IND_FMT;
+  private void handleInd() {
 
     //absolute value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1641,31 +1675,22 @@ public class CPU6502 {
     //load the value, our absolute address
     effectiveAddress = readWordLE( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //now contains the address pointed to by the immediate value
     effectiveAddress = readWordLE( effectiveAddress );
 
-    System.out.println( "6502 - Ind @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
-
     //set PC to address of next opcode
     R_PC += 3;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address by using the value of the immediate
    * operand as the low byte of the address 0x00LL, and points the PC to the
    * next opcode (PC + 2)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleZpg() throws InaddressableException {
-
-    opcodeFormat = ZPG_FMT;
+  private void handleZpg() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1673,28 +1698,19 @@ public class CPU6502 {
     //now contains address in page 0
     effectiveAddress = bus.readByte( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
-
-    System.out.println( "6502 - Zpg @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
+    operand = effectiveAddress;
 
     //set PC to address of next opcode
     R_PC += 2;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address by using the value of the immediate
    * operand plus the value in the X register, and points the PC to the next
    * opcode (PC + 3)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleAbsX() throws InaddressableException {
-
-    opcodeFormat = ABS_X_FMT;
+  private void handleAbsX() {
 
     //absolute value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1702,32 +1718,24 @@ public class CPU6502 {
     //load the value, our absolute address
     effectiveAddress = readWordLE( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //offset by X
     effectiveAddress += R_X;
     effectiveAddress &= MASK_16;
-
-    System.out.println( "6502 - Abs,X @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
+    pagePenalty( operand );
 
     //set PC to address of next opcode
     R_PC += 3;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address by using the value of the immediate
    * operand plus the value in the Y register, and points the PC to the next
    * opcode (PC + 3)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleAbsY() throws InaddressableException {
-
-    opcodeFormat = ABS_Y_FMT;
+  private void handleAbsY() {
 
     //absolute value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1735,32 +1743,24 @@ public class CPU6502 {
     //load the value, our absolute address
     effectiveAddress = readWordLE( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //offset by Y
     effectiveAddress += R_Y;
     effectiveAddress &= MASK_16;
-
-    System.out.println( "6502 - Abs,Y @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
+    pagePenalty( operand );
 
     //set PC to address of next opcode
     R_PC += 3;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address by using the value of the immediate
    * operand as the low byte in the address 0x00LL, plus the value in the X
    * register, and points the PC to the next opcode (PC + 2)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleZpgX() throws InaddressableException {
-
-    opcodeFormat = ZPG_X_FMT;
+  private void handleZpgX() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1768,32 +1768,23 @@ public class CPU6502 {
     //now contains address in page 0
     effectiveAddress = bus.readByte( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //offset by X
     effectiveAddress += R_X;
     effectiveAddress &= MASK_8;
 
-    System.out.println( "6502 - Zpg,X @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
-
     //set PC to address of next opcode
     R_PC += 2;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Calculates the target address by using the value of the immediate
    * operand as the low byte in the address 0x00LL, plus the value in the Y
    * register, and points the PC to the next opcode (PC + 2)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleZpgY() throws InaddressableException {
-
-    opcodeFormat = ZPG_Y_FMT;
+  private void handleZpgY() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1801,20 +1792,15 @@ public class CPU6502 {
     //now contains address in page 0
     effectiveAddress = bus.readByte( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //offset by Y
     effectiveAddress += R_Y;
     effectiveAddress &= MASK_8;
 
-    System.out.println( "6502 - Zpg,Y @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
-
     //set PC to address of next opcode
     R_PC += 2;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
@@ -1822,12 +1808,8 @@ public class CPU6502 {
    * operand as the low byte in the address 0x00LL plus the value in the X
    * register, then gets the value at that address (0x00LL + X), and points the
    * PC to the next opcode (PC + 2)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleIdxInd() throws InaddressableException {
-
-    opcodeFormat = IND_X_FMT;
+  private void handleIdxInd() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1835,7 +1817,7 @@ public class CPU6502 {
     //now contains address in page 0
     effectiveAddress = bus.readByte( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //offset by X
     effectiveAddress += R_X;
@@ -1844,14 +1826,9 @@ public class CPU6502 {
     //now contains the address at the calculated address
     effectiveAddress = readWordLE( effectiveAddress );
 
-    System.out.println( "6502 - (Ind,X) @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
-
     //set PC to address of next opcode
     R_PC += 2;
     R_PC &= MASK_16;
-
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
@@ -1859,12 +1836,8 @@ public class CPU6502 {
    * operand as the low byte in the address 0x00LL, gets the value at
    * that address, then adds the value in the Y register, and points the PC
    * to the next opcode (PC + 2)
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void handleIndIdx() throws InaddressableException {
-
-    opcodeFormat = IND_Y_FMT;
+  private void handleIndIdx() {
 
     //immediate value is at PC + 1
     effectiveAddress = increment16( R_PC );
@@ -1872,33 +1845,40 @@ public class CPU6502 {
     //now contains address in page 0
     effectiveAddress = bus.readByte( effectiveAddress );
 
-    opcodeArgument = effectiveAddress;
+    operand = effectiveAddress;
 
     //now contains the address at the calculated address
     effectiveAddress = readWordLE( effectiveAddress );
+    int base = effectiveAddress;
 
     //offset by Y
     effectiveAddress += R_Y;
     effectiveAddress &= MASK_16;
-
-    System.out.println( "6502 - (Ind),Y @ 0x" +
-                        Integer.toHexString( effectiveAddress ) );
+    pagePenalty( base );
 
     //set PC to address of next opcode
     R_PC += 2;
     R_PC &= MASK_16;
+  }
 
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+  /**
+   * Adds the extra cycle of a read whose indexed effective address lies on
+   * a different page from its base address.
+   * @param base The address before indexing
+   */
+  private void pagePenalty( int base ) {
+    if( PAGE_PENALTY[opcode] &&
+        ( ( base ^ effectiveAddress ) & 0xFF00 ) != 0 ) {
+      cycles++;
+    }
   }
 
   /**
    * Performs an Add with Carry. The algorithm is taken from
    * http://6502.org/tutorials/decimal_mode.html
    * Flags affected: N Z C V
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void ADC() throws InaddressableException {
+  private void ADC() {
 
     int A = R_A;
     int AL;
@@ -1948,10 +1928,8 @@ public class CPU6502 {
   /**
    * Performs bitwise AND with the accumulator
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void AND() throws InaddressableException {
+  private void AND() {
     int B = bus.readByte( effectiveAddress );
     R_A &= B;
     setFlag( F_NEG, isNegative8( R_A ) );
@@ -1961,10 +1939,8 @@ public class CPU6502 {
   /**
    * Performs ASL
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void ASL() throws InaddressableException {
+  private void ASL() {
     int B = bus.readByte( effectiveAddress );
     B <<= 1;
     R_A = B & MASK_8;
@@ -2012,10 +1988,8 @@ public class CPU6502 {
   /**
    * Perform a bit test
    * Flags affected: N Z V
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void BIT() throws InaddressableException {
+  private void BIT() {
     int B = bus.readByte( effectiveAddress );
     setFlag( F_ZERO, ( B & R_A ) == 0 );
     setFlag( F_NEG, isNegative8( B ) );
@@ -2046,16 +2020,18 @@ public class CPU6502 {
   /**
    * Perform a non-maskable interrupt
    * Flags affected: B
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void BRK() throws InaddressableException {
+  private void BRK() {
+    int sp = R_SP;
+    bus.interruptEntered();
     push( highByte( R_PC ) ); //push Hi
     push( lowByte( R_PC ) ); //push PC Lo
     setFlag( F_BREAK, true );
     push( R_S ); //push status
     R_PC = readWordLE( V_IRQ );
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+    if( callObserver != null ) {
+      callObserver.routineEntered( R_PC, sp, cycles );
+    }
   }
 
   /**
@@ -2107,40 +2083,32 @@ public class CPU6502 {
   /**
    * Compare with the Accumulator
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void CMP() throws InaddressableException {
+  private void CMP() {
     compare( R_A, bus.readByte( effectiveAddress ) );
   }
 
   /**
    * Compare with the X Register
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void CPX() throws InaddressableException {
+  private void CPX() {
     compare( R_X, bus.readByte( effectiveAddress ) );
   }
 
   /**
    * Compare with the Y Register
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void CPY() throws InaddressableException {
+  private void CPY() {
     compare( R_Y, bus.readByte( effectiveAddress ) );
   }
 
   /**
    * Decrement a value.
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void DEC() throws InaddressableException {
+  private void DEC() {
     int R = bus.readByte( effectiveAddress );
     R = decrement8( R );
     bus.writeByte( effectiveAddress, R );
@@ -2171,10 +2139,8 @@ public class CPU6502 {
   /**
    * Perform XOR with accumulator
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void EOR() throws InaddressableException {
+  private void EOR() {
     int B = bus.readByte( effectiveAddress );
     R_A ^= B;
     setFlag( F_ZERO, R_A == 0 );
@@ -2184,10 +2150,8 @@ public class CPU6502 {
   /**
    * Increment a value
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void INC() throws  InaddressableException {
+  private void INC() {
     int R = bus.readByte( effectiveAddress );
     R = increment8( R );
     bus.writeByte( effectiveAddress, R );
@@ -2217,35 +2181,31 @@ public class CPU6502 {
 
   /**
    * Transfer program execution to the given address.
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void JMP() throws InaddressableException {
+  private void JMP() {
     R_PC = readWordLE( effectiveAddress );
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
   }
 
   /**
    * Transfer program execution to the given address, expecting a return from
    * subroutine.
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void JSR() throws InaddressableException {
+  private void JSR() {
     int nextPC = decrement16( R_PC ); //Push address - 1 of next opcode
+    int sp = R_SP;
     push( highByte( nextPC ) ); //PC hi
     push( lowByte( nextPC ) ); //PC lo
     R_PC = readWordLE( effectiveAddress );
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+    if( callObserver != null ) {
+      callObserver.routineEntered( R_PC, sp, cycles );
+    }
   }
 
   /**
    * Loads value into the Accumulator
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void LDA() throws InaddressableException {
+  private void LDA() {
     R_A = bus.readByte( effectiveAddress );
     setFlag( F_NEG, isNegative8( R_A ) );
     setFlag( F_ZERO, R_A == 0 );
@@ -2254,10 +2214,8 @@ public class CPU6502 {
   /**
    * Loads value into the X register
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void LDX() throws InaddressableException {
+  private void LDX() {
     R_X = bus.readByte( effectiveAddress );
     setFlag( F_NEG, isNegative8( R_X ) );
     setFlag( F_ZERO, R_X == 0 );
@@ -2266,10 +2224,8 @@ public class CPU6502 {
   /**
    * Loads value into the Y register
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void LDY() throws InaddressableException {
+  private void LDY() {
     R_Y = bus.readByte( effectiveAddress );
     setFlag( F_NEG, isNegative8( R_Y ) );
     setFlag( F_ZERO, R_Y == 0 );
@@ -2278,10 +2234,8 @@ public class CPU6502 {
   /**
    * Shifts a value to the right, filling with 0
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void LSR() throws InaddressableException {
+  private void LSR() {
     int R = bus.readByte( effectiveAddress );
     setFlag( F_CARRY, ( R & 0x01 ) == 0x01 );
     R >>= 1;
@@ -2308,10 +2262,8 @@ public class CPU6502 {
   /**
    * Perform OR with the Accumulator
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void ORA() throws InaddressableException {
+  private void ORA() {
     R_A |= bus.readByte( effectiveAddress );
     setFlag( F_NEG, isNegative8( R_A ) );
     setFlag( F_ZERO, R_A == 0 );
@@ -2319,29 +2271,23 @@ public class CPU6502 {
 
   /**
    * Push the Accumulator to the top of the stack
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void PHA() throws InaddressableException {
+  private void PHA() {
     push( R_A );
   }
 
   /**
    * Push the Status Register to the top of the stack
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void PHP() throws InaddressableException {
+  private void PHP() {
     push( R_S | F_BREAK );
   }
 
   /**
    * Pulls from the top of the stack to the Accumulator
    * Flags affected: N Z
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void PLA() throws InaddressableException {
+  private void PLA() {
     R_A = pop();
     setFlag( F_NEG, isNegative8( R_A ) );
     setFlag( F_ZERO, R_A == 0 );
@@ -2350,20 +2296,16 @@ public class CPU6502 {
   /**
    * Pulls from top of the stack to the Status Register
    * Flags affected: All
-   * @throws InaddressableException if the CPU tries to read from an address
-   *  not reachable from the bus
    */
-  private void PLP() throws InaddressableException {
+  private void PLP() {
     R_S = pop() & ~F_BREAK;
   }
 
   /**
    * Rotates a value to the left
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void ROL() throws InaddressableException {
+  private void ROL() {
 
     int R = bus.readByte( effectiveAddress ); //grab byte
     R <<= 1; //shift left
@@ -2404,10 +2346,8 @@ public class CPU6502 {
   /**
    * Rotates a value to the right
    * Flags affected: N Z C
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void ROR() throws InaddressableException {
+  private void ROR() {
 
     int R = bus.readByte( effectiveAddress ); //grab byte
     //old carry into new 8th bit
@@ -2446,36 +2386,50 @@ public class CPU6502 {
   /**
    * Process a return from an interrupt
    * Flags affected: All
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void RTI() throws InaddressableException {
+  private void RTI() {
     R_S = pop() & ~F_BREAK;
     R_PC = pop(); //pop PC lo
     R_PC |= ( pop() << 8 ); //pop PC hi
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+    bus.interruptReturned();
+    if( callObserver != null ) {
+      callObserver.routineExited( R_SP, cycles );
+    }
   }
 
   /**
    * Process a return from a subroutine
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void RTS() throws InaddressableException {
+  private void RTS() {
     R_PC = pop(); //pop PC lo
     R_PC |= ( pop() << 8 ); //pop PC hi
     R_PC = increment16( R_PC );
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+    if( callObserver != null ) {
+      callObserver.routineExited( R_SP, cycles );
+    }
+  }
+
+  /**
+   * Host call trap, opcode 0x02. Hands the service number in A and the
+   * parameter block pointed to by X and Y to the host. Without a handler the
+   * opcode is treated as invalid.
+   */
+  private void HST() {
+    if( hostCalls == null ) {
+      handleBadOpcode();
+    }
+    else {
+      R_PC = increment16( R_PC );
+      cycles += hostCalls.hostCall( this, R_A, ( R_Y << 8 ) | R_X );
+    }
   }
 
   /**
    * Performs a Subtract with Carry. The algorithm is taken from
    * http://6502.org/tutorials/decimal_mode.html
    * Flags affected: N Z C V
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void SBC() throws InaddressableException {
+  private void SBC() {
 
     int A = R_A;
     int AL;
@@ -2537,28 +2491,22 @@ public class CPU6502 {
 
   /**
    * Stores the Accumulator
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void STA() throws InaddressableException {
+  private void STA() {
     bus.writeByte( effectiveAddress, R_A );
   }
 
   /**
    * Stores the X Register
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void STX() throws InaddressableException {
+  private void STX() {
     bus.writeByte( effectiveAddress, R_X );
   }
 
   /**
    * Stores the Y Register
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void STY() throws InaddressableException {
+  private void STY() {
     bus.writeByte( effectiveAddress, R_Y );
   }
 
@@ -2630,8 +2578,9 @@ public class CPU6502 {
    */
   private void doBranch( int flag, boolean condition, int location ) {
     if( condition == flagSet( flag ) ) { //only on the met condition
+      //one extra cycle when taken, two when crossing a page
+      cycles += ( ( R_PC ^ location ) & 0xFF00 ) == 0 ? 1 : 2;
       R_PC = location;
-      System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
     }
   }
 
@@ -2639,38 +2588,36 @@ public class CPU6502 {
    * Handles an interrupt with the given vector and the
    * @param vector The vector that points to the proper handling code
    * @param resume The PC to resume to
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void doInterrupt( int vector, int resume )
-    throws InaddressableException {
+  private void doInterrupt( int vector, int resume ) {
+    int sp = R_SP;
+    bus.interruptEntered();
     push( highByte( resume ) );
     push( lowByte( resume ) );
     push( R_S );
     setFlag( F_IRQ, true );
     R_PC = readWordLE( vector );
-    System.out.println( "6502 - PC @ 0x" + Integer.toHexString( R_PC ) );
+    cycles += INTERRUPT_CYCLES;
+    if( callObserver != null ) {
+      callObserver.routineEntered( R_PC, sp, cycles );
+    }
   }
 
   /**
    * Handles an interrupt request
    * @param resume The PC to resume to
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void processIRQ( int resume ) throws InaddressableException {
+  private void processIRQ( int resume ) {
+    irq = false; //cleared first so a request made meanwhile is kept
     doInterrupt( V_IRQ, resume );
-    irq = false;
   }
 
   /**
    * Handles a non-maskable interrupt request
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void processNMI() throws InaddressableException {
-    doInterrupt( V_NMI, R_PC );
+  private void processNMI() {
     nmi = false;
+    doInterrupt( V_NMI, R_PC );
   }
 
   /**
@@ -2691,10 +2638,8 @@ public class CPU6502 {
   /**
    * Pushes the given value onto the stack, and increments the stack pointer.
    * @param value The value to save
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private void push( int value ) throws InaddressableException {
+  private void push( int value ) {
     int addr = STACK_START + R_SP;
     bus.writeByte( addr, value );
 
@@ -2704,10 +2649,8 @@ public class CPU6502 {
   /**
    * Pops a value from the stack, and decrements the stack pointer.
    * @return The value at the top of the stack
-   * @throws InaddressableException if the CPU tries to read from an address
-   * not reachable from the bus
    */
-  private int pop() throws InaddressableException {
+  private int pop() {
     R_SP = decrement8( R_SP );
 
     int addr = STACK_START + R_SP;
@@ -2720,10 +2663,8 @@ public class CPU6502 {
    * @param address The location of the least significant byte, followed by
    *                the most significant at address + 1
    * @return The full word in big-endian format.
-   * @throws InaddressableException if either address or address + 1 are
-   * inaccessible from the bus
    */
-  private int readWordLE( int address ) throws InaddressableException {
+  private int readWordLE( int address ) {
     int low = bus.readByte( address );
     int high = bus.readByte( increment16( address ) );
     high <<= 8;
@@ -2736,10 +2677,8 @@ public class CPU6502 {
    * @param address The location of the most significant byte, followed by
    *                the least significant at address + 1
    * @return The full word in big-endian format.
-   * @throws InaddressableException if either address or address + 1 are
-   * inaccessible from the bus
    */
-  private int readWordBE( int address ) throws InaddressableException {
+  private int readWordBE( int address ) {
     int high = bus.readByte( address );
     high <<= 8;
     int low = bus.readByte( increment16( address ) );
@@ -2963,6 +2902,260 @@ public class CPU6502 {
     return R_S;
   }
 
+  /**
+   * Sets the Accumulator
+   *
+   * @param value The 8-bit value
+   */
+  public void setAccumulator( int value ) {
+    R_A = value & MASK_8;
+  }
+
+  /**
+   * Sets the X Register
+   *
+   * @param value The 8-bit value
+   */
+  public void setXRegister( int value ) {
+    R_X = value & MASK_8;
+  }
+
+  /**
+   * Sets the Y Register
+   *
+   * @param value The 8-bit value
+   */
+  public void setYRegister( int value ) {
+    R_Y = value & MASK_8;
+  }
+
+  /**
+   * Sets the Status Register. Use the F_ masks to build the value.
+   *
+   * @param value The 8-bit value
+   */
+  public void setStatusRegister( int value ) {
+    R_S = value & MASK_8;
+  }
+
+  /**
+   * Raises the IRQ line. The interrupt is taken before the next instruction
+   * once the interrupt disable flag is clear. Safe to call from any thread.
+   */
+  public void requestIRQ() {
+    irq = true;
+  }
+
+  /**
+   * Raises the NMI line. The interrupt is taken before the next instruction.
+   * Safe to call from any thread.
+   */
+  public void requestNMI() {
+    nmi = true;
+  }
+
+  /**
+   * Lowers the IRQ line, withdrawing a request that has not been taken.
+   * Safe to call from any thread.
+   */
+  public void cancelIRQ() {
+    irq = false;
+  }
+
+  /**
+   * Lowers the NMI line, withdrawing a request that has not been taken.
+   * Safe to call from any thread.
+   */
+  public void cancelNMI() {
+    nmi = false;
+  }
+
+  /**
+   * Whether the IRQ line is raised, waiting for the interrupt to be taken
+   *
+   * @return True if an IRQ is pending
+   */
+  public boolean isIRQRequested() {
+    return irq;
+  }
+
+  /**
+   * Whether the NMI line is raised, waiting for the interrupt to be taken
+   *
+   * @return True if an NMI is pending
+   */
+  public boolean isNMIRequested() {
+    return nmi;
+  }
+
+  /**
+   * Whether the last step stopped at a breakpoint without executing the
+   * opcode there. An interrupt may still have been taken before it.
+   *
+   * @return True if the CPU is suspended at a breakpoint
+   */
+  public boolean isSuspended() {
+    return suspended;
+  }
+
+  /**
+   * Holds the CPU off the bus, as a DMA controller does, by letting cycles
+   * pass without executing anything.
+   *
+   * @param count The number of cycles taken from the CPU
+   */
+  public void stealCycles( long count ) {
+    cycles += count;
+  }
+
+  /**
+   * The scheduler that device events are timed against this CPU's cycles
+   * with. Must only be used from the CPU thread.
+   *
+   * @return The scheduler
+   */
+  public Scheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Sets who serves the host call trap, opcode 0x02.
+   *
+   * @param handler The host services, or null to treat 0x02 as invalid
+   */
+  public void setHostCallHandler( HostCallHandler handler ) {
+    hostCalls = handler;
+  }
+
+  /**
+   * Replaces a guest routine with Java code. Whenever the PC reaches the
+   * address, the routine runs instead of the guest code, the cycles are
+   * charged, and the CPU returns to the caller as if by RTS. The cycle cost
+   * should include that of the RTS.
+   *
+   * @param address The 16-bit entry address of the guest routine
+   * @param routine The Java implementation
+   * @param cost The number of cycles to charge for each call
+   * @throws IllegalArgumentException If the address is not 16-bit or the
+   * cost is negative
+   */
+  public void hook( int address, HostRoutine routine, int cost )
+    throws IllegalArgumentException {
+    if( address < 0 || address > MASK_16 || cost < 0 ) {
+      throw new IllegalArgumentException( "Bad hook at " +
+                                          Integer.toHexString( address ) );
+    }
+
+    if( hostRoutines == null ) {
+      hostRoutines = new HostRoutine[MASK_16 + 1];
+      hostCycles = new int[MASK_16 + 1];
+    }
+    hostRoutines[address] = routine;
+    hostCycles[address] = cost;
+    hooks[address >>> 6] |= 1L << address;
+  }
+
+  /**
+   * Puts the guest routine at an address back in charge.
+   *
+   * @param address The 16-bit entry address of the guest routine
+   */
+  public void unhook( int address ) {
+    address &= MASK_16;
+    hooks[address >>> 6] &= ~( 1L << address );
+    if( hostRoutines != null ) {
+      hostRoutines[address] = null;
+    }
+  }
+
+  /**
+   * The number of clock cycles elapsed since the CPU was powered on
+   *
+   * @return The cycle counter
+   */
+  public long getCycles() {
+    return cycles;
+  }
+
+  /**
+   * Copies the registers, cycle counter, interrupt lines and scheduled
+   * device events into a state.
+   *
+   * @param state The state to overwrite
+   */
+  public void saveState( CPUState state ) {
+    state.a = R_A;
+    state.x = R_X;
+    state.y = R_Y;
+    state.sp = R_SP;
+    state.pc = R_PC;
+    state.status = R_S;
+    state.cycles = cycles;
+    state.nmi = nmi;
+    state.irq = irq;
+    scheduler.save( state );
+  }
+
+  /**
+   * Puts the CPU back into a saved state.
+   *
+   * @param state The state to restore
+   */
+  public void restoreState( CPUState state ) {
+    R_A = state.a;
+    R_X = state.x;
+    R_Y = state.y;
+    R_SP = state.sp;
+    R_PC = state.pc;
+    R_S = state.status;
+    cycles = state.cycles;
+    nmi = state.nmi;
+    irq = state.irq;
+    scheduler.restore( state );
+    resumeAddress = NO_ADDRESS;
+  }
+
+  /**
+   * Attaches an observer that is told whenever guest control flow enters or
+   * leaves a routine through JSR, RTS, BRK, RTI or an interrupt.
+   *
+   * @param observer The observer, or null to disable the instrumentation
+   */
+  public void setCallObserver( CallObserver observer ) {
+    callObserver = observer;
+  }
+
+  /**
+   * Turns superinstructions on or off. They are off by default, since a step
+   * may then execute several instructions, and are never used while a trace
+   * buffer is attached.
+   *
+   * @param enabled Whether idioms may run in a single step
+   */
+  public void setFusionEnabled( boolean enabled ) {
+    fusion = enabled;
+    fusing = enabled && trace == null;
+  }
+
+  /**
+   * Whether superinstructions are on
+   *
+   * @return True if idioms may run in a single step
+   */
+  public boolean isFusionEnabled() {
+    return fusion;
+  }
+
+  /**
+   * Attaches a buffer that records every executed instruction.
+   *
+   * @param buffer The trace buffer, or null to stop tracing
+   */
+  public void setTraceBuffer( TraceBuffer buffer ) {
+    trace = buffer;
+    fusing = fusion && buffer == null;
+  }
+
   /**
    * Peek at the current instruction being executed
    *
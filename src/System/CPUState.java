@@ -0,0 +1,46 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * A copy of everything inside a CPU6502 needed to resume execution later:
+ * the registers, the cycle counter, the pending interrupt lines and the
+ * device events waiting on the scheduler.
+ */
+public class CPUState {
+
+  int a;
+  int x;
+  int y;
+  int sp;
+  int pc;
+  int status;
+  long cycles;
+  boolean nmi;
+  boolean irq;
+
+  //The scheduler's heap, as many entries as are pending
+  CycleEvent[] events = new CycleEvent[0];
+  long[] deadlines = new long[0];
+  int pending;
+
+  /**
+   * The saved Program Counter
+   * @return The 16-bit Program Counter
+   */
+  public int getProgramCounter() {
+    return pc;
+  }
+
+  /**
+   * The saved cycle counter
+   * @return The number of cycles elapsed when the state was saved
+   */
+  public long getCycles() {
+    return cycles;
+  }
+}
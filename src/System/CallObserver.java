@@ -0,0 +1,30 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for instrumentation that follows guest control flow across
+ * routine boundaries. The CPU reports every JSR, BRK and interrupt as an
+ * entry, and every RTS and RTI as an exit.
+ */
+public interface CallObserver {
+
+  /**
+   * Called once control has been transferred to a routine.
+   * @param routine The 16-bit address of the first opcode of the routine
+   * @param stackPointer The stack pointer before the return address was pushed
+   * @param cycle The CPU cycle counter at the time of the call
+   */
+  public void routineEntered( int routine, int stackPointer, long cycle );
+
+  /**
+   * Called once control has returned from a routine.
+   * @param stackPointer The stack pointer after the return address was pulled
+   * @param cycle The CPU cycle counter at the time of the return
+   */
+  public void routineExited( int stackPointer, long cycle );
+}
@@ -0,0 +1,20 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for device work that must happen at a given CPU cycle, such
+ * as the end of a transfer or a timer running out.
+ */
+public interface CycleEvent {
+
+  /**
+   * Called between instructions once the CPU has reached the deadline.
+   * @param cycle The CPU cycle the event was scheduled for
+   */
+  public void fire( long cycle );
+}
@@ -0,0 +1,32 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for debuggers that want to hear about breakpoints and
+ * watchpoints armed in a Breakpoints set.
+ */
+public interface DebugListener {
+
+  /**
+   * Called before the CPU executes an opcode at an armed address.
+   * @param address The 16-bit address of the opcode
+   * @return True to suspend the CPU before the opcode executes. The next
+   * call to step() then resumes past the breakpoint.
+   */
+  public boolean breakpointHit( int address );
+
+  /**
+   * Called when the bus reads or writes an armed address. The access has
+   * already happened and cannot be undone; a debugger that wants to stop
+   * should do so once the current step() returns.
+   * @param address The bus address
+   * @param value The byte that was read or written
+   * @param write True for a write, false for a read
+   */
+  public void watchpointHit( long address, int value, boolean write );
+}
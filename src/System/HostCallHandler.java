@@ -0,0 +1,25 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for the host side of the paravirtual trap. A guest calls the
+ * host by executing opcode 0x02 with a service number in A and the address
+ * of a parameter block in X (low byte) and Y (high byte).
+ */
+public interface HostCallHandler {
+
+  /**
+   * Performs a service for the guest. Results are returned through the
+   * registers and the parameter block. The PC already points past the trap.
+   * @param cpu The calling CPU
+   * @param service The service number from A
+   * @param block The 16-bit address of the parameter block
+   * @return The number of cycles to charge on top of the trap itself
+   */
+  public int hostCall( CPU6502 cpu, int service, int block );
+}
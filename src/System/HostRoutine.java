@@ -0,0 +1,25 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for Java code that stands in for a guest routine. Once hooked
+ * to the routine's entry address, it runs whenever the CPU reaches that
+ * address, in place of the guest code, and the CPU then returns from the
+ * routine as if it had executed an RTS.
+ */
+public interface HostRoutine {
+
+  /**
+   * Does the work of the guest routine. Arguments and results are passed
+   * through the CPU registers and through memory on the bus, following the
+   * calling convention of the routine being replaced.
+   * @param cpu The CPU that called the routine
+   * @param bus The bus the CPU is connected to
+   */
+  public void run( CPU6502 cpu, Bus bus );
+}
@@ -9,9 +9,13 @@ package System;
 
 /**
  * An exception thrown by buses when an address is valid, but does not map to
- * a valid source of data.
+ * a valid source of data. Only thrown when the bus is set to trap unmapped
+ * accesses and no handler is installed.
  */
-public class InaddressableException extends Exception {
+public class InaddressableException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
   public InaddressableException( long address ) {
     super( "The address " + Long.toHexString( address ) + " does not map to " +
            "any data." );
@@ -0,0 +1,561 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>A memory management unit between a CPU and the physical bus. The CPU
+ * is given the MMU as its bus; its 16-bit logical addresses are translated
+ * a 4KB page at a time to 32-bit addresses on the physical bus, where the
+ * devices are connected.</p>
+ * <p>The MMU is in supervisor mode from reset, and whenever the CPU is
+ * handling an interrupt or BRK. It returns to user mode when RTI leaves the
+ * outermost interrupt, if CONTROL_USER is set. Supervisor mode translates
+ * through the kernel table; user mode through the user table, with the
+ * context number telling the address spaces of processes apart.</p>
+ * <p>A table is 16 little-endian 32-bit entries in physical memory, one per
+ * logical page. The top 20 bits of an entry are the physical page, and the
+ * low bits the PTE_ flags. Translations are cached in a direct-mapped TLB
+ * tagged with the context, so switching processes flushes nothing; after
+ * changing an entry, flush it.</p>
+ * <p>In supervisor mode the registers answer sixteen logical addresses
+ * from their base, ahead of translation:</p>
+ * <ul>
+ * <li>0 : Control, see the CONTROL_ bits</li>
+ * <li>1 : Reads give the STATUS_ bits. Writes clear the fault.</li>
+ * <li>2 : Context of the user table</li>
+ * <li>3 : Writing a logical page flushes it, in the context and the kernel,
+ * from the TLB. Writing FLUSH_ALL flushes the whole TLB.</li>
+ * <li>4-5 : The logical address of the fault</li>
+ * <li>8-11 : The physical address of the user table</li>
+ * <li>12-15 : The physical address of the kernel table</li>
+ * </ul>
+ * <p>A violation is an access to a page without PTE_VALID, or a write to
+ * one without PTE_WRITE. The access is left out, a read giving a NOP, and
+ * the first violation is latched and raises an NMI. The faulting
+ * instruction completes, so a fault is reported rather than restarted.</p>
+ * <p>Devices, watchpoints, monitors and the unmapped device belong to the
+ * physical bus, and the MMU hands them over to it: a device connected
+ * through the MMU goes to that physical address, and watchpoints and
+ * monitors see physical addresses. Execution breakpoints are on the
+ * logical program counter, as the CPU checks them. A reset of the CPU
+ * returns the MMU to supervisor mode, outside of any interrupt.</p>
+ */
+public class MemoryManagementUnit extends Bus {
+
+  //Register offsets
+  public static final int CONTROL = 0;
+  public static final int STATUS = 1;
+  public static final int CONTEXT = 2;
+  public static final int FLUSH = 3;
+  public static final int FAULT_L = 4;
+  public static final int FAULT_H = 5;
+  public static final int USER_TABLE = 8;
+  public static final int KERNEL_TABLE = 12;
+  public static final int REGISTERS = 16;
+
+  //Control bits
+  public static final int CONTROL_USER = 0x01;
+  public static final int CONTROL_ENABLE = 0x80;
+
+  //Status bits
+  public static final int STATUS_USER = 0x01;
+  public static final int STATUS_WRITE = 0x02;
+  public static final int STATUS_PROTECTION = 0x04;
+  public static final int STATUS_FAULT = 0x80;
+
+  //Flushes every entry when written to FLUSH
+  public static final int FLUSH_ALL = 0xFF;
+
+  //Page table entry bits
+  public static final int PTE_VALID = 0x01;
+  public static final int PTE_WRITE = 0x02;
+
+  //Logical pages
+  public static final int PAGE_BITS = 12;
+  public static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+  private static final int PAGES = 0x10000 >> PAGE_BITS;
+
+  //What a faulting read gives
+  private static final int NOP = 0xEA;
+
+  //TLB tags are the context above the logical page; the kernel comes after
+  //every user context
+  private static final int KERNEL = 0x100 << 4;
+
+  private final Bus physical;
+  private final long registers;
+  private CPU6502 cpu;
+
+  private int control;
+  private int status;
+  private int context;
+  private int fault;
+  private long userTable;
+  private long kernelTable;
+
+  //Interrupts being handled, and the tag base and table of the current mode
+  private int depth;
+  private boolean user;
+  private int tagBase;
+  private long table;
+
+  //Direct-mapped TLB: the tag cached in each slot and its table entry
+  private final int[] tags;
+  private final int[] entries;
+  private final int tlbMask;
+  private long misses;
+
+  /**
+   * Constructs the MMU, in supervisor mode with translation disabled:
+   * logical addresses go to the first 64KB of the physical bus.
+   * @param physical The bus the devices are connected to
+   * @param registers The first logical address of the registers
+   * @param tlbSize The number of TLB entries, a power of two
+   * @throws IllegalArgumentException If the TLB size is not a power of two,
+   * or the registers do not fit in the logical address space
+   */
+  public MemoryManagementUnit( Bus physical, int registers, int tlbSize )
+    throws IllegalArgumentException {
+    if( tlbSize < 1 || Integer.bitCount( tlbSize ) != 1 ) {
+      throw new IllegalArgumentException( "Bad TLB size: " + tlbSize );
+    }
+    if( registers < 0 || registers + REGISTERS > 0x10000 ) {
+      throw new IllegalArgumentException( "Bad MMU registers: " +
+                                          Integer.toHexString( registers ) );
+    }
+
+    this.physical = physical;
+    this.registers = registers;
+    tags = new int[tlbSize];
+    entries = new int[tlbSize];
+    tlbMask = tlbSize - 1;
+    Arrays.fill( tags, -1 );
+    switchMode( false );
+  }
+
+  /**
+   * Sets the CPU to interrupt on a fault. The CPU is constructed on the MMU,
+   * so it can only be given afterwards.
+   * @param cpu The CPU
+   */
+  public void setCPU( CPU6502 cpu ) {
+    this.cpu = cpu;
+  }
+
+  /**
+   * The bus the MMU translates onto
+   * @return The physical bus
+   */
+  public Bus getPhysical() {
+    return physical;
+  }
+
+  /**
+   * The number of translations that had to be read from a table
+   * @return The number of TLB misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Translates a logical address as an access in the current mode would,
+   * without faulting.
+   * @param address The logical address
+   * @return The physical address, or -1 if the access would fault
+   */
+  public long translate( int address ) {
+    int entry = lookup( address );
+    return ( entry & PTE_VALID ) == 0 ? -1
+                                      : physicalAddress( entry, address );
+  }
+
+  @Override
+  public void connectDevice( BusDevice device, long address )
+    throws IllegalArgumentException {
+    physical.connectDevice( device, address );
+  }
+
+  @Override
+  public void connectDevice( BusDevice device, long from, long to )
+    throws IllegalArgumentException {
+    physical.connectDevice( device, from, to );
+  }
+
+  @Override
+  public UnmappedDevice getUnmapped() {
+    return physical.getUnmapped();
+  }
+
+  @Override
+  public Breakpoints getBreakpoints() {
+    return physical.getBreakpoints();
+  }
+
+  @Override
+  public void setMonitor( BusMonitor monitor ) {
+    physical.setMonitor( monitor );
+  }
+
+  @Override
+  public int readByte( long address ) throws IllegalArgumentException {
+    checkLogical( address, 1 );
+    int logical = (int)address;
+    if( !user && logical - registers >= 0 &&
+        logical - registers < REGISTERS ) {
+      return readRegister( (int)( logical - registers ) );
+    }
+
+    int entry = lookup( logical );
+    if( ( entry & PTE_VALID ) == 0 ) {
+      fault( logical, 0 );
+      return NOP;
+    }
+    return physical.readByte( physicalAddress( entry, logical ) );
+  }
+
+  @Override
+  public void writeByte( long address, int value )
+    throws IllegalArgumentException {
+    checkLogical( address, 1 );
+    int logical = (int)address;
+    if( !user && logical - registers >= 0 &&
+        logical - registers < REGISTERS ) {
+      writeRegister( (int)( logical - registers ), value & 0xFF );
+      return;
+    }
+
+    int entry = lookup( logical );
+    if( ( entry & PTE_VALID ) == 0 ) {
+      fault( logical, STATUS_WRITE );
+    }
+    else if( ( entry & PTE_WRITE ) == 0 ) {
+      fault( logical, STATUS_WRITE | STATUS_PROTECTION );
+    }
+    else {
+      physical.writeByte( physicalAddress( entry, logical ), value );
+    }
+  }
+
+  @Override
+  public void read( long address, byte[] destination, int offset,
+                    int length ) throws IllegalArgumentException {
+    checkLogical( address, length );
+    while( length > 0 ) {
+      int logical = (int)address;
+      int run = Math.min( length, PAGE_SIZE - ( logical & PAGE_MASK ) );
+      int entry = lookup( logical );
+      if( ( entry & PTE_VALID ) == 0 || touchesRegisters( logical, run ) ) {
+        for( int i = 0; i < run; i++ ) {
+          destination[offset + i] = (byte)readByte( logical + i );
+        }
+      }
+      else {
+        physical.read( physicalAddress( entry, logical ), destination, offset,
+                       run );
+      }
+      address += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void write( long address, byte[] source, int offset, int length )
+    throws IllegalArgumentException {
+    checkLogical( address, length );
+    while( length > 0 ) {
+      int logical = (int)address;
+      int run = Math.min( length, PAGE_SIZE - ( logical & PAGE_MASK ) );
+      int entry = lookup( logical );
+      if( ( entry & ( PTE_VALID | PTE_WRITE ) ) != ( PTE_VALID | PTE_WRITE ) ||
+          touchesRegisters( logical, run ) ) {
+        for( int i = 0; i < run; i++ ) {
+          writeByte( logical + i, source[offset + i] & 0xFF );
+        }
+      }
+      else {
+        physical.write( physicalAddress( entry, logical ), source, offset,
+                        run );
+      }
+      address += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void read( long address, ByteBuffer destination, int length )
+    throws IllegalArgumentException {
+    checkLogical( address, length );
+    while( length > 0 ) {
+      int logical = (int)address;
+      int run = Math.min( length, PAGE_SIZE - ( logical & PAGE_MASK ) );
+      int entry = lookup( logical );
+      if( ( entry & PTE_VALID ) == 0 || touchesRegisters( logical, run ) ) {
+        for( int i = 0; i < run; i++ ) {
+          destination.put( (byte)readByte( logical + i ) );
+        }
+      }
+      else {
+        physical.read( physicalAddress( entry, logical ), destination, run );
+      }
+      address += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void write( long address, ByteBuffer source, int length )
+    throws IllegalArgumentException {
+    checkLogical( address, length );
+    while( length > 0 ) {
+      int logical = (int)address;
+      int run = Math.min( length, PAGE_SIZE - ( logical & PAGE_MASK ) );
+      int entry = lookup( logical );
+      if( ( entry & ( PTE_VALID | PTE_WRITE ) ) != ( PTE_VALID | PTE_WRITE ) ||
+          touchesRegisters( logical, run ) ) {
+        for( int i = 0; i < run; i++ ) {
+          writeByte( logical + i, source.get() & 0xFF );
+        }
+      }
+      else {
+        physical.write( physicalAddress( entry, logical ), source, run );
+      }
+      address += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  int getDataBus() {
+    return physical.getDataBus();
+  }
+
+  @Override
+  int peekByte( long address ) {
+    int logical = (int)address;
+    if( address < 0 || address > 0xFFFF ||
+        !user && logical - registers >= 0 &&
+        logical - registers < REGISTERS ) {
+      return -1;
+    }
+
+    //only a translation already in the TLB, as filling it reads the table
+    int entry;
+    if( ( control & CONTROL_ENABLE ) == 0 ) {
+      entry = lookup( logical );
+    }
+    else {
+      int tag = tagBase | logical >>> PAGE_BITS;
+      if( tags[tag & tlbMask] != tag ) {
+        return -1;
+      }
+      entry = entries[tag & tlbMask];
+    }
+    return ( entry & PTE_VALID ) == 0
+           ? -1 : physical.peekByte( physicalAddress( entry, logical ) );
+  }
+
+  @Override
+  void resetEntered() {
+    depth = 0;
+    switchMode( false );
+  }
+
+  @Override
+  void interruptEntered() {
+    depth++;
+    if( user ) {
+      switchMode( false );
+    }
+  }
+
+  @Override
+  void interruptReturned() {
+    if( depth > 0 ) {
+      depth--;
+    }
+    if( depth == 0 && !user && ( control & CONTROL_USER ) != 0 ) {
+      switchMode( true );
+    }
+  }
+
+  /**
+   * Reads a register.
+   * @param register The register offset
+   * @return The register value
+   */
+  private int readRegister( int register ) {
+    switch( register ) {
+      case CONTROL:
+        return control;
+      case STATUS:
+        return status | ( user ? STATUS_USER : 0 );
+      case CONTEXT:
+        return context;
+      case FAULT_L:
+        return fault & 0xFF;
+      case FAULT_H:
+        return fault >> 8;
+      default:
+        if( register >= USER_TABLE ) {
+          long base = register >= KERNEL_TABLE ? kernelTable : userTable;
+          return (int)( base >>> ( ( register & 3 ) * 8 ) ) & 0xFF;
+        }
+        return 0;
+    }
+  }
+
+  /**
+   * Writes a register.
+   * @param register The register offset
+   * @param value The byte value
+   */
+  private void writeRegister( int register, int value ) {
+    switch( register ) {
+      case CONTROL:
+        control = value;
+        break;
+      case STATUS:
+        status = 0;
+        break;
+      case CONTEXT:
+        context = value;
+        break;
+      case FLUSH:
+        flush( value );
+        break;
+      default:
+        if( register >= USER_TABLE ) {
+          int shift = ( register & 3 ) * 8;
+          long mask = ~( 0xFFL << shift );
+          long bits = (long)value << shift;
+          if( register >= KERNEL_TABLE ) {
+            kernelTable = kernelTable & mask | bits;
+          }
+          else {
+            userTable = userTable & mask | bits;
+          }
+        }
+        break;
+    }
+    switchMode( user ); //the tag or table of the mode may have changed
+  }
+
+  /**
+   * Finds the table entry of a logical address in the current mode,
+   * through the TLB.
+   * @param address The logical address
+   * @return The table entry
+   */
+  private int lookup( int address ) {
+    if( ( control & CONTROL_ENABLE ) == 0 ) {
+      return address & ~PAGE_MASK | PTE_VALID | PTE_WRITE;
+    }
+
+    int tag = tagBase | address >>> PAGE_BITS;
+    int slot = tag & tlbMask;
+    if( tags[slot] != tag ) {
+      long at = table + ( address >>> PAGE_BITS ) * 4;
+      entries[slot] = physical.readByte( at ) |
+                      physical.readByte( at + 1 ) << 8 |
+                      physical.readByte( at + 2 ) << 16 |
+                      physical.readByte( at + 3 ) << 24;
+      tags[slot] = tag;
+      misses++;
+    }
+    return entries[slot];
+  }
+
+  /**
+   * Flushes translations from the TLB.
+   * @param page The logical page, in the user context and the kernel, or
+   * FLUSH_ALL
+   */
+  private void flush( int page ) {
+    if( page == FLUSH_ALL ) {
+      Arrays.fill( tags, -1 );
+      return;
+    }
+    page &= PAGES - 1;
+    int userTag = context << 4 | page;
+    if( tags[userTag & tlbMask] == userTag ) {
+      tags[userTag & tlbMask] = -1;
+    }
+    if( tags[( KERNEL | page ) & tlbMask] == ( KERNEL | page ) ) {
+      tags[( KERNEL | page ) & tlbMask] = -1;
+    }
+  }
+
+  /**
+   * Records a violation, if none is latched, and interrupts the CPU.
+   * @param address The logical address
+   * @param kind The STATUS_ bits describing the access
+   */
+  private void fault( int address, int kind ) {
+    if( ( status & STATUS_FAULT ) == 0 ) {
+      status = STATUS_FAULT | kind;
+      fault = address;
+      if( cpu != null ) {
+        cpu.requestNMI();
+      }
+    }
+  }
+
+  /**
+   * Enters a mode, choosing its table and TLB tags.
+   * @param user True for user mode, false for supervisor mode
+   */
+  private void switchMode( boolean user ) {
+    this.user = user;
+    tagBase = user ? context << 4 : KERNEL;
+    table = user ? userTable : kernelTable;
+  }
+
+  /**
+   * Whether a run of logical addresses overlaps the registers while they
+   * are visible.
+   * @param address The first logical address
+   * @param length The number of bytes
+   * @return True if any byte is a register
+   */
+  private boolean touchesRegisters( int address, int length ) {
+    return !user && address < registers + REGISTERS &&
+           address + length > registers;
+  }
+
+  /**
+   * Combines the page of a table entry and the offset of a logical address.
+   * @param entry The table entry
+   * @param address The logical address
+   * @return The physical address
+   */
+  private static long physicalAddress( int entry, int address ) {
+    return ( entry & ~PAGE_MASK ) & 0xFFFFFFFFL | address & PAGE_MASK;
+  }
+
+  /**
+   * Validates a range of logical addresses.
+   * @param address The first address
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range is not within 64KB
+   */
+  private static void checkLogical( long address, int length )
+    throws IllegalArgumentException {
+    if( length < 0 || address < 0 || address + length > 0x10000 ) {
+      throw new IllegalArgumentException( "Logical address " +
+                                          Long.toHexString( address ) +
+                                          " + " + length +
+                                          " exceeds 64KB" );
+    }
+  }
+}
@@ -0,0 +1,446 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * <p>A device that provides contiguous RAM, starting at address 0, larger
+ * than what is kept on the host. The whole of it lives in a swap file; only
+ * a fixed number of pages are resident, in frames of a single array, and
+ * the host memory used is the frames and one table entry per page whatever
+ * the size reserved.</p>
+ * <p>A page is read from the swap file the first time it is touched, or
+ * read as zeros if the file does not reach it. When every frame is in use
+ * the least recently used page is evicted, and written back only if it was
+ * written to. A file that already exists gives the initial contents.</p>
+ * <p>Errors reading or writing the swap file are thrown as
+ * UncheckedIOExceptions, since bus accesses cannot throw IOExceptions.</p>
+ */
+public class PagedMemory implements Memory {
+
+  //max memory addressable, the 32-bit address space of the bus
+  public static final long MAX_MEMORY = 0x100000000L;
+
+  //Marks a page that is not resident, or the end of the LRU list
+  private static final int NONE = -1;
+
+  private final long size;
+  private final RandomAccessFile file;
+  private final FileChannel swap;
+
+  //Page size as a shift and mask, for splitting addresses
+  private final int shift;
+  private final int mask;
+
+  //The frame holding each page, or NONE
+  private final int[] frameOf;
+
+  //The frames, the page in each, and which were written to
+  private final byte[] frames;
+  private final ByteBuffer view;
+  private final int[] pageOf;
+  private final boolean[] dirty;
+
+  //Frames from the most to the least recently used, as a doubly-linked list
+  private final int[] newer;
+  private final int[] older;
+  private int newest;
+  private int oldest;
+  private int used;
+
+  //The page last accessed, so runs within a page skip the table and list
+  private int lastPage;
+  private int lastBase;
+
+  private long faults;
+  private long writebacks;
+
+  /**
+   * Constructs the memory module. The host memory taken is the resident
+   * pages, plus four bytes for each page reserved.
+   * @param amount The number of bytes of memory, as much as 4GB
+   * @param pageSize The number of bytes in a page, a power of two
+   * @param resident The most pages kept in host memory at once
+   * @param swap The file holding the pages, created if it does not exist
+   * @throws IllegalArgumentException If amount is less than 1 or more than
+   * 4GB, the page size is not a power of two or gives too many pages, or
+   * resident is less than 1 or the frames would exceed 2GB
+   * @throws IOException If the swap file could not be opened
+   */
+  public PagedMemory( long amount, int pageSize, int resident, File swap )
+    throws IllegalArgumentException, IOException {
+    if( amount < 1 || amount > MAX_MEMORY ) {
+      throw new IllegalArgumentException( "Bad memory size: " + amount );
+    }
+    if( pageSize < 1 || Integer.bitCount( pageSize ) != 1 ) {
+      throw new IllegalArgumentException( "Bad page size: " + pageSize );
+    }
+    if( ( amount + pageSize - 1 ) / pageSize > Integer.MAX_VALUE ) {
+      throw new IllegalArgumentException( "Too many pages of " + pageSize );
+    }
+    if( resident < 1 || (long)resident * pageSize > Integer.MAX_VALUE ) {
+      throw new IllegalArgumentException( "Bad resident pages: " +
+                                          resident );
+    }
+
+    size = amount;
+    shift = Integer.numberOfTrailingZeros( pageSize );
+    mask = pageSize - 1;
+    int pages = (int)( ( amount + mask ) >>> shift );
+    resident = Math.min( resident, pages );
+
+    frameOf = new int[pages];
+    Arrays.fill( frameOf, NONE );
+    frames = new byte[resident * pageSize];
+    view = ByteBuffer.wrap( frames );
+    pageOf = new int[resident];
+    dirty = new boolean[resident];
+    newer = new int[resident];
+    older = new int[resident];
+    newest = NONE;
+    oldest = NONE;
+    lastPage = NONE;
+
+    file = new RandomAccessFile( swap, "rw" );
+    this.swap = file.getChannel();
+  }
+
+  @Override
+  public boolean validAddress( long address ) {
+    return ( address >= 0 ) && ( address < size );
+  }
+
+  @Override
+  public int readByte( long address ) throws IllegalArgumentException {
+    if( !validAddress( address ) ) {
+      throw outOfBounds( address, 1 );
+    }
+    return frames[base( (int)( address >>> shift ) ) +
+                  ( (int)address & mask )] & 0xFF;
+  }
+
+  @Override
+  public void writeByte( long address, int value )
+    throws IllegalArgumentException {
+    if( !validAddress( address ) ) {
+      throw outOfBounds( address, 1 );
+    }
+    int base = base( (int)( address >>> shift ) );
+    frames[base + ( (int)address & mask )] = (byte)value;
+    dirty[base >> shift] = true;
+  }
+
+  @Override
+  public void readBytes( long address, byte[] destination, int offset,
+                         int length ) throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      int at = (int)address & mask;
+      int run = Math.min( length, mask + 1 - at );
+      int base = base( (int)( address >>> shift ) );
+      System.arraycopy( frames, base + at, destination, offset, run );
+      address += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      int at = (int)address & mask;
+      int run = Math.min( length, mask + 1 - at );
+      int base = base( (int)( address >>> shift ) );
+      System.arraycopy( source, offset, frames, base + at, run );
+      dirty[base >> shift] = true;
+      address += run;
+      offset += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void readBytes( long address, ByteBuffer destination, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      int at = (int)address & mask;
+      int run = Math.min( length, mask + 1 - at );
+      int base = base( (int)( address >>> shift ) );
+      destination.put( frames, base + at, run );
+      address += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void writeBytes( long address, ByteBuffer source, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    while( length > 0 ) {
+      int at = (int)address & mask;
+      int run = Math.min( length, mask + 1 - at );
+      int base = base( (int)( address >>> shift ) );
+      source.get( frames, base + at, run );
+      dirty[base >> shift] = true;
+      address += run;
+      length -= run;
+    }
+  }
+
+  @Override
+  public void dump( File file ) throws IOException {
+    OutputStream out = new BufferedOutputStream(
+      new FileOutputStream( file ) );
+    try {
+      byte[] page = new byte[mask + 1];
+      for( long address = 0; address < size; address += page.length ) {
+        int length = (int)Math.min( page.length, size - address );
+        readBytes( address, page, 0, length );
+        out.write( page, 0, length );
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  @Override
+  public void load( File file ) throws IOException {
+    InputStream in = new BufferedInputStream( new FileInputStream( file ) );
+    try {
+      byte[] page = new byte[mask + 1];
+      long address = 0;
+      int read;
+      while( address < size &&
+             ( read = in.read( page, 0,
+                               (int)Math.min( page.length,
+                                              size - address ) ) ) > 0 ) {
+        writeBytes( address, page, 0, read );
+        address += read;
+      }
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Writes every dirty page back to the swap file, keeping them resident.
+   * @throws IOException If the swap file could not be written to
+   */
+  public void flush() throws IOException {
+    for( int frame = 0; frame < used; frame++ ) {
+      if( dirty[frame] ) {
+        writeBack( frame );
+      }
+    }
+  }
+
+  /**
+   * Writes every dirty page back and closes the swap file. The memory
+   * cannot be used afterwards.
+   * @throws IOException If the swap file could not be written to or closed
+   */
+  public void close() throws IOException {
+    try {
+      flush();
+    }
+    finally {
+      file.close();
+    }
+  }
+
+  /**
+   * The number of pages brought into a frame so far
+   * @return The number of page faults
+   */
+  public long getFaults() {
+    return faults;
+  }
+
+  /**
+   * The number of dirty pages written to the swap file so far
+   * @return The number of pages written back
+   */
+  public long getWritebacks() {
+    return writebacks;
+  }
+
+  @Override
+  public int getSize() {
+    return (int)Math.min( size, Integer.MAX_VALUE ); //2GB and up saturate
+  }
+
+  /**
+   * Finds the frame of a page, bringing the page in if it is not resident,
+   * and makes it the most recently used.
+   * @param page The page
+   * @return The index in the frames of the first byte of the page
+   * @throws UncheckedIOException If the swap file could not be read from or
+   * written to
+   */
+  private int base( int page ) {
+    if( page == lastPage ) {
+      return lastBase; //already the most recently used
+    }
+
+    int frame = frameOf[page];
+    if( frame == NONE ) {
+      frame = fault( page );
+    }
+    else if( frame != newest ) {
+      unlink( frame );
+      link( frame );
+    }
+    lastPage = page;
+    lastBase = frame << shift;
+    return lastBase;
+  }
+
+  /**
+   * Brings a page into a free frame, or the frame of the least recently
+   * used page.
+   * @param page The page
+   * @return The frame, now the most recently used
+   * @throws UncheckedIOException If the swap file could not be read from or
+   * written to
+   */
+  private int fault( int page ) {
+    int frame;
+    try {
+      if( used < pageOf.length ) {
+        frame = used++;
+      }
+      else {
+        frame = oldest;
+        if( dirty[frame] ) {
+          writeBack( frame );
+        }
+        frameOf[pageOf[frame]] = NONE;
+        unlink( frame );
+      }
+      readIn( page, frame );
+    }
+    catch( IOException e ) {
+      throw new UncheckedIOException( "Swap failed at page " + page, e );
+    }
+
+    frameOf[page] = frame;
+    pageOf[frame] = page;
+    dirty[frame] = false;
+    link( frame );
+    faults++;
+    return frame;
+  }
+
+  /**
+   * Reads a page from the swap file into a frame. What lies past the end of
+   * the file reads as zeros.
+   * @param page The page
+   * @param frame The frame
+   * @throws IOException If the swap file could not be read from
+   */
+  private void readIn( int page, int frame ) throws IOException {
+    int base = frame << shift;
+    int end = base + mask + 1;
+    long position = (long)page << shift;
+    view.limit( end ).position( base );
+    while( view.hasRemaining() ) {
+      int read = swap.read( view, position + ( view.position() - base ) );
+      if( read < 0 ) {
+        break;
+      }
+    }
+    Arrays.fill( frames, view.position(), end, (byte)0 );
+  }
+
+  /**
+   * Writes the page in a frame to the swap file and marks it clean. Only
+   * the bytes within the size of the memory are written.
+   * @param frame The frame
+   * @throws IOException If the swap file could not be written to
+   */
+  private void writeBack( int frame ) throws IOException {
+    int base = frame << shift;
+    long position = (long)pageOf[frame] << shift;
+    int length = (int)Math.min( mask + 1, size - position );
+    view.limit( base + length ).position( base );
+    while( view.hasRemaining() ) {
+      swap.write( view, position + ( view.position() - base ) );
+    }
+    dirty[frame] = false;
+    writebacks++;
+  }
+
+  /**
+   * Puts a frame at the most recently used end of the list.
+   * @param frame The frame, not in the list
+   */
+  private void link( int frame ) {
+    newer[frame] = NONE;
+    older[frame] = newest;
+    if( newest != NONE ) {
+      newer[newest] = frame;
+    }
+    else {
+      oldest = frame;
+    }
+    newest = frame;
+  }
+
+  /**
+   * Takes a frame out of the list.
+   * @param frame The frame, in the list
+   */
+  private void unlink( int frame ) {
+    if( newer[frame] != NONE ) {
+      older[newer[frame]] = older[frame];
+    }
+    else {
+      newest = older[frame];
+    }
+    if( older[frame] != NONE ) {
+      newer[older[frame]] = newer[frame];
+    }
+    else {
+      oldest = newer[frame];
+    }
+  }
+
+  /**
+   * Validates a range of addresses.
+   * @param address The first address
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range exceeds the memory
+   */
+  private void checkRange( long address, int length )
+    throws IllegalArgumentException {
+    if( length < 0 || !validAddress( address ) || address + length > size ) {
+      throw outOfBounds( address, length );
+    }
+  }
+
+  /**
+   * Builds the exception for a range outside of the memory.
+   * @param address The first address
+   * @param length The number of bytes
+   * @return The exception to throw
+   */
+  private IllegalArgumentException outOfBounds( long address, int length ) {
+    return new IllegalArgumentException( Long.toHexString( address ) +
+                                         " + " + length +
+                                         " exceeds bounds. Max address is " +
+                                         Long.toHexString( size - 1 ) );
+  }
+}
@@ -7,6 +7,7 @@
 package System;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * A device that provides contiguous RAM, starting at address 0.
@@ -43,14 +44,15 @@ public class RandomAccessMemory implements Memory {
     return ( address >= 0x00000000 ) && ( address <= memory.length - 1 );
   }
 
+  @Override
+  public int peekByte( long address ) {
+    return validAddress( address ) ? memory[(int)address] & 0xFF : -1;
+  }
+
   @Override
   public int readByte( long address ) throws IllegalArgumentException {
     if( validAddress( address ) ) {
-      int val = memory[(int)address] & 0xFF;
-      System.out.println( "System.Memory - Read from 0x" +
-                          Long.toHexString( address ).toUpperCase() + " : 0x" +
-                          Integer.toHexString( val ).toUpperCase() );
-      return val;
+      return memory[(int)address] & 0xFF;
     }
     else {
       throw new IllegalArgumentException( Long.toHexString( address ) +
@@ -64,11 +66,7 @@ public class RandomAccessMemory implements Memory {
   public void writeByte( long address, int value )
     throws IllegalArgumentException {
     if( validAddress( address ) ) {
-      value &= 0xFF;
       memory[(int)address] = (byte)value;
-      System.out.println( "System.Memory - Write to 0x" +
-                          Long.toHexString( address ).toUpperCase() + " : 0x" +
-                          Integer.toHexString( value ).toUpperCase() );
     }
     else {
       throw new IllegalArgumentException( Long.toHexString( address ) +
@@ -92,6 +90,68 @@ public class RandomAccessMemory implements Memory {
     fis.close();
   }
 
+  @Override
+  public void readBytes( long address, byte[] destination, int offset,
+                         int length ) throws IllegalArgumentException {
+    checkRange( address, length );
+    System.arraycopy( memory, (int)address, destination, offset, length );
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) throws IllegalArgumentException {
+    checkRange( address, length );
+    System.arraycopy( source, offset, memory, (int)address, length );
+  }
+
+  @Override
+  public void readBytes( long address, ByteBuffer destination, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    destination.put( memory, (int)address, length );
+  }
+
+  @Override
+  public void writeBytes( long address, ByteBuffer source, int length )
+    throws IllegalArgumentException {
+    checkRange( address, length );
+    source.get( memory, (int)address, length );
+  }
+
+  /**
+   * Copies the entire contents of the memory into an array.
+   * @param destination An array of at least getSize() bytes
+   */
+  public void copyTo( byte[] destination ) {
+    System.arraycopy( memory, 0, destination, 0, memory.length );
+  }
+
+  /**
+   * Overwrites the entire contents of the memory from an array.
+   * @param source An array of at least getSize() bytes
+   */
+  public void copyFrom( byte[] source ) {
+    System.arraycopy( source, 0, memory, 0, memory.length );
+  }
+
+  /**
+   * Validates a range of addresses.
+   * @param address The first address
+   * @param length The number of bytes
+   * @throws IllegalArgumentException If the range exceeds the memory
+   */
+  private void checkRange( long address, int length )
+    throws IllegalArgumentException {
+    if( length < 0 || !validAddress( address ) ||
+        address + length > memory.length ) {
+      throw new IllegalArgumentException( Long.toHexString( address ) +
+                                          " + " + length +
+                                          " exceeds bounds. Max address is " +
+                                          Long.toHexString(
+                                            memory.length - 1 ) );
+    }
+  }
+
   @Override
   public int getSize() {
     return memory.length;
@@ -7,6 +7,7 @@
 package System;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * A device that provides contiguous R0M, starting at address 0.
@@ -37,4 +38,15 @@ public class ReadOnlyMemory extends RandomAccessMemory {
   public void writeByte( long address, int value ) {
     throw new UnsupportedOperationException( "ROM cannot be written to" );
   }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) {
+    throw new UnsupportedOperationException( "ROM cannot be written to" );
+  }
+
+  @Override
+  public void writeBytes( long address, ByteBuffer source, int length ) {
+    throw new UnsupportedOperationException( "ROM cannot be written to" );
+  }
 }
@@ -0,0 +1,245 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+import java.util.Arrays;
+
+/**
+ * <p>Keeps the CycleEvents of a CPU in order of their deadlines, as a binary
+ * heap in parallel arrays. The CPU compares its cycle counter against the
+ * earliest deadline before every instruction, so devices cost nothing
+ * between their events.</p>
+ * <p>An event is scheduled at most once: scheduling it again moves it.
+ * The scheduler must only be used from the CPU thread.</p>
+ */
+public final class Scheduler {
+
+  //Deadline reported when nothing is scheduled
+  public static final long NEVER = Long.MAX_VALUE;
+
+  private static final int INITIAL_EVENTS = 16;
+
+  private CycleEvent[] events;
+  private long[] deadlines;
+  private int count;
+
+  //Bumped whenever the events change
+  private long changes;
+
+  /**
+   * Constructs an empty scheduler.
+   */
+  public Scheduler() {
+    events = new CycleEvent[INITIAL_EVENTS];
+    deadlines = new long[INITIAL_EVENTS];
+  }
+
+  /**
+   * Schedules an event, replacing any deadline it already had.
+   * @param event The event
+   * @param cycle The CPU cycle at or after which it fires
+   */
+  public void schedule( CycleEvent event, long cycle ) {
+    int index = indexOf( event );
+    if( index < 0 ) {
+      if( count == events.length ) {
+        events = Arrays.copyOf( events, count * 2 );
+        deadlines = Arrays.copyOf( deadlines, count * 2 );
+      }
+      index = count++;
+      events[index] = event;
+    }
+    deadlines[index] = cycle;
+    siftDown( siftUp( index ) );
+    changes++;
+  }
+
+  /**
+   * Removes an event.
+   * @param event The event
+   * @return True if it was scheduled
+   */
+  public boolean cancel( CycleEvent event ) {
+    int index = indexOf( event );
+    if( index < 0 ) {
+      return false;
+    }
+    remove( index );
+    return true;
+  }
+
+  /**
+   * Whether an event is waiting to fire
+   * @param event The event
+   * @return True if it is scheduled
+   */
+  public boolean isScheduled( CycleEvent event ) {
+    return indexOf( event ) >= 0;
+  }
+
+  /**
+   * The earliest deadline
+   * @return The cycle of the next event, or NEVER
+   */
+  public long getDeadline() {
+    return count == 0 ? NEVER : deadlines[0];
+  }
+
+  /**
+   * Fires, in order, every event whose deadline has been reached. Events
+   * may schedule themselves or others again while firing.
+   * @param cycle The current CPU cycle
+   */
+  public void runDue( long cycle ) {
+    while( count > 0 && deadlines[0] <= cycle ) {
+      CycleEvent event = events[0];
+      long deadline = deadlines[0];
+      remove( 0 );
+      event.fire( deadline );
+    }
+  }
+
+  /**
+   * Removes every event.
+   */
+  public void clear() {
+    Arrays.fill( events, 0, count, null );
+    count = 0;
+    changes++;
+  }
+
+  /**
+   * The number of times an event has been scheduled, cancelled or fired,
+   * so that a caller can tell whether code it ran changed the events
+   * @return A count that only grows
+   */
+  public long getChanges() {
+    return changes;
+  }
+
+  /**
+   * Copies every event and its deadline into a state, leaving the rest of
+   * the state alone.
+   * @param state The state to overwrite
+   */
+  public void save( CPUState state ) {
+    if( state.events.length < count ) {
+      state.events = new CycleEvent[events.length];
+      state.deadlines = new long[events.length];
+    }
+    System.arraycopy( events, 0, state.events, 0, count );
+    System.arraycopy( deadlines, 0, state.deadlines, 0, count );
+    if( state.pending > count ) {
+      Arrays.fill( state.events, count, state.pending, null );
+    }
+    state.pending = count;
+  }
+
+  /**
+   * Replaces every event with those saved in a state, leaving the CPU
+   * alone.
+   * @param state The state to restore
+   */
+  public void restore( CPUState state ) {
+    if( events.length < state.pending ) {
+      events = new CycleEvent[state.events.length];
+      deadlines = new long[state.events.length];
+    }
+    if( count > state.pending ) {
+      Arrays.fill( events, state.pending, count, null );
+    }
+    //already in heap order
+    System.arraycopy( state.events, 0, events, 0, state.pending );
+    System.arraycopy( state.deadlines, 0, deadlines, 0, state.pending );
+    count = state.pending;
+    changes++;
+  }
+
+  /**
+   * Finds an event in the heap.
+   * @param event The event
+   * @return Its index, or -1
+   */
+  private int indexOf( CycleEvent event ) {
+    for( int i = 0; i < count; i++ ) {
+      if( events[i] == event ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Removes the event at an index, keeping the heap in order.
+   * @param index The index
+   */
+  private void remove( int index ) {
+    count--;
+    changes++;
+    if( index != count ) {
+      events[index] = events[count];
+      deadlines[index] = deadlines[count];
+      events[count] = null;
+      siftDown( siftUp( index ) );
+    }
+    else {
+      events[count] = null;
+    }
+  }
+
+  /**
+   * Moves an entry towards the root while it is earlier than its parent.
+   * @param index The index of the entry
+   * @return Its new index
+   */
+  private int siftUp( int index ) {
+    while( index > 0 ) {
+      int parent = ( index - 1 ) >>> 1;
+      if( deadlines[parent] <= deadlines[index] ) {
+        break;
+      }
+      swap( index, parent );
+      index = parent;
+    }
+    return index;
+  }
+
+  /**
+   * Moves an entry towards the leaves while it is later than a child.
+   * @param index The index of the entry
+   */
+  private void siftDown( int index ) {
+    while( true ) {
+      int child = 2 * index + 1;
+      if( child >= count ) {
+        return;
+      }
+      if( child + 1 < count && deadlines[child + 1] < deadlines[child] ) {
+        child++;
+      }
+      if( deadlines[index] <= deadlines[child] ) {
+        return;
+      }
+      swap( index, child );
+      index = child;
+    }
+  }
+
+  /**
+   * Exchanges two entries.
+   * @param a The index of one entry
+   * @param b The index of the other
+   */
+  private void swap( int a, int b ) {
+    CycleEvent event = events[a];
+    events[a] = events[b];
+    events[b] = event;
+    long deadline = deadlines[a];
+    deadlines[a] = deadlines[b];
+    deadlines[b] = deadline;
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A flight recorder for the CPU. Every executed instruction is written as
+ * a fixed-size binary record into an off-heap ring buffer, overwriting the
+ * oldest record once the buffer is full. Recording is a handful of stores, so
+ * the trace can be left on permanently and dumped after a crash.</p>
+ * <p>Records are little-endian and laid out as follows:</p>
+ * <ul>
+ * <li>0-7 : Cycle counter after the instruction retired</li>
+ * <li>8-9 : Address of the opcode</li>
+ * <li>10 : Opcode</li>
+ * <li>11-12 : Operand, low byte first</li>
+ * <li>13-17 : A, X, Y, SP and the status register after the instruction</li>
+ * <li>18-23 : Reserved</li>
+ * </ul>
+ * <p>Files written by the trace start with an 8-byte header: the MAGIC value
+ * and the record size, both as little-endian integers.</p>
+ * <p>Only the CPU thread may record. Any other thread may read records as
+ * long as it checks, after copying, that the producer has not lapped it.</p>
+ */
+public final class TraceBuffer {
+
+  //Record layout
+  public static final int RECORD_SIZE = 24;
+  public static final int CYCLE = 0;
+  public static final int PC = 8;
+  public static final int OPCODE = 10;
+  public static final int OPERAND = 11;
+  public static final int A = 13;
+  public static final int X = 14;
+  public static final int Y = 15;
+  public static final int SP = 16;
+  public static final int STATUS = 17;
+
+  //File header
+  public static final int MAGIC = 0x35365254; //"TR65"
+  public static final int HEADER_SIZE = 8;
+
+  private final ByteBuffer records;
+  private final int mask;
+
+  //Records written so far, published for readers on other threads
+  private long position;
+  private final AtomicLong published;
+
+  /**
+   * Constructs the trace buffer off the Java heap.
+   * @param capacity The number of records kept, rounded up to a power of two
+   * @throws IllegalArgumentException If capacity is less than 1 or the buffer
+   * would exceed 2GB
+   */
+  public TraceBuffer( int capacity ) throws IllegalArgumentException {
+    if( capacity < 1 || capacity > Integer.MAX_VALUE / RECORD_SIZE / 2 ) {
+      throw new IllegalArgumentException( "Bad trace capacity: " + capacity );
+    }
+
+    capacity = Integer.highestOneBit( capacity - 1 ) << 1;
+    if( capacity == 0 ) {
+      capacity = 1;
+    }
+
+    records = ByteBuffer.allocateDirect( capacity * RECORD_SIZE )
+                        .order( ByteOrder.LITTLE_ENDIAN );
+    mask = capacity - 1;
+    published = new AtomicLong();
+  }
+
+  /**
+   * Appends an instruction to the trace.
+   * @param pc The address of the opcode
+   * @param opcode The opcode
+   * @param operand The 8 or 16-bit operand
+   * @param a The Accumulator
+   * @param x The X Register
+   * @param y The Y Register
+   * @param sp The Stack Pointer
+   * @param status The Status Register
+   * @param cycle The cycle counter
+   */
+  public void record( int pc, int opcode, int operand, int a, int x, int y,
+                      int sp, int status, long cycle ) {
+    int base = (int)( position & mask ) * RECORD_SIZE;
+    records.putLong( base + CYCLE, cycle );
+    records.putShort( base + PC, (short)pc );
+    records.put( base + OPCODE, (byte)opcode );
+    records.putShort( base + OPERAND, (short)operand );
+    records.put( base + A, (byte)a );
+    records.put( base + X, (byte)x );
+    records.put( base + Y, (byte)y );
+    records.put( base + SP, (byte)sp );
+    records.put( base + STATUS, (byte)status );
+    position++;
+    published.lazySet( position );
+  }
+
+  /**
+   * The number of records the buffer can hold before it starts overwriting
+   * @return The capacity in records
+   */
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * The number of records written since the trace was created. Safe to call
+   * from any thread.
+   * @return The index the next record will be written to
+   */
+  public long getPosition() {
+    return published.get();
+  }
+
+  /**
+   * Copies records into a buffer. The copy is only valid if, afterwards,
+   * getPosition() - from is less than the capacity: the CPU may already be
+   * writing the record at getPosition() over the oldest one.
+   * @param from The index of the first record to copy
+   * @param count The number of records, no more than the capacity
+   * @param destination The buffer to copy into, at its position
+   */
+  public void copy( long from, int count, ByteBuffer destination ) {
+    ByteBuffer source = records.duplicate();
+    int start = (int)( from & mask );
+    int first = Math.min( count, mask + 1 - start );
+
+    source.limit( ( start + first ) * RECORD_SIZE );
+    source.position( start * RECORD_SIZE );
+    destination.put( source );
+
+    if( first < count ) { //wrapped around
+      source.limit( ( count - first ) * RECORD_SIZE );
+      source.position( 0 );
+      destination.put( source );
+    }
+  }
+
+  /**
+   * Writes the header and the retained records, oldest first, to the file.
+   * Must be called from the CPU thread, or while the CPU is stopped.
+   * @param file The file to overwrite
+   * @throws IOException if the file could not be written to
+   */
+  public void dump( File file ) throws IOException {
+    int count = (int)Math.min( position, mask + 1 );
+    ByteBuffer out = ByteBuffer.allocate( HEADER_SIZE + count * RECORD_SIZE )
+                               .order( ByteOrder.LITTLE_ENDIAN );
+    writeHeader( out );
+    copy( position - count, count, out );
+    out.flip();
+
+    FileOutputStream fos = new FileOutputStream( file );
+    try {
+      FileChannel channel = fos.getChannel();
+      while( out.hasRemaining() ) {
+        channel.write( out );
+      }
+    }
+    finally {
+      fos.close();
+    }
+  }
+
+  /**
+   * Writes the trace file header.
+   * @param out The buffer to write into, at its position
+   */
+  public static void writeHeader( ByteBuffer out ) {
+    ByteOrder order = out.order();
+    out.order( ByteOrder.LITTLE_ENDIAN );
+    out.putInt( MAGIC );
+    out.putInt( RECORD_SIZE );
+    out.order( order );
+  }
+}
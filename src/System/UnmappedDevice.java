@@ -0,0 +1,131 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://forum.6502.org/viewtopic.php?t=3155
+ */
+
+package System;
+
+/**
+ * <p>The device a bus answers with wherever nothing else is connected, so
+ * that unmapped accesses cost no more than mapped ones. What it does is set
+ * by a policy:</p>
+ * <ul>
+ * <li>OPEN_BUS : Reads return the last value seen on the data bus, as on a
+ * real 6502. Writes are dropped.</li>
+ * <li>IGNORE : Reads return 0xFF. Writes are dropped.</li>
+ * <li>COUNT : As OPEN_BUS, while counting the accesses.</li>
+ * <li>TRAP : Accesses are passed to a handler. Without one, an
+ * InaddressableException is thrown.</li>
+ * </ul>
+ */
+public final class UnmappedDevice implements BusDevice {
+
+  //Policies
+  public static final int OPEN_BUS = 0;
+  public static final int IGNORE = 1;
+  public static final int COUNT = 2;
+  public static final int TRAP = 3;
+
+  //Value read back under IGNORE, as if the data lines were pulled up
+  private static final int PULLED_UP = 0xFF;
+
+  private final Bus bus;
+  private int policy;
+  private UnmappedHandler handler;
+  private long reads;
+  private long writes;
+
+  /**
+   * Constructs the device for a bus, with the OPEN_BUS policy.
+   * @param bus The bus whose data lines are read back
+   */
+  UnmappedDevice( Bus bus ) {
+    this.bus = bus;
+    policy = OPEN_BUS;
+  }
+
+  /**
+   * Chooses what happens on unmapped accesses.
+   * @param policy OPEN_BUS, IGNORE, COUNT or TRAP
+   * @throws IllegalArgumentException If the policy is not one of the above
+   */
+  public void setPolicy( int policy ) throws IllegalArgumentException {
+    if( policy < OPEN_BUS || policy > TRAP ) {
+      throw new IllegalArgumentException( "Bad unmapped policy: " + policy );
+    }
+    this.policy = policy;
+  }
+
+  /**
+   * The current policy
+   * @return OPEN_BUS, IGNORE, COUNT or TRAP
+   */
+  public int getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Sets who is told about accesses under the TRAP policy.
+   * @param handler The handler, or null to throw instead
+   */
+  public void setHandler( UnmappedHandler handler ) {
+    this.handler = handler;
+  }
+
+  /**
+   * The number of unmapped reads counted under the COUNT policy
+   * @return The read count
+   */
+  public long getReads() {
+    return reads;
+  }
+
+  /**
+   * The number of unmapped writes counted under the COUNT policy
+   * @return The write count
+   */
+  public long getWrites() {
+    return writes;
+  }
+
+  /**
+   * Sets both counts back to zero.
+   */
+  public void resetCounts() {
+    reads = 0;
+    writes = 0;
+  }
+
+  @Override
+  public int readByte( long address ) {
+    switch( policy ) {
+      case IGNORE:
+        return PULLED_UP;
+      case COUNT:
+        reads++;
+        return bus.getDataBus();
+      case TRAP:
+        if( handler == null ) {
+          throw new InaddressableException( address );
+        }
+        return handler.unmappedRead( address ) & 0xFF;
+      default:
+        return bus.getDataBus();
+    }
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    if( policy == COUNT ) {
+      writes++;
+    }
+    else if( policy == TRAP ) {
+      if( handler == null ) {
+        throw new InaddressableException( address );
+      }
+      handler.unmappedWrite( address, value );
+    }
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package System;
+
+/**
+ * An interface for whoever handles accesses to unmapped bus addresses while
+ * the bus is set to UnmappedDevice.TRAP.
+ */
+public interface UnmappedHandler {
+
+  /**
+   * Called for a read from an unmapped address.
+   * @param address The bus address
+   * @return An integer containing the byte value the reader will see
+   */
+  public int unmappedRead( long address );
+
+  /**
+   * Called for a write to an unmapped address.
+   * @param address The bus address
+   * @param value An integer containing the byte value
+   */
+  public void unmappedWrite( long address, int value );
+}
@@ -0,0 +1,181 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.ACIA;
+import Peripherals.SerialHub;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>Moves data through ports serviced by a hub: from a pipe to the guest,
+ * more than the receive FIFO holds so the hub has to stall and resume
+ * without losing any, from the guest to a pipe and to a file, which the
+ * hub polls instead of selecting. Also checks the status bits, the
+ * interrupts, and that a byte written while STATUS_TDRE is clear is
+ * lost.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class ACIATest {
+
+  private static final int PORT = 0xD000;
+  private static final int FIFO = 16;
+
+  private static Bus bus;
+  private static CPU6502 cpu;
+
+  public static void main( String[] args ) throws Exception {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, PORT - 1 );
+    bus.connectDevice( mem, PORT + 0x300, 0xFFFF );
+    cpu = new CPU6502( bus );
+    cpu.setStatusRegister( CPU6502.F_IRQ ); //keep requests pending
+
+    SerialHub hub = new SerialHub();
+    Pipe toGuest = Pipe.open();
+    Pipe fromGuest = Pipe.open();
+    ACIA port = new ACIA( cpu, bus, PORT, hub, toGuest.source(),
+                          fromGuest.sink(), FIFO );
+    port.connect();
+    bus.writeByte( PORT + ACIA.COMMAND, ACIA.COMMAND_DTR );
+    assert( bus.readByte( PORT + ACIA.COMMAND ) == ACIA.COMMAND_DTR );
+    assert( status( PORT ) == ACIA.STATUS_TDRE );
+
+    //more than the FIFO holds arrives complete and in order
+    byte[] sent = new byte[FIFO * 3 + 5];
+    for( int i = 0; i < sent.length; i++ ) {
+      sent[i] = (byte)( i * 11 + 3 );
+    }
+    toGuest.sink().write( ByteBuffer.wrap( sent ) );
+    boolean flagged = false;
+    for( int i = 0; i < sent.length; i++ ) {
+      int status = await( PORT, ACIA.STATUS_RDRF );
+      flagged |= ( status & ACIA.STATUS_IRQ ) != 0;
+      assert( bus.readByte( PORT + ACIA.DATA ) == ( sent[i] & 0xFF ) ) : i;
+    }
+    assert( flagged && cpu.isIRQRequested() );
+    assert( ( status( PORT ) & ACIA.STATUS_RDRF ) == 0 );
+    assert( bus.readByte( PORT + ACIA.DATA ) == ( sent[sent.length - 1] &
+                                                  0xFF ) ) : "Not held";
+
+    //and out to the pipe, writing whenever there is room
+    Pipe.SourceChannel source = fromGuest.source();
+    source.configureBlocking( false );
+    ByteBuffer got = ByteBuffer.allocate( sent.length );
+    for( int i = 0; i < sent.length; i++ ) {
+      await( PORT, ACIA.STATUS_TDRE );
+      bus.writeByte( PORT + ACIA.DATA, sent[i] );
+      source.read( got );
+    }
+    for( int tries = 0; tries < 500 && got.hasRemaining(); tries++ ) {
+      Thread.sleep( 10 );
+      source.read( got );
+    }
+    assert( !got.hasRemaining() ) : got.position();
+    for( int i = 0; i < sent.length; i++ ) {
+      assert( got.get( i ) == sent[i] ) : i;
+    }
+
+    //a file cannot be selected, so the hub polls it
+    File file = File.createTempFile( "6502serial", ".out" );
+    FileChannel channel = FileChannel.open( file.toPath(),
+                                            StandardOpenOption.WRITE );
+    ACIA printer = new ACIA( cpu, bus, PORT + 0x100, hub, null, channel,
+                             FIFO );
+    printer.connect();
+    for( int i = 0; i < 5; i++ ) {
+      await( PORT + 0x100, ACIA.STATUS_TDRE );
+      bus.writeByte( PORT + 0x100 + ACIA.DATA, "print".charAt( i ) );
+    }
+    for( int tries = 0; tries < 500 && file.length() < 5; tries++ ) {
+      Thread.sleep( 10 );
+    }
+    assert( new String( Files.readAllBytes( file.toPath() ), "US-ASCII" )
+              .equals( "print" ) );
+    printer.close();
+    channel.close();
+    file.delete();
+
+    //without a hub nothing drains: TDRE clears when full, more is lost
+    ByteArrayOutputStream lost = new ByteArrayOutputStream();
+    ACIA stuck = new ACIA( cpu, bus, PORT + 0x200, null, null,
+                           Channels.newChannel( lost ), 4 );
+    stuck.connect();
+    for( int i = 0; i < 4; i++ ) {
+      assert( ( status( PORT + 0x200 ) & ACIA.STATUS_TDRE ) != 0 ) : i;
+      bus.writeByte( PORT + 0x200 + ACIA.DATA, i );
+    }
+    assert( ( status( PORT + 0x200 ) & ACIA.STATUS_TDRE ) == 0 );
+    bus.writeByte( PORT + 0x200 + ACIA.DATA, 0xFF );
+
+    //a transmit IRQ at once when enabled with the FIFO empty
+    bus.writeByte( PORT + ACIA.COMMAND, ACIA.COMMAND_DTR |
+                                        ACIA.COMMAND_TX_IRQ );
+    assert( ( status( PORT ) & ACIA.STATUS_IRQ ) != 0 );
+    assert( ( status( PORT ) & ACIA.STATUS_IRQ ) == 0 ) : "Not cleared";
+
+    //a programmed reset clears the low command bits
+    bus.writeByte( PORT + ACIA.COMMAND, 0xE7 );
+    bus.writeByte( PORT + ACIA.STATUS, 0 );
+    assert( bus.readByte( PORT + ACIA.COMMAND ) == 0xE0 );
+    bus.writeByte( PORT + ACIA.CONTROL, 0x1F );
+    assert( bus.readByte( PORT + ACIA.CONTROL ) == 0x1F );
+
+    port.close();
+    stuck.close();
+    hub.close();
+    assert( lost.size() == 0 );
+
+    boolean rejected = false;
+    try {
+      new ACIA( cpu, bus, PORT, null, null, null, 0 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "ACIATest passed" );
+  }
+
+  /**
+   * Reads the status register of a port, clearing STATUS_IRQ.
+   * @param base The base address of the port
+   * @return The STATUS_ bits
+   */
+  private static int status( int base ) {
+    return bus.readByte( base + ACIA.STATUS );
+  }
+
+  /**
+   * Polls the status of a port until a bit is set, as a guest would.
+   * @param base The base address of the port
+   * @param bit The STATUS_ bit
+   * @return The status that had it set
+   * @throws InterruptedException If interrupted while waiting
+   */
+  private static int await( int base, int bit ) throws InterruptedException {
+    int status = status( base );
+    for( int tries = 0; tries < 5000 && ( status & bit ) == 0; tries++ ) {
+      Thread.sleep( 1 );
+      status = status( base );
+    }
+    assert( ( status & bit ) != 0 ) : "Status never set: " + bit;
+    return status;
+  }
+}
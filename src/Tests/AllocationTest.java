@@ -0,0 +1,102 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   https://docs.oracle.com/javase/8/docs/jre/api/management/extension/com/sun/management/ThreadMXBean.html
+ */
+
+package Tests;
+
+import System.Bus;
+import System.CPU6502;
+import System.InaddressableException;
+import System.RandomAccessMemory;
+import System.ReadOnlyMemory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * <p>Checks that executing instructions allocates nothing once warmed up.
+ * A program in ROM copies ROM into RAM, adds it up and pushes and pulls the
+ * stack in a loop, and the bytes allocated by this thread are measured over
+ * millions of instructions.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class AllocationTest {
+
+  private static final int WARMUP = 1000000;
+  private static final int MEASURED = 5000000;
+
+  /* 0x8000: LDX #$00     ;X = 0
+   * 0x8002: LDA $9000,X  ;A = ROM[X]
+   * 0x8005: STA $0300,X  ;RAM[X] = A
+   * 0x8008: ADC $0300,X  ;A += RAM[X]
+   * 0x800B: PHA          ;push A
+   * 0x800C: PLA          ;pull A
+   * 0x800D: INX          ;X++
+   * 0x800E: BNE #$F2     ;if X != 0, PC -= 14
+   * 0x8010: CLV          ;V = 0
+   * 0x8011: BVC #$ED     ;PC -= 19, always
+   */
+  private static final int[] PROGRAM = {
+    0xA2, 0x00, 0xBD, 0x00, 0x90, 0x9D, 0x00, 0x03, 0x7D, 0x00, 0x03,
+    0x48, 0x68, 0xE8, 0xD0, 0xF2, 0xB8, 0x50, 0xED
+  };
+
+  public static void main( String[] args ) throws InaddressableException,
+                                                  IOException {
+
+    //ROM image with the program at 0x8000 and the reset vector pointing to it
+    byte[] image = new byte[0x10000];
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      image[0x8000 + i] = (byte)PROGRAM[i];
+    }
+    for( int i = 0x9000; i < 0x9100; i++ ) {
+      image[i] = (byte)i;
+    }
+    image[0xFFFD] = (byte)0x80;
+
+    File romFile = File.createTempFile( "rom", ".bin" );
+    romFile.deleteOnExit();
+    FileOutputStream fos = new FileOutputStream( romFile );
+    fos.write( image );
+    fos.close();
+
+    //RAM in the lower half, ROM in the upper half
+    RandomAccessMemory ram = new RandomAccessMemory( 0x8000 );
+    ReadOnlyMemory rom = new ReadOnlyMemory( 0x10000, romFile );
+    Bus bus = new Bus();
+    for( long addr = 0; addr <= 0xFFFF; addr++ ) {
+      bus.connectDevice( addr < 0x8000 ? ram : rom, addr );
+    }
+
+    CPU6502 cpu = new CPU6502( bus );
+    cpu.reset();
+
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long id = Thread.currentThread().getId();
+
+    for( int i = 0; i < WARMUP; i++ ) {
+      cpu.step();
+    }
+
+    //whatever reading the counter costs is not charged to the CPU
+    long before = threads.getThreadAllocatedBytes( id );
+    long overhead = threads.getThreadAllocatedBytes( id ) - before;
+
+    before = threads.getThreadAllocatedBytes( id );
+    for( int i = 0; i < MEASURED; i++ ) {
+      cpu.step();
+    }
+    long allocated = threads.getThreadAllocatedBytes( id ) - before -
+                     overhead;
+
+    System.out.println( MEASURED + " instructions allocated " + allocated +
+                        " bytes" );
+    assert( allocated <= 0 );
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.BankedMemory;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * <p>Fills every bank of a store through the window, switching banks with
+ * the registers as a guest would, and reads them all back. Also checks the
+ * high bank register, that bank numbers wrap, that block transfers run
+ * across pages showing different banks, that a guest program sees a switch
+ * at once, and that the store survives a dump and a load.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class BankedMemoryTest {
+
+  private static final int WINDOW = 0x8000;
+  private static final int REGISTERS = 0xC000;
+  private static final int PAGES = 4;
+  private static final int PAGE = 0x1000;
+  private static final int BANKS = 300;
+
+  /* 0x0200: LDA #$07
+   * 0x0202: STA $C000    ;page 0 shows bank 7
+   * 0x0205: LDA $8000
+   * 0x0208: STA $10      ;its first byte
+   * 0x020A: LDA #$08
+   * 0x020C: STA $C000    ;and then bank 8
+   * 0x020F: LDA $8000
+   * 0x0212: STA $11
+   * 0x0214: CLV
+   * 0x0215: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xA9, 0x07, 0x8D, 0x00, 0xC0, 0xAD, 0x00, 0x80, 0x85, 0x10, 0xA9, 0x08,
+    0x8D, 0x00, 0xC0, 0xAD, 0x00, 0x80, 0x85, 0x11, 0xB8, 0x50, 0xFE
+  };
+
+  private static Bus bus;
+
+  public static void main( String[] args ) throws Exception {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, WINDOW - 1 );
+    bus.connectDevice( mem, REGISTERS + PAGES * 2, 0xFFFF );
+    BankedMemory banked = new BankedMemory( bus, WINDOW, PAGES, PAGE, BANKS,
+                                            REGISTERS );
+    banked.connect();
+    assert( banked.getSize() == BANKS * PAGE );
+
+    //every bank through a different page each time, then read back
+    for( int bank = 0; bank < BANKS; bank++ ) {
+      int page = bank % PAGES;
+      select( page, bank );
+      assert( banked.getBank( page ) == bank );
+      assert( bus.readByte( REGISTERS + page * 2 ) == ( bank & 0xFF ) );
+      assert( bus.readByte( REGISTERS + page * 2 + 1 ) == bank >> 8 );
+      for( int i = 0; i < PAGE; i += 0x101 ) {
+        bus.writeByte( WINDOW + page * PAGE + i, pattern( bank, i ) );
+      }
+    }
+    for( int bank = BANKS - 1; bank >= 0; bank-- ) {
+      int page = ( bank + 1 ) % PAGES;
+      select( page, bank );
+      for( int i = 0; i < PAGE; i += 0x101 ) {
+        assert( bus.readByte( WINDOW + page * PAGE + i ) ==
+                pattern( bank, i ) ) : bank + " " + i;
+      }
+    }
+
+    //two pages on the same bank see each other's writes
+    select( 0, 5 );
+    select( 1, 5 );
+    bus.writeByte( WINDOW + 0x10, 0xA5 );
+    assert( bus.readByte( WINDOW + PAGE + 0x10 ) == 0xA5 );
+
+    //past the last bank wraps, and the high byte is latched until written
+    select( 2, BANKS + 3 );
+    assert( banked.getBank( 2 ) == 3 );
+    bus.writeByte( REGISTERS + 2 * 2, 9 );
+    assert( banked.getBank( 2 ) == 265 ) : "High byte not latched";
+
+    //a transfer across pages splits at the page boundary
+    select( 1, 10 );
+    select( 2, 20 );
+    byte[] block = new byte[64];
+    for( int i = 0; i < block.length; i++ ) {
+      block[i] = (byte)( 0x40 + i );
+    }
+    int across = WINDOW + 2 * PAGE - 32;
+    bus.write( across, block, 0, block.length );
+    select( 1, 0 );
+    select( 2, 0 );
+    select( 3, 10 );
+    assert( bus.readByte( WINDOW + 4 * PAGE - 1 ) == 0x40 + 31 );
+    select( 3, 20 );
+    assert( bus.readByte( WINDOW + 3 * PAGE ) == 0x40 + 32 );
+    select( 1, 10 );
+    select( 2, 20 );
+    byte[] back = new byte[block.length];
+    bus.read( across, back, 0, back.length );
+    for( int i = 0; i < block.length; i++ ) {
+      assert( back[i] == block[i] ) : i;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate( block.length );
+    bus.read( across, buffer, block.length );
+    buffer.flip();
+    for( int i = 0; i < block.length; i++ ) {
+      assert( buffer.get() == block[i] ) : i;
+    }
+
+    //the guest switches and reads
+    select( 0, 7 );
+    bus.writeByte( WINDOW, 0x77 );
+    select( 0, 8 );
+    bus.writeByte( WINDOW, 0x88 );
+    select( 0, 0 );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    CPU6502 cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    for( int i = 0; i < 20; i++ ) {
+      cpu.step();
+    }
+    assert( mem.readByte( 0x10 ) == 0x77 && mem.readByte( 0x11 ) == 0x88 );
+    assert( banked.getBank( 0 ) == 8 );
+
+    //dump and load into a fresh store
+    File file = File.createTempFile( "6502banks", ".bin" );
+    banked.dump( file );
+    assert( Files.size( file.toPath() ) == BANKS * PAGE );
+    BankedMemory loaded = new BankedMemory( new Bus(), WINDOW, PAGES, PAGE,
+                                            BANKS, REGISTERS );
+    loaded.load( file );
+    file.delete();
+    loaded.select( 0, 123 );
+    assert( loaded.readByte( WINDOW + 0x202 ) == pattern( 123, 0x202 ) );
+
+    boolean rejected = false;
+    try {
+      new BankedMemory( bus, WINDOW, PAGES, 3000, BANKS, REGISTERS );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+    rejected = false;
+    try {
+      banked.select( PAGES, 0 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "BankedMemoryTest passed" );
+  }
+
+  /**
+   * Switches a page to a bank through its registers, high byte first.
+   * @param page The page of the window
+   * @param bank The bank
+   */
+  private static void select( int page, int bank ) {
+    bus.writeByte( REGISTERS + page * 2 + 1, bank >> 8 );
+    bus.writeByte( REGISTERS + page * 2, bank & 0xFF );
+  }
+
+  /**
+   * The byte written to an offset of a bank.
+   * @param bank The bank
+   * @param offset The offset in the bank
+   * @return A byte that differs between nearby banks and offsets
+   */
+  private static int pattern( int bank, int offset ) {
+    return ( bank * 7 + offset / 0x101 * 13 ) & 0xFF;
+  }
+}
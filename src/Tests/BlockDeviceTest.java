@@ -0,0 +1,176 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.BlockDevice;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+/**
+ * <p>Writes sectors from guest memory to a disk image and reads them back
+ * elsewhere, moves a sector through the buffer window, checks the timing
+ * of a transfer and the errors for sectors past the end, and flushes over
+ * and over while the CPU polls the status, so a completion lost to the
+ * flusher thread shows up as a FLUSH that never ends.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class BlockDeviceTest {
+
+  private static final int DISK = 0xC000;
+  private static final int SECTORS = 16;
+  private static final int CYCLES_PER_SECTOR = 100;
+
+  /* 0x0200: NOP          ;2 cycles
+   * 0x0201: CLV          ;2 cycles
+   * 0x0202: BVC #$FC     ;3 cycles, loop to 0x0200
+   */
+  private static final int[] PROGRAM = {
+    0xEA, 0xB8, 0x50, 0xFC
+  };
+
+  private static RandomAccessMemory mem;
+  private static Bus bus;
+  private static CPU6502 cpu;
+
+  public static void main( String[] args ) throws Exception {
+    mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, DISK - 1 );
+    bus.connectDevice( mem, DISK + BlockDevice.WINDOW, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+
+    File file = File.createTempFile( "6502disk", ".img" );
+    RandomAccessFile raw = new RandomAccessFile( file, "rw" );
+    raw.setLength( SECTORS * BlockDevice.SECTOR_SIZE + 100 );
+    raw.close();
+    BlockDevice disk = new BlockDevice( cpu, bus, DISK, file,
+                                        CYCLES_PER_SECTOR );
+    disk.connect();
+    assert( disk.getSectors() == SECTORS ); //the tail is not a sector
+
+    //WRITE four sectors from 0x1000, in count times the sector time
+    for( int i = 0; i < 4 * BlockDevice.SECTOR_SIZE; i++ ) {
+      mem.writeByte( 0x1000 + i, i * 7 + ( i >> 9 ) );
+    }
+    long before = cpu.getCycles();
+    command( 3, 4, 0x1000, BlockDevice.WRITE );
+    assert( status() == BlockDevice.STATUS_BUSY );
+    bus.writeByte( DISK + BlockDevice.COMMAND, BlockDevice.READ ); //ignored
+    assert( complete() == BlockDevice.STATUS_DONE );
+    long taken = cpu.getCycles() - before;
+    assert( taken >= 4 * CYCLES_PER_SECTOR &&
+            taken < 4 * CYCLES_PER_SECTOR + 4 ) : taken;
+    assert( status() == 0 ) : "DONE not cleared by reading it";
+
+    //READ them back to 0x3000
+    command( 3, 4, 0x3000, BlockDevice.READ );
+    assert( complete() == BlockDevice.STATUS_DONE );
+    for( int i = 0; i < 4 * BlockDevice.SECTOR_SIZE; i++ ) {
+      assert( mem.readByte( 0x3000 + i ) == mem.readByte( 0x1000 + i ) ) :
+        Integer.toHexString( i );
+    }
+
+    //LOAD a sector into the window, change it, STORE it one further on
+    command( 4, 1, 0, BlockDevice.LOAD );
+    assert( complete() == BlockDevice.STATUS_DONE );
+    int window = DISK + BlockDevice.BUFFER;
+    for( int i = 0; i < BlockDevice.SECTOR_SIZE; i++ ) {
+      assert( bus.readByte( window + i ) ==
+              mem.readByte( 0x1000 + BlockDevice.SECTOR_SIZE + i ) );
+    }
+    bus.writeByte( window + 5, 0xA5 );
+    command( 9, 1, 0, BlockDevice.STORE );
+    assert( complete() == BlockDevice.STATUS_DONE );
+    command( 9, 1, 0x5000, BlockDevice.READ );
+    assert( complete() == BlockDevice.STATUS_DONE );
+    assert( mem.readByte( 0x5005 ) == 0xA5 );
+    assert( mem.readByte( 0x5006 ) ==
+            mem.readByte( 0x1000 + BlockDevice.SECTOR_SIZE + 6 ) );
+
+    //past the end of the image, or of the address space
+    command( SECTORS - 1, 2, 0x1000, BlockDevice.READ );
+    assert( complete() == ( BlockDevice.STATUS_DONE |
+                            BlockDevice.STATUS_ERROR ) );
+    command( 0, 2, 0xFF00, BlockDevice.READ );
+    assert( complete() == ( BlockDevice.STATUS_DONE |
+                            BlockDevice.STATUS_ERROR ) );
+    command( 0, 1, 0, 0x7F );
+    assert( complete() == ( BlockDevice.STATUS_DONE |
+                            BlockDevice.STATUS_ERROR ) );
+
+    //every FLUSH ends, however its end and the CPU's polling interleave
+    for( int i = 0; i < 200; i++ ) {
+      command( 0, 1, 0, BlockDevice.FLUSH );
+      assert( complete() == BlockDevice.STATUS_DONE ) : "FLUSH " + i;
+    }
+    disk.close();
+
+    //the data reached the file
+    raw = new RandomAccessFile( file, "r" );
+    raw.seek( 3 * BlockDevice.SECTOR_SIZE );
+    for( int i = 0; i < 4 * BlockDevice.SECTOR_SIZE; i++ ) {
+      assert( raw.read() == mem.readByte( 0x1000 + i ) );
+    }
+    raw.close();
+    file.delete();
+
+    System.out.println( "BlockDeviceTest passed" );
+  }
+
+  /**
+   * Writes the registers and starts a command.
+   * @param sector The first sector
+   * @param count The number of sectors
+   * @param address The guest address
+   * @param command The command
+   */
+  private static void command( int sector, int count, int address,
+                               int command ) {
+    int[] values = { sector & 0xFF, ( sector >> 8 ) & 0xFF, sector >> 16,
+                     count, address & 0xFF, address >> 8, 0 };
+    for( int i = 0; i < values.length; i++ ) {
+      bus.writeByte( DISK + i, values[i] );
+    }
+    bus.writeByte( DISK + BlockDevice.COMMAND, command );
+  }
+
+  /**
+   * Reads the status register, clearing DONE.
+   * @return The status
+   */
+  private static int status() {
+    return bus.readByte( DISK + BlockDevice.COMMAND );
+  }
+
+  /**
+   * Runs the CPU, polling the status like a guest driver, until the
+   * command ends.
+   * @return The final status
+   */
+  private static int complete() {
+    long deadline = System.nanoTime() + 5000000000L;
+    while( System.nanoTime() < deadline ) {
+      int value = status();
+      if( ( value & BlockDevice.STATUS_BUSY ) == 0 ) {
+        return value;
+      }
+      cpu.step();
+    }
+    assert( false ) : "Command never ended";
+    return -1;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Breakpoints;
+import System.Bus;
+import System.BusDevice;
+import System.BusMonitor;
+import System.RandomAccessMemory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Moves blocks across a bus split between two devices and checks that
+ * each device is handed its run in a single call, that the bytes match a
+ * byte-by-byte copy for both arrays and ByteBuffers, and that a watchpoint
+ * or a monitor sends the transfer down the byte path instead.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class BlockTransferTest implements BusDevice {
+
+  private final byte[] store = new byte[0x10000];
+  private int byteCalls;
+  private int blockCalls;
+
+  @Override
+  public int readByte( long address ) {
+    byteCalls++;
+    return store[(int)address] & 0xFF;
+  }
+
+  @Override
+  public void writeByte( long address, int value ) {
+    byteCalls++;
+    store[(int)address] = (byte)value;
+  }
+
+  @Override
+  public void readBytes( long address, byte[] destination, int offset,
+                         int length ) {
+    blockCalls++;
+    System.arraycopy( store, (int)address, destination, offset, length );
+  }
+
+  @Override
+  public void writeBytes( long address, byte[] source, int offset,
+                          int length ) {
+    blockCalls++;
+    System.arraycopy( source, offset, store, (int)address, length );
+  }
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    BlockTransferTest device = new BlockTransferTest();
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0x0000, 0x7FFF );
+    bus.connectDevice( device, 0x8000, 0xFFFF );
+
+    //a write and a read across the boundary, one call on the device side
+    byte[] source = new byte[0x200];
+    for( int i = 0; i < source.length; i++ ) {
+      source[i] = (byte)( i * 31 + 7 );
+    }
+    bus.write( 0x7F00, source, 0, source.length );
+    assert( device.blockCalls == 1 && device.byteCalls == 0 );
+    for( int i = 0; i < source.length; i++ ) {
+      assert( bus.readByte( 0x7F00 + i ) == ( source[i] & 0xFF ) );
+    }
+
+    device.blockCalls = 0;
+    device.byteCalls = 0;
+    byte[] copy = new byte[0x200 + 4];
+    bus.read( 0x7F00, copy, 2, 0x200 );
+    assert( device.blockCalls == 1 && device.byteCalls == 0 );
+    for( int i = 0; i < source.length; i++ ) {
+      assert( copy[i + 2] == source[i] );
+    }
+    assert( copy[0] == 0 && copy[1] == 0 && copy[0x202] == 0 );
+    assert( bus.readByte( 0x10000 ) == ( source[0x1FF] & 0xFF ) ); //open bus
+
+    //ByteBuffers fall back on the device's byte loop, still the same bytes
+    ByteBuffer buffer = ByteBuffer.allocate( 0x200 );
+    bus.read( 0x7F00, buffer, 0x200 );
+    assert( buffer.position() == 0x200 );
+    for( int i = 0; i < source.length; i++ ) {
+      assert( buffer.get( i ) == source[i] );
+    }
+    buffer.flip();
+    bus.write( 0x1000, buffer, 0x200 );
+    for( int i = 0; i < source.length; i++ ) {
+      assert( mem.readByte( 0x1000 + i ) == ( source[i] & 0xFF ) );
+    }
+
+    //a watched address sends its run byte by byte, so the watch fires
+    device.blockCalls = 0;
+    device.byteCalls = 0;
+    bus.getBreakpoints().arm( Breakpoints.READ, 0x8010, 0x8010 );
+    bus.read( 0x7F00, copy, 0, 0x200 );
+    assert( device.blockCalls == 0 && device.byteCalls == 0x100 );
+    bus.getBreakpoints().clear();
+
+    //so does a monitor, which sees every byte
+    final int[] seen = { 0 };
+    bus.setMonitor( new BusMonitor() {
+      @Override
+      public int read( long address, BusDevice target ) {
+        seen[0]++;
+        return target.readByte( address );
+      }
+
+      @Override
+      public void write( long address, int value, BusDevice target ) {
+        seen[0]++;
+        target.writeByte( address, value );
+      }
+    } );
+    bus.write( 0x7FF0, source, 0, 0x20 );
+    assert( seen[0] == 0x20 );
+    bus.setMonitor( null );
+
+    //ranges beyond the bus are rejected before anything moves
+    boolean rejected = false;
+    try {
+      bus.read( 0xFFFFFFF0L, copy, 0, 0x20 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "BlockTransferTest passed" );
+  }
+}
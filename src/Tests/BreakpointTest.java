@@ -0,0 +1,136 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Breakpoints;
+import System.Bus;
+import System.CPU6502;
+import System.DebugListener;
+import System.RandomAccessMemory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Arms a breakpoint and watchpoints around a short program and checks
+ * that the CPU suspends before the armed opcode and resumes past it, that
+ * reads and writes of watched addresses are reported with their values,
+ * including through block transfers, and that disarmed addresses are
+ * quiet.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class BreakpointTest {
+
+  /* 0x0200: LDA #$05     ;A = 5
+   * 0x0202: STA $10      ;*0x10 = A        write watchpoint
+   * 0x0204: LDA $11      ;A = *0x11        read watchpoint
+   * 0x0206: CLV          ;V = 0
+   * 0x0207: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xA9, 0x05, 0x85, 0x10, 0xA5, 0x11, 0xB8, 0x50, 0xFE
+  };
+
+  //What the listener heard, as "B addr", "R addr=value" or "W addr=value"
+  private static final List< String > hits = new ArrayList< String >();
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    CPU6502 cpu = boot( bus, mem );
+    mem.writeByte( 0x11, 0x77 );
+
+    Breakpoints breakpoints = bus.getBreakpoints();
+    breakpoints.setListener( new DebugListener() {
+      @Override
+      public boolean breakpointHit( int address ) {
+        hits.add( String.format( "B %04X", address ) );
+        return true;
+      }
+
+      @Override
+      public void watchpointHit( long address, int value, boolean write ) {
+        hits.add( String.format( "%s %04X=%02X", write ? "W" : "R",
+                                 address, value ) );
+      }
+    } );
+    breakpoints.arm( Breakpoints.EXECUTE, 0x0202, 0x0202 );
+    breakpoints.arm( Breakpoints.WRITE, 0x10, 0x10 );
+    breakpoints.arm( Breakpoints.READ, 0x11, 0x11 );
+    assert( breakpoints.isArmed( Breakpoints.READ, 0x11 ) );
+    assert( !breakpoints.isArmed( Breakpoints.READ, 0x12 ) );
+    assert( !breakpoints.isArmed( Breakpoints.WRITE, 0x11 ) );
+
+    //the breakpoint suspends before STA, and the next step runs it
+    cpu.step();
+    assert( cpu.getProgramCounter() == 0x0202 );
+    long cycles = cpu.getCycles();
+    cpu.step();
+    assert( cpu.getProgramCounter() == 0x0202 );
+    assert( cpu.getCycles() == cycles );
+    assert( hits.equals( List.of( "B 0202" ) ) ) : hits;
+    cpu.step();
+    assert( cpu.getProgramCounter() == 0x0204 );
+    assert( mem.readByte( 0x10 ) == 0x05 );
+    assert( hits.equals( List.of( "B 0202", "W 0010=05" ) ) ) : hits;
+
+    cpu.step();
+    assert( cpu.getAccumulator() == 0x77 );
+    assert( hits.get( hits.size() - 1 ).equals( "R 0011=77" ) ) : hits;
+
+    //a block read that spans the watched address still reports it
+    hits.clear();
+    byte[] block = new byte[0x20];
+    bus.read( 0x00, block, 0, block.length );
+    assert( block[0x10] == 0x05 && block[0x11] == 0x77 );
+    assert( hits.equals( List.of( "R 0011=77" ) ) ) : hits;
+
+    //once disarmed nothing fires, and the page summary is cleared
+    hits.clear();
+    breakpoints.disarm( Breakpoints.WRITE, 0x10, 0x10 );
+    breakpoints.disarm( Breakpoints.READ, 0x00, 0xFF );
+    bus.write( 0x00, block, 0, block.length );
+    bus.read( 0x00, block, 0, block.length );
+    bus.writeByte( 0x10, 0x01 );
+    assert( bus.readByte( 0x11 ) == 0x77 );
+    assert( hits.isEmpty() ) : hits;
+
+    //the breakpoint fires again the next time execution reaches it
+    cpu.reset();
+    cpu.step();
+    cpu.step();
+    assert( cpu.getProgramCounter() == 0x0202 );
+    assert( hits.equals( List.of( "B 0202" ) ) ) : hits;
+
+    //and not at all once cleared
+    breakpoints.clear();
+    cpu.step();
+    assert( cpu.getProgramCounter() == 0x0204 );
+    assert( hits.size() == 1 ) : hits;
+
+    System.out.println( "BreakpointTest passed" );
+  }
+
+  /**
+   * Builds a machine with the program at 0x0200 and resets its CPU.
+   * @param bus The bus to build on
+   * @param mem The memory to fill the address space with
+   * @return The CPU
+   */
+  private static CPU6502 boot( Bus bus, RandomAccessMemory mem ) {
+    bus.connectDevice( mem, 0x0000, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+
+    CPU6502 cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    return cpu;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.Console;
+import System.Bus;
+import System.RandomAccessMemory;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * <p>Writes to the console byte by byte and through the doorbell, and checks
+ * the status bits, that output beyond a full ring is dropped and counted
+ * rather than waited for, that a buffer wrapping the ring or the address
+ * space arrives in order, and that closing writes out what is left.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class ConsoleTest {
+
+  private static final int CONSOLE = 0xD000;
+
+  private static RandomAccessMemory mem;
+  private static Bus bus;
+
+  public static void main( String[] args ) throws Exception {
+    mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, CONSOLE - 1 );
+    bus.connectDevice( mem, CONSOLE + Console.REGISTERS, 0xFFFF );
+
+    //not started, so nothing drains: a ring of 10 rounds up to 16
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Console console = new Console( bus, CONSOLE, out, 10 );
+    console.connect();
+    assert( status() == Console.STATUS_EMPTY );
+    bus.writeByte( CONSOLE + Console.DATA, 'h' );
+    bus.writeByte( CONSOLE + Console.DATA, 'i' );
+    assert( status() == 0 );
+
+    text( 0x1000, "0123456789ABCDEFGHIJ" );
+    ring( 0x1000, 20 );
+    assert( status() == Console.STATUS_FULL );
+    assert( console.getDropped() == 6 ) : console.getDropped();
+    bus.writeByte( CONSOLE + Console.DATA, '!' );
+    assert( console.getDropped() == 7 );
+    assert( out.size() == 0 );
+    console.close();
+    assert( out.toString().equals( "hi0123456789ABCD" ) ) : out;
+
+    //running, a buffer split by the end of the ring and of the address space
+    out = new ByteArrayOutputStream();
+    console = new Console( bus, CONSOLE, out, 16 );
+    console.connect();
+    console.start();
+    text( 0x1000, "abcdefghij" );
+    ring( 0x1000, 10 );
+    await( out, 10 );
+    assert( status() == Console.STATUS_EMPTY );
+    text( 0xFFF8, "klmnopqr" );
+    text( 0x0000, "stuvwxyz" );
+    ring( 0xFFF8, 16 );
+    await( out, 26 );
+    assert( out.toString().equals( "abcdefghijklmnopqrstuvwxyz" ) ) : out;
+    assert( console.getDropped() == 0 );
+
+    //registers read back, and writes after the drain still arrive
+    assert( bus.readByte( CONSOLE + Console.LENGTH ) == 16 );
+    bus.writeByte( CONSOLE + Console.DATA, '.' );
+    console.close();
+    assert( out.toString().endsWith( "z." ) ) : out;
+
+    boolean rejected = false;
+    try {
+      new Console( bus, CONSOLE, out, 0 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "ConsoleTest passed" );
+  }
+
+  /**
+   * Reads the status register.
+   * @return The STATUS_ bits
+   */
+  private static int status() {
+    return bus.readByte( CONSOLE + Console.STATUS );
+  }
+
+  /**
+   * Points the registers at a guest buffer and rings the doorbell.
+   * @param address The address of the buffer
+   * @param length The number of bytes
+   */
+  private static void ring( int address, int length ) {
+    bus.writeByte( CONSOLE + Console.BUFFER, address & 0xFF );
+    bus.writeByte( CONSOLE + Console.BUFFER + 1, address >> 8 );
+    bus.writeByte( CONSOLE + Console.LENGTH, length & 0xFF );
+    bus.writeByte( CONSOLE + Console.LENGTH + 1, length >> 8 );
+    bus.writeByte( CONSOLE + Console.DOORBELL, Console.DOORBELL_RING );
+  }
+
+  /**
+   * Waits for the writer to drain a number of bytes.
+   * @param out The stream it writes to
+   * @param size The number of bytes to wait for
+   * @throws InterruptedException If interrupted while waiting
+   */
+  private static void await( ByteArrayOutputStream out, int size )
+    throws InterruptedException {
+    for( int tries = 0; tries < 500 && out.size() < size; tries++ ) {
+      Thread.sleep( 10 );
+    }
+    assert( out.size() == size ) : out.size();
+    //the head moves just after the stream is written
+    for( int tries = 0; tries < 500 && status() == 0; tries++ ) {
+      Thread.sleep( 10 );
+    }
+  }
+
+  /**
+   * Puts a string in memory.
+   * @param address The address of the first character
+   * @param text The string
+   */
+  private static void text( int address, String text ) {
+    for( int i = 0; i < text.length(); i++ ) {
+      mem.writeByte( address + i, text.charAt( i ) );
+    }
+  }
+}
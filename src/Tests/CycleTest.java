@@ -0,0 +1,68 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+/**
+ * <p>Checks the cycles taken by indexed reads and writes, with and without
+ * crossing a page.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class CycleTest {
+
+  /* 0x0200: LDX #$01      ;X = 1
+   * 0x0202: LDA $2000,X   ;4, same page
+   * 0x0205: LDX #$20      ;X = 0x20
+   * 0x0207: LDA $20F0,X   ;5, crosses into 0x21
+   * 0x020A: LDY #$10      ;Y = 0x10
+   * 0x020C: LDA $20F8,Y   ;5, crosses
+   * 0x020F: LDA ($40),Y   ;6, 0x20F8 + 0x10 crosses
+   * 0x0211: LDA ($42),Y   ;5, 0x2000 + 0x10 does not
+   * 0x0213: STA $30F0,X   ;5 whether or not it crosses
+   * 0x0216: STA $3000,X   ;5
+   * 0x0219: LDY $20F0,X   ;5, crosses, Y = *0x2110 = 0x10
+   * 0x021C: LDX $20F8,Y   ;5, crosses
+   */
+  private static final int[] PROGRAM = {
+    0xA2, 0x01, 0xBD, 0x00, 0x20, 0xA2, 0x20, 0xBD, 0xF0, 0x20, 0xA0, 0x10,
+    0xB9, 0xF8, 0x20, 0xB1, 0x40, 0xB1, 0x42, 0x9D, 0xF0, 0x30, 0x9D, 0x00,
+    0x30, 0xBC, 0xF0, 0x20, 0xBE, 0xF8, 0x20
+  };
+  private static final int[] EXPECTED = {
+    2, 4, 2, 5, 2, 5, 6, 5, 5, 5, 5, 5
+  };
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    mem.writeByte( 0x40, 0xF8 );
+    mem.writeByte( 0x41, 0x20 );
+    mem.writeByte( 0x42, 0x00 );
+    mem.writeByte( 0x43, 0x20 );
+    mem.writeByte( 0x2110, 0x10 );
+
+    CPU6502 cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+
+    for( int i = 0; i < EXPECTED.length; i++ ) {
+      long before = cpu.getCycles();
+      cpu.step();
+      assert( cpu.getCycles() - before == EXPECTED[i] ) :
+        "instruction " + i + " took " + ( cpu.getCycles() - before );
+    }
+    System.out.println( "Cycle test passed" );
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.DMAController;
+import System.Bus;
+import System.CPU6502;
+import System.CycleEvent;
+import System.RandomAccessMemory;
+import System.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Checks that the scheduler fires events in deadline order, and that the
+ * DMA controller copies its latched block, stealing every cycle of the
+ * transfer from the CPU: all at once in burst mode, and in turns with the
+ * CPU otherwise.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class DMATest {
+
+  private static final int DMA = 0xD000;
+  private static final int CYCLES_PER_BYTE = 2;
+
+  /* 0x0200: NOP          ;2 cycles
+   * 0x0201: CLV          ;2 cycles
+   * 0x0202: BVC #$FC     ;3 cycles, loop to 0x0200
+   */
+  private static final int[] PROGRAM = {
+    0xEA, 0xB8, 0x50, 0xFC
+  };
+
+  private static RandomAccessMemory mem;
+  private static Bus bus;
+  private static CPU6502 cpu;
+
+  public static void main( String[] args ) {
+    checkScheduler();
+
+    mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, DMA - 1 );
+    bus.connectDevice( mem, DMA + DMAController.REGISTERS, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    cpu.setStatusRegister( CPU6502.F_IRQ ); //keep requests pending
+
+    DMAController dma = new DMAController( cpu, bus, DMA, CYCLES_PER_BYTE );
+    dma.connect();
+    for( int i = 0; i < 0x1000; i++ ) {
+      mem.writeByte( 0x1000 + i, i * 13 + 1 );
+    }
+
+    //burst: the whole copy lands before the next instruction
+    program( 0x1000, 0x3000, 0x100, DMAController.MODE_BURST |
+                                     DMAController.MODE_IRQ );
+    long before = cpu.getCycles();
+    assert( dma.isBusy() );
+    assert( ( bus.readByte( DMA + DMAController.CONTROL ) &
+              DMAController.STATUS_BUSY ) != 0 );
+    cpu.step();
+    assert( !dma.isBusy() );
+    assert( cpu.getCycles() - before == 0x100 * CYCLES_PER_BYTE + 2 );
+    assert( cpu.isIRQRequested() );
+    assert( same( 0x1000, 0x3000, 0x100 ) );
+    assert( bus.readByte( DMA + DMAController.CONTROL ) ==
+            DMAController.STATUS_DONE );
+    assert( bus.readByte( DMA + DMAController.CONTROL ) == 0 );
+
+    //cycle stealing: the CPU and the controller take turns
+    program( 0x1000, 0x4000, 0x400, 0 );
+    //registers written while busy do not touch the transfer
+    bus.writeByte( DMA + DMAController.SOURCE + 1, 0x20 );
+    bus.writeByte( DMA + DMAController.LENGTH + 1, 0x00 );
+    bus.writeByte( DMA + DMAController.CONTROL,
+                   DMAController.CONTROL_START );
+
+    before = cpu.getCycles();
+    long executed = 0;
+    boolean partial = false;
+    while( dma.isBusy() ) {
+      executed += cost( cpu.getProgramCounter() );
+      cpu.step();
+      //part way through, only the slices moved so far have landed
+      partial |= same( 0x1000, 0x4000, DMAController.SLICE ) &&
+                 mem.readByte( 0x4000 + 0x3FF ) == 0;
+    }
+    long elapsed = cpu.getCycles() - before;
+    long time = 0x400 * CYCLES_PER_BYTE;
+    assert( elapsed - executed == time ) : elapsed + " " + executed;
+    assert( Math.abs( executed - time ) <= 8 ) : executed;
+    assert( partial );
+    assert( same( 0x1000, 0x4000, 0x400 ) );
+
+    System.out.println( "DMATest passed" );
+  }
+
+  /**
+   * Schedules, moves and cancels events and checks the order they fire in.
+   */
+  private static void checkScheduler() {
+    final List< Long > fired = new ArrayList< Long >();
+    final Scheduler scheduler = new Scheduler();
+    CycleEvent[] events = new CycleEvent[5];
+    for( int i = 0; i < events.length; i++ ) {
+      events[i] = new CycleEvent() {
+        @Override
+        public void fire( long cycle ) {
+          fired.add( cycle );
+        }
+      };
+    }
+
+    scheduler.schedule( events[0], 50 );
+    scheduler.schedule( events[1], 10 );
+    scheduler.schedule( events[2], 30 );
+    scheduler.schedule( events[3], 20 );
+    scheduler.schedule( events[4], 40 );
+    assert( scheduler.getDeadline() == 10 );
+    scheduler.schedule( events[0], 5 ); //moved, not added
+    assert( scheduler.cancel( events[2] ) );
+    assert( !scheduler.cancel( events[2] ) );
+    assert( !scheduler.isScheduled( events[2] ) );
+
+    scheduler.runDue( 25 );
+    assert( fired.equals( List.of( 5L, 10L, 20L ) ) ) : fired;
+    assert( scheduler.getDeadline() == 40 );
+    scheduler.runDue( 1000 );
+    assert( fired.equals( List.of( 5L, 10L, 20L, 40L ) ) ) : fired;
+    assert( scheduler.getDeadline() == Scheduler.NEVER );
+  }
+
+  /**
+   * Writes the registers and starts a transfer.
+   * @param source The source address
+   * @param destination The destination address
+   * @param length The number of bytes
+   * @param mode The MODE_ bits
+   */
+  private static void program( int source, int destination, int length,
+                               int mode ) {
+    int[] values = { source & 0xFF, source >> 8, destination & 0xFF,
+                     destination >> 8, length & 0xFF, length >> 8, mode,
+                     DMAController.CONTROL_START };
+    for( int i = 0; i < values.length; i++ ) {
+      bus.writeByte( DMA + i, values[i] );
+    }
+  }
+
+  /**
+   * Compares two ranges of memory.
+   * @param from The first range
+   * @param to The second range
+   * @param length The number of bytes
+   * @return True if they hold the same bytes
+   */
+  private static boolean same( int from, int to, int length ) {
+    for( int i = 0; i < length; i++ ) {
+      if( mem.readByte( from + i ) != mem.readByte( to + i ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The cycles taken by the instruction at an address of the program.
+   * @param pc The address
+   * @return The cycles, with the branch always taken
+   */
+  private static int cost( int pc ) {
+    return pc == 0x0202 ? 3 : 2;
+  }
+}
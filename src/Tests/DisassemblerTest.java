@@ -0,0 +1,146 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Tools.Disassembler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * <p>Checks the formatting of each addressing mode, that the parallel
+ * linear listing starts instructions where a sequential sweep does, and
+ * that a flow listing follows the reset vector and leaves unreached bytes
+ * as data.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class DisassemblerTest {
+
+  //Several times the smallest chunk, so the sweep is split
+  private static final int IMAGE = 0x10000 - 0x200;
+  private static final int ORIGIN = 0x200;
+
+  public static void main( String[] args ) throws Exception {
+    checkFormat();
+    checkLinear();
+    checkFlow();
+    System.out.println( "DisassemblerTest passed" );
+  }
+
+  /**
+   * Formats one instruction of each addressing mode.
+   */
+  private static void checkFormat() {
+    assert( Disassembler.format( 0x200, 0xEA, 0, null ).equals( "NOP" ) );
+    assert( Disassembler.format( 0x200, 0x0A, 0, null ).equals( "ASL A" ) );
+    assert( Disassembler.format( 0x200, 0xA9, 0x42, null )
+            .equals( "LDA #$42" ) );
+    assert( Disassembler.format( 0x200, 0xB5, 0x10, null )
+            .equals( "LDA $10,X" ) );
+    assert( Disassembler.format( 0x200, 0xBD, 0x2010, null )
+            .equals( "LDA $2010,X" ) );
+    assert( Disassembler.format( 0x200, 0x6C, 0xFFFC, null )
+            .equals( "JMP ($FFFC)" ) );
+    assert( Disassembler.format( 0x200, 0xB1, 0x40, null )
+            .equals( "LDA ($40),Y" ) );
+    //branches are relative to the next instruction
+    assert( Disassembler.format( 0x200, 0xD0, 0xFE, null )
+            .equals( "BNE $0200" ) );
+    assert( Disassembler.format( 0x200, 0xD0, 0x10, null )
+            .equals( "BNE $0212" ) );
+    //operand bytes an instruction does not use are ignored
+    assert( Disassembler.format( 0x200, 0xA9, 0x1242, null )
+            .equals( "LDA #$42" ) );
+    assert( Disassembler.format( 0x200, 0x03, 0, null )
+            .equals( ".byte $03" ) );
+  }
+
+  /**
+   * Lists random bytes in parallel and checks every instruction line
+   * against a sequential sweep from the first byte.
+   */
+  private static void checkLinear() throws InterruptedException {
+    byte[] image = new byte[IMAGE];
+    new Random( 6502 ).nextBytes( image );
+
+    boolean[] expected = new boolean[IMAGE];
+    for( int offset = 0; offset < IMAGE;
+         offset += Disassembler.length( image[offset] ) ) {
+      expected[offset] = true;
+    }
+
+    String[] lines = listing( new Disassembler( image, ORIGIN ), true );
+    boolean[] found = new boolean[IMAGE];
+    for( String line : lines ) {
+      //instruction lines have their bytes between the address and the text
+      if( line.endsWith( ":" ) || line.substring( 6, 15 ).isBlank() ) {
+        continue;
+      }
+      int offset = Integer.parseInt( line.substring( 0, 4 ), 16 ) - ORIGIN;
+      found[offset] = true;
+    }
+
+    for( int offset = 0; offset < IMAGE; offset++ ) {
+      //an instruction cut off by the end of the image is listed as data
+      if( offset + Disassembler.length( image[offset] ) > IMAGE ) {
+        continue;
+      }
+      assert( found[offset] == expected[offset] ) :
+        "Start mismatch at " + Integer.toHexString( ORIGIN + offset );
+    }
+  }
+
+  /**
+   * Lists a small ROM from its reset vector.
+   */
+  private static void checkFlow() throws InterruptedException {
+    /* 0xF000: LDA #$01     ;reached from the reset vector
+     * 0xF002: JMP $F008    ;skips the data
+     * 0xF005: .byte $A9,$A9,$A9
+     * 0xF008: RTS
+     */
+    byte[] image = new byte[0x1000];
+    int[] code = { 0xA9, 0x01, 0x4C, 0x08, 0xF0, 0xA9, 0xA9, 0xA9, 0x60 };
+    for( int i = 0; i < code.length; i++ ) {
+      image[i] = (byte)code[i];
+    }
+    image[0xFFC] = (byte)0x00;
+    image[0xFFD] = (byte)0xF0;
+
+    String flow = String.join( "\n", listing(
+                                 new Disassembler( image, 0xF000 ), false ) );
+    assert( flow.contains( "F000  A9 01      LDA #$01" ) ) : flow;
+    assert( flow.contains( "F005             .byte $A9,$A9,$A9" ) ) : flow;
+    assert( flow.contains( "RTS" ) ) : flow;
+
+    //a linear sweep decodes the skipped bytes as code instead
+    String linear = String.join( "\n", listing(
+                                   new Disassembler( image, 0xF000 ), true ) );
+    assert( linear.contains( "F005  A9 A9      LDA #$A9" ) ) : linear;
+  }
+
+  /**
+   * Captures a listing of an image.
+   * @param disassembler The disassembler of the image
+   * @param linear Whether to sweep linearly rather than follow the flow
+   * @return The lines of the listing
+   */
+  private static String[] listing( Disassembler disassembler, boolean linear )
+    throws InterruptedException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream( bytes );
+    if( linear ) {
+      disassembler.writeLinearListing( out );
+    }
+    else {
+      disassembler.writeFlowListing( out );
+    }
+    out.flush();
+    return bytes.toString().split( "\n" );
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Tools.FrameExporter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <p>Exports frames as PPM, PNG and raw frames and reads them back,
+ * checking that a frame identical to the one before it is skipped, and
+ * that a frame arriving while every buffer waits on a slow stream is
+ * dropped rather than waited for.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class FrameExporterTest {
+
+  private static final int WIDTH = 4;
+  private static final int HEIGHT = 3;
+  private static final long[] ALL = { ( 1L << HEIGHT ) - 1 };
+
+  public static void main( String[] args ) throws Exception {
+    File directory = Files.createTempDirectory( "6502frames" ).toFile();
+
+    //PPM, with the repeated frame skipped
+    FrameExporter exporter = new FrameExporter( FrameExporter.PPM, directory,
+                                                "frame", 4, 2 );
+    exporter.frame( pixels( 1 ), WIDTH, HEIGHT, ALL, 0 );
+    exporter.frame( pixels( 2 ), WIDTH, HEIGHT, ALL, 1 );
+    exporter.frame( pixels( 2 ), WIDTH, HEIGHT, ALL, 2 );
+    exporter.close();
+    assert( exporter.getWritten() == 2 && exporter.getSkipped() == 1 );
+    assert( exporter.getDropped() == 0 );
+    assert( !new File( directory, "frame000002.ppm" ).exists() );
+
+    byte[] file = Files.readAllBytes(
+      new File( directory, "frame000001.ppm" ).toPath() );
+    byte[] header = ( "P6\n" + WIDTH + " " + HEIGHT + "\n255\n" )
+                      .getBytes( "US-ASCII" );
+    assert( file.length == header.length + WIDTH * HEIGHT * 3 );
+    for( int i = 0; i < header.length; i++ ) {
+      assert( file[i] == header[i] );
+    }
+    int[] expected = pixels( 2 );
+    for( int i = 0; i < expected.length; i++ ) {
+      int at = header.length + i * 3;
+      int rgb = ( file[at] & 0xFF ) << 16 | ( file[at + 1] & 0xFF ) << 8 |
+                ( file[at + 2] & 0xFF );
+      assert( rgb == ( expected[i] & 0xFFFFFF ) ) : i;
+    }
+
+    //PNG
+    exporter = new FrameExporter( FrameExporter.PNG, directory, "image", 1,
+                                  1 );
+    exporter.frame( pixels( 3 ), WIDTH, HEIGHT, ALL, 7 );
+    exporter.close();
+    BufferedImage image = ImageIO.read( new File( directory,
+                                                  "image000007.png" ) );
+    assert( image.getWidth() == WIDTH && image.getHeight() == HEIGHT );
+    expected = pixels( 3 );
+    for( int i = 0; i < expected.length; i++ ) {
+      assert( ( image.getRGB( i % WIDTH, i / WIDTH ) & 0xFFFFFF ) ==
+              ( expected[i] & 0xFFFFFF ) );
+    }
+
+    //raw, with a stream that holds the worker until released
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    OutputStream slow = new OutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        write( new byte[] { (byte)b }, 0, 1 );
+      }
+
+      @Override
+      public void write( byte[] b, int off, int len ) throws IOException {
+        try {
+          release.await();
+        }
+        catch( InterruptedException e ) {
+          throw new InterruptedIOException();
+        }
+        bytes.write( b, off, len );
+      }
+    };
+    exporter = new FrameExporter( slow, 1 );
+    exporter.frame( pixels( 4 ), WIDTH, HEIGHT, ALL, 0 );
+    exporter.frame( pixels( 5 ), WIDTH, HEIGHT, ALL, 1 ); //no buffer left
+    assert( exporter.getDropped() == 1 );
+    release.countDown();
+    exporter.close(); //waits for the frame being written
+    assert( exporter.getWritten() == 1 );
+
+    DataInputStream in = new DataInputStream(
+      new ByteArrayInputStream( bytes.toByteArray() ) );
+    assert( in.readInt() == 0 );
+    assert( in.readInt() == WIDTH && in.readInt() == HEIGHT );
+    expected = pixels( 4 );
+    for( int i = 0; i < expected.length; i++ ) {
+      int rgb = in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 |
+                in.readUnsignedByte();
+      assert( rgb == ( expected[i] & 0xFFFFFF ) ) : i;
+    }
+    assert( in.read() == -1 );
+
+    boolean rejected = false;
+    try {
+      new FrameExporter( FrameExporter.RAW, directory, "raw", 1, 1 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    for( File written : directory.listFiles() ) {
+      written.delete();
+    }
+    directory.delete();
+    System.out.println( "FrameExporterTest passed" );
+  }
+
+  /**
+   * Makes a frame that differs for each seed.
+   * @param seed The seed
+   * @return WIDTH by HEIGHT ARGB values
+   */
+  private static int[] pixels( int seed ) {
+    int[] pixels = new int[WIDTH * HEIGHT];
+    for( int i = 0; i < pixels.length; i++ ) {
+      pixels[i] = 0xFF000000 | ( seed * 0x123457 + i * 0x0A0B0C ) & 0xFFFFFF;
+    }
+    return pixels;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.FrameSink;
+import Peripherals.Framebuffer;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+import Tools.FrameWindow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Draws into a framebuffer between vertical blanks and checks that the
+ * first frame is presented in full, that later frames carry only the rows
+ * written, that a frame with no changes is not presented, the registers
+ * and the NMI at each blank, and that a window sink copies exactly the
+ * dirty rows.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class FramebufferTest implements FrameSink {
+
+  private static final int SCREEN = 0x4000;
+  private static final int WIDTH = 16;
+  private static final int HEIGHT = 100;
+  private static final int REGISTERS = SCREEN + WIDTH * HEIGHT;
+  private static final int CYCLES_PER_FRAME = 1000;
+
+  /* 0x0200: CLV          ;V = 0
+   * 0x0201: BVC #$FE     ;halt
+   *
+   * 0x0300: CLV          ;the NMI handler
+   * 0x0301: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xB8, 0x50, 0xFE
+  };
+  private static final int HANDLER = 0x0300;
+
+  private static Bus bus;
+  private static CPU6502 cpu;
+  private static Framebuffer screen;
+  private static FramebufferTest sink;
+
+  private final List< int[] > images = new ArrayList< int[] >();
+  private final List< long[] > dirties = new ArrayList< long[] >();
+  private final FrameWindow window;
+
+  /**
+   * Constructs the sink.
+   * @param window The window each frame is passed on to
+   */
+  private FramebufferTest( FrameWindow window ) {
+    this.window = window;
+  }
+
+  @Override
+  public synchronized void frame( int[] pixels, int width, int height,
+                                  long[] dirty, long number ) {
+    assert( number == images.size() );
+    images.add( pixels.clone() );
+    dirties.add( dirty.clone() );
+    window.frame( pixels, width, height, dirty, number );
+  }
+
+  public static void main( String[] args ) throws Exception {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, SCREEN - 1 );
+    bus.connectDevice( mem, REGISTERS + Framebuffer.REGISTERS, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+      mem.writeByte( HANDLER + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    mem.writeByte( cpu.getNMIVector(), HANDLER & 0xFF );
+    mem.writeByte( cpu.getNMIVector() + 1, HANDLER >> 8 );
+    cpu.reset();
+
+    FrameWindow window = new FrameWindow( "test", WIDTH, HEIGHT, 2 );
+    sink = new FramebufferTest( window );
+    screen = new Framebuffer( cpu, bus, SCREEN, WIDTH, HEIGHT,
+                              CYCLES_PER_FRAME, sink );
+    screen.connect();
+    assert( screen.getWidth() == WIDTH && screen.getHeight() == HEIGHT );
+
+    //the first frame is whole, whatever was drawn
+    bus.writeByte( SCREEN + 3 * WIDTH + 5, 0xE0 ); //red
+    assert( bus.readByte( SCREEN + 3 * WIDTH + 5 ) == 0xE0 );
+    screen.start();
+    blank( 1 );
+    assert( rows( 0 ) == HEIGHT );
+    assert( sink.images.get( 0 )[3 * WIDTH + 5] == 0xFFFF0000 );
+    assert( sink.images.get( 0 )[0] == 0xFF000000 );
+    assert( bus.readByte( REGISTERS + Framebuffer.STATUS ) ==
+            Framebuffer.STATUS_VBLANK );
+    assert( bus.readByte( REGISTERS + Framebuffer.STATUS ) == 0 );
+    assert( bus.readByte( REGISTERS + Framebuffer.FRAME ) == 1 );
+
+    //then only the rows written, byte by byte or as a block
+    bus.writeByte( SCREEN + 70 * WIDTH, 0x03 ); //blue
+    byte[] line = new byte[WIDTH * 2];
+    Arrays.fill( line, (byte)0x1C ); //green
+    bus.write( SCREEN + 10 * WIDTH + 8, line, 0, line.length );
+    blank( 2 );
+    assert( rows( 1 ) == 4 );
+    long[] dirty = sink.dirties.get( 1 );
+    assert( dirty[0] == ( 1L << 10 | 1L << 11 | 1L << 12 ) );
+    assert( dirty[1] == 1L << ( 70 - 64 ) );
+    assert( sink.images.get( 1 )[70 * WIDTH] == 0xFF0000FF );
+    assert( sink.images.get( 1 )[11 * WIDTH + 3] == 0xFF00FF00 );
+    assert( sink.images.get( 1 )[3 * WIDTH + 5] == 0xFFFF0000 );
+
+    //a frame without changes is counted but not presented
+    blank( 3 );
+    Thread.sleep( 50 );
+    assert( sink.images.size() == 2 );
+    assert( screen.getFrames() == 3 );
+
+    //the NMI at a blank, when enabled
+    bus.writeByte( REGISTERS + Framebuffer.CONTROL, Framebuffer.CONTROL_NMI );
+    blank( 4 );
+    assert( ( cpu.getProgramCounter() & 0xFF00 ) == HANDLER ) :
+      Integer.toHexString( cpu.getProgramCounter() );
+    bus.writeByte( REGISTERS + Framebuffer.CONTROL, 0 );
+
+    //a new palette redraws everything
+    int[] grey = new int[256];
+    for( int i = 0; i < grey.length; i++ ) {
+      grey[i] = 0xFF000000 | i * 0x010101;
+    }
+    screen.setPalette( grey );
+    blank( 5 );
+    assert( rows( 2 ) == HEIGHT );
+    assert( sink.images.get( 2 )[70 * WIDTH] == 0xFF030303 );
+
+    //closing presents what was drawn since the last blank
+    bus.writeByte( SCREEN + 99 * WIDTH + 15, 0x80 );
+    screen.close();
+    assert( rows( 3 ) == 1 );
+    assert( sink.images.get( 3 )[99 * WIDTH + 15] == 0xFF808080 );
+
+    //the window holds every dirty row it was handed
+    assert( window.getPresented() == 4 );
+    assert( window.getPixel( 0, 70 ) == 0x030303 );
+    assert( window.getPixel( 3, 11 ) == 0x1C1C1C );
+    assert( window.getPixel( 15, 99 ) == 0x808080 );
+    window.frame( new int[4], 2, 2, new long[] { 3 }, 4 );
+    assert( window.getPresented() == 4 ) : "Frame of another size shown";
+
+    System.out.println( "FramebufferTest passed" );
+  }
+
+  /**
+   * Runs the CPU through the next vertical blank and waits for the frame,
+   * if any, to be presented.
+   * @param frames The frame counter after the blank
+   * @throws InterruptedException If interrupted while waiting
+   */
+  private static void blank( int frames ) throws InterruptedException {
+    int presented = sink.images.size();
+    while( screen.getFrames() < frames ) {
+      cpu.step();
+    }
+    for( int tries = 0; tries < 50 && sink.images.size() == presented;
+         tries++ ) {
+      Thread.sleep( 10 );
+    }
+  }
+
+  /**
+   * Counts the rows a frame marked dirty.
+   * @param frame The number of the frame
+   * @return The number of dirty rows
+   */
+  private static int rows( int frame ) {
+    int count = 0;
+    for( long bits : sink.dirties.get( frame ) ) {
+      count += Long.bitCount( bits );
+    }
+    return count;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Bus;
+import System.BusDevice;
+import System.BusMonitor;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Runs a program made of the idioms the CPU fuses twice, once with
+ * superinstructions and once without, and checks after every fused step
+ * that both runs have the same registers, flags, cycle count and memory,
+ * and made the same bus accesses, including where an idiom does not
+ * complete.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class FusionTest {
+
+  private static final int HALT = 0x0228;
+
+  /* 0x0200: LDX #$FF     ;X = 0xFF
+   * 0x0202: LDA #$01     ;A = 1
+   * 0x0204: STA $00,X    ;*X = A           STA zpg,X / DEX / BNE
+   * 0x0206: DEX          ;X--
+   * 0x0207: BNE #$FB     ;if X != 0, PC -= 5
+   * 0x0209: LDA #$00     ;A = 0            LDA / STA
+   * 0x020B: STA $F0      ;*0xF0 = A
+   * 0x020D: STA $F1      ;*0xF1 = A
+   * 0x020F: LDY #$00     ;Y = 0
+   * 0x0211: INC $F0      ;*0xF0++          INC / BNE / INC
+   * 0x0213: BNE #$02     ;if *0xF0 != 0, PC += 2
+   * 0x0215: INC $F1      ;*0xF1++
+   * 0x0217: LDA $F2      ;A = *0xF2
+   * 0x0219: CLC          ;C = 0            CLC / ADC
+   * 0x021A: ADC #$03     ;A += 3
+   * 0x021C: STA $F2      ;*0xF2 = A
+   * 0x021E: DEY          ;Y--              DEY / BNE
+   * 0x021F: BNE #$F0     ;if Y != 0, PC -= 16
+   * 0x0221: LDA $00F0    ;A = *0xF0        LDA / STA
+   * 0x0224: STA $0300    ;*0x300 = A
+   * 0x0227: CLV          ;V = 0
+   * 0x0228: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xA2, 0xFF, 0xA9, 0x01, 0x95, 0x00, 0xCA, 0xD0, 0xFB, 0xA9, 0x00, 0x85,
+    0xF0, 0x85, 0xF1, 0xA0, 0x00, 0xE6, 0xF0, 0xD0, 0x02, 0xE6, 0xF1, 0xA5,
+    0xF2, 0x18, 0x69, 0x03, 0x85, 0xF2, 0x88, 0xD0, 0xF0, 0xAD, 0xF0, 0x00,
+    0x8D, 0x00, 0x03, 0xB8, 0x50, 0xFE
+  };
+
+  public static void main( String[] args ) {
+    RandomAccessMemory plainMemory = new RandomAccessMemory( 0x10000 );
+    RandomAccessMemory fusedMemory = new RandomAccessMemory( 0x10000 );
+    List< Long > plainAccesses = new ArrayList< Long >();
+    List< Long > fusedAccesses = new ArrayList< Long >();
+    CPU6502 plain = boot( plainMemory, plainAccesses );
+    CPU6502 fused = boot( fusedMemory, fusedAccesses );
+    fused.setFusionEnabled( true );
+    assert( !plain.isFusionEnabled() ) : "Fusion must be opt-in";
+
+    //after each fused step, bring the plain CPU to the same cycle, which
+    //is an instruction boundary for both, and compare everything
+    byte[] plainImage = new byte[0x10000];
+    byte[] fusedImage = new byte[0x10000];
+    long plainSteps = 0;
+    long fusedSteps = 0;
+    while( fused.getProgramCounter() != HALT ) {
+      fused.step();
+      fusedSteps++;
+      while( plain.getCycles() < fused.getCycles() ) {
+        plain.step();
+        plainSteps++;
+      }
+
+      String at = "after fused step " + fusedSteps;
+      assert( fused.getCycles() == plain.getCycles() ) : at;
+      assert( fused.getProgramCounter() == plain.getProgramCounter() ) : at;
+      assert( fused.getAccumulator() == plain.getAccumulator() ) : at;
+      assert( fused.getXRegister() == plain.getXRegister() ) : at;
+      assert( fused.getYRegister() == plain.getYRegister() ) : at;
+      assert( fused.getStackPointer() == plain.getStackPointer() ) : at;
+      assert( fused.getStatusRegister() == plain.getStatusRegister() ) : at;
+      plainMemory.copyTo( plainImage );
+      fusedMemory.copyTo( fusedImage );
+      assert( Arrays.equals( fusedImage, plainImage ) ) : at;
+      assert( fusedAccesses.equals( plainAccesses ) ) : at;
+    }
+
+    System.out.println( "Without fusion: " + plainSteps + " steps, " +
+                        plain.getCycles() + " cycles" );
+    System.out.println( "With fusion: " + fusedSteps + " steps, " +
+                        fused.getCycles() + " cycles" );
+    assert( fusedSteps < plainSteps );
+  }
+
+  /**
+   * Builds a machine with the program at 0x0200 and resets its CPU, then
+   * logs every bus access it makes.
+   * @param mem The memory to fill the address space with
+   * @param accesses The log, of each address shifted left, with bit 0 set
+   * for writes
+   * @return The CPU
+   */
+  private static CPU6502 boot( RandomAccessMemory mem,
+                               final List< Long > accesses ) {
+    Bus bus = new Bus();
+    for( int addr = 0; addr <= 0xFFFF; addr++ ) {
+      bus.connectDevice( mem, addr );
+    }
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+
+    CPU6502 cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+
+    bus.setMonitor( new BusMonitor() {
+      @Override
+      public int read( long address, BusDevice device ) {
+        accesses.add( address << 1 );
+        return device.readByte( address );
+      }
+
+      @Override
+      public void write( long address, int value, BusDevice device ) {
+        accesses.add( address << 1 | 1 );
+        device.writeByte( address, value );
+      }
+    } );
+    return cpu;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Bus;
+import System.CPU6502;
+import System.HostRoutine;
+import System.RandomAccessMemory;
+
+/**
+ * <p>Hooks a guest subroutine with Java code and checks that the host
+ * routine runs in its place with the caller's registers, charges exactly
+ * its cost, and returns to the caller, and that unhooking puts the guest
+ * routine back.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class HookTest {
+
+  private static final int ROUTINE = 0x0300;
+  private static final int COST = 20;
+
+  /* 0x0200: LDA #$05     ;argument
+   * 0x0202: JSR $0400    ;through the pointer at 0x0400, to 0x0300
+   * 0x0205: STA $10      ;result
+   * 0x0207: CLV          ;V = 0
+   * 0x0208: BVC #$FE     ;halt
+   *
+   * 0x0300: LDA #$FF     ;the guest routine
+   * 0x0302: RTS
+   */
+  private static final int[] PROGRAM = {
+    0xA9, 0x05, 0x20, 0x00, 0x04, 0x85, 0x10, 0xB8, 0x50, 0xFE
+  };
+  private static final int[] GUEST = {
+    0xA9, 0xFF, 0x60
+  };
+  private static final int HALT = 0x0208;
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    CPU6502 cpu = boot( bus, mem );
+
+    final int[] calls = { 0 };
+    cpu.hook( ROUTINE, new HostRoutine() {
+      @Override
+      public void run( CPU6502 cpu, Bus bus ) {
+        calls[0]++;
+        cpu.setAccumulator( cpu.getAccumulator() * 2 );
+        bus.writeByte( 0x11, 0x42 );
+      }
+    }, COST );
+
+    //up to the call
+    cpu.step();
+    cpu.step();
+    assert( cpu.getProgramCounter() == ROUTINE ) :
+      Integer.toHexString( cpu.getProgramCounter() );
+    int sp = cpu.getStackPointer();
+
+    //the hooked step runs the host code and returns past the JSR
+    long before = cpu.getCycles();
+    cpu.step();
+    assert( calls[0] == 1 );
+    assert( cpu.getCycles() - before == COST );
+    assert( cpu.getProgramCounter() == 0x0205 ) :
+      Integer.toHexString( cpu.getProgramCounter() );
+    assert( cpu.getStackPointer() != sp ) : "Return address not pulled";
+
+    run( cpu );
+    assert( mem.readByte( 0x10 ) == 10 );
+    assert( mem.readByte( 0x11 ) == 0x42 );
+    assert( calls[0] == 1 );
+
+    //unhooked, the guest routine runs again
+    cpu.unhook( ROUTINE );
+    cpu.reset();
+    run( cpu );
+    assert( mem.readByte( 0x10 ) == 0xFF );
+    assert( calls[0] == 1 );
+
+    boolean rejected = false;
+    try {
+      cpu.hook( 0x10000, null, 0 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "HookTest passed" );
+  }
+
+  /**
+   * Builds a machine with the program at 0x0200, the guest routine at
+   * 0x0300 and a pointer to it at 0x0400, and resets its CPU.
+   * @param bus The bus to build on
+   * @param mem The memory to fill the address space with
+   * @return The CPU
+   */
+  private static CPU6502 boot( Bus bus, RandomAccessMemory mem ) {
+    bus.connectDevice( mem, 0x0000, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    for( int i = 0; i < GUEST.length; i++ ) {
+      mem.writeByte( ROUTINE + i, GUEST[i] );
+    }
+    mem.writeByte( 0x0400, ROUTINE & 0xFF );
+    mem.writeByte( 0x0401, ROUTINE >> 8 );
+
+    CPU6502 cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    return cpu;
+  }
+
+  /**
+   * Steps the CPU until it reaches the halt loop.
+   * @param cpu The CPU
+   */
+  private static void run( CPU6502 cpu ) {
+    for( int i = 0; i < 100 && cpu.getProgramCounter() != HALT; i++ ) {
+      cpu.step();
+    }
+    assert( cpu.getProgramCounter() == HALT );
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.HostServices;
+import System.Breakpoints;
+import System.Bus;
+import System.CPU6502;
+import System.DebugListener;
+import System.RandomAccessMemory;
+
+import java.io.*;
+import java.nio.file.Files;
+
+/**
+ * <p>Calls each host service and checks its effect: copies and fills
+ * through the bus, seen by watchpoints, console output, console input that
+ * fails with E_AGAIN instead of blocking until something is typed, a file
+ * round trip, and the errors for bad buffers, paths and handles.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class HostServicesTest {
+
+  private static final int BLOCK = 0x0300;
+
+  /* 0x0200: LDA #$00     ;MEMCPY
+   * 0x0202: LDX #$00     ;block at 0x0300
+   * 0x0204: LDY #$03
+   * 0x0206: .byte $02    ;host call
+   * 0x0207: CLV          ;V = 0
+   * 0x0208: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xA9, 0x00, 0xA2, 0x00, 0xA0, 0x03, 0x02, 0xB8, 0x50, 0xFE
+  };
+
+  private static RandomAccessMemory mem;
+  private static CPU6502 cpu;
+  private static HostServices services;
+
+  public static void main( String[] args ) throws Exception {
+    mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0x0000, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+
+    File root = Files.createTempDirectory( "6502services" ).toFile();
+    PipedOutputStream typed = new PipedOutputStream();
+    PipedInputStream in = new PipedInputStream( typed );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    services = new HostServices( bus, root, in, new PrintStream( out ),
+                                 System.err );
+    cpu.setHostCallHandler( services );
+
+    //MEMCPY from the guest, through the trap, seen by a watchpoint
+    final int[] watched = { 0 };
+    bus.getBreakpoints().setListener( new DebugListener() {
+      @Override
+      public boolean breakpointHit( int address ) {
+        return false;
+      }
+
+      @Override
+      public void watchpointHit( long address, int value, boolean write ) {
+        watched[0]++;
+      }
+    } );
+    bus.getBreakpoints().arm( Breakpoints.WRITE, 0x2010, 0x2010 );
+    for( int i = 0; i < 0x100; i++ ) {
+      mem.writeByte( 0x1000 + i, i ^ 0x5A );
+    }
+    block( 0x2000, 0x1000, 0x100 );
+    for( int i = 0; i < 4; i++ ) {
+      cpu.step();
+    }
+    assert( cpu.getProgramCounter() == 0x0207 );
+    assert( !carry() );
+    for( int i = 0; i < 0x100; i++ ) {
+      assert( mem.readByte( 0x2000 + i ) == ( i ^ 0x5A ) );
+    }
+    assert( watched[0] == 1 );
+
+    //MEMSET
+    block( 0x3000, 0xEE, 0x20 );
+    call( HostServices.MEMSET );
+    assert( !carry() );
+    assert( mem.readByte( 0x3000 ) == 0xEE && mem.readByte( 0x301F ) == 0xEE );
+    assert( mem.readByte( 0x3020 ) == 0 );
+
+    //a buffer past the end of the address space
+    block( 0xFFF0, 0x1000, 0x20 );
+    call( HostServices.MEMCPY );
+    assert( carry() && cpu.getAccumulator() == HostServices.E_FAULT );
+
+    //console output
+    text( 0x1000, "hello" );
+    block( HostServices.STDOUT, 0x1000, 5 );
+    call( HostServices.WRITE );
+    assert( !carry() && out.toString().equals( "hello" ) );
+
+    //console input returns at once while nothing has been typed
+    block( HostServices.STDIN, 0x4000, 16 );
+    long start = System.nanoTime();
+    call( HostServices.READ );
+    assert( carry() && cpu.getAccumulator() == HostServices.E_AGAIN );
+    assert( System.nanoTime() - start < 1000000000L ) : "READ blocked";
+
+    typed.write( "abc".getBytes() );
+    typed.flush();
+    for( int tries = 0; tries < 500 && carry(); tries++ ) {
+      Thread.sleep( 10 );
+      block( HostServices.STDIN, 0x4000, 16 );
+      call( HostServices.READ );
+    }
+    assert( !carry() ) : "Typed input never arrived";
+    assert( word( BLOCK + 4 ) == 3 );
+    assert( mem.readByte( 0x4000 ) == 'a' && mem.readByte( 0x4002 ) == 'c' );
+
+    //and reads 0 once the input has ended
+    typed.close();
+    for( int tries = 0; tries < 500; tries++ ) {
+      block( HostServices.STDIN, 0x4000, 16 );
+      call( HostServices.READ );
+      if( !carry() ) {
+        break;
+      }
+      Thread.sleep( 10 );
+    }
+    assert( !carry() && word( BLOCK + 4 ) == 0 );
+
+    //a file round trip
+    text( 0x1100, "data.bin" );
+    block( 0x1100, HostServices.MODE_WRITE, 0 );
+    call( HostServices.OPEN );
+    assert( !carry() );
+    int handle = cpu.getAccumulator();
+    block( handle, 0x2000, 0x100 );
+    call( HostServices.WRITE );
+    assert( !carry() && word( BLOCK + 4 ) == 0x100 );
+    block( handle, 0, 0 );
+    call( HostServices.CLOSE );
+    assert( !carry() );
+
+    block( 0x1100, HostServices.MODE_READ, 0 );
+    call( HostServices.OPEN );
+    handle = cpu.getAccumulator();
+    block( handle, 0x5000, 0x200 );
+    call( HostServices.READ );
+    assert( !carry() && word( BLOCK + 4 ) == 0x100 );
+    for( int i = 0; i < 0x100; i++ ) {
+      assert( mem.readByte( 0x5000 + i ) == ( i ^ 0x5A ) );
+    }
+    block( handle, 0, 0 );
+    call( HostServices.CLOSE );
+
+    //errors
+    call( HostServices.CLOSE );
+    assert( carry() && cpu.getAccumulator() == HostServices.E_BADF );
+    text( 0x1100, "../escape" );
+    block( 0x1100, HostServices.MODE_WRITE, 0 );
+    call( HostServices.OPEN );
+    assert( carry() && cpu.getAccumulator() == HostServices.E_NOENT );
+    text( 0x1100, "../" + root.getName() + "x" ); //shares the root's name
+    call( HostServices.OPEN );
+    assert( carry() && cpu.getAccumulator() == HostServices.E_NOENT );
+    call( 0x7F );
+    assert( carry() && cpu.getAccumulator() == HostServices.E_NOSYS );
+
+    //everything is below a root of /
+    services.closeAll();
+    services = new HostServices( bus, new File( File.separator ), in,
+                                 new PrintStream( out ), System.err );
+    text( 0x1100, new File( root.getCanonicalFile(), "data.bin" ).getPath() );
+    block( 0x1100, HostServices.MODE_READ, 0 );
+    call( HostServices.OPEN );
+    assert( !carry() ) : "Not found below /";
+
+    services.closeAll();
+    new File( root, "data.bin" ).delete();
+    root.delete();
+    System.out.println( "HostServicesTest passed" );
+  }
+
+  /**
+   * Calls a service directly, as the trap would.
+   * @param service The service number
+   */
+  private static void call( int service ) {
+    services.hostCall( cpu, service, BLOCK );
+  }
+
+  /**
+   * Whether the last call failed
+   * @return True if the carry is set
+   */
+  private static boolean carry() {
+    return ( cpu.getStatusRegister() & CPU6502.F_CARRY ) != 0;
+  }
+
+  /**
+   * Fills the parameter block.
+   * @param first The first word
+   * @param second The second word
+   * @param third The third word
+   */
+  private static void block( int first, int second, int third ) {
+    int[] words = { first, second, third };
+    for( int i = 0; i < words.length; i++ ) {
+      mem.writeByte( BLOCK + 2 * i, words[i] & 0xFF );
+      mem.writeByte( BLOCK + 2 * i + 1, words[i] >> 8 );
+    }
+  }
+
+  /**
+   * Reads a little-endian word from memory.
+   * @param address The address of the low byte
+   * @return The word
+   */
+  private static int word( int address ) {
+    return mem.readByte( address ) | ( mem.readByte( address + 1 ) << 8 );
+  }
+
+  /**
+   * Puts a NUL-terminated string in memory.
+   * @param address The address of the first character
+   * @param text The string
+   */
+  private static void text( int address, String text ) {
+    for( int i = 0; i < text.length(); i++ ) {
+      mem.writeByte( address + i, text.charAt( i ) );
+    }
+    mem.writeByte( address + text.length(), 0 );
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.IntervalTimer;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+/**
+ * <p>Loads the timers and runs the CPU, checking the counts read back after
+ * a given number of cycles: a timer loaded with N underflows N + 1 cycles
+ * later, timer 1 then reloads from its latch when free-running, and a
+ * one-shot timer rolls over to 0xFFFF and keeps counting without flagging
+ * again. Also checks the interrupt flags, the enables and the IRQ.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class IntervalTimerTest {
+
+  private static final int VIA = 0x9000;
+
+  /* 0x0200: NOP          ;2 cycles
+   * 0x0201: CLV          ;2 cycles
+   * 0x0202: BVC #$FC     ;3 cycles, loop to 0x0200
+   */
+  private static final int[] PROGRAM = {
+    0xEA, 0xB8, 0x50, 0xFC
+  };
+
+  private static Bus bus;
+  private static CPU6502 cpu;
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, VIA - 1 );
+    bus.connectDevice( mem, VIA + IntervalTimer.REGISTERS, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    cpu.setStatusRegister( CPU6502.F_IRQ ); //keep requests pending
+
+    IntervalTimer timer = new IntervalTimer( cpu, bus, VIA );
+    timer.connect();
+
+    //one shot: 7 cycles a loop, so 14 loops is 98 cycles into a count of 300
+    write( IntervalTimer.T1C_L, 300 & 0xFF );
+    write( IntervalTimer.T1C_H, 300 >> 8 );
+    long start = cpu.getCycles();
+    run( start + 98 );
+    assert( counter1() == 300 - 98 );
+    assert( read( IntervalTimer.T1L_L ) == ( 300 & 0xFF ) );
+    assert( read( IntervalTimer.T1L_H ) == 300 >> 8 );
+
+    //every count on the way down, and the flag only once it underflows
+    while( cpu.getCycles() - start <= 300 ) {
+      assert( counter1() == 300 - ( cpu.getCycles() - start ) );
+      assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T1 ) == 0 );
+      cpu.step();
+    }
+    cpu.step();
+    assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T1 ) != 0 );
+    assert( !cpu.isIRQRequested() ) : "IRQ while disabled";
+
+    //then it rolls over and keeps going, without flagging again
+    run( start + 301 + 70 );
+    long past = cpu.getCycles() - start - 301;
+    int count = counter1();
+    assert( count == 0xFFFF - past ) : count + " " + past;
+    assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T1 ) == 0 ) :
+      "Not cleared by reading the count";
+    run( start + 3000 );
+    assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T1 ) == 0 );
+
+    //free running, enabled: a flag and an IRQ every latch + 1 cycles
+    write( IntervalTimer.ACR, IntervalTimer.ACR_FREE_RUN );
+    write( IntervalTimer.IER, 0x80 | IntervalTimer.IFR_T1 );
+    assert( read( IntervalTimer.IER ) == ( 0x80 | IntervalTimer.IFR_T1 ) );
+    write( IntervalTimer.T1C_L, 99 );
+    write( IntervalTimer.T1C_H, 0 );
+    start = cpu.getCycles();
+    for( int period = 1; period <= 5; period++ ) {
+      run( start + period * 100L - 1 );
+      assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T1 ) == 0 ) :
+        period;
+      long elapsed = cpu.getCycles() - start;
+      assert( counter1() == 99 - elapsed % 100 ) : elapsed;
+      run( start + period * 100L );
+      cpu.step(); //due events fire as the next step starts
+      assert( read( IntervalTimer.IFR ) == ( IntervalTimer.IFR_IRQ |
+                                             IntervalTimer.IFR_T1 ) );
+      assert( cpu.isIRQRequested() );
+      write( IntervalTimer.IFR, IntervalTimer.IFR_T1 );
+    }
+    write( IntervalTimer.ACR, 0 );
+    write( IntervalTimer.IER, IntervalTimer.IFR_T1 ); //disabled
+    assert( read( IntervalTimer.IER ) == 0x80 );
+
+    //timer 2 is one shot, loaded from its low latch
+    write( IntervalTimer.T2C_L, 0x10 );
+    write( IntervalTimer.T2C_H, 0x01 );
+    start = cpu.getCycles();
+    run( start + 150 );
+    long elapsed = cpu.getCycles() - start;
+    assert( counter2() == 0x110 - elapsed ) : elapsed;
+    run( start + 0x111 );
+    assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T2 ) == 0 );
+    cpu.step();
+    assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T2 ) != 0 );
+    read( IntervalTimer.T2C_L );
+    assert( ( read( IntervalTimer.IFR ) & IntervalTimer.IFR_T2 ) == 0 );
+
+    //enabling a flag that is already set interrupts at once
+    write( IntervalTimer.IFR, 0x7F );
+    write( IntervalTimer.T2C_H, 0x00 ); //loads 0x10
+    run( cpu.getCycles() + 0x20 );
+    assert( read( IntervalTimer.IFR ) == IntervalTimer.IFR_T2 );
+    write( IntervalTimer.IER, 0x80 | IntervalTimer.IFR_T2 );
+    assert( read( IntervalTimer.IFR ) == ( IntervalTimer.IFR_IRQ |
+                                           IntervalTimer.IFR_T2 ) );
+
+    System.out.println( "IntervalTimerTest passed" );
+  }
+
+  /**
+   * Steps the CPU until it has reached a cycle.
+   * @param cycle The cycle
+   */
+  private static void run( long cycle ) {
+    while( cpu.getCycles() < cycle ) {
+      cpu.step();
+    }
+  }
+
+  /**
+   * Reads the count of timer 1, which clears IFR_T1.
+   * @return The count
+   */
+  private static int counter1() {
+    return read( IntervalTimer.T1C_L ) | read( IntervalTimer.T1C_H ) << 8;
+  }
+
+  /**
+   * Reads the count of timer 2, which clears IFR_T2.
+   * @return The count
+   */
+  private static int counter2() {
+    return read( IntervalTimer.T2C_L ) | read( IntervalTimer.T2C_H ) << 8;
+  }
+
+  /**
+   * Reads a register.
+   * @param register The offset
+   * @return The value
+   */
+  private static int read( int register ) {
+    return bus.readByte( VIA + register );
+  }
+
+  /**
+   * Writes a register.
+   * @param register The offset
+   * @param value The value
+   */
+  private static void write( int register, int value ) {
+    bus.writeByte( VIA + register, value );
+  }
+}
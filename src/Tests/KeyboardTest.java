@@ -0,0 +1,152 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.Keyboard;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+/**
+ * <p>Presses keys into a small ring and reads them back through the
+ * registers, checking the status bits, that a full ring drops and flags the
+ * key, that the IRQ line stays asserted while keys are waiting, and that
+ * keys injected from another thread all arrive in order while the guest
+ * reads them.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class KeyboardTest {
+
+  private static final int KEYBOARD = 0xD000;
+
+  /* 0x0200: CLV          ;V = 0, also the IRQ handler
+   * 0x0201: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xB8, 0x50, 0xFE
+  };
+
+  private static Bus bus;
+  private static CPU6502 cpu;
+
+  public static void main( String[] args ) throws Exception {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, KEYBOARD - 1 );
+    bus.connectDevice( mem, KEYBOARD + Keyboard.REGISTERS, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    mem.writeByte( cpu.getIRQVector(), 0x00 );
+    mem.writeByte( cpu.getIRQVector() + 1, 0x02 );
+    cpu.reset();
+
+    //a ring of 3 rounds up to 4, the fifth key is dropped
+    final Keyboard keyboard = new Keyboard( cpu, bus, KEYBOARD, 3 );
+    keyboard.connect();
+    assert( status() == 0 && data() == 0 );
+    for( int i = 0; i < 4; i++ ) {
+      assert( keyboard.press( 'a' + i ) );
+    }
+    assert( !keyboard.press( 'e' ) );
+    assert( keyboard.getPending() == 4 );
+    assert( !cpu.isIRQRequested() ) : "IRQ while disabled";
+    assert( status() == ( Keyboard.STATUS_READY | Keyboard.STATUS_OVERRUN ) );
+    assert( status() == Keyboard.STATUS_READY ) : "Overrun not cleared";
+
+    //enabling the IRQ with keys waiting asserts it at once
+    bus.writeByte( KEYBOARD + Keyboard.CONTROL, Keyboard.CONTROL_IRQ );
+    assert( bus.readByte( KEYBOARD + Keyboard.CONTROL ) ==
+            Keyboard.CONTROL_IRQ );
+    assert( cpu.isIRQRequested() );
+    service();
+
+    //each read asserts it again until the last key is taken
+    for( int i = 0; i < 4; i++ ) {
+      assert( data() == 'a' + i );
+      assert( cpu.isIRQRequested() == ( i < 3 ) ) : i;
+      service();
+    }
+    assert( data() == 0 && status() == 0 );
+    assert( keyboard.getPending() == 0 );
+    assert( keyboard.press( 'x' ) && cpu.isIRQRequested() );
+    assert( data() == 'x' );
+    service();
+    bus.writeByte( KEYBOARD + Keyboard.CONTROL, 0 );
+
+    //scripted input waits for room and arrives complete and in order
+    StringBuilder script = new StringBuilder();
+    for( int i = 0; i < 2000; i++ ) {
+      script.append( (char)( ' ' + i % 95 ) );
+    }
+    final String text = script.toString();
+    final Exception[] failed = { null };
+    Thread typist = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        try {
+          keyboard.type( text );
+        }
+        catch( InterruptedException e ) {
+          failed[0] = e;
+        }
+      }
+    }, "6502 keyboard test typist" );
+    typist.start();
+
+    StringBuilder read = new StringBuilder();
+    long deadline = System.nanoTime() + 10000000000L;
+    while( read.length() < text.length() && System.nanoTime() < deadline ) {
+      if( ( status() & Keyboard.STATUS_READY ) != 0 ) {
+        read.append( (char)data() );
+      }
+    }
+    typist.join();
+    assert( failed[0] == null );
+    assert( read.toString().equals( text ) ) : read.length();
+    assert( ( status() & Keyboard.STATUS_OVERRUN ) == 0 );
+
+    boolean rejected = false;
+    try {
+      new Keyboard( cpu, bus, KEYBOARD, 0 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "KeyboardTest passed" );
+  }
+
+  /**
+   * Takes the next key code.
+   * @return The code, or 0 if there is none
+   */
+  private static int data() {
+    return bus.readByte( KEYBOARD + Keyboard.DATA );
+  }
+
+  /**
+   * Reads the status register, clearing the overrun.
+   * @return The STATUS_ bits
+   */
+  private static int status() {
+    return bus.readByte( KEYBOARD + Keyboard.STATUS );
+  }
+
+  /**
+   * Lets the CPU take the pending interrupt, leaving the line clear.
+   */
+  private static void service() {
+    cpu.setStatusRegister( 0 );
+    cpu.step();
+    assert( !cpu.isIRQRequested() );
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Breakpoints;
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.DebugListener;
+import System.MemoryManagementUnit;
+import System.RandomAccessMemory;
+import System.UnmappedDevice;
+import Tools.TimeMachine;
+
+/**
+ * <p>Runs a kernel that drops into a user program, which faults on an
+ * invalid page and on a read-only one. Each fault raises an NMI whose
+ * handler, in supervisor mode, records the fault and returns to user mode.
+ * Checks where every access went on the physical bus, that the registers
+ * are hidden from user mode, and that a reset returns to supervisor mode.
+ * Also checks the TLB and its flushes, translation disabled, and that
+ * devices, watchpoints, monitors and the unmapped device set through the
+ * MMU act on the physical bus.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class MemoryManagementUnitTest {
+
+  private static final int MMU = 0xFF00;
+  private static final int KERNEL_TABLE = 0x20000;
+  private static final int USER_TABLE = 0x20100;
+  private static final int VW = MemoryManagementUnit.PTE_VALID |
+                                MemoryManagementUnit.PTE_WRITE;
+
+  /* 0x0200: LDA #$81
+   * 0x0202: STA $FF00    ;translate, and user mode once out of the kernel
+   * 0x0205: LDA #$03
+   * 0x0207: PHA          ;a frame for RTI: 0x0300, all flags clear
+   * 0x0208: LDA #$00
+   * 0x020A: PHA
+   * 0x020B: PHA
+   * 0x020C: RTI          ;into the user program
+   */
+  private static final int[] KERNEL = {
+    0xA9, 0x81, 0x8D, 0x00, 0xFF, 0xA9, 0x03, 0x48, 0xA9, 0x00, 0x48, 0x48,
+    0x40
+  };
+
+  /* 0x0300: LDA #$5A
+   * 0x0302: STA $80
+   * 0x0304: STA $9000    ;invalid page
+   * 0x0307: STA $2000    ;read-only page
+   * 0x030A: LDA $FF00    ;memory, not the registers
+   * 0x030D: STA $81
+   * 0x030F: LDA $A000    ;nothing there, so the data lines are read
+   * 0x0312: LDA $A000
+   * 0x0315: STA $82
+   * 0x0317: CLV
+   * 0x0318: BVC #$FE     ;halt
+   */
+  private static final int[] USER = {
+    0xA9, 0x5A, 0x85, 0x80, 0x8D, 0x00, 0x90, 0x8D, 0x00, 0x20, 0xAD, 0x00,
+    0xFF, 0x85, 0x81, 0xAD, 0x00, 0xA0, 0xAD, 0x00, 0xA0, 0x85, 0x82, 0xB8,
+    0x50, 0xFE
+  };
+
+  /* 0x0400: LDX $20      ;faults so far
+   * 0x0402: LDA $FF01
+   * 0x0405: STA $10,X    ;status
+   * 0x0407: LDA $FF04
+   * 0x040A: STA $14,X    ;address
+   * 0x040C: LDA $FF05
+   * 0x040F: STA $18,X
+   * 0x0411: INX
+   * 0x0412: STX $20
+   * 0x0414: STA $FF01    ;clear the fault
+   * 0x0417: RTI
+   */
+  private static final int[] HANDLER = {
+    0xA6, 0x20, 0xAD, 0x01, 0xFF, 0x95, 0x10, 0xAD, 0x04, 0xFF, 0x95, 0x14,
+    0xAD, 0x05, 0xFF, 0x95, 0x18, 0xE8, 0x86, 0x20, 0x8D, 0x01, 0xFF, 0x40
+  };
+
+  /* 0x0500: INC $30
+   * 0x0502: INC $30
+   * 0x0504: INC $30
+   * 0x0506: CLV
+   * 0x0507: BVC #$FE     ;halt
+   */
+  private static final int[] COUNTER = {
+    0xE6, 0x30, 0xE6, 0x30, 0xE6, 0x30, 0xB8, 0x50, 0xFE
+  };
+
+  private static Bus physical;
+  private static MemoryManagementUnit mmu;
+
+  public static void main( String[] args ) {
+    RandomAccessMemory ram = new RandomAccessMemory( 0x30000 );
+    physical = new Bus();
+    physical.connectDevice( ram, 0x00000, 0x2FFFF );
+    mmu = new MemoryManagementUnit( physical, MMU, 16 );
+    CPU6502 cpu = new CPU6502( mmu );
+    mmu.setCPU( cpu );
+
+    //disabled: the first 64KB of the physical bus
+    assert( mmu.translate( 0x5123 ) == 0x5123 );
+    mmu.writeByte( 0x5123, 0x42 );
+    assert( ram.readByte( 0x5123 ) == 0x42 );
+
+    //devices connected through the MMU go on the physical bus
+    final long[] latch = new long[1];
+    mmu.connectDevice( new BusDevice() {
+      @Override
+      public int readByte( long address ) {
+        return 0;
+      }
+
+      @Override
+      public void writeByte( long address, int value ) {
+        latch[0] = address;
+      }
+    }, 0x30000, 0x30003 );
+    physical.writeByte( 0x30002, 0x99 );
+    assert( latch[0] == 0x30002 );
+    assert( mmu.getUnmapped() == physical.getUnmapped() );
+    assert( mmu.getBreakpoints() == physical.getBreakpoints() );
+
+    //the kernel sees itself where it is; the user program is at 0x10000
+    for( int page = 0; page < 16; page++ ) {
+      entry( KERNEL_TABLE, page, page << 12 | VW );
+      entry( USER_TABLE, page, ( 0x10 + page ) << 12 | VW );
+    }
+    entry( USER_TABLE, 0x2, 0x12 << 12 | MemoryManagementUnit.PTE_VALID );
+    entry( USER_TABLE, 0x9, 0 );
+    entry( USER_TABLE, 0xA, 0x40 << 12 | VW ); //nothing connected
+    register( MemoryManagementUnit.KERNEL_TABLE, KERNEL_TABLE, 4 );
+    register( MemoryManagementUnit.USER_TABLE, USER_TABLE, 4 );
+    assert( mmu.readByte( MMU + MemoryManagementUnit.USER_TABLE + 1 ) ==
+            0x01 );
+    load( ram, 0x0200, KERNEL );
+    load( ram, 0x10300, USER );
+    load( ram, 0x0400, HANDLER );
+    ram.writeByte( cpu.getNMIVector(), 0x00 );
+    ram.writeByte( cpu.getNMIVector() + 1, 0x04 );
+    ram.writeByte( cpu.getRESTVector(), 0x00 );
+    ram.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    ram.writeByte( 0x12000, 0x33 );
+    ram.writeByte( 0x1FF00, 0x77 );
+
+    //watchpoints armed through the CPU's bus see physical addresses
+    final int[] watched = new int[4];
+    mmu.getBreakpoints().arm( Breakpoints.WRITE, 0x0020, 0x0020 );
+    mmu.getBreakpoints().setListener( new DebugListener() {
+      @Override
+      public boolean breakpointHit( int address ) {
+        return false;
+      }
+
+      @Override
+      public void watchpointHit( long address, int value, boolean write ) {
+        watched[value & 3]++;
+      }
+    } );
+    mmu.getUnmapped().setPolicy( UnmappedDevice.COUNT );
+
+    cpu.reset();
+    for( int i = 0; i < 100; i++ ) {
+      cpu.step();
+    }
+
+    assert( ram.readByte( 0x10080 ) == 0x5A );
+    assert( ram.readByte( 0x12000 ) == 0x33 ) : "Read-only page written";
+    assert( ram.readByte( 0x10081 ) == 0x77 ) : "Registers seen by user";
+    assert( ram.readByte( 0x0020 ) == 2 ) : ram.readByte( 0x0020 );
+    assert( ram.readByte( 0x0010 ) == ( MemoryManagementUnit.STATUS_FAULT |
+                                        MemoryManagementUnit.STATUS_WRITE ) );
+    assert( ram.readByte( 0x0014 ) == 0x00 && ram.readByte( 0x0018 ) == 0x90 );
+    assert( ram.readByte( 0x0011 ) ==
+            ( MemoryManagementUnit.STATUS_FAULT |
+              MemoryManagementUnit.STATUS_WRITE |
+              MemoryManagementUnit.STATUS_PROTECTION ) );
+    assert( ram.readByte( 0x0015 ) == 0x00 && ram.readByte( 0x0019 ) == 0x20 );
+    assert( watched[1] == 1 && watched[2] == 1 ) : "Watchpoint missed";
+
+    //open bus: the high byte of the operand was last on the data lines
+    assert( ram.readByte( 0x10082 ) == 0xA0 );
+    assert( physical.getUnmapped().getReads() == 2 );
+    mmu.getBreakpoints().clear();
+    mmu.getBreakpoints().setListener( null );
+
+    //back in user mode, the registers are memory
+    assert( mmu.translate( MMU ) == 0x1FF00 );
+    assert( mmu.readByte( MMU + MemoryManagementUnit.CONTROL ) == 0x77 );
+
+    //a reset returns to supervisor mode, outside of any interrupt
+    load( ram, 0x0500, COUNTER );
+    ram.writeByte( cpu.getRESTVector(), 0x00 );
+    ram.writeByte( cpu.getRESTVector() + 1, 0x05 );
+    cpu.reset();
+    assert( mmu.readByte( MMU + MemoryManagementUnit.CONTROL ) == 0x81 );
+    assert( ( mmu.readByte( MMU + MemoryManagementUnit.STATUS ) &
+              MemoryManagementUnit.STATUS_USER ) == 0 );
+    assert( mmu.translate( MMU ) == MMU );
+
+    //a time machine on the MMU journals the physical accesses
+    TimeMachine machine = new TimeMachine( cpu, mmu, 2, 4, ram );
+    machine.attach();
+    for( int i = 0; i < 3; i++ ) {
+      assert( machine.step() );
+    }
+    assert( ram.readByte( 0x30 ) == 3 );
+    assert( machine.runBackToWrite( 0x30 ) ) : "Nothing journaled";
+    assert( machine.getPosition() == 2 && ram.readByte( 0x30 ) == 2 );
+    machine.detach();
+
+    //the TLB keeps a changed entry until it is flushed
+    assert( mmu.translate( 0x5123 ) == 0x5123 );
+    entry( KERNEL_TABLE, 0x5, 0x15 << 12 | VW );
+    assert( mmu.translate( 0x5123 ) == 0x5123 ) : "Not cached";
+    long misses = mmu.getMisses();
+    register( MemoryManagementUnit.FLUSH, 0x5, 1 );
+    assert( mmu.translate( 0x5123 ) == 0x15123 );
+    assert( mmu.getMisses() == misses + 1 );
+    mmu.translate( 0x5123 );
+    assert( mmu.getMisses() == misses + 1 );
+    register( MemoryManagementUnit.FLUSH, MemoryManagementUnit.FLUSH_ALL, 1 );
+    mmu.translate( 0x5123 );
+    assert( mmu.getMisses() == misses + 2 );
+
+    //a fault outside of the CPU's instructions still latches
+    register( MemoryManagementUnit.STATUS, 0, 1 );
+    entry( KERNEL_TABLE, 0x6, 0 );
+    register( MemoryManagementUnit.FLUSH, 0x6, 1 );
+    assert( mmu.translate( 0x6000 ) == -1 );
+    assert( mmu.readByte( 0x6001 ) == 0xEA ) : "Not a NOP";
+    assert( mmu.readByte( MMU + MemoryManagementUnit.FAULT_H ) == 0x60 );
+    assert( mmu.readByte( MMU + MemoryManagementUnit.FAULT_L ) == 0x01 );
+    mmu.writeByte( 0x6800, 0 ); //latched already
+    assert( mmu.readByte( MMU + MemoryManagementUnit.FAULT_H ) == 0x60 );
+    assert( cpu.isNMIRequested() );
+
+    //disabled again, translation is the identity
+    register( MemoryManagementUnit.CONTROL, 0, 1 );
+    assert( mmu.translate( 0x5123 ) == 0x5123 );
+
+    boolean rejected = false;
+    try {
+      new MemoryManagementUnit( physical, MMU, 12 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "MemoryManagementUnitTest passed" );
+  }
+
+  /**
+   * Writes a page table entry to physical memory.
+   * @param table The physical address of the table
+   * @param page The logical page
+   * @param entry The entry
+   */
+  private static void entry( int table, int page, int entry ) {
+    for( int i = 0; i < 4; i++ ) {
+      physical.writeByte( table + page * 4 + i, entry >>> ( i * 8 ) );
+    }
+  }
+
+  /**
+   * Writes a register of the MMU in supervisor mode, low byte first.
+   * @param register The register offset
+   * @param value The value
+   * @param bytes The number of bytes in the register
+   */
+  private static void register( int register, int value, int bytes ) {
+    for( int i = 0; i < bytes; i++ ) {
+      mmu.writeByte( MMU + register + i, value >>> ( i * 8 ) );
+    }
+  }
+
+  /**
+   * Copies a program to physical memory.
+   * @param ram The memory
+   * @param address The physical address
+   * @param program The program
+   */
+  private static void load( RandomAccessMemory ram, int address,
+                            int[] program ) {
+    for( int i = 0; i < program.length; i++ ) {
+      ram.writeByte( address + i, program[i] );
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.PagedMemory;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * <p>Pages sixteen and a bit pages through two resident frames, checking
+ * which accesses fault, that the least recently used page is the one
+ * evicted, that only a page written to is written back, and that what was
+ * written comes back from the swap file, across a close and reopen too.
+ * Also checks block transfers over more pages than there are frames, the
+ * partial last page, and dump.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class PagedMemoryTest {
+
+  private static final int PAGE = 256;
+  private static final long SIZE = 16 * PAGE + 100;
+
+  public static void main( String[] args ) throws Exception {
+    File swap = File.createTempFile( "6502swap", ".bin" );
+    swap.delete();
+    PagedMemory memory = new PagedMemory( SIZE, PAGE, 2, swap );
+    assert( memory.getSize() == SIZE );
+
+    //nothing in the file yet, so pages read as zeros
+    assert( memory.readByte( 0x010 ) == 0 );
+    assert( memory.getFaults() == 1 );
+    memory.writeByte( 0x010, 0xA0 );
+    memory.writeByte( 0x110, 0xA1 );
+    assert( memory.getFaults() == 2 ) : "Page 0 evicted too soon";
+    assert( memory.readByte( 0x011 ) == 0 ); //page 0 newest, page 1 oldest
+
+    //page 2 evicts page 1, the least recently used, writing it back
+    assert( memory.readByte( 0x210 ) == 0 );
+    assert( memory.getFaults() == 3 && memory.getWritebacks() == 1 );
+    assert( page( swap, 1 ) == 0xA1 ) : "Not written back";
+    assert( swap.length() == 2 * PAGE ) : swap.length();
+
+    //page 3 evicts page 0, also dirty; then page 4 evicts page 2, clean
+    memory.readByte( 0x310 );
+    assert( memory.getWritebacks() == 2 && page( swap, 0 ) == 0xA0 );
+    memory.readByte( 0x410 );
+    assert( memory.getFaults() == 5 && memory.getWritebacks() == 2 );
+
+    //evicted pages come back as written
+    assert( memory.readByte( 0x110 ) == 0xA1 );
+    assert( memory.readByte( 0x010 ) == 0xA0 );
+    assert( memory.getFaults() == 7 );
+
+    //runs within the resident pages fault no more
+    for( int i = 0; i < 1000; i++ ) {
+      memory.readByte( ( i & 1 ) * PAGE + ( i & 0xFF ) );
+    }
+    assert( memory.getFaults() == 7 );
+
+    //a block over every page, through two frames
+    byte[] block = new byte[(int)SIZE - 3];
+    for( int i = 0; i < block.length; i++ ) {
+      block[i] = (byte)( i * 7 + i / PAGE );
+    }
+    memory.writeBytes( 3, block, 0, block.length );
+    byte[] back = new byte[block.length];
+    memory.readBytes( 3, back, 0, back.length );
+    for( int i = 0; i < block.length; i++ ) {
+      assert( back[i] == block[i] ) : i;
+    }
+
+    //the partial last page is written back without going past the end
+    memory.writeByte( SIZE - 1, 0x5C );
+    memory.flush();
+    assert( swap.length() == SIZE ) : swap.length();
+    long writebacks = memory.getWritebacks();
+    memory.flush();
+    assert( memory.getWritebacks() == writebacks ) : "Clean pages written";
+
+    File dump = File.createTempFile( "6502dump", ".bin" );
+    memory.dump( dump );
+    byte[] dumped = Files.readAllBytes( dump.toPath() );
+    dump.delete();
+    assert( dumped.length == SIZE );
+    assert( ( dumped[(int)SIZE - 1] & 0xFF ) == 0x5C );
+    for( int i = 0; i < block.length - 1; i++ ) {
+      assert( dumped[3 + i] == block[i] ) : i;
+    }
+    memory.close();
+
+    //a file that exists gives the initial contents
+    PagedMemory reopened = new PagedMemory( SIZE, PAGE, 2, swap );
+    assert( reopened.readByte( SIZE - 1 ) == 0x5C );
+    assert( (byte)reopened.readByte( 3 + 2000 ) == block[2000] );
+    reopened.close();
+
+    //the swap failing is unchecked, as bus accesses cannot throw
+    boolean thrown = false;
+    try {
+      reopened.readByte( 0x810 );
+    }
+    catch( UncheckedIOException e ) {
+      thrown = true;
+    }
+    assert( thrown );
+    swap.delete();
+
+    boolean rejected = false;
+    try {
+      new PagedMemory( SIZE, 300, 2, swap );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected && !swap.exists() );
+    rejected = false;
+    try {
+      memory.readByte( SIZE );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "PagedMemoryTest passed" );
+  }
+
+  /**
+   * Reads the byte at offset 0x10 of a page straight from the swap file.
+   * @param swap The swap file
+   * @param page The page
+   * @return The byte
+   * @throws Exception If the file could not be read
+   */
+  private static int page( File swap, int page ) throws Exception {
+    RandomAccessFile file = new RandomAccessFile( swap, "r" );
+    try {
+      file.seek( page * PAGE + 0x10 );
+      return file.read();
+    }
+    finally {
+      file.close();
+    }
+  }
+}
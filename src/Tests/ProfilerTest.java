@@ -0,0 +1,99 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Bus;
+import System.CallObserver;
+import System.CPU6502;
+import System.RandomAccessMemory;
+import Tools.Profiler;
+
+/**
+ * <p>Checks that the profiler unwinds its shadow stack only past frames the
+ * guest stack has returned from, and that the CPU reports BRK and RTI with
+ * the same stack pointer so that they match.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class ProfilerTest {
+
+  private static final int OUTER = 0x0400;
+  private static final int INNER = 0x0500;
+
+  public static void main( String[] args ) {
+    unwinding();
+    breakFrames();
+    System.out.println( "Profiler test passed" );
+  }
+
+  /**
+   * Feeds the profiler calls and returns as the CPU would report them. The
+   * stack grows upward, so a call saves the stack pointer and leaves it two
+   * bytes higher.
+   */
+  private static void unwinding() {
+    Profiler profiler = new Profiler();
+
+    //an RTS through a pushed address returns from no call
+    profiler.routineEntered( OUTER, 0x10, 0 );
+    profiler.routineExited( 0x12, 10 );
+    assert( profiler.getInclusiveCycles( OUTER ) == 10 ); //still open
+    profiler.routineExited( 0x10, 50 );
+    assert( profiler.getInclusiveCycles( OUTER ) == 50 );
+
+    //discarding a return address unwinds both frames at once
+    profiler.routineEntered( OUTER, 0x10, 100 );
+    profiler.routineEntered( INNER, 0x12, 110 );
+    profiler.routineExited( 0x10, 130 );
+    assert( profiler.getInclusiveCycles( INNER ) == 20 );
+    assert( profiler.getInclusiveCycles( OUTER ) == 80 );
+    assert( profiler.getCalls( OUTER ) == 2 );
+  }
+
+  /**
+   * Runs BRK into a handler returning with RTI, and checks every exit is
+   * reported at the stack pointer of the entry it returns from.
+   */
+  private static void breakFrames() {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0, 0xFFFF );
+    CPU6502 cpu = new CPU6502( bus );
+
+    //0x0200: BRK, handler 0x0300: INC $10 ; RTI
+    mem.writeByte( 0x0200, 0x00 );
+    mem.writeByte( 0x0300, 0xE6 );
+    mem.writeByte( 0x0301, 0x10 );
+    mem.writeByte( 0x0302, 0x40 );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    mem.writeByte( cpu.getIRQVector(), 0x00 );
+    mem.writeByte( cpu.getIRQVector() + 1, 0x03 );
+    cpu.reset();
+
+    final int[] entered = { -1 };
+    final int[] matched = { 0 };
+    cpu.setCallObserver( new CallObserver() {
+      @Override
+      public void routineEntered( int routine, int stackPointer,
+                                  long cycle ) {
+        entered[0] = stackPointer;
+      }
+
+      @Override
+      public void routineExited( int stackPointer, long cycle ) {
+        assert( stackPointer == entered[0] );
+        matched[0]++;
+      }
+    } );
+
+    for( int i = 0; i < 30; i++ ) {
+      cpu.step();
+    }
+    assert( matched[0] == 10 );
+    assert( mem.readByte( 0x10 ) == 10 );
+  }
+}
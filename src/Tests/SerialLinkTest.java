@@ -0,0 +1,277 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.ACIA;
+import Peripherals.SerialLink;
+import System.Bus;
+import System.BusDevice;
+import System.BusMonitor;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Checks that sending over a full link returns at once, refusing the
+ * byte, with STATUS_TDRE clear until the bytes crossing it have arrived,
+ * and that the transmit IRQ waits for that too.
+ * Then runs three machines on their own threads, one linked to the other
+ * two with different latencies through two ports, and checks that every
+ * byte each guest sends and receives happens at the same cycle on every
+ * run, however the threads are delayed.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class SerialLinkTest {
+
+  private static final int PORT = 0xD000;
+  private static final int SECOND_PORT = 0xD010;
+  private static final long CYCLES = 200000;
+  private static final long NEAR = 50;
+  private static final long FAR = 300;
+
+  /* 0x0200: INX          ;the next byte
+   * 0x0201: STX $D000    ;to both peers, refused while a link is full
+   * 0x0204: STX $D010
+   * 0x0207: LDA $D001    ;take a byte from each port if one is there
+   * 0x020A: AND #$08
+   * 0x020C: BEQ #$03
+   * 0x020E: LDA $D000
+   * 0x0211: LDA $D011
+   * 0x0214: AND #$08
+   * 0x0216: BEQ #$03
+   * 0x0218: LDA $D010
+   * 0x021B: CLV
+   * 0x021C: BVC #$E2     ;loop to 0x0200
+   */
+  private static final int[] SENDER = {
+    0xE8, 0x8E, 0x00, 0xD0, 0x8E, 0x10, 0xD0, 0xAD, 0x01, 0xD0, 0x29, 0x08,
+    0xF0, 0x03, 0xAD, 0x00, 0xD0, 0xAD, 0x11, 0xD0, 0x29, 0x08, 0xF0, 0x03,
+    0xAD, 0x10, 0xD0, 0xB8, 0x50, 0xE2
+  };
+
+  /* 0x0200: LDA $D001    ;wait for a byte
+   * 0x0203: AND #$08
+   * 0x0205: BEQ #$F9
+   * 0x0207: LDA $D000    ;and send it back
+   * 0x020A: STA $D000
+   * 0x020D: CLV
+   * 0x020E: BVC #$F0     ;loop to 0x0200
+   */
+  private static final int[] ECHO = {
+    0xAD, 0x01, 0xD0, 0x29, 0x08, 0xF0, 0xF9, 0xAD, 0x00, 0xD0, 0x8D, 0x00,
+    0xD0, 0xB8, 0x50, 0xF0
+  };
+
+  /* 0x0200: CLV          ;V = 0
+   * 0x0201: BVC #$FE     ;halt
+   */
+  private static final int[] HALT = {
+    0xB8, 0x50, 0xFE
+  };
+
+  /**
+   * A machine under test: its bus and CPU, and a log of the bytes its guest
+   * moved through its ports, as the cycle, the register and the byte.
+   */
+  private static final class Node {
+    Bus bus;
+    CPU6502 cpu;
+    SerialLink.Machine machine;
+    final List< Long > log = new ArrayList< Long >();
+  }
+
+  public static void main( String[] args ) throws Exception {
+    checkFullLink();
+
+    long[][] expected = run( null );
+    assert( expected[0].length > 100 && expected[1].length > 100 &&
+            expected[2].length > 100 ) : "Too little traffic";
+    for( int i = 0; i < 4; i++ ) {
+      long[][] logs = run( new Random( i ) );
+      for( int node = 0; node < logs.length; node++ ) {
+        assert( Arrays.equals( logs[node], expected[node] ) ) :
+          "Machine " + node + " differs on run " + i;
+      }
+    }
+
+    System.out.println( "SerialLinkTest passed" );
+  }
+
+  /**
+   * Fills a link without running the peer, and checks that the sender is
+   * never held up and sees the room come back as the bytes arrive.
+   */
+  private static void checkFullLink() {
+    Node sender = node( HALT, null );
+    Node receiver = node( HALT, null );
+    ACIA from = port( sender, PORT );
+    ACIA to = port( receiver, PORT );
+    SerialLink link = new SerialLink( sender.machine, from, receiver.machine,
+                                      to, 100, 4 );
+
+    //the transmit IRQ is raised while a byte sent leaves room
+    sender.cpu.setStatusRegister( sender.cpu.getStatusRegister() |
+                                  CPU6502.F_IRQ );
+    sender.bus.writeByte( PORT + ACIA.COMMAND,
+                          ACIA.COMMAND_DTR | ACIA.COMMAND_TX_IRQ );
+    assert( ( status( sender ) & ACIA.STATUS_IRQ ) != 0 );
+    for( int i = 0; i < 4; i++ ) {
+      assert( ( status( sender ) & ACIA.STATUS_TDRE ) != 0 ) : i;
+      sender.bus.writeByte( PORT + ACIA.DATA, i );
+      assert( ( ( status( sender ) & ACIA.STATUS_IRQ ) != 0 ) == i < 3 ) : i;
+    }
+    assert( ( status( sender ) & ACIA.STATUS_TDRE ) == 0 );
+    sender.bus.writeByte( PORT + ACIA.DATA, 0xFF ); //returns, refused
+    assert( link.getFirst().getRefused() == 1 );
+
+    //the bytes are crossing until 100 cycles after they were sent
+    long sent = sender.cpu.getCycles();
+    while( sender.cpu.getCycles() < sent + 100 ) {
+      assert( ( status( sender ) &
+                ( ACIA.STATUS_TDRE | ACIA.STATUS_IRQ ) ) == 0 );
+      sender.cpu.step();
+    }
+    assert( ( status( sender ) & ACIA.STATUS_TDRE ) != 0 );
+    sender.cpu.step(); //the IRQ comes with the next step
+    assert( ( status( sender ) & ACIA.STATUS_IRQ ) != 0 ) :
+      "No IRQ once room came back";
+
+    boolean rejected = false;
+    try {
+      new SerialLink( sender.machine, port( sender, SECOND_PORT ),
+                      sender.machine, port( sender, SECOND_PORT + 4 ), 1, 2 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+  }
+
+  /**
+   * Runs a sender linked to two echoing machines, each on its own thread.
+   * @param jitter Where to draw random delays of the threads from, or null
+   * @return The log of each machine, the sender first
+   * @throws InterruptedException If interrupted while waiting for them
+   */
+  private static long[][] run( Random jitter ) throws InterruptedException {
+    Node sender = node( SENDER, jitter );
+    Node near = node( ECHO, jitter );
+    Node far = node( ECHO, jitter );
+    new SerialLink( sender.machine, port( sender, PORT ), near.machine,
+                    port( near, PORT ), NEAR, 4 );
+    new SerialLink( sender.machine, port( sender, SECOND_PORT ),
+                    far.machine, port( far, PORT ), FAR, 4 );
+
+    final Node[] nodes = { sender, near, far };
+    Thread[] threads = new Thread[nodes.length];
+    for( int i = 0; i < nodes.length; i++ ) {
+      final Node node = nodes[i];
+      threads[i] = new Thread( new Runnable() {
+        @Override
+        public void run() {
+          node.machine.runUntil( CYCLES );
+        }
+      }, "6502 serial link test " + i );
+      threads[i].setDaemon( true );
+      threads[i].start();
+    }
+
+    long[][] logs = new long[nodes.length][];
+    for( int i = 0; i < nodes.length; i++ ) {
+      threads[i].join( 60000 );
+      assert( !threads[i].isAlive() ) : "Machine " + i + " stuck";
+      logs[i] = new long[nodes[i].log.size()];
+      for( int j = 0; j < logs[i].length; j++ ) {
+        logs[i][j] = nodes[i].log.get( j );
+      }
+    }
+    return logs;
+  }
+
+  /**
+   * Builds a machine running a program, logging the bytes moved through
+   * the data registers of its ports.
+   * @param program The program, at 0x0200
+   * @param jitter Where to draw random delays of its thread from, or null
+   * @return The machine
+   */
+  private static Node node( int[] program, final Random jitter ) {
+    final Node node = new Node();
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    node.bus = new Bus();
+    node.bus.connectDevice( mem, 0x0000, PORT - 1 );
+    node.bus.connectDevice( mem, PORT + 0x100, 0xFFFF );
+    for( int i = 0; i < program.length; i++ ) {
+      mem.writeByte( 0x0200 + i, program[i] );
+    }
+    node.cpu = new CPU6502( node.bus );
+    mem.writeByte( node.cpu.getRESTVector(), 0x00 );
+    mem.writeByte( node.cpu.getRESTVector() + 1, 0x02 );
+    node.cpu.reset();
+    node.machine = new SerialLink.Machine( node.cpu );
+
+    final long delay = jitter == null ? 0 : jitter.nextInt( 3 );
+    node.bus.setMonitor( new BusMonitor() {
+      @Override
+      public int read( long address, BusDevice device ) {
+        int value = device.readByte( address );
+        if( address == PORT || address == SECOND_PORT ) {
+          record( address, value );
+        }
+        return value;
+      }
+
+      @Override
+      public void write( long address, int value, BusDevice device ) {
+        if( address == PORT || address == SECOND_PORT ) {
+          record( address | 0x80, value );
+        }
+        device.writeByte( address, value );
+      }
+
+      /**
+       * Logs a byte moved, sometimes holding the thread up a little.
+       * @param register The register, with bit 7 set for writes
+       * @param value The byte
+       */
+      private void record( long register, int value ) {
+        node.log.add( node.cpu.getCycles() << 16 | ( register & 0xFF ) << 8 |
+                      value );
+        if( delay != 0 && jitter.nextInt( 64 ) == 0 ) {
+          LockSupport.parkNanos( delay * 20000 );
+        }
+      }
+    } );
+    return node;
+  }
+
+  /**
+   * Connects a port without channels.
+   * @param node The machine
+   * @param base The first address of the port
+   * @return The port
+   */
+  private static ACIA port( Node node, int base ) {
+    ACIA port = new ACIA( node.cpu, node.bus, base, null, null, null, 8 );
+    port.connect();
+    return port;
+  }
+
+  /**
+   * Reads the status register of the first port of a machine.
+   * @param node The machine
+   * @return The STATUS_ bits
+   */
+  private static int status( Node node ) {
+    return node.bus.readByte( PORT + ACIA.STATUS );
+  }
+}
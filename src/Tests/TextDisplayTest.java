@@ -0,0 +1,196 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.FrameSink;
+import Peripherals.TextDisplay;
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Writes characters and attributes to a text display and checks both
+ * outputs at each refresh: the first draws the whole grid, later ones only
+ * the cells written, as escape sequences that move the cursor and change
+ * colours only when needed, and as glyphs in the image with only their
+ * pixel rows marked dirty. A refresh with no changes draws nothing.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class TextDisplayTest implements FrameSink {
+
+  private static final int TEXT = 0x4000;
+  private static final int COLUMNS = 10;
+  private static final int ROWS = 3;
+  private static final int ATTRIBUTES = TEXT + COLUMNS * ROWS;
+  private static final int CYCLES_PER_REFRESH = 1000;
+  private static final int STRIDE = COLUMNS * TextDisplay.CELL_WIDTH;
+
+  /* 0x0200: CLV          ;V = 0
+   * 0x0201: BVC #$FE     ;halt
+   */
+  private static final int[] PROGRAM = {
+    0xB8, 0x50, 0xFE
+  };
+
+  private static Bus bus;
+  private static CPU6502 cpu;
+  private static ByteArrayOutputStream terminal;
+  private static TextDisplayTest sink;
+
+  private final List< int[] > images = new ArrayList< int[] >();
+  private final List< long[] > dirties = new ArrayList< long[] >();
+
+  @Override
+  public synchronized void frame( int[] pixels, int width, int height,
+                                  long[] dirty, long number ) {
+    assert( width == STRIDE && height == ROWS * TextDisplay.CELL_HEIGHT );
+    assert( number == images.size() );
+    images.add( pixels.clone() );
+    dirties.add( dirty.clone() );
+  }
+
+  public static void main( String[] args ) throws Exception {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    bus = new Bus();
+    bus.connectDevice( mem, 0x0000, TEXT - 1 );
+    bus.connectDevice( mem, TEXT + 2 * COLUMNS * ROWS, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+
+    terminal = new ByteArrayOutputStream();
+    sink = new TextDisplayTest();
+    TextDisplay display = new TextDisplay( cpu, bus, TEXT, COLUMNS, ROWS,
+                                           CYCLES_PER_REFRESH, sink,
+                                           terminal );
+    display.connect();
+    assert( display.getImageWidth() == STRIDE );
+    assert( display.getImageHeight() == ROWS * TextDisplay.CELL_HEIGHT );
+    assert( bus.readByte( ATTRIBUTES ) == 0x07 );
+
+    //the first refresh draws every cell, moving the cursor once per row
+    display.start();
+    refresh( 1 );
+    String blank = "          ";
+    assert( output().equals( "\033[1;1H\033[37;40m" + blank +
+                             "\033[2;1H" + blank + "\033[3;1H" + blank +
+                             "\033[0m" ) ) : output();
+    assert( rows( 0 ) == ROWS * TextDisplay.CELL_HEIGHT );
+    for( int pixel : sink.images.get( 0 ) ) {
+      assert( pixel == 0xFF000000 );
+    }
+
+    //then only the cells written, the colours set once for both
+    bus.writeByte( ATTRIBUTES + COLUMNS + 2, 0x1B ); //yellow on red
+    bus.writeByte( ATTRIBUTES + COLUMNS + 3, 0x1B );
+    bus.write( TEXT + COLUMNS + 2, "HH".getBytes( StandardCharsets.US_ASCII ),
+               0, 2 );
+    assert( bus.readByte( TEXT + COLUMNS + 2 ) == 'H' );
+    assert( bus.readByte( ATTRIBUTES + COLUMNS + 3 ) == 0x1B );
+    terminal.reset();
+    refresh( 2 );
+    assert( output().equals( "\033[2;3H\033[93;41mHH\033[0m" ) ) : output();
+
+    //only the second row of cells is redrawn, in its colours
+    long[] dirty = sink.dirties.get( 1 );
+    assert( rows( 1 ) == TextDisplay.CELL_HEIGHT );
+    assert( dirty[0] == 0xFFFFL << TextDisplay.CELL_HEIGHT );
+    int[] image = sink.images.get( 1 );
+    int left = TextDisplay.CELL_HEIGHT * STRIDE + 2 * TextDisplay.CELL_WIDTH;
+    int foreground = 0;
+    for( int y = 0; y < TextDisplay.CELL_HEIGHT; y++ ) {
+      for( int x = 0; x < TextDisplay.CELL_WIDTH; x++ ) {
+        int pixel = image[left + y * STRIDE + x];
+        assert( pixel == 0xFFAA0000 || pixel == 0xFFFFFF55 ) :
+          Integer.toHexString( pixel );
+        foreground += pixel == 0xFFFFFF55 ? 1 : 0;
+        //the same glyph from the cache in the next cell
+        assert( pixel == image[left + y * STRIDE + x +
+                               TextDisplay.CELL_WIDTH] );
+      }
+    }
+    assert( foreground > 0 ) : "Nothing drawn";
+    assert( image[0] == 0xFF000000 );
+
+    //a refresh without changes draws nothing
+    terminal.reset();
+    refresh( 3 );
+    Thread.sleep( 50 );
+    assert( sink.images.size() == 2 && terminal.size() == 0 );
+
+    //codes that do not print are shown blank, and closing draws them
+    bus.writeByte( TEXT + 2 * COLUMNS + 9, 0x01 );
+    display.close();
+    assert( sink.images.size() == 3 );
+    assert( output().equals( "\033[3;10H\033[37;40m \033[0m" ) ) : output();
+
+    boolean rejected = false;
+    try {
+      new TextDisplay( cpu, bus, TEXT, 0, ROWS, 1, sink, null );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected );
+
+    System.out.println( "TextDisplayTest passed" );
+  }
+
+  /**
+   * Runs the CPU through a number of refreshes and waits for a frame, if
+   * any, to be drawn.
+   * @param refreshes The number of refreshes to run through
+   * @throws InterruptedException If interrupted while waiting
+   */
+  private static void refresh( int refreshes ) throws InterruptedException {
+    int drawn = sink.images.size();
+    //the next refresh is scheduled as each one fires
+    while( cpu.getScheduler().getDeadline() <=
+           (long)refreshes * CYCLES_PER_REFRESH ) {
+      cpu.step();
+    }
+    for( int tries = 0; tries < 500 && sink.images.size() == drawn;
+         tries++ ) {
+      Thread.sleep( 10 );
+    }
+    //the terminal is written after the image is presented
+    for( int tries = 0; tries < 500 && sink.images.size() > drawn &&
+                        terminal.size() == 0; tries++ ) {
+      Thread.sleep( 10 );
+    }
+  }
+
+  /**
+   * The escape sequences written so far
+   * @return The terminal output
+   */
+  private static String output() {
+    return new String( terminal.toByteArray(), StandardCharsets.UTF_8 );
+  }
+
+  /**
+   * Counts the pixel rows a frame marked dirty.
+   * @param frame The number of the frame
+   * @return The number of dirty rows
+   */
+  private static int rows( int frame ) {
+    int count = 0;
+    for( long bits : sink.dirties.get( frame ) ) {
+      count += Long.bitCount( bits );
+    }
+    return count;
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import Peripherals.IntervalTimer;
+import System.Breakpoints;
+import System.Bus;
+import System.BusDevice;
+import System.CPU6502;
+import System.CycleEvent;
+import System.DebugListener;
+import System.RandomAccessMemory;
+import Tools.TimeMachine;
+
+import java.util.Arrays;
+
+/**
+ * <p>Records a program interrupted by a free-running timer and by an NMI
+ * raised between instructions, then seeks backwards through the history
+ * and checks that every replayed state matches the one recorded live.
+ * Then records a program that starts the timer itself, enables its
+ * interrupt with the flag already set and rings a device that interrupts
+ * and schedules an event, suspending at a breakpoint on the interrupt
+ * handler, and checks the replay from before it all.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class TimeMachineTest {
+
+  private static final int TIMER = 0x9000;
+  private static final int DOORBELL = 0x9100;
+  private static final int STEPS = 3000;
+  private static final int NMI_AT = 1000;
+
+  /* 0x0200: CLI          ;allow the timer to interrupt
+   * 0x0201: INC $11      ;*0x11++
+   * 0x0203: CLV          ;V = 0
+   * 0x0204: BVC #$FB     ;loop to 0x0201
+   */
+  private static final int[] MAIN = {
+    0x58, 0xE6, 0x11, 0xB8, 0x50, 0xFB
+  };
+
+  /* 0x0300: LDA $9004    ;clears the timer flag
+   * 0x0303: INC $10      ;*0x10++
+   * 0x0305: RTI
+   */
+  private static final int[] IRQ = {
+    0xAD, 0x04, 0x90, 0xE6, 0x10, 0x40
+  };
+
+  /* 0x0400: SEI          ;no interrupts yet
+   * 0x0401: LDA #$40
+   * 0x0403: STA $900B    ;timer 1 free-running
+   * 0x0406: LDA #$2C
+   * 0x0408: STA $9004
+   * 0x040B: LDA #$01
+   * 0x040D: STA $9005    ;every 301 cycles from now
+   * 0x0410: INC $11      ;*0x11++
+   * 0x0412: LDA $11
+   * 0x0414: CMP #$40
+   * 0x0416: BNE #$F8     ;loop to 0x0410 while the timer underflows
+   * 0x0418: LDA #$C0
+   * 0x041A: STA $900E    ;enable the interrupt, its flag already set
+   * 0x041D: CLI
+   * 0x041E: STA $9100    ;ring the doorbell, interrupting once more
+   * 0x0421: INC $11      ;*0x11++
+   * 0x0423: CLV          ;V = 0
+   * 0x0424: BVC #$FB     ;loop to 0x0421
+   */
+  private static final int[] GUEST = {
+    0x78, 0xA9, 0x40, 0x8D, 0x0B, 0x90, 0xA9, 0x2C, 0x8D, 0x04, 0x90, 0xA9,
+    0x01, 0x8D, 0x05, 0x90, 0xE6, 0x11, 0xA5, 0x11, 0xC9, 0x40, 0xD0, 0xF8,
+    0xA9, 0xC0, 0x8D, 0x0E, 0x90, 0x58, 0x8D, 0x00, 0x91, 0xE6, 0x11, 0xB8,
+    0x50, 0xFB
+  };
+
+  /* 0x0320: INC $12      ;*0x12++
+   * 0x0322: RTI
+   */
+  private static final int[] NMI = {
+    0xE6, 0x12, 0x40
+  };
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0x0000, TIMER - 1 );
+    bus.connectDevice( mem, TIMER + IntervalTimer.REGISTERS, 0xFFFF );
+    load( mem, 0x0200, MAIN );
+    load( mem, 0x0300, IRQ );
+    load( mem, 0x0320, NMI );
+
+    CPU6502 cpu = new CPU6502( bus );
+    vector( mem, cpu.getRESTVector(), 0x0200 );
+    vector( mem, cpu.getIRQVector(), 0x0300 );
+    vector( mem, cpu.getNMIVector(), 0x0320 );
+    cpu.reset();
+
+    //timer 1 free-running every 301 cycles, interrupting
+    IntervalTimer timer = new IntervalTimer( cpu, bus, TIMER );
+    timer.connect();
+    bus.writeByte( TIMER + IntervalTimer.ACR, IntervalTimer.ACR_FREE_RUN );
+    bus.writeByte( TIMER + IntervalTimer.IER, 0x80 | IntervalTimer.IFR_T1 );
+    bus.writeByte( TIMER + IntervalTimer.T1C_L, 300 & 0xFF );
+    bus.writeByte( TIMER + IntervalTimer.T1C_H, 300 >> 8 );
+
+    TimeMachine machine = new TimeMachine( cpu, bus, 64, 100, mem );
+    machine.attach();
+
+    long[][] live = new long[STEPS + 1][];
+    live[0] = state( cpu, mem );
+    for( int i = 1; i <= STEPS; i++ ) {
+      if( i == NMI_AT ) {
+        cpu.requestNMI(); //as another thread might
+      }
+      assert( machine.step() );
+      live[i] = state( cpu, mem );
+    }
+    assert( mem.readByte( 0x10 ) > 20 ) : "Too few timer interrupts";
+    assert( mem.readByte( 0x12 ) == 1 ) : "NMI not taken";
+
+    //every target replays from a snapshot before it, across interrupts
+    int[] targets = { STEPS - 1, 2900, 2345, 1500, NMI_AT + 1, NMI_AT,
+                      NMI_AT - 1, 700, 65, 64, 1, 0 };
+    for( int target : targets ) {
+      assert( machine.seek( target ) );
+      assert( machine.getPosition() == target );
+      assert( Arrays.equals( state( cpu, mem ), live[target] ) ) :
+        "Replay diverged at " + target;
+    }
+
+    //stepping on from a rewound position follows the same timeline
+    assert( machine.seek( 900 ) );
+    for( int i = 901; i <= STEPS; i++ ) {
+      if( i == NMI_AT ) {
+        cpu.requestNMI();
+      }
+      assert( machine.step() );
+    }
+    assert( Arrays.equals( state( cpu, mem ), live[STEPS] ) ) :
+      "Rerun diverged";
+    assert( machine.stepBack() );
+    assert( Arrays.equals( state( cpu, mem ), live[STEPS - 1] ) );
+
+    machine.detach();
+    guestProgramsTimer();
+    System.out.println( "TimeMachineTest passed" );
+  }
+
+  /**
+   * Records a guest that programs the timer after the machine is attached,
+   * so the first snapshot holds no timer events, and replays it all.
+   */
+  private static void guestProgramsTimer() {
+    final RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0x0000, TIMER - 1 );
+    bus.connectDevice( mem, TIMER + IntervalTimer.REGISTERS, DOORBELL - 1 );
+    bus.connectDevice( mem, DOORBELL + 1, 0xFFFF );
+    load( mem, 0x0400, GUEST );
+    load( mem, 0x0300, IRQ );
+
+    final CPU6502 cpu = new CPU6502( bus );
+    vector( mem, cpu.getRESTVector(), 0x0400 );
+    vector( mem, cpu.getIRQVector(), 0x0300 );
+    cpu.reset();
+    new IntervalTimer( cpu, bus, TIMER ).connect();
+
+    //a device that interrupts in the middle of the instruction writing it,
+    //and counts the ring in 0x12 a while later
+    final CycleEvent echo = new CycleEvent() {
+      @Override
+      public void fire( long cycle ) {
+        mem.writeByte( 0x12, mem.readByte( 0x12 ) + 1 );
+      }
+    };
+    bus.connectDevice( new BusDevice() {
+      @Override
+      public int readByte( long address ) {
+        return 0;
+      }
+
+      @Override
+      public void writeByte( long address, int value ) {
+        cpu.requestIRQ();
+        cpu.getScheduler().schedule( echo, cpu.getCycles() + 100 );
+      }
+    }, DOORBELL, DOORBELL );
+
+    //stop every time the handler is entered
+    final int[] suspended = new int[1];
+    Breakpoints breakpoints = bus.getBreakpoints();
+    breakpoints.setListener( new DebugListener() {
+      @Override
+      public boolean breakpointHit( int address ) {
+        suspended[0]++;
+        return true;
+      }
+
+      @Override
+      public void watchpointHit( long address, int value, boolean write ) {
+      }
+    } );
+    breakpoints.arm( Breakpoints.EXECUTE, 0x0300, 0x0300 );
+
+    TimeMachine machine = new TimeMachine( cpu, bus, 1000, 4, mem );
+    machine.attach();
+    long[][] live = new long[STEPS + 1][];
+    live[0] = state( cpu, mem );
+    while( machine.getPosition() < STEPS ) {
+      if( machine.step() ) {
+        live[(int)machine.getPosition()] = state( cpu, mem );
+      }
+      else {
+        assert( cpu.isSuspended() && cpu.getProgramCounter() == 0x0300 );
+      }
+    }
+    assert( mem.readByte( 0x10 ) > 10 ) : "Too few timer interrupts";
+    assert( mem.readByte( 0x12 ) == 1 ) : "Doorbell not rung";
+    int interrupts = mem.readByte( 0x10 );
+    assert( suspended[0] == interrupts ) : suspended[0];
+
+    //the first snapshot is from before the timer was started
+    int[] targets = { STEPS, STEPS - 1, 2000, 999, 700, 300, 280, 270, 200,
+                      100, 8, 7, 6, 0 };
+    for( int target : targets ) {
+      assert( machine.seek( target ) );
+      assert( Arrays.equals( state( cpu, mem ), live[target] ) ) :
+        "Replay diverged at " + target;
+    }
+    assert( suspended[0] == interrupts ) : "Replay stopped";
+    machine.detach();
+  }
+
+  /**
+   * Captures what the program can observe.
+   * @param cpu The CPU
+   * @param mem The memory holding the counters
+   * @return The registers, cycles and counters
+   */
+  private static long[] state( CPU6502 cpu, RandomAccessMemory mem ) {
+    return new long[] {
+      cpu.getAccumulator(), cpu.getXRegister(), cpu.getYRegister(),
+      cpu.getStackPointer(), cpu.getProgramCounter(),
+      cpu.getStatusRegister(), cpu.getCycles(),
+      cpu.isIRQRequested() ? 1 : 0, cpu.isNMIRequested() ? 1 : 0,
+      mem.readByte( 0x10 ), mem.readByte( 0x11 ), mem.readByte( 0x12 )
+    };
+  }
+
+  /**
+   * Copies code into memory.
+   * @param mem The memory
+   * @param address The first address
+   * @param code The bytes
+   */
+  private static void load( RandomAccessMemory mem, int address,
+                            int[] code ) {
+    for( int i = 0; i < code.length; i++ ) {
+      mem.writeByte( address + i, code[i] );
+    }
+  }
+
+  /**
+   * Points an interrupt vector at a routine.
+   * @param mem The memory
+   * @param vector The address of the vector
+   * @param address The routine
+   */
+  private static void vector( RandomAccessMemory mem, int vector,
+                              int address ) {
+    mem.writeByte( vector, address & 0xFF );
+    mem.writeByte( vector + 1, address >> 8 );
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Bus;
+import System.CPU6502;
+import System.RandomAccessMemory;
+import System.TraceBuffer;
+import Tools.TraceWriter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * <p>Streams the trace of a run to a file while the CPU keeps running, with
+ * a ring small enough for the writer to fall behind, then checks every
+ * record in the file against a run without tracing. Records lost to the
+ * writer must be counted as dropped, and no record may be torn.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class TraceTest {
+
+  private static final int STEPS = 200000;
+
+  /* 0x0200: LDX #$FF     ;X = 0xFF
+   * 0x0202: DEX          ;X--
+   * 0x0203: TXA          ;A = X
+   * 0x0204: STA $10      ;*0x10 = A
+   * 0x0206: BNE #$FA     ;if X != 0, PC -= 6
+   * 0x0208: INY          ;Y++
+   * 0x0209: CLV          ;V = 0
+   * 0x020A: BVC #$F4     ;start over
+   */
+  private static final int[] PROGRAM = {
+    0xA2, 0xFF, 0xCA, 0x8A, 0x85, 0x10, 0xD0, 0xFA, 0xC8, 0xB8, 0x50, 0xF4
+  };
+
+  public static void main( String[] args ) throws IOException {
+
+    //the reference run, one entry per step
+    CPU6502 reference = boot();
+    long[] cycles = new long[STEPS];
+    int[] pcs = new int[STEPS];
+    int[] registers = new int[STEPS];
+    for( int i = 0; i < STEPS; i++ ) {
+      pcs[i] = reference.getProgramCounter();
+      reference.step();
+      cycles[i] = reference.getCycles();
+      registers[i] = reference.getAccumulator() << 16 |
+                     reference.getXRegister() << 8 |
+                     reference.getYRegister();
+    }
+
+    CPU6502 cpu = boot();
+    TraceBuffer trace = new TraceBuffer( 256 );
+    cpu.setTraceBuffer( trace );
+    File file = File.createTempFile( "trace", ".bin" );
+    file.deleteOnExit();
+    TraceWriter writer = new TraceWriter( trace, file );
+    writer.start();
+    for( int i = 0; i < STEPS; i++ ) {
+      cpu.step();
+    }
+    writer.close();
+
+    ByteBuffer data = ByteBuffer.wrap( Files.readAllBytes( file.toPath() ) )
+                                .order( ByteOrder.LITTLE_ENDIAN );
+    assert( data.getInt( 0 ) == TraceBuffer.MAGIC );
+    int records = ( data.limit() - TraceBuffer.HEADER_SIZE ) /
+                  TraceBuffer.RECORD_SIZE;
+    assert( records + writer.getDropped() == STEPS ) :
+      records + " written, " + writer.getDropped() + " dropped";
+
+    long previous = -1;
+    for( int r = 0; r < records; r++ ) {
+      int base = TraceBuffer.HEADER_SIZE + r * TraceBuffer.RECORD_SIZE;
+      long cycle = data.getLong( base + TraceBuffer.CYCLE );
+      assert( cycle > previous );
+      previous = cycle;
+
+      int i = Arrays.binarySearch( cycles, cycle );
+      assert( i >= 0 ) : "no step ends at cycle " + cycle;
+      assert( ( data.getShort( base + TraceBuffer.PC ) & 0xFFFF ) == pcs[i] );
+      int a = data.get( base + TraceBuffer.A ) & 0xFF;
+      int x = data.get( base + TraceBuffer.X ) & 0xFF;
+      int y = data.get( base + TraceBuffer.Y ) & 0xFF;
+      assert( ( a << 16 | x << 8 | y ) == registers[i] ) :
+        "torn record at cycle " + cycle;
+    }
+
+    System.out.println( records + " records written, " + writer.getDropped() +
+                        " dropped" );
+  }
+
+  /**
+   * Builds a machine with the program at 0x0200 and resets its CPU.
+   * @return The CPU
+   */
+  private static CPU6502 boot() {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0, 0xFFFF );
+    for( int i = 0; i < PROGRAM.length; i++ ) {
+      mem.writeByte( 0x0200 + i, PROGRAM[i] );
+    }
+    CPU6502 cpu = new CPU6502( bus );
+    cpu.setFusionEnabled( false );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    return cpu;
+  }
+}
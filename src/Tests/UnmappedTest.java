@@ -0,0 +1,120 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tests;
+
+import System.Bus;
+import System.CPU6502;
+import System.InaddressableException;
+import System.RandomAccessMemory;
+import System.UnmappedDevice;
+import System.UnmappedHandler;
+
+/**
+ * <p>Runs accesses to an unmapped page under each policy: open bus reads
+ * back the last value on the data lines, also when the CPU fetches an
+ * operand from the hole, IGNORE reads the pulled-up lines, COUNT counts,
+ * and TRAP hands accesses to the handler or throws without one.</p>
+ * <p>Run with -ea so a failure stops the test.</p>
+ */
+public class UnmappedTest {
+
+  //Nothing is connected from here to the end of the page
+  private static final int HOLE = 0x8000;
+
+  public static void main( String[] args ) {
+    RandomAccessMemory mem = new RandomAccessMemory( 0x10000 );
+    Bus bus = new Bus();
+    bus.connectDevice( mem, 0x0000, HOLE - 1 );
+    bus.connectDevice( mem, HOLE + 0x100, 0xFFFF );
+    UnmappedDevice unmapped = bus.getUnmapped();
+    assert( unmapped.getPolicy() == UnmappedDevice.OPEN_BUS );
+
+    //open bus: the last byte read or written lingers
+    mem.writeByte( 0x10, 0x5A );
+    assert( bus.readByte( 0x10 ) == 0x5A );
+    assert( bus.readByte( HOLE ) == 0x5A );
+    bus.writeByte( HOLE + 1, 0x33 );
+    assert( bus.readByte( HOLE + 2 ) == 0x33 );
+    bus.writeByte( 0x20, 0xC4 );
+    assert( bus.readByte( HOLE + 3 ) == 0xC4 );
+
+    //LDA $8000 reads back the high byte of its own operand
+    mem.writeByte( 0x0200, 0xAD );
+    mem.writeByte( 0x0201, HOLE & 0xFF );
+    mem.writeByte( 0x0202, HOLE >> 8 );
+    CPU6502 cpu = new CPU6502( bus );
+    mem.writeByte( cpu.getRESTVector(), 0x00 );
+    mem.writeByte( cpu.getRESTVector() + 1, 0x02 );
+    cpu.reset();
+    cpu.step();
+    assert( cpu.getAccumulator() == HOLE >> 8 ) :
+      Integer.toHexString( cpu.getAccumulator() );
+
+    //ignore: pulled up, nothing counted
+    unmapped.setPolicy( UnmappedDevice.IGNORE );
+    assert( bus.readByte( HOLE ) == 0xFF );
+    bus.writeByte( HOLE, 0x00 );
+    assert( unmapped.getReads() == 0 && unmapped.getWrites() == 0 );
+
+    //count: open bus while counting
+    unmapped.setPolicy( UnmappedDevice.COUNT );
+    bus.writeByte( 0x30, 0x77 );
+    assert( bus.readByte( HOLE + 0x80 ) == 0x77 );
+    assert( bus.readByte( HOLE + 0xFF ) == 0x77 );
+    bus.writeByte( HOLE, 0x01 );
+    assert( unmapped.getReads() == 2 && unmapped.getWrites() == 1 );
+    assert( bus.readByte( 0x30 ) == 0x77 );
+    assert( unmapped.getReads() == 2 ) : "Mapped read counted";
+    unmapped.resetCounts();
+    assert( unmapped.getReads() == 0 && unmapped.getWrites() == 0 );
+
+    //trap without a handler throws
+    unmapped.setPolicy( UnmappedDevice.TRAP );
+    boolean thrown = false;
+    try {
+      bus.readByte( HOLE );
+    }
+    catch( InaddressableException e ) {
+      thrown = true;
+    }
+    assert( thrown );
+
+    //and with one, the handler answers
+    final long[] written = { -1, -1 };
+    unmapped.setHandler( new UnmappedHandler() {
+      @Override
+      public int unmappedRead( long address ) {
+        return (int)address + 0x100; //only the low byte is seen
+      }
+
+      @Override
+      public void unmappedWrite( long address, int value ) {
+        written[0] = address;
+        written[1] = value;
+      }
+    } );
+    assert( bus.readByte( HOLE + 0x42 ) == 0x42 );
+    bus.writeByte( HOLE + 0x43, 0x99 );
+    assert( written[0] == HOLE + 0x43 && written[1] == 0x99 );
+
+    //a device connected into the hole takes it back from the policy
+    bus.connectDevice( mem, HOLE, HOLE );
+    mem.writeByte( HOLE, 0x12 );
+    assert( bus.readByte( HOLE ) == 0x12 );
+
+    boolean rejected = false;
+    try {
+      unmapped.setPolicy( UnmappedDevice.TRAP + 1 );
+    }
+    catch( IllegalArgumentException e ) {
+      rejected = true;
+    }
+    assert( rejected && unmapped.getPolicy() == UnmappedDevice.TRAP );
+
+    System.out.println( "UnmappedTest passed" );
+  }
+}
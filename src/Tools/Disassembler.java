@@ -0,0 +1,726 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://archive.6502.org/books/mcs6500_family_hardware_manual.pdf
+ *   http://nparker.llx.com/a2/opcodes.html
+ */
+
+package Tools;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * <p>A standalone 6502 disassembler. It works on memory images and trace
+ * records and never touches a live CPU, so disassembly costs nothing on the
+ * execution path.</p>
+ * <p>Images can be listed two ways:</p>
+ * <ul>
+ * <li>Linear - every byte is decoded in order. Large images are split into
+ * chunks decoded in parallel, then stitched together exactly as a single
+ * sequential pass would have decoded them.</li>
+ * <li>Flow - code is followed from the reset, NMI and IRQ vectors (and any
+ * other entry points) through jumps, calls and branches. Everything never
+ * reached is listed as data.</li>
+ * </ul>
+ * <p>Usage: Disassembler &lt;image&gt; &lt;origin in hex&gt; [-flow]
+ * [symbol file]</p>
+ */
+public class Disassembler {
+
+  //Addressing modes
+  public static final int IMP = 0;
+  public static final int ACC = 1;
+  public static final int IMM = 2;
+  public static final int ZPG = 3;
+  public static final int ZPX = 4;
+  public static final int ZPY = 5;
+  public static final int ABS = 6;
+  public static final int ABX = 7;
+  public static final int ABY = 8;
+  public static final int IND = 9;
+  public static final int IZX = 10;
+  public static final int IZY = 11;
+  public static final int REL = 12;
+  public static final int INV = 13;
+
+  //Instruction length of each addressing mode
+  private static final int[] LENGTHS = {
+    1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 2, 2, 2, 1
+  };
+
+  //Interrupt vectors followed by flow listings
+  private static final int[] VECTORS = { 0xFFFA, 0xFFFC, 0xFFFE };
+
+  //Linear listings smaller than this are not worth splitting
+  private static final int MIN_CHUNK = 4096;
+
+  private static final String[] MNEMONICS = new String[256];
+  private static final int[] MODES = new int[256];
+
+  static {
+    Arrays.fill( MNEMONICS, "???" );
+    Arrays.fill( MODES, INV );
+
+    define( 0x00, "BRK", IMP );
+    define( 0x01, "ORA", IZX );
+    define( 0x02, "HST", IMP ); //host call trap, not a 6502 opcode
+    define( 0x05, "ORA", ZPG );
+    define( 0x06, "ASL", ZPG );
+    define( 0x08, "PHP", IMP );
+    define( 0x09, "ORA", IMM );
+    define( 0x0A, "ASL", ACC );
+    define( 0x0D, "ORA", ABS );
+    define( 0x0E, "ASL", ABS );
+
+    define( 0x10, "BPL", REL );
+    define( 0x11, "ORA", IZY );
+    define( 0x15, "ORA", ZPX );
+    define( 0x16, "ASL", ZPX );
+    define( 0x18, "CLC", IMP );
+    define( 0x19, "ORA", ABY );
+    define( 0x1D, "ORA", ABX );
+    define( 0x1E, "ASL", ABX );
+
+    define( 0x20, "JSR", ABS );
+    define( 0x21, "AND", IZX );
+    define( 0x24, "BIT", ZPG );
+    define( 0x25, "AND", ZPG );
+    define( 0x26, "ROL", ZPG );
+    define( 0x28, "PLP", IMP );
+    define( 0x29, "AND", IMM );
+    define( 0x2A, "ROL", ACC );
+    define( 0x2C, "BIT", ABS );
+    define( 0x2D, "AND", ABS );
+    define( 0x2E, "ROL", ABS );
+
+    define( 0x30, "BMI", REL );
+    define( 0x31, "AND", IZY );
+    define( 0x35, "AND", ZPX );
+    define( 0x36, "ROL", ZPX );
+    define( 0x38, "SEC", IMP );
+    define( 0x39, "AND", ABY );
+    define( 0x3D, "AND", ABX );
+    define( 0x3E, "ROL", ABX );
+
+    define( 0x40, "RTI", IMP );
+    define( 0x41, "EOR", IZX );
+    define( 0x45, "EOR", ZPG );
+    define( 0x46, "LSR", ZPG );
+    define( 0x48, "PHA", IMP );
+    define( 0x49, "EOR", IMM );
+    define( 0x4A, "LSR", ACC );
+    define( 0x4C, "JMP", ABS );
+    define( 0x4D, "EOR", ABS );
+    define( 0x4E, "LSR", ABS );
+
+    define( 0x50, "BVC", REL );
+    define( 0x51, "EOR", IZY );
+    define( 0x55, "EOR", ZPX );
+    define( 0x56, "LSR", ZPX );
+    define( 0x58, "CLI", IMP );
+    define( 0x59, "EOR", ABY );
+    define( 0x5D, "EOR", ABX );
+    define( 0x5E, "LSR", ABX );
+
+    define( 0x60, "RTS", IMP );
+    define( 0x61, "ADC", IZX );
+    define( 0x65, "ADC", ZPG );
+    define( 0x66, "ROR", ZPG );
+    define( 0x68, "PLA", IMP );
+    define( 0x69, "ADC", IMM );
+    define( 0x6A, "ROR", ACC );
+    define( 0x6C, "JMP", IND );
+    define( 0x6D, "ADC", ABS );
+    define( 0x6E, "ROR", ABS );
+
+    define( 0x70, "BVS", REL );
+    define( 0x71, "ADC", IZY );
+    define( 0x75, "ADC", ZPX );
+    define( 0x76, "ROR", ZPX );
+    define( 0x78, "SEI", IMP );
+    define( 0x79, "ADC", ABY );
+    define( 0x7D, "ADC", ABX );
+    define( 0x7E, "ROR", ABX );
+
+    define( 0x81, "STA", IZX );
+    define( 0x84, "STY", ZPG );
+    define( 0x85, "STA", ZPG );
+    define( 0x86, "STX", ZPG );
+    define( 0x88, "DEY", IMP );
+    define( 0x8A, "TXA", IMP );
+    define( 0x8C, "STY", ABS );
+    define( 0x8D, "STA", ABS );
+    define( 0x8E, "STX", ABS );
+
+    define( 0x90, "BCC", REL );
+    define( 0x91, "STA", IZY );
+    define( 0x94, "STY", ZPX );
+    define( 0x95, "STA", ZPX );
+    define( 0x96, "STX", ZPY );
+    define( 0x98, "TYA", IMP );
+    define( 0x99, "STA", ABY );
+    define( 0x9A, "TXS", IMP );
+    define( 0x9D, "STA", ABX );
+
+    define( 0xA0, "LDY", IMM );
+    define( 0xA1, "LDA", IZX );
+    define( 0xA2, "LDX", IMM );
+    define( 0xA4, "LDY", ZPG );
+    define( 0xA5, "LDA", ZPG );
+    define( 0xA6, "LDX", ZPG );
+    define( 0xA8, "TAY", IMP );
+    define( 0xA9, "LDA", IMM );
+    define( 0xAA, "TAX", IMP );
+    define( 0xAC, "LDY", ABS );
+    define( 0xAD, "LDA", ABS );
+    define( 0xAE, "LDX", ABS );
+
+    define( 0xB0, "BCS", REL );
+    define( 0xB1, "LDA", IZY );
+    define( 0xB4, "LDY", ZPX );
+    define( 0xB5, "LDA", ZPX );
+    define( 0xB6, "LDX", ZPY );
+    define( 0xB8, "CLV", IMP );
+    define( 0xB9, "LDA", ABY );
+    define( 0xBA, "TSX", IMP );
+    define( 0xBC, "LDY", ABX );
+    define( 0xBD, "LDA", ABX );
+    define( 0xBE, "LDX", ABY );
+
+    define( 0xC0, "CPY", IMM );
+    define( 0xC1, "CMP", IZX );
+    define( 0xC4, "CPY", ZPG );
+    define( 0xC5, "CMP", ZPG );
+    define( 0xC6, "DEC", ZPG );
+    define( 0xC8, "INY", IMP );
+    define( 0xC9, "CMP", IMM );
+    define( 0xCA, "DEX", IMP );
+    define( 0xCC, "CPY", ABS );
+    define( 0xCD, "CMP", ABS );
+    define( 0xCE, "DEC", ABS );
+
+    define( 0xD0, "BNE", REL );
+    define( 0xD1, "CMP", IZY );
+    define( 0xD5, "CMP", ZPX );
+    define( 0xD6, "DEC", ZPX );
+    define( 0xD8, "CLD", IMP );
+    define( 0xD9, "CMP", ABY );
+    define( 0xDD, "CMP", ABX );
+    define( 0xDE, "DEC", ABX );
+
+    define( 0xE0, "CPX", IMM );
+    define( 0xE1, "SBC", IZX );
+    define( 0xE4, "CPX", ZPG );
+    define( 0xE5, "SBC", ZPG );
+    define( 0xE6, "INC", ZPG );
+    define( 0xE8, "INX", IMP );
+    define( 0xE9, "SBC", IMM );
+    define( 0xEA, "NOP", IMP );
+    define( 0xEC, "CPX", ABS );
+    define( 0xED, "SBC", ABS );
+    define( 0xEE, "INC", ABS );
+
+    define( 0xF0, "BEQ", REL );
+    define( 0xF1, "SBC", IZY );
+    define( 0xF5, "SBC", ZPX );
+    define( 0xF6, "INC", ZPX );
+    define( 0xF8, "SED", IMP );
+    define( 0xF9, "SBC", ABY );
+    define( 0xFD, "SBC", ABX );
+    define( 0xFE, "INC", ABX );
+  }
+
+  private final byte[] image;
+  private final int origin;
+  private SymbolTable symbols;
+
+  /**
+   * Constructs a disassembler over a memory image.
+   * @param image The bytes of the image
+   * @param origin The guest address of the first byte
+   * @throws IllegalArgumentException If the image does not fit in 64K at the
+   * origin
+   */
+  public Disassembler( byte[] image, int origin )
+    throws IllegalArgumentException {
+    if( origin < 0 || origin + image.length > 0x10000 ) {
+      throw new IllegalArgumentException( "Image does not fit at origin " +
+                                          Integer.toHexString( origin ) );
+    }
+    this.image = image;
+    this.origin = origin;
+  }
+
+  /**
+   * Reads a memory image, such as one written by Memory.dump().
+   * @param file The image file
+   * @param origin The guest address of the first byte
+   * @return A disassembler over the image
+   * @throws IOException if the file could not be read from or does not exist
+   */
+  public static Disassembler load( File file, int origin ) throws IOException {
+    byte[] data = new byte[(int)file.length()];
+    DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+    try {
+      in.readFully( data );
+    }
+    finally {
+      in.close();
+    }
+    return new Disassembler( data, origin );
+  }
+
+  public static void main( String[] args ) throws Exception {
+    if( args.length < 2 ) {
+      System.err.println( "Usage: Disassembler <image> <origin in hex> " +
+                          "[-flow] [symbol file]" );
+      return;
+    }
+
+    Disassembler dis = load( new File( args[0] ),
+                             Integer.parseInt( args[1], 16 ) );
+    boolean flow = false;
+    for( int i = 2; i < args.length; i++ ) {
+      if( args[i].equals( "-flow" ) ) {
+        flow = true;
+      }
+      else {
+        dis.setSymbols( SymbolTable.load( new File( args[i] ) ) );
+      }
+    }
+
+    PrintStream out = new PrintStream( new BufferedOutputStream( System.out ) );
+    if( flow ) {
+      dis.writeFlowListing( out );
+    }
+    else {
+      dis.writeLinearListing( out );
+    }
+    out.flush();
+  }
+
+  /**
+   * Names addresses in listings.
+   * @param symbols The symbol table, or null to print plain addresses
+   */
+  public void setSymbols( SymbolTable symbols ) {
+    this.symbols = symbols;
+  }
+
+  /**
+   * The mnemonic of an opcode
+   * @param opcode The opcode
+   * @return The three letter mnemonic, or ??? if the opcode is undefined
+   */
+  public static String mnemonic( int opcode ) {
+    return MNEMONICS[opcode & 0xFF];
+  }
+
+  /**
+   * The addressing mode of an opcode
+   * @param opcode The opcode
+   * @return One of the addressing mode constants
+   */
+  public static int mode( int opcode ) {
+    return MODES[opcode & 0xFF];
+  }
+
+  /**
+   * The number of bytes taken by an instruction
+   * @param opcode The opcode
+   * @return 1, 2 or 3
+   */
+  public static int length( int opcode ) {
+    return LENGTHS[MODES[opcode & 0xFF]];
+  }
+
+  /**
+   * Formats an instruction, as read from memory or a trace record.
+   * @param pc The address of the opcode
+   * @param opcode The opcode
+   * @param operand The operand, low byte first; only the bytes the
+   *                instruction uses are looked at
+   * @param symbols Names for addresses, or null
+   * @return The instruction in assembler syntax
+   */
+  public static String format( int pc, int opcode, int operand,
+                               SymbolTable symbols ) {
+    opcode &= 0xFF;
+    int mode = MODES[opcode];
+    int zp = operand & 0xFF;
+    int word = operand & 0xFFFF;
+    String name = MNEMONICS[opcode];
+
+    switch( mode ) {
+      case IMP:
+        return name;
+      case ACC:
+        return name + " A";
+      case IMM:
+        return String.format( "%s #$%02X", name, zp );
+      case ZPG:
+        return String.format( "%s $%02X", name, zp );
+      case ZPX:
+        return String.format( "%s $%02X,X", name, zp );
+      case ZPY:
+        return String.format( "%s $%02X,Y", name, zp );
+      case ABS:
+        return name + " " + address( word, symbols );
+      case ABX:
+        return name + " " + address( word, symbols ) + ",X";
+      case ABY:
+        return name + " " + address( word, symbols ) + ",Y";
+      case IND:
+        return name + " (" + address( word, symbols ) + ")";
+      case IZX:
+        return String.format( "%s ($%02X,X)", name, zp );
+      case IZY:
+        return String.format( "%s ($%02X),Y", name, zp );
+      case REL:
+        return name + " " + address( branchTarget( pc, zp ), symbols );
+      default:
+        return String.format( ".byte $%02X", opcode );
+    }
+  }
+
+  /**
+   * Formats the instruction at an address of the image.
+   * @param address The guest address of the opcode
+   * @return The instruction in assembler syntax
+   */
+  public String disassemble( int address ) {
+    int offset = address - origin;
+    return format( address, byteAt( offset ), word( offset + 1 ), symbols );
+  }
+
+  /**
+   * Lists every byte of the image in order, decoding in parallel.
+   * @param out The stream to print to
+   * @throws InterruptedException if interrupted while waiting on a chunk
+   */
+  public void writeLinearListing( PrintStream out )
+    throws InterruptedException {
+    boolean[] starts = linearStarts();
+    writeListing( starts, labels( starts ), out );
+  }
+
+  /**
+   * Lists the image, decoding only what is reachable from the interrupt
+   * vectors and the given entry points.
+   * @param out The stream to print to
+   * @param entries Further guest addresses known to hold code
+   */
+  public void writeFlowListing( PrintStream out, int... entries ) {
+    boolean[] starts = flowStarts( entries );
+    writeListing( starts, labels( starts ), out );
+  }
+
+  /**
+   * Finds instruction starts with a linear sweep, split into chunks that
+   * are swept in parallel and stitched together afterwards.
+   * @return Whether each offset starts an instruction
+   * @throws InterruptedException if interrupted while waiting on a chunk
+   */
+  boolean[] linearStarts() throws InterruptedException {
+    int workers = Runtime.getRuntime().availableProcessors();
+    int chunk = Math.max( MIN_CHUNK, ( image.length + workers - 1 ) / workers );
+    int chunks = Math.max( 1, ( image.length + chunk - 1 ) / chunk );
+
+    //sweep every chunk from its first byte
+    ExecutorService pool = Executors.newFixedThreadPool(
+      Math.min( workers, chunks ) );
+    List< Future< int[] > > sweeps = new ArrayList< Future< int[] > >();
+    try {
+      for( int i = 0; i < chunks; i++ ) {
+        final int from = i * chunk;
+        final int to = Math.min( image.length, from + chunk );
+        sweeps.add( pool.submit( new Callable< int[] >() {
+          @Override
+          public int[] call() {
+            return sweep( from, to );
+          }
+        } ) );
+      }
+
+      //a chunk that starts mid-instruction is resynchronised to where the
+      //previous chunk's last instruction actually ended
+      boolean[] starts = new boolean[image.length];
+      int next = 0;
+      for( int i = 0; i < chunks; i++ ) {
+        int[] found = sweeps.get( i ).get();
+        int end = Math.min( image.length, ( i + 1 ) * chunk );
+
+        int k = 0;
+        while( k < found.length && found[k] < next ) {
+          k++;
+        }
+        while( next < end && ( k == found.length || found[k] != next ) ) {
+          starts[next] = true;
+          next += length( image[next] );
+          while( k < found.length && found[k] < next ) {
+            k++;
+          }
+        }
+        for( ; k < found.length; k++ ) {
+          starts[found[k]] = true;
+          next = found[k] + length( image[found[k]] );
+        }
+      }
+      return starts;
+    }
+    catch( ExecutionException e ) {
+      throw new IllegalStateException( e.getCause() );
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Decodes sequentially from an offset.
+   * @param from The offset of the first opcode
+   * @param to The offset past which no instruction starts
+   * @return The offsets of every instruction start, in order
+   */
+  private int[] sweep( int from, int to ) {
+    int[] found = new int[to - from];
+    int count = 0;
+    for( int offset = from; offset < to; offset += length( image[offset] ) ) {
+      found[count++] = offset;
+    }
+    return Arrays.copyOf( found, count );
+  }
+
+  /**
+   * Finds instruction starts by following code from its entry points.
+   * @param entries Guest addresses known to hold code
+   * @return Whether each offset starts an instruction
+   */
+  boolean[] flowStarts( int... entries ) {
+    boolean[] starts = new boolean[image.length];
+    boolean[] covered = new boolean[image.length];
+    Deque< Integer > work = new ArrayDeque< Integer >();
+
+    for( int vector : VECTORS ) {
+      if( contains( vector ) && contains( vector + 1 ) ) {
+        work.push( word( vector - origin ) );
+      }
+    }
+    for( int entry : entries ) {
+      work.push( entry & 0xFFFF );
+    }
+
+    while( !work.isEmpty() ) {
+      int address = work.pop();
+
+      while( contains( address ) && !covered[address - origin] ) {
+        int offset = address - origin;
+        int opcode = image[offset] & 0xFF;
+        int length = length( opcode );
+
+        starts[offset] = true;
+        for( int i = 0; i < length && offset + i < image.length; i++ ) {
+          covered[offset + i] = true;
+        }
+
+        int mode = MODES[opcode];
+        String name = MNEMONICS[opcode];
+        if( mode == REL ) {
+          work.push( branchTarget( address, byteAt( offset + 1 ) ) );
+        }
+        else if( name.equals( "JSR" ) ) {
+          work.push( word( offset + 1 ) );
+        }
+        else if( name.equals( "JMP" ) ) {
+          if( mode == ABS ) {
+            work.push( word( offset + 1 ) );
+          }
+          else {
+            int pointer = word( offset + 1 );
+            if( contains( pointer ) && contains( pointer + 1 ) ) {
+              work.push( word( pointer - origin ) );
+            }
+          }
+          break;
+        }
+
+        //nothing falls through these
+        if( mode == INV || name.equals( "RTS" ) || name.equals( "RTI" ) ||
+            name.equals( "BRK" ) ) {
+          break;
+        }
+
+        address += length;
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * Finds the guest addresses targeted by jumps, calls and branches.
+   * @param starts Whether each offset starts an instruction
+   * @return Whether each offset is a target
+   */
+  private boolean[] labels( boolean[] starts ) {
+    boolean[] targets = new boolean[image.length];
+    for( int offset = 0; offset < image.length; offset++ ) {
+      if( !starts[offset] ) {
+        continue;
+      }
+
+      int opcode = image[offset] & 0xFF;
+      int target = -1;
+      if( MODES[opcode] == REL ) {
+        target = branchTarget( origin + offset, byteAt( offset + 1 ) );
+      }
+      else if( MODES[opcode] == ABS && ( MNEMONICS[opcode].equals( "JSR" ) ||
+                                         MNEMONICS[opcode].equals( "JMP" ) ) ) {
+        target = word( offset + 1 );
+      }
+
+      if( contains( target ) ) {
+        targets[target - origin] = true;
+      }
+    }
+    return targets;
+  }
+
+  /**
+   * Prints the listing, with code and data as marked.
+   * @param starts Whether each offset starts an instruction
+   * @param targets Whether each offset needs a label
+   * @param out The stream to print to
+   */
+  private void writeListing( boolean[] starts, boolean[] targets,
+                             PrintStream out ) {
+    SymbolTable names = labelling( targets );
+    int offset = 0;
+    while( offset < image.length ) {
+      int address = origin + offset;
+
+      if( names.lookup( address ) != null ) {
+        out.println( names.lookup( address ) + ":" );
+      }
+
+      if( starts[offset] && offset + length( image[offset] ) <= image.length ) {
+        int length = length( image[offset] );
+        StringBuilder bytes = new StringBuilder();
+        for( int i = 0; i < length; i++ ) {
+          bytes.append( String.format( "%02X ", image[offset + i] & 0xFF ) );
+        }
+        out.printf( "%04X  %-9s  %s\n", address, bytes,
+                    format( address, image[offset], word( offset + 1 ),
+                            names ) );
+        offset += length;
+      }
+      else {
+        //group data up to the next instruction or label, 8 bytes a line
+        int end = offset + 1;
+        while( end < image.length && end - offset < 8 && !starts[end] &&
+               !targets[end] ) {
+          end++;
+        }
+
+        StringBuilder bytes = new StringBuilder( ".byte " );
+        for( int i = offset; i < end; i++ ) {
+          bytes.append( i == offset ? "" : "," );
+          bytes.append( String.format( "$%02X", image[i] & 0xFF ) );
+        }
+        out.printf( "%04X  %-9s  %s\n", address, "", bytes );
+        offset = end;
+      }
+    }
+  }
+
+  /**
+   * A symbol table that also names unlabelled jump targets.
+   * @param targets Whether each offset needs a label
+   * @return The symbol table to format operands with
+   */
+  private SymbolTable labelling( boolean[] targets ) {
+    SymbolTable names = symbols != null ? new SymbolTable( symbols )
+                                        : new SymbolTable();
+    for( int offset = 0; offset < image.length; offset++ ) {
+      if( targets[offset] ) {
+        names.define( origin + offset, label( origin + offset ) );
+      }
+    }
+    return names;
+  }
+
+  /**
+   * The label printed for a target.
+   * @param address The guest address
+   * @return Its symbol, or LHHLL
+   */
+  private String label( int address ) {
+    String name = symbols != null ? symbols.lookup( address ) : null;
+    return name != null ? name : String.format( "L%04X", address );
+  }
+
+  /**
+   * Formats an address operand.
+   * @param address The 16-bit address
+   * @param symbols Names for addresses, or null
+   * @return The symbol, or $HHLL
+   */
+  private static String address( int address, SymbolTable symbols ) {
+    return symbols != null ? symbols.nameOf( address )
+                           : String.format( "$%04X", address );
+  }
+
+  /**
+   * The target of a relative branch.
+   * @param pc The address of the branch opcode
+   * @param offset The unsigned 8-bit offset operand
+   * @return The 16-bit target address
+   */
+  private static int branchTarget( int pc, int offset ) {
+    return ( pc + 2 + (byte)offset ) & 0xFFFF;
+  }
+
+  /**
+   * Whether a guest address lies inside the image
+   * @param address The guest address
+   * @return True if the image holds the address
+   */
+  private boolean contains( int address ) {
+    return address >= origin && address < origin + image.length;
+  }
+
+  /**
+   * Reads a byte of the image, or 0 past its end.
+   * @param offset The offset into the image
+   * @return The unsigned byte
+   */
+  private int byteAt( int offset ) {
+    return offset >= 0 && offset < image.length ? image[offset] & 0xFF : 0;
+  }
+
+  /**
+   * Reads a little-endian word of the image.
+   * @param offset The offset of the low byte
+   * @return The 16-bit word
+   */
+  private int word( int offset ) {
+    return byteAt( offset ) | ( byteAt( offset + 1 ) << 8 );
+  }
+
+  /**
+   * Adds an opcode to the tables.
+   * @param opcode The opcode
+   * @param mnemonic Its mnemonic
+   * @param mode Its addressing mode
+   */
+  private static void define( int opcode, String mnemonic, int mode ) {
+    MNEMONICS[opcode] = mnemonic;
+    MODES[opcode] = mode;
+  }
+}
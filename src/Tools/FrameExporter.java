@@ -0,0 +1,312 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://netpbm.sourceforge.net/doc/ppm.html
+ */
+
+package Tools;
+
+import Peripherals.FrameSink;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Captures the frames of a display without showing them, for regression
+ * tests and monitoring. Frames are copied into a bounded queue and encoded
+ * by worker threads, as numbered PPM or PNG files, or appended to a single
+ * stream of raw frames.</p>
+ * <p>A frame identical to the one before it, by a 64-bit content hash, is
+ * skipped. When every buffer is waiting to be encoded the frame is dropped
+ * instead of waiting, so capture never holds up the display.</p>
+ * <p>Raw frames are written as the frame number, width and height as
+ * big-endian integers followed by RGB bytes, row by row. They are written
+ * by a single worker to keep them in order.</p>
+ */
+public class FrameExporter implements FrameSink {
+
+  //Formats
+  public static final int PPM = 0;
+  public static final int PNG = 1;
+  public static final int RAW = 2;
+
+  //How long an idle worker waits before checking whether it was closed
+  private static final long IDLE_MILLIS = 10;
+
+  private final int format;
+  private final File directory;
+  private final String prefix;
+  private final DataOutputStream raw;
+
+  //Buffers free for copying, and frames waiting to be encoded
+  private final BlockingQueue< Frame > free;
+  private final BlockingQueue< Frame > queue;
+  private final Thread[] workers;
+
+  //Written by the display thread only
+  private long previousHash;
+  private boolean first;
+  private volatile long skipped;
+  private volatile long dropped;
+
+  private final AtomicLong written;
+  private volatile boolean running;
+
+  /**
+   * A frame waiting to be encoded
+   */
+  private static final class Frame {
+    int[] pixels;
+    int width;
+    int height;
+    long number;
+  }
+
+  /**
+   * Constructs an exporter writing one file per frame, named after the
+   * prefix and the frame number, and starts its workers.
+   * @param format PPM or PNG
+   * @param directory The directory to write into
+   * @param prefix The start of each file name
+   * @param buffers The number of frames that can wait to be encoded
+   * @param threads The number of worker threads
+   * @throws IllegalArgumentException If the format is not PPM or PNG, or
+   * buffers or threads is less than 1
+   */
+  public FrameExporter( int format, File directory, String prefix,
+                        int buffers, int threads )
+    throws IllegalArgumentException {
+    this( format, directory, prefix, null, buffers, threads );
+  }
+
+  /**
+   * Constructs an exporter appending raw frames to a stream, and starts its
+   * worker.
+   * @param out The stream to write to
+   * @param buffers The number of frames that can wait to be written
+   * @throws IllegalArgumentException If buffers is less than 1
+   */
+  public FrameExporter( OutputStream out, int buffers )
+    throws IllegalArgumentException {
+    this( RAW, null, null,
+          new DataOutputStream( new BufferedOutputStream( out ) ), buffers,
+          1 );
+  }
+
+  /**
+   * Constructs an exporter and starts its workers.
+   * @param format The format
+   * @param directory The directory files are written into
+   * @param prefix The start of each file name
+   * @param raw The stream raw frames are written to
+   * @param buffers The number of frames that can wait to be encoded
+   * @param threads The number of worker threads
+   * @throws IllegalArgumentException If the format does not match the
+   * output, or buffers or threads is less than 1
+   */
+  private FrameExporter( int format, File directory, String prefix,
+                         DataOutputStream raw, int buffers, int threads )
+    throws IllegalArgumentException {
+    if( format != PPM && format != PNG && format != RAW ||
+        ( format == RAW ) != ( raw != null ) ) {
+      throw new IllegalArgumentException( "Bad frame format: " + format );
+    }
+    if( buffers < 1 || threads < 1 ) {
+      throw new IllegalArgumentException( "Bad exporter capacity" );
+    }
+
+    this.format = format;
+    this.directory = directory;
+    this.prefix = prefix;
+    this.raw = raw;
+    free = new ArrayBlockingQueue< Frame >( buffers );
+    queue = new ArrayBlockingQueue< Frame >( buffers );
+    for( int i = 0; i < buffers; i++ ) {
+      free.add( new Frame() );
+    }
+    written = new AtomicLong();
+    first = true;
+
+    running = true;
+    workers = new Thread[threads];
+    for( int i = 0; i < threads; i++ ) {
+      workers[i] = new Thread( new Runnable() {
+        @Override
+        public void run() {
+          encodeLoop();
+        }
+      }, "6502 frame exporter " + i );
+      workers[i].setDaemon( true );
+      workers[i].start();
+    }
+  }
+
+  @Override
+  public void frame( int[] pixels, int width, int height, long[] dirty,
+                     long number ) {
+    int length = width * height;
+    long hash = 0xCBF29CE484222325L;
+    for( int i = 0; i < length; i++ ) {
+      hash = ( hash ^ pixels[i] ) * 0x100000001B3L;
+    }
+    if( !first && hash == previousHash ) {
+      skipped++;
+      return;
+    }
+
+    Frame frame = free.poll();
+    if( frame == null ) {
+      dropped++;
+      return;
+    }
+    first = false;
+    previousHash = hash;
+
+    if( frame.pixels == null || frame.pixels.length < length ) {
+      frame.pixels = new int[length];
+    }
+    System.arraycopy( pixels, 0, frame.pixels, 0, length );
+    frame.width = width;
+    frame.height = height;
+    frame.number = number;
+    queue.add( frame );
+  }
+
+  /**
+   * Waits for the frames already queued to be written, then stops the
+   * workers and closes the raw stream.
+   * @throws IOException If the raw stream could not be closed
+   */
+  public void close() throws IOException {
+    running = false;
+    for( Thread worker : workers ) {
+      try {
+        worker.join();
+      }
+      catch( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if( raw != null ) {
+      raw.close();
+    }
+  }
+
+  /**
+   * The number of frames encoded so far
+   * @return The number of frames written
+   */
+  public long getWritten() {
+    return written.get();
+  }
+
+  /**
+   * The number of frames identical to the one before them
+   * @return The number of skipped frames
+   */
+  public long getSkipped() {
+    return skipped;
+  }
+
+  /**
+   * The number of frames lost because the workers fell behind
+   * @return The number of dropped frames
+   */
+  public long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * Encodes queued frames until closed and the queue is empty. Workers are
+   * never interrupted, so a frame being written is not cut short.
+   */
+  private void encodeLoop() {
+    while( true ) {
+      Frame frame;
+      try {
+        frame = queue.poll( IDLE_MILLIS, TimeUnit.MILLISECONDS );
+      }
+      catch( InterruptedException e ) {
+        return;
+      }
+      if( frame == null ) {
+        if( running ) {
+          continue;
+        }
+        return;
+      }
+
+      try {
+        encode( frame );
+        written.incrementAndGet();
+      }
+      catch( IOException e ) {
+        System.err.println( "6502 - Frame " + frame.number +
+                            " not exported: " + e.getMessage() );
+      }
+      free.add( frame );
+    }
+  }
+
+  /**
+   * Writes a frame in the format of the exporter.
+   * @param frame The frame
+   * @throws IOException If the frame could not be written
+   */
+  private void encode( Frame frame ) throws IOException {
+    if( format == RAW ) {
+      raw.writeInt( (int)frame.number );
+      raw.writeInt( frame.width );
+      raw.writeInt( frame.height );
+      raw.write( rgb( frame ) );
+      raw.flush();
+      return;
+    }
+
+    String name = String.format( "%s%06d.%s", prefix, frame.number,
+                                 format == PPM ? "ppm" : "png" );
+    File file = new File( directory, name );
+    if( format == PPM ) {
+      OutputStream out = new BufferedOutputStream(
+        new FileOutputStream( file ) );
+      try {
+        out.write( ( "P6\n" + frame.width + " " + frame.height + "\n255\n" )
+                     .getBytes( "US-ASCII" ) );
+        out.write( rgb( frame ) );
+      }
+      finally {
+        out.close();
+      }
+    }
+    else {
+      BufferedImage image = new BufferedImage( frame.width, frame.height,
+                                               BufferedImage.TYPE_INT_RGB );
+      image.setRGB( 0, 0, frame.width, frame.height, frame.pixels, 0,
+                    frame.width );
+      ImageIO.write( image, "png", file );
+    }
+  }
+
+  /**
+   * Packs the pixels of a frame as RGB bytes.
+   * @param frame The frame
+   * @return Three bytes per pixel
+   */
+  private static byte[] rgb( Frame frame ) {
+    int length = frame.width * frame.height;
+    byte[] bytes = new byte[length * 3];
+    for( int i = 0; i < length; i++ ) {
+      int pixel = frame.pixels[i];
+      bytes[i * 3] = (byte)( pixel >> 16 );
+      bytes[i * 3 + 1] = (byte)( pixel >> 8 );
+      bytes[i * 3 + 2] = (byte)pixel;
+    }
+    return bytes;
+  }
+}
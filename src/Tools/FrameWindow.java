@@ -0,0 +1,158 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tools;
+
+import Peripherals.FrameSink;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * <p>Shows the frames of a display in a window. Only the rows a frame marks
+ * dirty are copied into the image behind the window, and only the band of
+ * the window covering them is repainted, so a frame that changes a few
+ * lines costs a few lines.</p>
+ * <p>Frames are copied on the display's thread and painted on the event
+ * dispatch thread; the image is locked while either touches it. Frames of
+ * another size than the window's are skipped.</p>
+ */
+public class FrameWindow implements FrameSink {
+
+  private final String title;
+  private final int width;
+  private final int height;
+  private final int scale;
+
+  //The image shown, and the pixels behind it
+  private final BufferedImage image;
+  private final int[] raster;
+  private final JPanel panel;
+  private JFrame window;
+
+  private volatile long presented;
+
+  /**
+   * Constructs the window, without showing it.
+   * @param title The title of the window
+   * @param width The width of the frames in pixels
+   * @param height The height of the frames in pixels
+   * @param scale The size on screen of each pixel
+   * @throws IllegalArgumentException If a dimension or the scale is less
+   * than 1
+   */
+  public FrameWindow( String title, int width, int height, int scale )
+    throws IllegalArgumentException {
+    if( width < 1 || height < 1 || scale < 1 ) {
+      throw new IllegalArgumentException( "Bad window geometry" );
+    }
+
+    this.title = title;
+    this.width = width;
+    this.height = height;
+    this.scale = scale;
+    image = new BufferedImage( width, height, BufferedImage.TYPE_INT_RGB );
+    raster = ( (DataBufferInt)image.getRaster().getDataBuffer() ).getData();
+
+    panel = new JPanel() {
+      @Override
+      protected void paintComponent( Graphics g ) {
+        synchronized( image ) {
+          g.drawImage( image, 0, 0, FrameWindow.this.width * scale,
+                       FrameWindow.this.height * scale, null );
+        }
+      }
+    };
+    panel.setPreferredSize( new Dimension( width * scale, height * scale ) );
+  }
+
+  /**
+   * Shows the window on the event dispatch thread.
+   * @throws HeadlessException If there is no display to show it on
+   */
+  public void open() throws HeadlessException {
+    if( GraphicsEnvironment.isHeadless() ) {
+      throw new HeadlessException();
+    }
+    SwingUtilities.invokeLater( new Runnable() {
+      @Override
+      public void run() {
+        window = new JFrame( title );
+        window.setDefaultCloseOperation( WindowConstants.DISPOSE_ON_CLOSE );
+        window.getContentPane().add( panel );
+        window.pack();
+        window.setResizable( false );
+        window.setVisible( true );
+      }
+    } );
+  }
+
+  /**
+   * Closes the window, if it was shown.
+   */
+  public void close() {
+    SwingUtilities.invokeLater( new Runnable() {
+      @Override
+      public void run() {
+        if( window != null ) {
+          window.dispose();
+        }
+      }
+    } );
+  }
+
+  @Override
+  public void frame( int[] pixels, int width, int height, long[] dirty,
+                     long number ) {
+    if( width != this.width || height != this.height ) {
+      return;
+    }
+
+    int first = height;
+    int last = -1;
+    synchronized( image ) {
+      for( int word = 0; word < dirty.length; word++ ) {
+        long bits = dirty[word];
+        while( bits != 0 ) {
+          int row = ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+          System.arraycopy( pixels, row * width, raster, row * width, width );
+          first = Math.min( first, row );
+          last = row;
+          bits &= bits - 1;
+        }
+      }
+    }
+    presented++;
+
+    //repaint is safe from any thread, and merges with pending repaints
+    if( last >= first ) {
+      panel.repaint( 0, first * scale, width * scale,
+                     ( last - first + 1 ) * scale );
+    }
+  }
+
+  /**
+   * The number of frames presented so far
+   * @return The number of frames
+   */
+  public long getPresented() {
+    return presented;
+  }
+
+  /**
+   * A pixel of the image shown
+   * @param x The column
+   * @param y The row
+   * @return The colour as an RGB value
+   */
+  public int getPixel( int x, int y ) {
+    synchronized( image ) {
+      return raster[y * width + x] & 0xFFFFFF;
+    }
+  }
+}
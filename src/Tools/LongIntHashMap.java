@@ -0,0 +1,130 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tools;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive long keys to primitive int
+ * values. It exists so that hot instrumentation paths never box their keys.
+ */
+public class LongIntHashMap {
+
+  //Returned by get() when a key has no mapping
+  public static final int MISSING = -1;
+
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+
+  /**
+   * Constructs an empty map.
+   */
+  public LongIntHashMap() {
+    keys = new long[MIN_CAPACITY];
+    values = new int[MIN_CAPACITY];
+    used = new boolean[MIN_CAPACITY];
+  }
+
+  /**
+   * Returns the value mapped to the key.
+   * @param key The key to look up
+   * @return The value, or MISSING if there is none
+   */
+  public int get( long key ) {
+    int slot = slotOf( key, keys.length );
+    while( used[slot] ) {
+      if( keys[slot] == key ) {
+        return values[slot];
+      }
+      slot = ( slot + 1 ) & ( keys.length - 1 );
+    }
+    return MISSING;
+  }
+
+  /**
+   * Maps the key to the value, replacing any previous mapping.
+   * @param key The key to map
+   * @param value The value to associate with the key
+   */
+  public void put( long key, int value ) {
+
+    //keep the load factor under one half
+    if( ( size + 1 ) * 2 > keys.length ) {
+      grow();
+    }
+
+    int slot = slotOf( key, keys.length );
+    while( used[slot] ) {
+      if( keys[slot] == key ) {
+        values[slot] = value;
+        return;
+      }
+      slot = ( slot + 1 ) & ( keys.length - 1 );
+    }
+
+    used[slot] = true;
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+  }
+
+  /**
+   * The number of mappings held by the map
+   * @return The number of keys
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every mapping.
+   */
+  public void clear() {
+    Arrays.fill( used, false );
+    size = 0;
+  }
+
+  /**
+   * Doubles the table and rehashes every key.
+   */
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    used = new boolean[oldKeys.length * 2];
+
+    for( int i = 0; i < oldKeys.length; i++ ) {
+      if( oldUsed[i] ) {
+        int slot = slotOf( oldKeys[i], keys.length );
+        while( used[slot] ) {
+          slot = ( slot + 1 ) & ( keys.length - 1 );
+        }
+        used[slot] = true;
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Scrambles the key and folds it into the table.
+   * @param key The key to hash
+   * @param capacity The table size, a power of two
+   * @return The preferred slot of the key
+   */
+  private static int slotOf( long key, int capacity ) {
+    key *= 0x9E3779B97F4A7C15L;
+    return (int)( key ^ ( key >>> 32 ) ) & ( capacity - 1 );
+  }
+}
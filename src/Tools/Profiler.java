@@ -0,0 +1,326 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   http://www.brendangregg.com/flamegraphs.html
+ */
+
+package Tools;
+
+import System.CallObserver;
+import System.CPU6502;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>A guest call-graph profiler. Once attached to a CPU it keeps a shadow
+ * of the guest call stack and charges every elapsed cycle to the routine on
+ * top of it.</p>
+ * <p>For each routine address it accumulates the number of calls, the
+ * inclusive cycles (spent in the routine and everything it called) and the
+ * exclusive cycles (spent in the routine alone). It also builds a call tree,
+ * which can be exported as folded stacks for flamegraph.pl.</p>
+ * <p>Returns are matched against the stack pointer saved at the call: a
+ * return pops every frame the stack has been unwound past, and no other.
+ * Guests that discard return addresses, return from an interrupt through
+ * several frames or jump through RTS to a pushed address do not corrupt the
+ * shadow stack.</p>
+ */
+public class Profiler implements CallObserver {
+
+  private static final int ROUTINES = 0x10000;
+  private static final int INITIAL_DEPTH = 64;
+  private static final int INITIAL_NODES = 1024;
+
+  //Call tree node standing for code run outside of any routine
+  private static final int ROOT = 0;
+  private static final String ROOT_NAME = "[top]";
+
+  //Per-routine totals, indexed by routine address
+  private final long[] calls;
+  private final long[] inclusive;
+  private final long[] exclusive;
+  private final int[] active;
+
+  //Shadow call stack
+  private int[] frameRoutine;
+  private int[] frameStackPointer;
+  private int[] frameNode;
+  private long[] frameEntry;
+  private int depth;
+
+  //Call tree, keyed by ( parent node << 16 ) | routine
+  private int[] nodeParent;
+  private int[] nodeRoutine;
+  private long[] nodeSelf;
+  private int nodeCount;
+  private final LongIntHashMap children;
+
+  //Cycle at which the last event was charged
+  private long lastCycle;
+
+  /**
+   * Constructs an empty profile.
+   */
+  public Profiler() {
+    calls = new long[ROUTINES];
+    inclusive = new long[ROUTINES];
+    exclusive = new long[ROUTINES];
+    active = new int[ROUTINES];
+
+    frameRoutine = new int[INITIAL_DEPTH];
+    frameStackPointer = new int[INITIAL_DEPTH];
+    frameNode = new int[INITIAL_DEPTH];
+    frameEntry = new long[INITIAL_DEPTH];
+
+    nodeParent = new int[INITIAL_NODES];
+    nodeRoutine = new int[INITIAL_NODES];
+    nodeSelf = new long[INITIAL_NODES];
+    nodeCount = 1; //the root
+    children = new LongIntHashMap();
+  }
+
+  /**
+   * Starts profiling the CPU from its current cycle.
+   * @param cpu The CPU to instrument
+   */
+  public void attach( CPU6502 cpu ) {
+    lastCycle = cpu.getCycles();
+    cpu.setCallObserver( this );
+  }
+
+  /**
+   * Stops profiling the CPU, charging any cycles since the last call or
+   * return to the routine that was running.
+   * @param cpu The CPU to stop instrumenting
+   */
+  public void detach( CPU6502 cpu ) {
+    cpu.setCallObserver( null );
+    charge( cpu.getCycles() );
+  }
+
+  @Override
+  public void routineEntered( int routine, int stackPointer, long cycle ) {
+    charge( cycle );
+
+    if( depth == frameRoutine.length ) {
+      growStack();
+    }
+
+    int parent = depth == 0 ? ROOT : frameNode[depth - 1];
+    frameRoutine[depth] = routine;
+    frameStackPointer[depth] = stackPointer;
+    frameNode[depth] = childOf( parent, routine );
+    frameEntry[depth] = cycle;
+    depth++;
+
+    calls[routine]++;
+    active[routine]++;
+  }
+
+  @Override
+  public void routineExited( int stackPointer, long cycle ) {
+    charge( cycle );
+
+    //the stack grows upward, so a frame has returned once the stack pointer
+    //is back at or below where it was before the call; a return that leaves
+    //the stack above the top frame, such as an RTS through a pushed
+    //address, returns from no call and is ignored
+    while( depth > 0 && frameStackPointer[depth - 1] >= stackPointer ) {
+      depth--;
+      int routine = frameRoutine[depth];
+      active[routine]--;
+
+      //recursive calls are only counted once, by the outermost frame
+      if( active[routine] == 0 ) {
+        inclusive[routine] += cycle - frameEntry[depth];
+      }
+    }
+  }
+
+  /**
+   * Forgets everything measured so far, including the shadow stack.
+   */
+  public void reset() {
+    Arrays.fill( calls, 0 );
+    Arrays.fill( inclusive, 0 );
+    Arrays.fill( exclusive, 0 );
+    Arrays.fill( active, 0 );
+    Arrays.fill( nodeSelf, 0 );
+    depth = 0;
+    nodeCount = 1;
+    children.clear();
+  }
+
+  /**
+   * The number of times the routine was entered.
+   * @param routine The 16-bit address of the routine
+   * @return The call count
+   */
+  public long getCalls( int routine ) {
+    return calls[routine & 0xFFFF];
+  }
+
+  /**
+   * The cycles spent in the routine and everything it called, including
+   * calls that have not returned yet.
+   * @param routine The 16-bit address of the routine
+   * @return The inclusive cycle count
+   */
+  public long getInclusiveCycles( int routine ) {
+    routine &= 0xFFFF;
+    long total = inclusive[routine];
+    for( int i = 0; i < depth; i++ ) {
+      if( frameRoutine[i] == routine ) {
+        total += lastCycle - frameEntry[i]; //outermost open frame
+        break;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * The cycles spent in the routine itself, excluding its callees.
+   * @param routine The 16-bit address of the routine
+   * @return The exclusive cycle count
+   */
+  public long getExclusiveCycles( int routine ) {
+    return exclusive[routine & 0xFFFF];
+  }
+
+  /**
+   * Writes a table of every routine that was called, hottest first.
+   * @param out The stream to write to
+   * @param symbols Names for the routines, or null to print addresses
+   */
+  public void writeReport( PrintStream out, SymbolTable symbols ) {
+    List< Integer > routines = new ArrayList< Integer >();
+    long total = 0;
+    for( int routine = 0; routine < ROUTINES; routine++ ) {
+      if( calls[routine] != 0 ) {
+        routines.add( routine );
+      }
+      total += exclusive[routine];
+    }
+    total += nodeSelf[ROOT];
+
+    Collections.sort( routines, new Comparator< Integer >() {
+      @Override
+      public int compare( Integer a, Integer b ) {
+        return Long.compare( exclusive[b], exclusive[a] );
+      }
+    } );
+
+    out.printf( "%-24s %10s %14s %14s %7s\n", "Routine", "Calls",
+                "Inclusive", "Exclusive", "Self %" );
+    for( int routine : routines ) {
+      out.printf( "%-24s %10d %14d %14d %6.2f%%\n",
+                  nameOf( routine, symbols ), calls[routine],
+                  getInclusiveCycles( routine ), exclusive[routine],
+                  total == 0 ? 0.0 : 100.0 * exclusive[routine] / total );
+    }
+  }
+
+  /**
+   * Writes the call tree in the folded stack format read by flamegraph.pl,
+   * one line per call path followed by its exclusive cycle count.
+   * @param file The file to overwrite
+   * @param symbols Names for the routines, or null to print addresses
+   * @throws IOException if the file could not be written to
+   */
+  public void writeFlameGraph( File file, SymbolTable symbols )
+    throws IOException {
+
+    PrintWriter out = new PrintWriter( new BufferedWriter(
+      new FileWriter( file ) ) );
+    try {
+      StringBuilder path = new StringBuilder();
+      for( int node = 0; node < nodeCount; node++ ) {
+        if( nodeSelf[node] == 0 ) {
+          continue;
+        }
+
+        path.setLength( 0 );
+        for( int n = node; n != ROOT; n = nodeParent[n] ) {
+          path.insert( 0, nameOf( nodeRoutine[n], symbols ) );
+          path.insert( 0, ';' );
+        }
+        path.insert( 0, ROOT_NAME );
+
+        out.print( path );
+        out.print( ' ' );
+        out.println( nodeSelf[node] );
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Charges the cycles elapsed since the last event to the running routine.
+   * @param cycle The current CPU cycle
+   */
+  private void charge( long cycle ) {
+    long elapsed = cycle - lastCycle;
+    lastCycle = cycle;
+
+    if( depth == 0 ) {
+      nodeSelf[ROOT] += elapsed;
+    }
+    else {
+      exclusive[frameRoutine[depth - 1]] += elapsed;
+      nodeSelf[frameNode[depth - 1]] += elapsed;
+    }
+  }
+
+  /**
+   * Finds or creates the call tree node for a routine called from a node.
+   * @param parent The calling node
+   * @param routine The 16-bit address of the called routine
+   * @return The called node
+   */
+  private int childOf( int parent, int routine ) {
+    long key = ( (long)parent << 16 ) | routine;
+    int node = children.get( key );
+    if( node == LongIntHashMap.MISSING ) {
+      if( nodeCount == nodeParent.length ) {
+        nodeParent = Arrays.copyOf( nodeParent, nodeCount * 2 );
+        nodeRoutine = Arrays.copyOf( nodeRoutine, nodeCount * 2 );
+        nodeSelf = Arrays.copyOf( nodeSelf, nodeCount * 2 );
+      }
+      node = nodeCount++;
+      nodeParent[node] = parent;
+      nodeRoutine[node] = routine;
+      children.put( key, node );
+    }
+    return node;
+  }
+
+  /**
+   * Doubles the depth of the shadow stack.
+   */
+  private void growStack() {
+    int size = frameRoutine.length * 2;
+    frameRoutine = Arrays.copyOf( frameRoutine, size );
+    frameStackPointer = Arrays.copyOf( frameStackPointer, size );
+    frameNode = Arrays.copyOf( frameNode, size );
+    frameEntry = Arrays.copyOf( frameEntry, size );
+  }
+
+  /**
+   * Names a routine for a report.
+   * @param routine The 16-bit address of the routine
+   * @param symbols The symbol table, or null
+   * @return The symbol or hex address
+   */
+  private static String nameOf( int routine, SymbolTable symbols ) {
+    return symbols != null ? symbols.nameOf( routine )
+                           : String.format( "$%04X", routine );
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References:
+ *   https://vice-emu.sourceforge.io/vice_12.html
+ */
+
+package Tools;
+
+import java.io.*;
+
+/**
+ * Names for guest addresses, loaded from an assembler symbol file. Each line
+ * may take any of the following forms:
+ * <ul>
+ * <li>al C000 .reset (VICE label files, as written by ld65 -Ln)</li>
+ * <li>reset = $C000</li>
+ * <li>C000 reset</li>
+ * </ul>
+ * Blank lines and lines starting with ';' or '#' are ignored.
+ */
+public class SymbolTable {
+
+  private static final int ADDRESSES = 0x10000;
+
+  private String[] names;
+
+  /**
+   * Constructs an empty table.
+   */
+  public SymbolTable() {
+    names = new String[ADDRESSES];
+  }
+
+  /**
+   * Constructs a copy of another table.
+   * @param other The table to copy
+   */
+  public SymbolTable( SymbolTable other ) {
+    names = other.names.clone();
+  }
+
+  /**
+   * Reads a symbol file into a new table.
+   * @param file The symbol file
+   * @return The table containing every symbol in the file
+   * @throws IOException if the file could not be read from or does not exist
+   * @throws IllegalArgumentException if a line cannot be understood
+   */
+  public static SymbolTable load( File file ) throws IOException {
+    SymbolTable table = new SymbolTable();
+    BufferedReader reader = new BufferedReader( new FileReader( file ) );
+    try {
+      String line;
+      while( ( line = reader.readLine() ) != null ) {
+        table.parse( line.trim() );
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return table;
+  }
+
+  /**
+   * Names an address.
+   * @param address The 16-bit address
+   * @param name The name of the address
+   */
+  public void define( int address, String name ) {
+    names[address & 0xFFFF] = name;
+  }
+
+  /**
+   * Looks up the name given to an address.
+   * @param address The 16-bit address
+   * @return The name, or null if the address has none
+   */
+  public String lookup( int address ) {
+    return names[address & 0xFFFF];
+  }
+
+  /**
+   * Names an address for display, falling back to its hex value.
+   * @param address The 16-bit address
+   * @return The symbol, or $HHLL if the address has none
+   */
+  public String nameOf( int address ) {
+    String name = names[address & 0xFFFF];
+    return name != null ? name : String.format( "$%04X", address & 0xFFFF );
+  }
+
+  /**
+   * Understands a single line of a symbol file.
+   * @param line The trimmed line
+   */
+  private void parse( String line ) {
+    if( line.isEmpty() || line.startsWith( ";" ) || line.startsWith( "#" ) ) {
+      return;
+    }
+
+    String[] fields = line.split( "\\s+" );
+
+    //al 00C000 .reset
+    if( fields.length == 3 && fields[0].equals( "al" ) ) {
+      String name = fields[2].startsWith( "." ) ? fields[2].substring( 1 )
+                                                 : fields[2];
+      define( parseHex( fields[1], line ), name );
+    }
+
+    //reset = $C000
+    else if( fields.length == 3 && fields[1].equals( "=" ) ) {
+      define( parseHex( fields[2], line ), fields[0] );
+    }
+
+    //C000 reset
+    else if( fields.length == 2 ) {
+      define( parseHex( fields[0], line ), fields[1] );
+    }
+
+    else {
+      throw new IllegalArgumentException( "Unknown symbol line: " + line );
+    }
+  }
+
+  /**
+   * Parses a hex address with an optional $ or 0x prefix.
+   * @param text The address text
+   * @param line The line the address came from, for error reporting
+   * @return The address
+   */
+  private static int parseHex( String text, String line ) {
+    if( text.startsWith( "$" ) ) {
+      text = text.substring( 1 );
+    }
+    else if( text.startsWith( "0x" ) || text.startsWith( "0X" ) ) {
+      text = text.substring( 2 );
+    }
+
+    try {
+      return Integer.parseInt( text, 16 ) & 0xFFFF;
+    }
+    catch( NumberFormatException e ) {
+      throw new IllegalArgumentException( "Bad address in symbol line: " +
+                                          line );
+    }
+  }
+}
@@ -0,0 +1,529 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tools;
+
+import System.Breakpoints;
+import System.Bus;
+import System.BusDevice;
+import System.BusMonitor;
+import System.CPU6502;
+import System.CPUState;
+import System.DebugListener;
+import System.RandomAccessMemory;
+import System.ReadOnlyMemory;
+import System.Scheduler;
+
+import java.util.Arrays;
+
+/**
+ * <p>Reverse execution for a CPU. While attached, the machine takes a
+ * snapshot of the CPU and its memory every few instructions and journals
+ * every write and every byte read from a device other than memory. Going
+ * back in time restores the nearest earlier snapshot and replays forward
+ * from it, feeding device reads from the journal instead of the devices, so
+ * the replay retraces exactly what happened and runs as fast as the
+ * interpreter.</p>
+ * <p>Moving backwards and then stepping again abandons the old future: the
+ * journal and snapshots after the new position are discarded.</p>
+ * <p>Snapshots include the device events waiting on the scheduler, and
+ * those events fire again during the replay at the cycles they fired live,
+ * so transfers timed by them are retraced. When a device access schedules
+ * or cancels events, a copy of the events after the instruction is
+ * journaled and put back when the replay reaches it. A device still sees
+ * each read and write only once, so its registers are not rewound, and an
+ * event that changes its own device's state changes it again.</p>
+ * <p>The interrupt lines are journaled whenever they change, as seen before
+ * and after each instruction, whether a device, an event, a host routine or
+ * another thread changed them. The replay holds the lines to the journal,
+ * so an event reading a device's later registers cannot raise a request
+ * that was not raised live.</p>
+ */
+public class TimeMachine implements BusMonitor {
+
+  private static final int INITIAL_JOURNAL = 4096;
+
+  //Journal entry kinds
+  private static final byte WRITE = 0;
+  private static final byte INPUT = 1;
+  private static final byte LINES = 2;
+  private static final byte LINES_AFTER = 3;
+  private static final byte EVENTS = 4;
+
+  //Bits of the interrupt lines in a LINES entry
+  private static final int LINE_IRQ = 1;
+  private static final int LINE_NMI = 2;
+
+  private final CPU6502 cpu;
+  private final Scheduler scheduler;
+  private final Bus bus;
+  private final RandomAccessMemory[] memories;
+  private final int interval;
+
+  //Snapshot ring, oldest at index first
+  private final long[] snapshotAt;
+  private final CPUState[] states;
+  private final byte[][][] images;
+  private int first;
+  private int count;
+
+  //Journal of bus accesses, in execution order
+  private long[] entryAt;
+  private long[] entryAddress;
+  private int[] entryValue;
+  private byte[] entryKind;
+  private CPUState[] entryEvents;
+  private int entries;
+
+  //Instructions executed since the machine was attached
+  private long position;
+
+  //Next journal entry to feed while replaying, or -1 when live
+  private int replay;
+
+  //The interrupt lines as last journaled
+  private boolean irq;
+  private boolean nmi;
+
+  //Whether a device access since the last instruction changed the events
+  private boolean rescheduled;
+
+  //Whether the CPU fused instructions before it was attached
+  private boolean fusion;
+
+  /**
+   * Constructs a time machine for a CPU.
+   * @param cpu The CPU to record
+   * @param bus The bus the CPU is connected to
+   * @param interval The number of instructions between snapshots
+   * @param snapshots The number of snapshots kept. The oldest is dropped
+   * once this many have been taken, which limits how far back one can go.
+   * @param memories Every memory whose contents the CPU can change. Reads
+   * from them and from ROM are not journaled.
+   * @throws IllegalArgumentException If interval or snapshots is less than 1
+   */
+  public TimeMachine( CPU6502 cpu, Bus bus, int interval, int snapshots,
+                      RandomAccessMemory... memories )
+    throws IllegalArgumentException {
+
+    if( interval < 1 || snapshots < 1 ) {
+      throw new IllegalArgumentException( "Bad snapshot interval or count" );
+    }
+
+    this.cpu = cpu;
+    scheduler = cpu.getScheduler();
+    this.bus = bus;
+    this.memories = memories.clone();
+    this.interval = interval;
+
+    snapshotAt = new long[snapshots];
+    states = new CPUState[snapshots];
+    images = new byte[snapshots][][];
+    for( int i = 0; i < snapshots; i++ ) {
+      states[i] = new CPUState();
+      images[i] = new byte[memories.length][];
+      for( int m = 0; m < memories.length; m++ ) {
+        images[i][m] = new byte[memories[m].getSize()];
+      }
+    }
+
+    entryAt = new long[INITIAL_JOURNAL];
+    entryAddress = new long[INITIAL_JOURNAL];
+    entryValue = new int[INITIAL_JOURNAL];
+    entryKind = new byte[INITIAL_JOURNAL];
+    entryEvents = new CPUState[INITIAL_JOURNAL];
+    replay = -1;
+  }
+
+  /**
+   * Starts recording from the current state of the CPU.
+   */
+  public void attach() {
+    position = 0;
+    first = 0;
+    count = 0;
+    forget( 0 );
+    replay = -1;
+    irq = cpu.isIRQRequested();
+    nmi = cpu.isNMIRequested();
+    rescheduled = false;
+    snapshot();
+    bus.setMonitor( this );
+
+    //every instruction must be one step for positions to be exact
+    fusion = cpu.isFusionEnabled();
+    cpu.setFusionEnabled( false );
+  }
+
+  /**
+   * Stops recording and forgets the history.
+   */
+  public void detach() {
+    bus.setMonitor( null );
+    cpu.setFusionEnabled( fusion );
+    count = 0;
+    forget( 0 );
+  }
+
+  /**
+   * The number of instructions executed since recording started
+   * @return The current position in the history
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * The earliest position that can still be reached
+   * @return The position of the oldest snapshot
+   */
+  public long getEarliest() {
+    return snapshotAt[first];
+  }
+
+  /**
+   * Executes one instruction, recording it.
+   * @return false if a breakpoint suspended the CPU instead
+   */
+  public boolean step() {
+    //run the events due first, so the lines are seen as the CPU sees them
+    runDue();
+    sample( LINES );
+
+    cpu.step();
+    if( cpu.isSuspended() ) {
+      //the replay takes any interrupt with the instruction after it
+      sample( LINES_AFTER );
+      return false;
+    }
+
+    //what the step did that the replay cannot redo by itself
+    if( rescheduled ) {
+      CPUState events = new CPUState();
+      scheduler.save( events );
+      journal( EVENTS, 0, 0 );
+      entryEvents[entries - 1] = events;
+      rescheduled = false;
+    }
+    sample( LINES_AFTER );
+
+    position++;
+    if( position % interval == 0 ) {
+      snapshot();
+    }
+    return true;
+  }
+
+  /**
+   * Goes back one instruction.
+   * @return false if the history does not reach that far
+   */
+  public boolean stepBack() {
+    return position > 0 && seek( position - 1 );
+  }
+
+  /**
+   * Goes back to just before the most recent instruction that wrote to an
+   * address.
+   * @param address The bus address
+   * @return false if no write to the address is in the history
+   */
+  public boolean runBackToWrite( long address ) {
+    long earliest = snapshotAt[first];
+    for( int i = entries - 1; i >= 0 && entryAt[i] >= earliest; i-- ) {
+      if( entryKind[i] == WRITE && entryAddress[i] == address &&
+          entryAt[i] < position ) {
+        return seek( entryAt[i] );
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Moves to a position in the history. Positions ahead of the current one
+   * are reached by executing live.
+   * @param target The number of instructions executed at the destination
+   * @return false if the target is before the earliest snapshot, or a
+   * breakpoint stopped a forward run
+   */
+  public boolean seek( long target ) {
+    if( count == 0 || target < snapshotAt[first] ) {
+      return false;
+    }
+
+    while( position < target ) {
+      if( !step() ) {
+        return false;
+      }
+    }
+    if( position == target ) {
+      return true;
+    }
+
+    //latest snapshot at or before the target
+    int slot = 0;
+    for( int i = count - 1; i >= 0; i-- ) {
+      slot = ( first + i ) % snapshotAt.length;
+      if( snapshotAt[slot] <= target ) {
+        break;
+      }
+    }
+    restore( slot );
+
+    //replay without stopping at breakpoints
+    Breakpoints breakpoints = bus.getBreakpoints();
+    DebugListener listener = breakpoints.getListener();
+    breakpoints.setListener( null );
+    replay = firstEntryAt( position );
+    int signal = replay;
+    try {
+      while( position < target ) {
+        runDue();
+        signal = apply( signal, false );
+        cpu.step();
+        signal = apply( signal, true );
+        position++;
+      }
+    }
+    finally {
+      breakpoints.setListener( listener );
+      replay = -1;
+    }
+
+    irq = cpu.isIRQRequested();
+    nmi = cpu.isNMIRequested();
+    truncate();
+    return true;
+  }
+
+  @Override
+  public int read( long address, BusDevice device ) {
+    if( isMemory( device ) ) {
+      return device.readByte( address );
+    }
+
+    if( replay >= 0 ) {
+      while( replay < entries && entryKind[replay] != INPUT ) {
+        replay++;
+      }
+      if( replay < entries ) {
+        return entryValue[replay++];
+      }
+      replay = -1; //journal ran out, read live from here on
+    }
+
+    long changes = scheduler.getChanges();
+    int value = device.readByte( address );
+    journal( INPUT, address, value );
+    rescheduled |= scheduler.getChanges() != changes;
+    return value;
+  }
+
+  @Override
+  public void write( long address, int value, BusDevice device ) {
+    if( replay >= 0 ) {
+      if( isMemory( device ) ) {
+        device.writeByte( address, value );
+      }
+      return; //devices already saw this write the first time
+    }
+
+    long changes = scheduler.getChanges();
+    device.writeByte( address, value );
+    journal( WRITE, address, value );
+    rescheduled |= scheduler.getChanges() != changes;
+  }
+
+  /**
+   * Whether a device is restored from the snapshots or never changes
+   * @param device The device to test
+   * @return true if its reads need not be journaled
+   */
+  private boolean isMemory( BusDevice device ) {
+    for( RandomAccessMemory memory : memories ) {
+      if( memory == device ) {
+        return true;
+      }
+    }
+    return device instanceof ReadOnlyMemory;
+  }
+
+  /**
+   * Fires the events whose deadlines the CPU has reached, as it would at
+   * the start of its next step.
+   */
+  private void runDue() {
+    if( cpu.getCycles() >= scheduler.getDeadline() ) {
+      scheduler.runDue( cpu.getCycles() );
+    }
+  }
+
+  /**
+   * Journals the interrupt lines if they changed since last journaled.
+   * @param kind LINES before an instruction or LINES_AFTER after it
+   */
+  private void sample( byte kind ) {
+    if( cpu.isIRQRequested() != irq || cpu.isNMIRequested() != nmi ) {
+      irq = cpu.isIRQRequested();
+      nmi = cpu.isNMIRequested();
+      journal( kind, 0, ( irq ? LINE_IRQ : 0 ) | ( nmi ? LINE_NMI : 0 ) );
+    }
+  }
+
+  /**
+   * Appends an entry to the journal.
+   * @param kind WRITE, INPUT, LINES, LINES_AFTER or EVENTS
+   * @param address The bus address
+   * @param value The byte value
+   */
+  private void journal( byte kind, long address, int value ) {
+    if( entries == entryAt.length ) {
+      int size = entries * 2;
+      entryAt = Arrays.copyOf( entryAt, size );
+      entryAddress = Arrays.copyOf( entryAddress, size );
+      entryValue = Arrays.copyOf( entryValue, size );
+      entryKind = Arrays.copyOf( entryKind, size );
+      entryEvents = Arrays.copyOf( entryEvents, size );
+    }
+    entryAt[entries] = position;
+    entryAddress[entries] = address;
+    entryValue[entries] = value;
+    entryKind[entries] = kind;
+    entries++;
+  }
+
+  /**
+   * Acts on the journal before the current instruction, or after it, and
+   * then holds the interrupt lines to those journaled.
+   * @param from The first journal entry not yet looked at
+   * @param after Whether the current instruction has been executed
+   * @return The first entry not yet acted on
+   */
+  private int apply( int from, boolean after ) {
+    for( ; from < entries && entryAt[from] <= position; from++ ) {
+      byte kind = entryKind[from];
+      if( !after && entryAt[from] == position &&
+          ( kind == LINES_AFTER || kind == EVENTS ) ) {
+        break;
+      }
+      if( kind == LINES || kind == LINES_AFTER ) {
+        irq = ( entryValue[from] & LINE_IRQ ) != 0;
+        nmi = ( entryValue[from] & LINE_NMI ) != 0;
+      }
+      else if( kind == EVENTS ) {
+        scheduler.restore( entryEvents[from] );
+      }
+    }
+
+    if( irq ) {
+      cpu.requestIRQ();
+    }
+    else {
+      cpu.cancelIRQ();
+    }
+    if( nmi ) {
+      cpu.requestNMI();
+    }
+    else {
+      cpu.cancelNMI();
+    }
+    return from;
+  }
+
+  /**
+   * Finds the first journal entry made at or after a position.
+   * @param at The instruction position
+   * @return The index of the entry, or the number of entries
+   */
+  private int firstEntryAt( long at ) {
+    int low = 0;
+    int high = entries;
+    while( low < high ) {
+      int mid = ( low + high ) >>> 1;
+      if( entryAt[mid] < at ) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Takes a snapshot at the current position, dropping the oldest one and
+   * the journal before the new oldest if the ring is full.
+   */
+  private void snapshot() {
+    int slot;
+    if( count < snapshotAt.length ) {
+      slot = ( first + count ) % snapshotAt.length;
+      count++;
+    }
+    else {
+      slot = first;
+      first = ( first + 1 ) % snapshotAt.length;
+      discardBefore( snapshotAt[first] );
+    }
+
+    snapshotAt[slot] = position;
+    cpu.saveState( states[slot] );
+    for( int m = 0; m < memories.length; m++ ) {
+      memories[m].copyTo( images[slot][m] );
+    }
+  }
+
+  /**
+   * Puts the CPU and memory back as they were at a snapshot.
+   * @param slot The snapshot to restore
+   */
+  private void restore( int slot ) {
+    position = snapshotAt[slot];
+    cpu.restoreState( states[slot] );
+    irq = cpu.isIRQRequested();
+    nmi = cpu.isNMIRequested();
+    for( int m = 0; m < memories.length; m++ ) {
+      memories[m].copyFrom( images[slot][m] );
+    }
+  }
+
+  /**
+   * Forgets the journal and snapshots after the current position.
+   */
+  private void truncate() {
+    forget( firstEntryAt( position ) );
+    while( count > 1 &&
+           snapshotAt[( first + count - 1 ) % snapshotAt.length] > position ) {
+      count--;
+    }
+  }
+
+  /**
+   * Forgets the journal before a position, once enough has built up.
+   * @param at The instruction position
+   */
+  private void discardBefore( long at ) {
+    int stale = firstEntryAt( at );
+    if( stale > entries / 2 ) {
+      int kept = entries - stale;
+      System.arraycopy( entryAt, stale, entryAt, 0, kept );
+      System.arraycopy( entryAddress, stale, entryAddress, 0, kept );
+      System.arraycopy( entryValue, stale, entryValue, 0, kept );
+      System.arraycopy( entryKind, stale, entryKind, 0, kept );
+      System.arraycopy( entryEvents, stale, entryEvents, 0, kept );
+      forget( kept );
+    }
+  }
+
+  /**
+   * Shortens the journal, letting go of the events it no longer holds.
+   * @param kept The number of entries kept
+   */
+  private void forget( int kept ) {
+    Arrays.fill( entryEvents, kept, Math.max( entries, kept ), null );
+    entries = kept;
+  }
+}
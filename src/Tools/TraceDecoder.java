@@ -0,0 +1,121 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tools;
+
+import System.TraceBuffer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Turns a binary trace file, written by TraceBuffer.dump() or TraceWriter,
+ * into a disassembled listing. This runs offline, never alongside the CPU.
+ * <p>Usage: TraceDecoder &lt;trace file&gt; [output file]</p>
+ */
+public class TraceDecoder {
+
+  private static final String LINE_FMT =
+    "%12d  %04X  %-9s  %-16s A=%02X X=%02X Y=%02X SP=%02X P=%8s\n";
+
+  public static void main( String[] args ) throws IOException {
+    if( args.length < 1 ) {
+      System.err.println( "Usage: TraceDecoder <trace file> [output file]" );
+      return;
+    }
+
+    PrintStream out = args.length > 1 ?
+                      new PrintStream( new BufferedOutputStream(
+                        new FileOutputStream( args[1] ) ) ) : System.out;
+    try {
+      decode( new File( args[0] ), out );
+    }
+    finally {
+      out.flush();
+      if( out != System.out ) {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Decodes every record of a trace file.
+   * @param file The trace file
+   * @param out The stream to print to
+   * @throws IOException if the file could not be read or is not a trace
+   */
+  public static void decode( File file, PrintStream out ) throws IOException {
+    FileInputStream fis = new FileInputStream( file );
+    try {
+      FileChannel channel = fis.getChannel();
+      ByteBuffer data = channel.map( FileChannel.MapMode.READ_ONLY, 0,
+                                     channel.size() )
+                               .order( ByteOrder.LITTLE_ENDIAN );
+
+      if( data.remaining() < TraceBuffer.HEADER_SIZE ||
+          data.getInt() != TraceBuffer.MAGIC ) {
+        throw new IOException( file + " is not a 6502 trace" );
+      }
+      int size = data.getInt();
+
+      for( int base = TraceBuffer.HEADER_SIZE; base + size <= data.limit();
+           base += size ) {
+        printRecord( data, base, out );
+      }
+    }
+    finally {
+      fis.close();
+    }
+  }
+
+  /**
+   * Prints a single record.
+   * @param data The trace data
+   * @param base The offset of the record
+   * @param out The stream to print to
+   */
+  public static void printRecord( ByteBuffer data, int base, PrintStream out ) {
+    int pc = data.getShort( base + TraceBuffer.PC ) & 0xFFFF;
+    int opcode = data.get( base + TraceBuffer.OPCODE ) & 0xFF;
+    int operand = data.getShort( base + TraceBuffer.OPERAND ) & 0xFFFF;
+
+    //only the operand bytes the instruction really has
+    StringBuilder bytes = new StringBuilder( String.format( "%02X", opcode ) );
+    for( int i = 1; i < Disassembler.length( opcode ); i++ ) {
+      bytes.append( String.format( " %02X", ( operand >> ( 8 * i - 8 ) ) &
+                                            0xFF ) );
+    }
+
+    out.format( LINE_FMT,
+                data.getLong( base + TraceBuffer.CYCLE ),
+                pc,
+                bytes,
+                Disassembler.format( pc, opcode, operand, null ),
+                data.get( base + TraceBuffer.A ) & 0xFF,
+                data.get( base + TraceBuffer.X ) & 0xFF,
+                data.get( base + TraceBuffer.Y ) & 0xFF,
+                data.get( base + TraceBuffer.SP ) & 0xFF,
+                flags( data.get( base + TraceBuffer.STATUS ) & 0xFF ) );
+  }
+
+  /**
+   * Spells out the status register, upper case for set flags.
+   * @param status The status register
+   * @return The flags as NV-BDIZC
+   */
+  private static String flags( int status ) {
+    String names = "NV-BDIZC";
+    StringBuilder sb = new StringBuilder( 8 );
+    for( int bit = 7; bit >= 0; bit-- ) {
+      char c = names.charAt( 7 - bit );
+      sb.append( ( status & ( 1 << bit ) ) != 0 ? c
+                                               : Character.toLowerCase( c ) );
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Author: agent
+ * Date: 19 October 2026
+ * References: None
+ */
+
+package Tools;
+
+import System.TraceBuffer;
+
+import java.io.*;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Streams a TraceBuffer to a memory-mapped file from a background thread,
+ * so the complete instruction history survives beyond the ring buffer.</p>
+ * <p>The CPU is never made to wait. If the writer falls a full buffer behind,
+ * the records it missed are counted as dropped and skipped.</p>
+ */
+public class TraceWriter {
+
+  //How much of the file is mapped at a time
+  private static final int MAP_SIZE = 64 * 1024 * 1024;
+
+  //How many records are moved per pass
+  private static final int BATCH = 4096;
+
+  //How long to sleep when the trace is idle
+  private static final long IDLE_NANOS = 1000000L;
+
+  private final TraceBuffer trace;
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final ByteBuffer staging;
+  private final Thread thread;
+
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long next;
+  private volatile long dropped;
+  private volatile boolean running;
+
+  /**
+   * Constructs a writer, truncating the file. Recording starts with the
+   * oldest record still held by the trace.
+   * @param trace The trace to stream
+   * @param output The file to overwrite
+   * @throws IOException if the file could not be opened or mapped
+   */
+  public TraceWriter( TraceBuffer trace, File output ) throws IOException {
+    this.trace = trace;
+    file = new RandomAccessFile( output, "rw" );
+    file.setLength( 0 );
+    channel = file.getChannel();
+    staging = ByteBuffer.allocateDirect( BATCH * TraceBuffer.RECORD_SIZE );
+    next = Math.max( 0, trace.getPosition() - trace.getCapacity() );
+
+    map( 0 );
+    ByteBuffer header = ByteBuffer.allocate( TraceBuffer.HEADER_SIZE );
+    TraceBuffer.writeHeader( header );
+    header.flip();
+    window.put( header );
+
+    thread = new Thread( new Runnable() {
+      @Override
+      public void run() {
+        drainLoop();
+      }
+    }, "6502 trace writer" );
+    thread.setDaemon( true );
+  }
+
+  /**
+   * Starts streaming on the background thread.
+   */
+  public void start() {
+    running = true;
+    thread.start();
+  }
+
+  /**
+   * Stops the background thread, writes out everything recorded so far and
+   * trims the file to its contents.
+   * @throws IOException if the file could not be written to
+   */
+  public void close() throws IOException {
+    running = false;
+    LockSupport.unpark( thread );
+    try {
+      thread.join();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+
+    drain();
+    long length = windowStart + window.position();
+    window.force();
+    window = null;
+    file.setLength( length );
+    file.close();
+  }
+
+  /**
+   * The number of records lost because the writer fell behind
+   * @return The number of dropped records
+   */
+  public long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * Keeps draining until closed, sleeping briefly whenever the trace is idle.
+   */
+  private void drainLoop() {
+    try {
+      while( running ) {
+        if( drain() == 0 ) {
+          LockSupport.parkNanos( IDLE_NANOS );
+        }
+      }
+    }
+    catch( IOException e ) {
+      running = false;
+      System.err.println( "6502 - Trace writer stopped: " + e.getMessage() );
+    }
+  }
+
+  /**
+   * Copies every record written since the last pass into the file.
+   * @return The number of records written
+   * @throws IOException if the file could not be extended
+   */
+  private int drain() throws IOException {
+    int written = 0;
+    long head = trace.getPosition();
+    int capacity = trace.getCapacity();
+
+    while( next < head ) {
+
+      //skip whatever the CPU has already overwritten
+      if( head - next > capacity ) {
+        dropped += head - capacity - next;
+        next = head - capacity;
+      }
+
+      int count = (int)Math.min( BATCH, head - next );
+      staging.clear();
+      trace.copy( next, count, staging );
+
+      //records overwritten while copying are torn and must be skipped. The
+      //fence keeps the copy before the second look at the position, and
+      //the slot of the oldest record may already hold the next, unpublished
+      VarHandle.acquireFence();
+      long oldest = trace.getPosition() - capacity + 1;
+      int torn = (int)Math.max( 0, Math.min( count, oldest - next ) );
+      dropped += torn;
+
+      staging.flip();
+      staging.position( torn * TraceBuffer.RECORD_SIZE );
+      write( staging );
+
+      written += count - torn;
+      next += count;
+    }
+
+    return written;
+  }
+
+  /**
+   * Appends the buffer to the file, mapping further regions as needed.
+   * @param data The records to append
+   * @throws IOException if the file could not be extended
+   */
+  private void write( ByteBuffer data ) throws IOException {
+    while( data.hasRemaining() ) {
+      if( !window.hasRemaining() ) {
+        map( windowStart + window.capacity() );
+      }
+
+      int chunk = Math.min( data.remaining(), window.remaining() );
+      ByteBuffer slice = data.duplicate();
+      slice.limit( slice.position() + chunk );
+      window.put( slice );
+      data.position( data.position() + chunk );
+    }
+  }
+
+  /**
+   * Maps the next region of the file.
+   * @param start The file offset of the region
+   * @throws IOException if the region could not be mapped
+   */
+  private void map( long start ) throws IOException {
+    if( window != null ) {
+      window.force();
+    }
+    windowStart = start;
+    window = channel.map( FileChannel.MapMode.READ_WRITE, start, MAP_SIZE );
+    window.order( ByteOrder.LITTLE_ENDIAN );
+  }
+}